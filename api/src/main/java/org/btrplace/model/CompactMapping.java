@@ -0,0 +1,692 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.model;
+
+import gnu.trove.set.hash.THashSet;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * A {@link Mapping} that stores the placement into arrays indexed by the element identifiers.
+ * <p>
+ * The VMs hosted by a node, the ready VMs, and the nodes having a same state are chained into
+ * linked lists while the state and the location of each element are directly accessible.
+ * No {@link VM} or {@link Node} object is stored. The arrays are {@link CopyOnWriteIntArray}s
+ * so a copy shares its state with the original mapping. Copying is then proportional to the
+ * number of pages of the arrays and a modification only duplicates the pages it touches.
+ * This makes the mapping suitable for taking many snapshots of a large model, as long as
+ * the elements have dense identifiers, such as the ones provided by {@link DefaultElementBuilder}.
+ * <p>
+ * Methods {@code is*()}, {@link #getVMLocation(VM)}, {@link #addRunningVM(VM, Node)}, {@link #addSleepingVM(VM, Node)},
+ * {@link #addReadyVM(VM)}, {@link #remove(VM)}, {@link #clear()} and {@link #clearAllVMs()} have a O(1) complexity
+ * when the touched pages are not shared.
+ * Methods {@link #getRunningVMs(Node)}, {@link #getSleepingVMs(Node)}, {@link #getReadyVMs()},
+ * {@link #getOnlineNodes()} and {@link #getOfflineNodes()} return read-only views that reflect the mapping
+ * without copying it. The other methods returning sets make new ones.
+ * <p>
+ * As a copy modifies the sharing status of the pages, a mapping must not be copied while
+ * another thread is modifying it.
+ *
+ * @author Fabien Hermenier
+ */
+public class CompactMapping extends AbstractMapping {
+
+    private static final int NONE = -1;
+
+    private static final int RUNNING_STATE = 0;
+
+    private static final int SLEEPING_STATE = 1;
+
+    private static final int READY_STATE = 2;
+
+    private static final int ONLINE_STATE = 0;
+
+    private static final int OFFLINE_STATE = 1;
+
+    /**
+     * The state of each VM.
+     */
+    private final CopyOnWriteIntArray vmState;
+
+    /**
+     * The identifier of the node hosting each VM, {@code -1} if none.
+     */
+    private final CopyOnWriteIntArray vmHost;
+
+    /**
+     * The next and the previous VM in the list of the host or in the list of ready VMs.
+     */
+    private final CopyOnWriteIntArray vmNext;
+
+    private final CopyOnWriteIntArray vmPrev;
+
+    private int nbVMs;
+
+    private int readyHead;
+
+    private int nbReady;
+
+    /**
+     * The state of each node.
+     */
+    private final CopyOnWriteIntArray nodeState;
+
+    /**
+     * The next and the previous node in the list of nodes having the same state.
+     */
+    private final CopyOnWriteIntArray nodeNext;
+
+    private final CopyOnWriteIntArray nodePrev;
+
+    /**
+     * The first node of each list (online, offline).
+     */
+    private final int[] nodeHead;
+
+    private final int[] nbNodes;
+
+    /**
+     * The first VM hosted by each node, by state (running or sleeping).
+     */
+    private final CopyOnWriteIntArray[] hostHead;
+
+    private final CopyOnWriteIntArray[] nbHosted;
+
+    /**
+     * Incremented at each modification to make the iterators fail-fast.
+     */
+    private int modCount;
+
+    /**
+     * Create a new mapping.
+     */
+    public CompactMapping() {
+        vmState = new CopyOnWriteIntArray(NONE);
+        vmHost = new CopyOnWriteIntArray(NONE);
+        vmNext = new CopyOnWriteIntArray(NONE);
+        vmPrev = new CopyOnWriteIntArray(NONE);
+        readyHead = NONE;
+
+        nodeState = new CopyOnWriteIntArray(NONE);
+        nodeNext = new CopyOnWriteIntArray(NONE);
+        nodePrev = new CopyOnWriteIntArray(NONE);
+        nodeHead = new int[]{NONE, NONE};
+        nbNodes = new int[2];
+        hostHead = new CopyOnWriteIntArray[]{new CopyOnWriteIntArray(NONE), new CopyOnWriteIntArray(NONE)};
+        nbHosted = new CopyOnWriteIntArray[]{new CopyOnWriteIntArray(0), new CopyOnWriteIntArray(0)};
+    }
+
+    /**
+     * Make a new mapping from an existing one.
+     *
+     * @param m the mapping to copy
+     */
+    public CompactMapping(Mapping m) {
+        this();
+        MappingUtils.fill(m, this);
+    }
+
+    /**
+     * Copy constructor. The arrays are shared until modified.
+     */
+    private CompactMapping(CompactMapping m) {
+        vmState = m.vmState.copy();
+        vmHost = m.vmHost.copy();
+        vmNext = m.vmNext.copy();
+        vmPrev = m.vmPrev.copy();
+        nbVMs = m.nbVMs;
+        readyHead = m.readyHead;
+        nbReady = m.nbReady;
+
+        nodeState = m.nodeState.copy();
+        nodeNext = m.nodeNext.copy();
+        nodePrev = m.nodePrev.copy();
+        nodeHead = m.nodeHead.clone();
+        nbNodes = m.nbNodes.clone();
+        hostHead = new CopyOnWriteIntArray[]{m.hostHead[RUNNING_STATE].copy(), m.hostHead[SLEEPING_STATE].copy()};
+        nbHosted = new CopyOnWriteIntArray[]{m.nbHosted[RUNNING_STATE].copy(), m.nbHosted[SLEEPING_STATE].copy()};
+    }
+
+    private int stateOf(VM v) {
+        return vmState.get(v.id());
+    }
+
+    private int stateOf(Node n) {
+        return nodeState.get(n.id());
+    }
+
+    private int head(int st, int n) {
+        return st == READY_STATE ? readyHead : hostHead[st].get(n);
+    }
+
+    private void setHead(int st, int n, int v) {
+        if (st == READY_STATE) {
+            readyHead = v;
+        } else {
+            hostHead[st].set(n, v);
+        }
+    }
+
+    /**
+     * Put a VM at the head of the list of the VMs having a given state on a given node.
+     *
+     * @param st the VM state
+     * @param n  the host identifier. {@code -1} for a ready VM
+     * @param v  the VM identifier
+     */
+    private void link(int st, int n, int v) {
+        int h = head(st, n);
+        vmNext.set(v, h);
+        vmPrev.set(v, NONE);
+        if (h != NONE) {
+            vmPrev.set(h, v);
+        }
+        setHead(st, n, v);
+        vmState.set(v, st);
+        vmHost.set(v, n);
+        if (st == READY_STATE) {
+            nbReady++;
+        } else {
+            nbHosted[st].set(n, nbHosted[st].get(n) + 1);
+        }
+    }
+
+    /**
+     * Remove a VM from its current location.
+     *
+     * @return {@code true} iff the VM was in the mapping
+     */
+    private boolean unlink(int v) {
+        int st = vmState.get(v);
+        if (st == NONE) {
+            return false;
+        }
+        int n = vmHost.get(v);
+        int prev = vmPrev.get(v);
+        int next = vmNext.get(v);
+        if (prev == NONE) {
+            setHead(st, n, next);
+        } else {
+            vmNext.set(prev, next);
+        }
+        if (next != NONE) {
+            vmPrev.set(next, prev);
+        }
+        vmNext.set(v, NONE);
+        vmPrev.set(v, NONE);
+        vmState.set(v, NONE);
+        vmHost.set(v, NONE);
+        if (st == READY_STATE) {
+            nbReady--;
+        } else {
+            nbHosted[st].set(n, nbHosted[st].get(n) - 1);
+        }
+        return true;
+    }
+
+    private boolean place(VM vm, Node n, int st) {
+        if (stateOf(n) != ONLINE_STATE) {
+            return false;
+        }
+        int v = vm.id();
+        if (vmState.get(v) == st && vmHost.get(v) == n.id()) {
+            return true;
+        }
+        if (!unlink(v)) {
+            nbVMs++;
+        }
+        link(st, n.id(), v);
+        modCount++;
+        return true;
+    }
+
+    private void addNode(int st, int n) {
+        int h = nodeHead[st];
+        nodeNext.set(n, h);
+        nodePrev.set(n, NONE);
+        if (h != NONE) {
+            nodePrev.set(h, n);
+        }
+        nodeHead[st] = n;
+        nodeState.set(n, st);
+        nbNodes[st]++;
+    }
+
+    private void removeNode(int st, int n) {
+        int prev = nodePrev.get(n);
+        int next = nodeNext.get(n);
+        if (prev == NONE) {
+            nodeHead[st] = next;
+        } else {
+            nodeNext.set(prev, next);
+        }
+        if (next != NONE) {
+            nodePrev.set(next, prev);
+        }
+        nodeNext.set(n, NONE);
+        nodePrev.set(n, NONE);
+        nodeState.set(n, NONE);
+        nbNodes[st]--;
+    }
+
+    private boolean isHosting(int n) {
+        return nbHosted[RUNNING_STATE].get(n) > 0 || nbHosted[SLEEPING_STATE].get(n) > 0;
+    }
+
+    @Override
+    public boolean isRunning(VM v) {
+        return stateOf(v) == RUNNING_STATE;
+    }
+
+    @Override
+    public boolean isSleeping(VM v) {
+        return stateOf(v) == SLEEPING_STATE;
+    }
+
+    @Override
+    public boolean isReady(VM v) {
+        return stateOf(v) == READY_STATE;
+    }
+
+    @Override
+    public boolean isOnline(Node n) {
+        return stateOf(n) == ONLINE_STATE;
+    }
+
+    @Override
+    public boolean isOffline(Node n) {
+        return stateOf(n) == OFFLINE_STATE;
+    }
+
+    @Override
+    public boolean addRunningVM(VM vm, Node n) {
+        return place(vm, n, RUNNING_STATE);
+    }
+
+    @Override
+    public boolean addSleepingVM(VM vm, Node n) {
+        return place(vm, n, SLEEPING_STATE);
+    }
+
+    @Override
+    public boolean addReadyVM(VM vm) {
+        int v = vm.id();
+        if (vmState.get(v) == READY_STATE) {
+            return true;
+        }
+        if (!unlink(v)) {
+            nbVMs++;
+        }
+        link(READY_STATE, NONE, v);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(VM vm) {
+        if (unlink(vm.id())) {
+            nbVMs--;
+            modCount++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(Node n) {
+        int st = stateOf(n);
+        if (st == NONE || (st == ONLINE_STATE && isHosting(n.id()))) {
+            return false;
+        }
+        removeNode(st, n.id());
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean addOnlineNode(Node n) {
+        int id = n.id();
+        int st = nodeState.get(id);
+        if (st == OFFLINE_STATE) {
+            removeNode(OFFLINE_STATE, id);
+        }
+        if (st != ONLINE_STATE) {
+            addNode(ONLINE_STATE, id);
+            modCount++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addOfflineNode(Node n) {
+        int id = n.id();
+        int st = nodeState.get(id);
+        if (st == ONLINE_STATE) {
+            if (isHosting(id)) {
+                return false;
+            }
+            removeNode(ONLINE_STATE, id);
+        }
+        if (st != OFFLINE_STATE) {
+            addNode(OFFLINE_STATE, id);
+            modCount++;
+        }
+        return true;
+    }
+
+    @Override
+    public Set<Node> getOnlineNodes() {
+        return new NodeView(ONLINE_STATE);
+    }
+
+    @Override
+    public Set<Node> getOfflineNodes() {
+        return new NodeView(OFFLINE_STATE);
+    }
+
+    @Override
+    public Set<VM> getRunningVMs() {
+        return getRunningVMs(getOnlineNodes());
+    }
+
+    @Override
+    public Set<VM> getSleepingVMs() {
+        return getSleepingVMs(getOnlineNodes());
+    }
+
+    @Override
+    public Set<VM> getSleepingVMs(Node n) {
+        return new HostedView(SLEEPING_STATE, n.id());
+    }
+
+    @Override
+    public Set<VM> getRunningVMs(Node n) {
+        return new HostedView(RUNNING_STATE, n.id());
+    }
+
+    @Override
+    public Set<VM> getReadyVMs() {
+        return new ReadyView();
+    }
+
+    @Override
+    public Set<VM> getAllVMs() {
+        Set<VM> s = new THashSet<>(nbVMs);
+        for (int v = vmState.nextSet(0); v >= 0; v = vmState.nextSet(v + 1)) {
+            s.add(new VM(v));
+        }
+        return s;
+    }
+
+    @Override
+    public Set<Node> getAllNodes() {
+        Set<Node> s = new THashSet<>(getNbNodes());
+        for (int n = nodeState.nextSet(0); n >= 0; n = nodeState.nextSet(n + 1)) {
+            s.add(new Node(n));
+        }
+        return s;
+    }
+
+    @Override
+    public Node getVMLocation(VM vm) {
+        int st = stateOf(vm);
+        if (st == RUNNING_STATE || st == SLEEPING_STATE) {
+            return new Node(vmHost.get(vm.id()));
+        }
+        return null;
+    }
+
+    @Override
+    public Set<VM> getRunningVMs(Collection<Node> ns) {
+        return collect(RUNNING_STATE, ns);
+    }
+
+    @Override
+    public Set<VM> getSleepingVMs(Collection<Node> ns) {
+        return collect(SLEEPING_STATE, ns);
+    }
+
+    private Set<VM> collect(int st, Collection<Node> ns) {
+        Set<VM> vms = new THashSet<>();
+        for (Node n : ns) {
+            for (int v = hostHead[st].get(n.id()); v != NONE; v = vmNext.get(v)) {
+                vms.add(new VM(v));
+            }
+        }
+        return vms;
+    }
+
+    @Override
+    public Mapping copy() {
+        return new CompactMapping(this);
+    }
+
+    @Override
+    public boolean contains(Node n) {
+        return stateOf(n) != NONE;
+    }
+
+    @Override
+    public boolean contains(VM vm) {
+        return stateOf(vm) != NONE;
+    }
+
+    @Override
+    public void clear() {
+        clearAllVMs();
+        nodeState.clear();
+        nodeNext.clear();
+        nodePrev.clear();
+        nodeHead[ONLINE_STATE] = NONE;
+        nodeHead[OFFLINE_STATE] = NONE;
+        nbNodes[ONLINE_STATE] = 0;
+        nbNodes[OFFLINE_STATE] = 0;
+    }
+
+    @Override
+    public void clearNode(Node u) {
+        int n = u.id();
+        for (int st = RUNNING_STATE; st <= SLEEPING_STATE; st++) {
+            int v = hostHead[st].get(n);
+            while (v != NONE) {
+                int next = vmNext.get(v);
+                vmNext.set(v, NONE);
+                vmPrev.set(v, NONE);
+                vmState.set(v, NONE);
+                vmHost.set(v, NONE);
+                nbVMs--;
+                v = next;
+            }
+            hostHead[st].set(n, NONE);
+            nbHosted[st].set(n, 0);
+        }
+        modCount++;
+    }
+
+    @Override
+    public void clearAllVMs() {
+        vmState.clear();
+        vmHost.clear();
+        vmNext.clear();
+        vmPrev.clear();
+        nbVMs = 0;
+        readyHead = NONE;
+        nbReady = 0;
+        for (int st = RUNNING_STATE; st <= SLEEPING_STATE; st++) {
+            hostHead[st].clear();
+            nbHosted[st].clear();
+        }
+        modCount++;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+
+        for (Node n : getOnlineNodes()) {
+            buf.append(n);
+            buf.append(':');
+            if (this.getRunningVMs(n).isEmpty() && this.getSleepingVMs(n).isEmpty()) {
+                buf.append(" - ");
+            }
+            for (VM vm : this.getRunningVMs(n)) {
+                buf.append(' ').append(vm);
+            }
+            for (VM vm : this.getSleepingVMs(n)) {
+                buf.append(" (").append(vm).append(')');
+            }
+            buf.append('\n');
+        }
+
+        for (Node n : getOfflineNodes()) {
+            buf.append('(').append(n).append(")\n");
+        }
+
+        buf.append("READY");
+
+        for (VM vm : this.getReadyVMs()) {
+            buf.append(' ').append(vm);
+        }
+
+        return buf.append('\n').toString();
+    }
+
+    @Override
+    public int getNbNodes() {
+        return nbNodes[ONLINE_STATE] + nbNodes[OFFLINE_STATE];
+    }
+
+    @Override
+    public int getNbVMs() {
+        return nbVMs;
+    }
+
+    /**
+     * A fail-fast iterator over a linked list of identifiers.
+     *
+     * @param <E> the element type
+     */
+    private class IdIterator<E> implements Iterator<E> {
+
+        private final CopyOnWriteIntArray next;
+
+        private final IntFunction<E> make;
+
+        private final int expected;
+
+        private int cur;
+
+        IdIterator(int head, CopyOnWriteIntArray next, IntFunction<E> make) {
+            this.cur = head;
+            this.next = next;
+            this.make = make;
+            expected = modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cur != NONE;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+            if (cur == NONE) {
+                throw new NoSuchElementException();
+            }
+            int id = cur;
+            cur = next.get(id);
+            return make.apply(id);
+        }
+    }
+
+    /**
+     * A read-only view on the nodes having a given state.
+     */
+    private class NodeView extends AbstractSet<Node> {
+
+        private final int st;
+
+        NodeView(int st) {
+            this.st = st;
+        }
+
+        @Override
+        public int size() {
+            return nbNodes[st];
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Node && stateOf((Node) o) == st;
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return new IdIterator<>(nodeHead[st], nodeNext, Node::new);
+        }
+    }
+
+    /**
+     * A read-only view on the VMs hosted by a node with a given state.
+     */
+    private class HostedView extends AbstractSet<VM> {
+
+        private final int st;
+
+        private final int node;
+
+        HostedView(int st, int node) {
+            this.st = st;
+            this.node = node;
+        }
+
+        @Override
+        public int size() {
+            return nbHosted[st].get(node);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof VM && stateOf((VM) o) == st && vmHost.get(((VM) o).id()) == node;
+        }
+
+        @Override
+        public Iterator<VM> iterator() {
+            return new IdIterator<>(hostHead[st].get(node), vmNext, VM::new);
+        }
+    }
+
+    /**
+     * A read-only view on the ready VMs.
+     */
+    private class ReadyView extends AbstractSet<VM> {
+
+        @Override
+        public int size() {
+            return nbReady;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof VM && stateOf((VM) o) == READY_STATE;
+        }
+
+        @Override
+        public Iterator<VM> iterator() {
+            return new IdIterator<>(readyHead, vmNext, VM::new);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * An unbounded array of integers that is cheap to copy.
+ * <p>
+ * The values are stored into fixed-size pages. A copy shares all the pages with the original array
+ * and only duplicates the table of pages. A page shared by multiple arrays is duplicated the first time
+ * one of them modifies it, so a modification only pays for the page it touches.
+ * <p>
+ * Each index that was never set has a default value. The array is not thread-safe, including
+ * its copies that share pages with it. Copying only reads the array and increments a volatile
+ * counter, so an array can be copied by any thread as long as no thread is modifying it.
+ *
+ * @author Fabien Hermenier
+ */
+public final class CopyOnWriteIntArray {
+
+    private static final int SHIFT = 10;
+
+    private static final int PAGE_SIZE = 1 << SHIFT;
+
+    private static final int MASK = PAGE_SIZE - 1;
+
+    private static final int[][] NO_PAGES = new int[0][];
+
+    private static final long[] NO_OWNERS = new long[0];
+
+    private static final AtomicLongFieldUpdater<CopyOnWriteIntArray> COPIES
+            = AtomicLongFieldUpdater.newUpdater(CopyOnWriteIntArray.class, "copies");
+
+    private final int noEntry;
+
+    private int[][] pages;
+
+    /**
+     * The number of copies made from this array, starting at 1.
+     */
+    private volatile long copies = 1;
+
+    /**
+     * The value of {@code copies} when each page was made private to this array.
+     * A page is shared with another array unless its stamp equals {@code copies}.
+     */
+    private long[] owned;
+
+    /**
+     * New array.
+     *
+     * @param noEntry the value of the indexes that were never set
+     */
+    public CopyOnWriteIntArray(int noEntry) {
+        this.noEntry = noEntry;
+        pages = NO_PAGES;
+        owned = NO_OWNERS;
+    }
+
+    private CopyOnWriteIntArray(CopyOnWriteIntArray o) {
+        noEntry = o.noEntry;
+        pages = o.pages.clone();
+        owned = new long[pages.length];
+        //The pages are now shared
+        COPIES.incrementAndGet(o);
+    }
+
+    /**
+     * Get the value of the indexes that were never set.
+     *
+     * @return the default value
+     */
+    public int noEntry() {
+        return noEntry;
+    }
+
+    /**
+     * Get a value.
+     *
+     * @param i the index
+     * @return the value at that index. The default value if the index was never set or is negative
+     */
+    public int get(int i) {
+        int p = i >>> SHIFT;
+        if (p >= pages.length) {
+            return noEntry;
+        }
+        int[] page = pages[p];
+        return page == null ? noEntry : page[i & MASK];
+    }
+
+    /**
+     * Set a value.
+     *
+     * @param i the index. Must be positive
+     * @param v the value
+     */
+    public void set(int i, int v) {
+        if (i < 0) {
+            throw new IndexOutOfBoundsException("Negative index: " + i);
+        }
+        int p = i >>> SHIFT;
+        if (p >= pages.length) {
+            if (v == noEntry) {
+                return;
+            }
+            grow(p + 1);
+        }
+        int[] page = pages[p];
+        long stamp = copies;
+        if (page == null) {
+            if (v == noEntry) {
+                return;
+            }
+            page = new int[PAGE_SIZE];
+            if (noEntry != 0) {
+                Arrays.fill(page, noEntry);
+            }
+            pages[p] = page;
+            owned[p] = stamp;
+        } else if (owned[p] != stamp) {
+            page = page.clone();
+            pages[p] = page;
+            owned[p] = stamp;
+        }
+        page[i & MASK] = v;
+    }
+
+    /**
+     * Make room for the indexes up to a given one.
+     * Setting many values then grows the table of pages only once.
+     *
+     * @param i the largest index to make room for
+     */
+    public void ensureCapacity(int i) {
+        int p = (i >>> SHIFT) + 1;
+        if (i >= 0 && p > pages.length) {
+            grow(p);
+        }
+    }
+
+    private void grow(int nbPages) {
+        int cap = Math.max(nbPages, pages.length * 2);
+        pages = Arrays.copyOf(pages, cap);
+        owned = Arrays.copyOf(owned, cap);
+    }
+
+    /**
+     * Get the next index having a value that differs from the default one.
+     *
+     * @param from the first index to consider
+     * @return the index. {@code -1} if there is none
+     */
+    public int nextSet(int from) {
+        int i = Math.max(from, 0);
+        for (int p = i >>> SHIFT; p < pages.length; p++) {
+            int[] page = pages[p];
+            if (page != null) {
+                for (int x = i & MASK; x < PAGE_SIZE; x++) {
+                    if (page[x] != noEntry) {
+                        return (p << SHIFT) + x;
+                    }
+                }
+            }
+            i = (p + 1) << SHIFT;
+        }
+        return -1;
+    }
+
+    /**
+     * Reset all the values to the default one.
+     */
+    public void clear() {
+        pages = NO_PAGES;
+        owned = NO_OWNERS;
+    }
+
+    /**
+     * Make a copy of this array.
+     * The pages are shared until one of the arrays modifies them.
+     * Only the volatile copy counter of this array is updated, so several threads can copy it concurrently.
+     *
+     * @return a new array
+     */
+    public CopyOnWriteIntArray copy() {
+        return new CopyOnWriteIntArray(this);
+    }
+}
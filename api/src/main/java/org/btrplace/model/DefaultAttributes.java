@@ -12,16 +12,35 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Default implementation for {@link Attributes}.
+ * <p>
+ * A copy shares the attributes with the original until one of them is modified.
+ * Copying only increments a volatile counter of the original, so the attributes can be copied
+ * by any thread as long as no thread is modifying them.
  *
  * @author Fabien Hermenier
  */
 public class DefaultAttributes implements Attributes {
 
-    private final Map<VM, Map<String, Object>> vmAttrs;
-    private final Map<Node, Map<String, Object>> nodeAttrs;
+    private Map<VM, Map<String, Object>> vmAttrs;
+    private Map<Node, Map<String, Object>> nodeAttrs;
+
+    private static final AtomicLongFieldUpdater<DefaultAttributes> COPIES
+            = AtomicLongFieldUpdater.newUpdater(DefaultAttributes.class, "copies");
+
+    /**
+     * The number of copies made from these attributes, starting at 1.
+     */
+    private volatile long copies = 1;
+
+    /**
+     * The value of {@code copies} when the maps were made private to this instance.
+     * The maps are shared with a copy, so they must be cloned before being modified, unless it equals {@code copies}.
+     */
+    private long owned = 1;
 
     /**
      * Make a new empty list of attributes.
@@ -31,7 +50,28 @@ public class DefaultAttributes implements Attributes {
         nodeAttrs = new HashMap<>();
     }
 
+    /**
+     * Stop sharing the attributes before a modification.
+     */
+    private void own() {
+        long stamp = copies;
+        if (owned != stamp) {
+            vmAttrs = deepCopy(vmAttrs);
+            nodeAttrs = deepCopy(nodeAttrs);
+            owned = stamp;
+        }
+    }
+
+    private static <E extends Element> Map<E, Map<String, Object>> deepCopy(Map<E, Map<String, Object>> from) {
+        Map<E, Map<String, Object>> to = new HashMap<>(from.size());
+        for (Map.Entry<E, Map<String, Object>> e : from.entrySet()) {
+            to.put(e.getKey(), new HashMap<>(e.getValue()));
+        }
+        return to;
+    }
+
     private boolean putObject(Element e, String k, Object v) {
+        own();
         Map<String, Object> m;
         if (e instanceof VM) {
             m = vmAttrs.get(e);
@@ -121,6 +161,7 @@ public class DefaultAttributes implements Attributes {
 
     @Override
     public boolean unset(Element e, String k) {
+        own();
         Map<String, Object> m;
         if (e instanceof Node) {
             m = nodeAttrs.get(e);
@@ -135,14 +176,10 @@ public class DefaultAttributes implements Attributes {
     @Override
     public Attributes copy() {
         DefaultAttributes cpy = new DefaultAttributes();
-        for (Map.Entry<VM, Map<String, Object>> e : vmAttrs.entrySet()) {
-            cpy.vmAttrs.put(e.getKey(), new HashMap<>(e.getValue()));
-        }
-
-        for (Map.Entry<Node, Map<String, Object>> e : nodeAttrs.entrySet()) {
-            cpy.nodeAttrs.put(e.getKey(), new HashMap<>(e.getValue()));
-        }
-
+        cpy.vmAttrs = vmAttrs;
+        cpy.nodeAttrs = nodeAttrs;
+        cpy.owned = 0;
+        COPIES.incrementAndGet(this);
         return cpy;
     }
 
@@ -203,6 +240,12 @@ public class DefaultAttributes implements Attributes {
 
     @Override
     public void clear() {
+        long stamp = copies;
+        if (owned != stamp) {
+            vmAttrs = new HashMap<>();
+            nodeAttrs = new HashMap<>();
+            owned = stamp;
+        }
         this.vmAttrs.clear();
         this.nodeAttrs.clear();
     }
@@ -266,6 +309,7 @@ public class DefaultAttributes implements Attributes {
 
     @Override
     public void clear(Element e) {
+        own();
         if (e instanceof VM) {
             this.vmAttrs.remove(e);
         } else if (e instanceof Node) {
@@ -7,10 +7,15 @@
 package org.btrplace.model;
 
 import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Default implementation of {@link ElementBuilder}.
  * For a thread-safe implementation, see {@link SynchronizedElementBuilder}
+ * <p>
+ * A copy shares the used identifiers with the original builder until one of them makes a new element.
+ * Copying only increments a volatile counter of the original, so a builder can be copied by any thread
+ * as long as no thread is making elements with it.
  *
  * @author Fabien Hermenier
  */
@@ -20,6 +25,22 @@ public class DefaultElementBuilder implements ElementBuilder {
 
     private BitSet usedNodeIds;
 
+    private static final AtomicLongFieldUpdater<DefaultElementBuilder> COPIES
+            = AtomicLongFieldUpdater.newUpdater(DefaultElementBuilder.class, "copies");
+
+    /**
+     * The number of copies made from this builder, starting at 1.
+     */
+    private volatile long copies = 1;
+
+    /**
+     * The value of {@code copies} when the identifiers were made private to this builder.
+     * The identifiers are shared with a copy, so they must be cloned before being modified, unless it equals {@code copies}.
+     */
+    private long ownedVMIds = 1;
+
+    private long ownedNodeIds = 1;
+
     private int nextNodeId;
 
     private int nextVMId;
@@ -39,7 +60,7 @@ public class DefaultElementBuilder implements ElementBuilder {
             //We look for holes in the bitset
             id = usedVMIds.nextClearBit(0);
         }
-        usedVMIds.set(id);
+        useVMId(id);
         return new VM(id);
     }
 
@@ -50,14 +71,14 @@ public class DefaultElementBuilder implements ElementBuilder {
             //We look for holes in the bitset
             id = usedNodeIds.nextClearBit(0);
         }
-        usedNodeIds.set(id);
+        useNodeId(id);
         return new Node(id);
     }
 
     @Override
     public VM newVM(int id) {
         if (!usedVMIds.get(id)) {
-            usedVMIds.set(id);
+            useVMId(id);
             nextVMId = Math.max(nextVMId, id + 1);
             return new VM(id);
         }
@@ -67,20 +88,41 @@ public class DefaultElementBuilder implements ElementBuilder {
     @Override
     public Node newNode(int id) {
         if (!usedNodeIds.get(id)) {
-            usedNodeIds.set(id);
+            useNodeId(id);
             nextNodeId = Math.max(nextNodeId, id + 1);
             return new Node(id);
         }
         return null;
     }
 
+    private void useVMId(int id) {
+        long stamp = copies;
+        if (ownedVMIds != stamp) {
+            usedVMIds = (BitSet) usedVMIds.clone();
+            ownedVMIds = stamp;
+        }
+        usedVMIds.set(id);
+    }
+
+    private void useNodeId(int id) {
+        long stamp = copies;
+        if (ownedNodeIds != stamp) {
+            usedNodeIds = (BitSet) usedNodeIds.clone();
+            ownedNodeIds = stamp;
+        }
+        usedNodeIds.set(id);
+    }
+
     @Override
     public ElementBuilder copy() {
         DefaultElementBuilder c = new DefaultElementBuilder();
         c.nextVMId = nextVMId;
         c.nextNodeId = nextNodeId;
-        c.usedVMIds = (BitSet) usedVMIds.clone();
-        c.usedNodeIds = (BitSet) usedNodeIds.clone();
+        c.usedVMIds = usedVMIds;
+        c.usedNodeIds = usedNodeIds;
+        c.ownedVMIds = 0;
+        c.ownedNodeIds = 0;
+        COPIES.incrementAndGet(this);
         return c;
     }
 
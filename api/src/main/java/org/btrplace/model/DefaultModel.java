@@ -30,21 +30,35 @@ public class DefaultModel implements Model {
   private final ElementBuilder elemBuilder;
 
     /**
-     * Make a new instance that rely on a {@link DefaultElementBuilder}.
+     * Make a new instance that rely on a {@link DefaultElementBuilder}
+     * and a {@link CompactMapping}.
      */
     public DefaultModel() {
         this(new DefaultElementBuilder());
     }
 
     /**
-     * Make a new instance relying on a given element builders.
+     * Make a new instance relying on a given element builders and a {@link CompactMapping}.
+     * A copy of the model then shares its state with the original model until they are modified.
      *
-     * @param eb the builder to use
+     * @param eb the builder to use. It should provide dense identifiers
      */
     public DefaultModel(ElementBuilder eb) {
+        this(eb, new CompactMapping());
+    }
+
+    /**
+     * Make a new instance relying on a given element builder and a given mapping.
+     * The mapping implementation is preserved by {@link #copy()}.
+     * A {@link DefaultMapping} suits the elements having sparse identifiers but it is deep-copied.
+     *
+     * @param eb the builder to use
+     * @param m  the mapping to use. Either empty or consistent with the element builder
+     */
+    public DefaultModel(ElementBuilder eb, Mapping m) {
         this.resources = new HashMap<>();
         attrs = new DefaultAttributes();
-        cfg = new DefaultMapping();
+        cfg = m;
         elemBuilder = eb;
     }
 
@@ -121,8 +135,7 @@ public class DefaultModel implements Model {
 
     @Override
     public Model copy() {
-        DefaultModel m = new DefaultModel(elemBuilder.copy());
-        MappingUtils.fill(cfg, m.cfg);
+        DefaultModel m = new DefaultModel(elemBuilder.copy(), cfg.copy());
         for (ModelView rc : resources.values()) {
             m.attach(rc.copy());
         }
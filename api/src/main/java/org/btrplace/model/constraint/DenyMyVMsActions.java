@@ -70,4 +70,9 @@ public abstract class DenyMyVMsActions<C extends SatConstraint> extends AllowAll
     public boolean startRunningVMPlacement(RunningVMPlacement a) {
         return !getVMs().contains(a.getVM());
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
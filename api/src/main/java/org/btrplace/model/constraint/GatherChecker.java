@@ -40,7 +40,7 @@ public class GatherChecker extends AllowAllConstraintChecker<Gather> {
                 if (map.isRunning(vm)) {
                     if (usedInContinuous == null) {
                         usedInContinuous = map.getVMLocation(vm);
-                    } else if (usedInContinuous != map.getVMLocation(vm)) {
+                    } else if (!usedInContinuous.equals(map.getVMLocation(vm))) {
                         return false;
                     }
                 }
@@ -52,7 +52,7 @@ public class GatherChecker extends AllowAllConstraintChecker<Gather> {
     @Override
     public boolean startRunningVMPlacement(RunningVMPlacement a) {
         if (getConstraint().isContinuous() && getVMs().contains(a.getVM())) {
-            if (usedInContinuous != null && a.getDestinationNode() != usedInContinuous) {
+            if (usedInContinuous != null && !a.getDestinationNode().equals(usedInContinuous)) {
                 return false;
             } else if (usedInContinuous == null) {
                 usedInContinuous = a.getDestinationNode();
@@ -69,11 +69,16 @@ public class GatherChecker extends AllowAllConstraintChecker<Gather> {
             if (map.isRunning(vm)) {
                 if (used == null) {
                     used = map.getVMLocation(vm);
-                } else if (used != map.getVMLocation(vm)) {
+                } else if (!used.equals(map.getVMLocation(vm))) {
                     return false;
                 }
             }
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
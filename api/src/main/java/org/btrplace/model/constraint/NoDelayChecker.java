@@ -95,4 +95,9 @@ public class NoDelayChecker extends AllowAllConstraintChecker<NoDelay> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
@@ -43,4 +43,9 @@ public class OfflineChecker extends AllowAllConstraintChecker<Offline> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
@@ -43,4 +43,9 @@ public class OnlineChecker extends AllowAllConstraintChecker<Online> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
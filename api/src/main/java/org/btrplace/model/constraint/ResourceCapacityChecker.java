@@ -139,4 +139,9 @@ public class ResourceCapacityChecker extends AllowAllConstraintChecker<ResourceC
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
@@ -29,4 +29,9 @@ public class RootChecker extends AllowAllConstraintChecker<Root> {
     public boolean start(MigrateVM a) {
         return !getVMs().contains(a.getVM());
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
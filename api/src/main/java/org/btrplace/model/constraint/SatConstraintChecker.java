@@ -227,4 +227,15 @@ public interface SatConstraintChecker<C extends SatConstraint> {
      * @return a non-null constraint
      */
     C getConstraint();
+
+    /**
+     * Indicate if the checker only depends on the elements involved in its constraint.
+     * A scoped checker is only notified about the actions and the events that involve
+     * the VMs or the nodes of its constraint. Otherwise, it is notified about every action and event.
+     *
+     * @return {@code false} by default
+     */
+    default boolean isScoped() {
+        return false;
+    }
 }
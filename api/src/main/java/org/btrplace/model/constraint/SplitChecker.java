@@ -91,4 +91,9 @@ public class SplitChecker extends AllowAllConstraintChecker<Split> {
         }
         return true;
     }
+
+    @Override
+    public boolean isScoped() {
+        return true;
+    }
 }
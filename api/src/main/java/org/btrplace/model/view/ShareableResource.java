@@ -6,17 +6,20 @@
 
 package org.btrplace.model.view;
 
-import gnu.trove.impl.Constants;
-import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.set.hash.THashSet;
+import org.btrplace.model.CopyOnWriteIntArray;
+import org.btrplace.model.Element;
 import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.VM;
 import org.btrplace.model.constraint.SideConstraint;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.function.IntFunction;
 import java.util.stream.Stream;
 
 /**
@@ -37,6 +40,9 @@ import java.util.stream.Stream;
  * <p>
  * By default, if there is no {@link org.btrplace.model.constraint.Overbook} constraint for a node, a conservative ratio
  * of <b>1</b> is used. This means one unit of virtual resources consumes one unit of physical resources.
+ * <p>
+ * The values are stored in dense arrays indexed by the element identifiers. Bulk accessors such as
+ * {@link #getConsumptions(List)} or {@link #getCapacities(List)} retrieve the values of many elements at once.
  *
  * @author Fabien Hermenier
  */
@@ -49,8 +55,8 @@ public class ShareableResource implements ModelView {
    */
   public static final String VIEW_ID_BASE = "ShareableResource.";
 
-  private final TObjectIntHashMap<VM> vmsConsumption;
-  private final TObjectIntHashMap<Node> nodesCapacity;
+  private final Column vmsConsumption;
+  private final Column nodesCapacity;
 
   private final String viewId;
 
@@ -77,8 +83,8 @@ public class ShareableResource implements ModelView {
    */
   public ShareableResource(String id, int defCapacity, int defConsumption) {
     this.rcId = id;
-    vmsConsumption = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, defConsumption);
-    nodesCapacity = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, defCapacity);
+    vmsConsumption = new Column(defConsumption);
+    nodesCapacity = new Column(defCapacity);
     if (defCapacity < 0) {
       throw new IllegalArgumentException(String.format("The %s default capacity must be >= 0", rcId));
     }
@@ -97,7 +103,7 @@ public class ShareableResource implements ModelView {
    * @return its consumption if it was defined otherwise the default value.
    */
   public int getConsumption(VM vm) {
-    return vmsConsumption.get(vm);
+    return vmsConsumption.get(vm.id());
   }
 
   /**
@@ -107,7 +113,49 @@ public class ShareableResource implements ModelView {
    * @return its capacity if it was defined otherwise the default value.
    */
   public int getCapacity(Node n) {
-    return nodesCapacity.get(n);
+    return nodesCapacity.get(n.id());
+  }
+
+  /**
+   * Get the consumption of multiple VMs.
+   *
+   * @param vms the VMs
+   * @return the consumption of each VM, in the same order. The default value is used for the undefined consumptions
+   */
+  public int[] getConsumptions(List<VM> vms) {
+    return getConsumptions(vms, new int[vms.size()]);
+  }
+
+  /**
+   * Get the consumption of multiple VMs.
+   *
+   * @param vms the VMs
+   * @param to  the array to fill. Must be at least as long as {@code vms}
+   * @return {@code to}, filled with the consumption of each VM in the same order
+   */
+  public int[] getConsumptions(List<VM> vms, int[] to) {
+    return vmsConsumption.get(vms, to);
+  }
+
+  /**
+   * Get the capacity of multiple nodes.
+   *
+   * @param nodes the nodes
+   * @return the capacity of each node, in the same order. The default value is used for the undefined capacities
+   */
+  public int[] getCapacities(List<Node> nodes) {
+    return getCapacities(nodes, new int[nodes.size()]);
+  }
+
+  /**
+   * Get the capacity of multiple nodes.
+   *
+   * @param nodes the nodes
+   * @param to    the array to fill. Must be at least as long as {@code nodes}
+   * @return {@code to}, filled with the capacity of each node in the same order
+   */
+  public int[] getCapacities(List<Node> nodes, int[] to) {
+    return nodesCapacity.get(nodes, to);
   }
 
   /**
@@ -116,7 +164,7 @@ public class ShareableResource implements ModelView {
    * @return a set that may be empty
    */
   public Set<VM> getDefinedVMs() {
-    return vmsConsumption.keySet();
+    return vmsConsumption.keys(VM::new);
   }
 
   /**
@@ -125,7 +173,7 @@ public class ShareableResource implements ModelView {
    * @return a set that may be empty
    */
   public Set<Node> getDefinedNodes() {
-    return nodesCapacity.keySet();
+    return nodesCapacity.keys(Node::new);
   }
 
   /**
@@ -139,7 +187,25 @@ public class ShareableResource implements ModelView {
     if (val < 0) {
       throw new IllegalArgumentException(String.format("The '%s' consumption of VM '%s' must be >= 0", rcId, vm));
     }
-    vmsConsumption.put(vm, val);
+    vmsConsumption.put(vm.id(), val);
+    return this;
+  }
+
+  /**
+   * Set the resource consumption of multiple VMs.
+   * The values are checked before any of them is stored.
+   *
+   * @param vms    the VMs
+   * @param values the consumption of each VM, in the same order
+   * @return the current resource
+   */
+  public ShareableResource setConsumptions(List<VM> vms, int[] values) {
+    for (int i = 0; i < vms.size(); i++) {
+      if (values[i] < 0) {
+        throw new IllegalArgumentException(String.format("The '%s' consumption of VM '%s' must be >= 0", rcId, vms.get(i)));
+      }
+    }
+    vmsConsumption.put(vms, values);
     return this;
   }
 
@@ -166,7 +232,25 @@ public class ShareableResource implements ModelView {
     if (val < 0) {
       throw new IllegalArgumentException(String.format("The '%s' capacity of node '%s' must be >= 0", rcId, n));
     }
-    nodesCapacity.put(n, val);
+    nodesCapacity.put(n.id(), val);
+    return this;
+  }
+
+  /**
+   * Set the resource capacity of multiple nodes.
+   * The values are checked before any of them is stored.
+   *
+   * @param nodes  the nodes
+   * @param values the capacity of each node, in the same order
+   * @return the current resource
+   */
+  public ShareableResource setCapacities(List<Node> nodes, int[] values) {
+    for (int i = 0; i < nodes.size(); i++) {
+      if (values[i] < 0) {
+        throw new IllegalArgumentException(String.format("The '%s' capacity of node '%s' must be >= 0", rcId, nodes.get(i)));
+      }
+    }
+    nodesCapacity.put(nodes, values);
     return this;
   }
 
@@ -188,7 +272,7 @@ public class ShareableResource implements ModelView {
    * @param vm the VM
    */
   public void unset(VM vm) {
-    vmsConsumption.remove(vm);
+    vmsConsumption.remove(vm.id());
   }
 
   /**
@@ -197,7 +281,7 @@ public class ShareableResource implements ModelView {
    * @param n the node
    */
   public void unset(Node n) {
-    nodesCapacity.remove(n);
+    nodesCapacity.remove(n.id());
   }
 
   /**
@@ -225,7 +309,7 @@ public class ShareableResource implements ModelView {
    * @return {@code true} iff the consumption is defined.
    */
   public boolean consumptionDefined(VM vm) {
-    return vmsConsumption.containsKey(vm);
+    return vmsConsumption.contains(vm.id());
   }
 
   /**
@@ -235,7 +319,7 @@ public class ShareableResource implements ModelView {
    * @return {@code true} iff the capacity is defined}.
    */
   public boolean capacityDefined(Node n) {
-    return nodesCapacity.containsKey(n);
+    return nodesCapacity.contains(n.id());
   }
 
   /**
@@ -273,7 +357,7 @@ public class ShareableResource implements ModelView {
    * @return the value.
    */
   public int getDefaultConsumption() {
-    return vmsConsumption.getNoEntryValue();
+    return vmsConsumption.noEntry;
   }
 
   /**
@@ -282,7 +366,7 @@ public class ShareableResource implements ModelView {
    * @return the value.
    */
   public int getDefaultCapacity() {
-    return nodesCapacity.getNoEntryValue();
+    return nodesCapacity.noEntry;
   }
 
   @Override
@@ -311,30 +395,22 @@ public class ShareableResource implements ModelView {
 
   @Override
   public ShareableResource copy() {
-    ShareableResource rc = new ShareableResource(rcId, nodesCapacity.getNoEntryValue(), vmsConsumption.getNoEntryValue());
-    vmsConsumption.forEachEntry((vm, c) -> {
-      rc.vmsConsumption.put(vm, c);
-      return true;
-    });
-    nodesCapacity.forEachEntry((n, c) -> {
-      rc.nodesCapacity.put(n, c);
-      return true;
-    });
+    ShareableResource rc = new ShareableResource(rcId, nodesCapacity.noEntry, vmsConsumption.noEntry);
+    rc.vmsConsumption.copyFrom(vmsConsumption);
+    rc.nodesCapacity.copyFrom(nodesCapacity);
     return rc;
   }
 
   @Override
   public String toString() {
     StringJoiner joiner = new StringJoiner(",", String.format("rc:%s:", rcId), "");
-    for (Node n: nodesCapacity.keySet()) {
-      int c = nodesCapacity.get(n);
-      joiner.add(String.format("<node %s,%d>", n, c));
+    for (int n = nodesCapacity.next(0); n >= 0; n = nodesCapacity.next(n + 1)) {
+      joiner.add(String.format("<node %s,%d>", new Node(n), nodesCapacity.get(n)));
     }
 
     StringJoiner vmJoiner = new StringJoiner(",");
-    for (VM vm: vmsConsumption.keySet()) {
-      int c = vmsConsumption.get(vm);
-      vmJoiner.add(String.format("<VM %s,%d>", vm, c));
+    for (int v = vmsConsumption.next(0); v >= 0; v = vmsConsumption.next(v + 1)) {
+      vmJoiner.add(String.format("<VM %s,%d>", new VM(v), vmsConsumption.get(v)));
     }
     return String.format("%s%s", joiner, vmJoiner);
   }
@@ -355,8 +431,8 @@ public class ShareableResource implements ModelView {
   public int sumConsumptions(Collection<VM> ids, boolean undef) {
     int s = 0;
     for (VM u: ids) {
-      if (consumptionDefined(u) || undef) {
-        s += vmsConsumption.get(u);
+      if (undef || consumptionDefined(u)) {
+        s += vmsConsumption.get(u.id());
       }
     }
     return s;
@@ -372,8 +448,8 @@ public class ShareableResource implements ModelView {
   public int sumCapacities(Collection<Node> ids, boolean undef) {
     int s = 0;
     for (Node u: ids) {
-      if (capacityDefined(u) || undef) {
-        s += nodesCapacity.get(u);
+      if (undef || capacityDefined(u)) {
+        s += nodesCapacity.get(u.id());
       }
     }
     return s;
@@ -389,4 +465,117 @@ public class ShareableResource implements ModelView {
   public static ShareableResource get(Model mo, String id) {
     return (ShareableResource) mo.getView(VIEW_ID_BASE + id);
   }
+
+  /**
+   * Values indexed by element identifiers.
+   * The values are shared with the copies of the column until modified.
+   */
+  private static final class Column {
+
+    /**
+     * The defined values. {@code -1} denotes an undefined value as the values are positive.
+     */
+    private CopyOnWriteIntArray values = new CopyOnWriteIntArray(-1);
+
+    private int size;
+
+    private final int noEntry;
+
+    Column(int noEntry) {
+      this.noEntry = noEntry;
+    }
+
+    int get(int id) {
+      int v = values.get(id);
+      return v < 0 ? noEntry : v;
+    }
+
+    int[] get(List<? extends Element> elems, int[] to) {
+      for (int i = 0; i < elems.size(); i++) {
+        to[i] = get(elems.get(i).id());
+      }
+      return to;
+    }
+
+    boolean contains(int id) {
+      return values.get(id) >= 0;
+    }
+
+    /**
+     * Get the next identifier having a defined value.
+     *
+     * @param from the first identifier to consider
+     * @return the identifier. {@code -1} if there is none
+     */
+    int next(int from) {
+      return values.nextSet(from);
+    }
+
+    void put(int id, int v) {
+      if (!contains(id)) {
+        size++;
+      }
+      values.set(id, v);
+    }
+
+    void put(List<? extends Element> elems, int[] vs) {
+      int max = -1;
+      for (Element e : elems) {
+        max = Math.max(max, e.id());
+      }
+      values.ensureCapacity(max);
+      for (int i = 0; i < elems.size(); i++) {
+        put(elems.get(i).id(), vs[i]);
+      }
+    }
+
+    void remove(int id) {
+      if (contains(id)) {
+        values.set(id, -1);
+        size--;
+      }
+    }
+
+    <E> Set<E> keys(IntFunction<E> make) {
+      Set<E> s = new THashSet<>(size);
+      for (int i = next(0); i >= 0; i = next(i + 1)) {
+        s.add(make.apply(i));
+      }
+      return s;
+    }
+
+    void copyFrom(Column c) {
+      values = c.values.copy();
+      size = c.size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Column that = (Column) o;
+      if (size != that.size) {
+        return false;
+      }
+      for (int i = next(0); i >= 0; i = next(i + 1)) {
+        if (values.get(i) != that.values.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      int h = 0;
+      for (int i = next(0); i >= 0; i = next(i + 1)) {
+        h += i ^ values.get(i);
+      }
+      return h;
+    }
+  }
 }
@@ -8,8 +8,11 @@ package org.btrplace.model.view.network;
 
 import org.btrplace.model.Node;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +21,11 @@ import java.util.Map;
  * Default implementation of {@link Routing}.
  * Allows to retrieve physical path (L2) between network elements by looking at physical connections.
  * <p>
+ * The switch-level routes are computed once per source switch using a breadth-first search,
+ * so a path between two nodes is the uplink of the source node, the shortest chain of
+ * switch-to-switch links and the link of the destination node.
+ * No storage is made per pair of nodes, except for a bounded LRU cache of the most recently requested paths.
+ * <p>
  * If instantiated manually, it should be first attached to an existing network view,
  * see {@link #setNetwork(Network)}.
  *
@@ -27,114 +35,207 @@ import java.util.Map;
 public class DefaultRouting extends Routing {
 
     /**
-     * Recursive method to get the first physical path found from a switch to a destination node
-     *
-     * @param   currentPath the current or initial path containing the link(s) crossed
-     * @param   sw the current switch to browse
-     * @param   dst the destination node to reach
-     * @return  the ordered list of links that make the path to dst
+     * The default number of paths to keep in the cache.
      */
-    private Map<Link, Boolean> getFirstPhysicalPath(Map<Link, Boolean> currentPath, Switch sw, Node dst) {
+    public static final int DEFAULT_CACHE_SIZE = 4096;
 
-        // Iterate through the current switch's links
-        for (Link l : net.getConnectedLinks(sw)) {
-            // Wrong link
-            if (currentPath.containsKey(l)) {
-                continue;
-            }
+    private final int cacheSize;
+
+    /**
+     * The number of links in the network when the indexes were built.
+     */
+    private int indexedLinks = -1;
 
-            /*
-             * Go through the link and track the direction for full-duplex purpose
-             * From switch to element => false : DownLink
-             * From element to switch => true : UpLink
-             */
-            currentPath.put(l, !l.getSwitch().equals(sw));
+    /**
+     * The link connecting each node to its switch.
+     */
+    private Map<Node, Link> uplinks;
+
+    /**
+     * The switch-to-switch links for each switch.
+     */
+    private Map<Switch, List<Link>> trunks;
+
+    /**
+     * For each source switch, the link used to reach every other reachable switch.
+     */
+    private Map<Switch, Map<Switch, Link>> trees;
+
+    private Map<StaticRouting.NodesMap, Map<Link, Boolean>> hotPaths;
+
+    /**
+     * Make a new routing with a default cache size.
+     */
+    public DefaultRouting() {
+        this(DEFAULT_CACHE_SIZE);
+    }
 
-            // Check what is after
+    /**
+     * Make a new routing.
+     *
+     * @param cacheSize the maximum number of paths to keep in the cache
+     */
+    public DefaultRouting(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("The cache size must be positive");
+        }
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Get the maximum number of paths to keep in the cache.
+     *
+     * @return a positive number
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Index the links of the network.
+     * The indexes are rebuilt when links have been added since the last call.
+     */
+    private void index() {
+        if (indexedLinks == net.getLinks().size()) {
+            return;
+        }
+        uplinks = new HashMap<>();
+        trunks = new HashMap<>();
+        for (Link l : net.getLinks()) {
             if (l.getElement() instanceof Node) {
-                // Node found, path complete
-                if (l.getElement().equals(dst)) {
-                    return currentPath;
-                }
+                // Only one link per node
+                uplinks.putIfAbsent((Node) l.getElement(), l);
+            } else if (l.getElement() instanceof Switch) {
+                trunks.computeIfAbsent(l.getSwitch(), k -> new ArrayList<>()).add(l);
+                trunks.computeIfAbsent((Switch) l.getElement(), k -> new ArrayList<>()).add(l);
+            }
+        }
+        trees = new HashMap<>();
+        hotPaths = new LinkedHashMap<StaticRouting.NodesMap, Map<Link, Boolean>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StaticRouting.NodesMap, Map<Link, Boolean>> foo) {
+                return size() > cacheSize;
             }
-            else {
-                // Go to the next switch
-                Map<Link, Boolean> recall = getFirstPhysicalPath(
-                        currentPath, l.getSwitch().equals(sw) ? (Switch) l.getElement() : l.getSwitch(), dst);
-                // Return the complete path if found
-                if (!recall.isEmpty()) {
-                    return recall;
+        };
+        indexedLinks = net.getLinks().size();
+    }
+
+    /**
+     * Get the switch at the other end of a switch-to-switch link.
+     *
+     * @param l    the link
+     * @param from the switch on one end
+     * @return the switch on the other end
+     */
+    private static Switch across(Link l, Switch from) {
+        return l.getSwitch().equals(from) ? (Switch) l.getElement() : l.getSwitch();
+    }
+
+    /**
+     * Browse the switches reachable from a given switch.
+     *
+     * @param src the source switch
+     * @return for each reachable switch, the link used to reach it. The source switch is mapped to {@code null}
+     */
+    private Map<Switch, Link> browse(Switch src) {
+        Map<Switch, Link> tree = new HashMap<>();
+        tree.put(src, null);
+        Deque<Switch> queue = new ArrayDeque<>();
+        queue.add(src);
+        while (!queue.isEmpty()) {
+            Switch sw = queue.poll();
+            for (Link l : trunks.getOrDefault(sw, Collections.emptyList())) {
+                Switch next = across(l, sw);
+                if (!tree.containsKey(next)) {
+                    tree.put(next, l);
+                    queue.add(next);
                 }
             }
-            // Wrong link, go back
-            currentPath.remove(l);
         }
-        // No path found through this switch
-        return new LinkedHashMap<>();
+        return tree;
     }
 
-    @Override
-    public List<Link> getPath(Node n1, Node n2) {
-        if (net == null || n1.equals(n2)) {
-            return Collections.emptyList();
+    /**
+     * Compute the path between two distinct nodes.
+     * Each link is associated to its crossing direction for full-duplex purpose:
+     * {@code true} when going from the element to the switch, {@code false} when going from the switch to the element.
+     *
+     * @param n1 the source node
+     * @param n2 the destination node
+     * @return the ordered links. An empty map if there is no path
+     */
+    private Map<Link, Boolean> computePath(Node n1, Node n2) {
+        Link up = uplinks.get(n1);
+        Link down = uplinks.get(n2);
+        if (up == null || down == null) {
+            return Collections.emptyMap();
+        }
+        Switch src = up.getSwitch();
+        Map<Switch, Link> tree = trees.computeIfAbsent(src, this::browse);
+        if (!tree.containsKey(down.getSwitch())) {
+            return Collections.emptyMap();
+        }
+        // Walk back from the destination switch to the source one
+        Deque<Link> hops = new ArrayDeque<>();
+        for (Switch sw = down.getSwitch(); !sw.equals(src); ) {
+            Link l = tree.get(sw);
+            hops.push(l);
+            sw = across(l, sw);
         }
 
-        // Initialize the cache
-        if (routingCache == null) {
-            int cacheSize = net.getConnectedNodes().size();
-            routingCache = new LinkedHashMap[cacheSize][cacheSize]; // OK for the warning
+        Map<Link, Boolean> path = new LinkedHashMap<>();
+        path.put(up, true);
+        Switch from = src;
+        for (Link l : hops) {
+            path.put(l, !l.getSwitch().equals(from));
+            from = across(l, from);
         }
+        path.put(down, false);
+        return path;
+    }
 
-        // Fill the cache if needed
-        if (routingCache[n1.id()][n2.id()] == null) {
-            // Create an initial path from the node to its switch => true : UpLink
-            Map<Link, Boolean> initialPath = new LinkedHashMap<>();
-            initialPath.put(net.getConnectedLinks(n1).get(0), true);
-            // Get the first physical path found between the two nodes
-            routingCache[n1.id()][n2.id()] =
-                    getFirstPhysicalPath(
-                            initialPath, // Only one link per node
-                            net.getConnectedLinks(n1).get(0).getSwitch(), // A node is always connected to a switch
-                            n2
-                    );
+    /**
+     * Get the path between two distinct nodes, from the cache if possible.
+     *
+     * @param n1 the source node
+     * @param n2 the destination node
+     * @return the ordered links along with their direction
+     */
+    private synchronized Map<Link, Boolean> route(Node n1, Node n2) {
+        index();
+        StaticRouting.NodesMap key = new StaticRouting.NodesMap(n1, n2);
+        Map<Link, Boolean> path = hotPaths.get(key);
+        if (path == null) {
+            path = computePath(n1, n2);
+            hotPaths.put(key, path);
         }
+        return path;
+    }
 
-        return new ArrayList<>(routingCache[n1.id()][n2.id()].keySet());
+    @Override
+    public List<Link> getPath(Node n1, Node n2) {
+        if (net == null || n1.equals(n2)) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(route(n1, n2).keySet());
     }
 
     @Override
     public LinkDirection getLinkDirection(Node n1, Node n2, Link l) {
-        if (n1.equals(n2)) {
+        if (net == null || n1.equals(n2)) {
             return LinkDirection.NONE;
         }
-
-        // Initialize the cache (should be already done)
-        if (routingCache == null) {
-            int cacheSize = net.getConnectedNodes().size();
-            routingCache = new LinkedHashMap[cacheSize][cacheSize]; // OK for the warning
-        }
-
-        // Fill the appropriate cache entry from getPath method if needed
-        if (routingCache[n1.id()][n2.id()] == null) {
-            getPath(n1, n2);
-        }
-
-        // Link is not on route!
-        if (!routingCache[n1.id()][n2.id()].containsKey(l)) {
+        Boolean dir = route(n1, n2).get(l);
+        if (dir == null) {
+            // Link is not on route!
             return LinkDirection.NONE;
         }
-
-        // Return the direction if the given link in on path
-        if (routingCache[n1.id()][n2.id()].containsKey(l)) {
-            return routingCache[n1.id()][n2.id()].get(l) ?
-                    LinkDirection.DOWNLINK : LinkDirection.UPLINK;
-        }
-        return LinkDirection.NONE;
+        return dir ? LinkDirection.DOWNLINK : LinkDirection.UPLINK;
     }
 
     @Override
     public Routing copy() {
-        DefaultRouting clone = new DefaultRouting();
+        DefaultRouting clone = new DefaultRouting(cacheSize);
         clone.net = net; // Do not associate view->routing, only routing->view
         return clone;
     }
@@ -0,0 +1,38 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.plan;
+
+import org.btrplace.plan.event.Action;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Perform the actions executed by a {@link ConcurrentPlanExecutor}.
+ * A handler typically drives the infrastructure, for example to migrate a VM.
+ * <p>
+ * The handlers are called concurrently so they must be thread-safe.
+ * A long action should not block the calling thread but return a future that is completed
+ * once the action is over.
+ *
+ * @author Fabien Hermenier
+ */
+@FunctionalInterface
+public interface ActionHandler {
+
+    /**
+     * A handler that does nothing. It simulates an instantaneous action.
+     */
+    ActionHandler SIMULATION = a -> CompletableFuture.completedFuture(null);
+
+    /**
+     * Execute an action.
+     *
+     * @param a the action to execute
+     * @return a future completed once the action is over. It is completed exceptionally if the action failed
+     */
+    CompletableFuture<?> execute(Action a);
+}
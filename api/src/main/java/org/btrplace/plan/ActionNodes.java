@@ -0,0 +1,69 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.plan;
+
+import org.btrplace.model.Node;
+import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.Allocate;
+import org.btrplace.plan.event.KillVM;
+import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.plan.event.NodeEvent;
+import org.btrplace.plan.event.ResumeVM;
+import org.btrplace.plan.event.RunningVMPlacement;
+import org.btrplace.plan.event.ShutdownVM;
+import org.btrplace.plan.event.SuspendVM;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Extract the nodes involved in an action.
+ *
+ * @author Fabien Hermenier
+ */
+final class ActionNodes {
+
+    private ActionNodes() {
+    }
+
+    /**
+     * Get the nodes involved in an action.
+     *
+     * @param a the action
+     * @return the nodes, without duplicates. May be empty
+     */
+    static List<Node> get(Action a) {
+        List<Node> ns = new ArrayList<>(2);
+        if (a instanceof NodeEvent) {
+            ns.add(((NodeEvent) a).getNode());
+        }
+        if (a instanceof RunningVMPlacement) {
+            ns.add(((RunningVMPlacement) a).getDestinationNode());
+        }
+        if (a instanceof MigrateVM) {
+            ns.add(((MigrateVM) a).getSourceNode());
+        } else if (a instanceof ResumeVM) {
+            ns.add(((ResumeVM) a).getSourceNode());
+        } else if (a instanceof SuspendVM) {
+            ns.add(((SuspendVM) a).getSourceNode());
+            ns.add(((SuspendVM) a).getDestinationNode());
+        } else if (a instanceof ShutdownVM) {
+            ns.add(((ShutdownVM) a).getNode());
+        } else if (a instanceof KillVM) {
+            ns.add(((KillVM) a).getNode());
+        } else if (a instanceof Allocate) {
+            ns.add(((Allocate) a).getHost());
+        }
+        ns.removeIf(Objects::isNull);
+        if (ns.size() == 2 && ns.get(0).equals(ns.get(1))) {
+            return Collections.singletonList(ns.get(0));
+        }
+        return ns;
+    }
+}
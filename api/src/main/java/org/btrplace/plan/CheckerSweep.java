@@ -0,0 +1,429 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.plan;
+
+import gnu.trove.list.array.TIntArrayList;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.SatConstraintChecker;
+import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.ActionVisitor;
+import org.btrplace.plan.event.Allocate;
+import org.btrplace.plan.event.AllocateEvent;
+import org.btrplace.plan.event.BootNode;
+import org.btrplace.plan.event.BootVM;
+import org.btrplace.plan.event.Event;
+import org.btrplace.plan.event.ForgeVM;
+import org.btrplace.plan.event.KillVM;
+import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.plan.event.ResumeVM;
+import org.btrplace.plan.event.ShutdownNode;
+import org.btrplace.plan.event.ShutdownVM;
+import org.btrplace.plan.event.SubstitutedVMEvent;
+import org.btrplace.plan.event.SuspendVM;
+import org.btrplace.plan.event.VMEvent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Notify a group of checkers about the actions and the events of a plan, following their schedule.
+ * <p>
+ * When indexed, the checkers that are {@link SatConstraintChecker#isScoped() scoped} are only notified about
+ * the actions and the events that involve the VMs or the nodes of their constraint. The other checkers are
+ * notified about everything.
+ *
+ * @author Fabien Hermenier
+ */
+class CheckerSweep implements ActionVisitor {
+
+    private static final TimedBasedActionComparator STARTS_CMP = new TimedBasedActionComparator(true, true);
+
+    private static final TimedBasedActionComparator ENDS_CMP = new TimedBasedActionComparator(false, true);
+
+    private final List<SatConstraintChecker<?>> checkers;
+
+    /**
+     * The rank of each checker in the registration order.
+     */
+    private final int[] ranks;
+
+    private final boolean indexed;
+
+    private final TIntArrayList globals = new TIntArrayList();
+
+    private final Map<VM, TIntArrayList> byVM = new HashMap<>();
+
+    private final Map<Node, TIntArrayList> byNode = new HashMap<>();
+
+    /**
+     * The checkers to notify for the current action or event.
+     */
+    private final TIntArrayList targets = new TIntArrayList();
+
+    private final int[] stamps;
+
+    private int stamp;
+
+    private boolean startingEvent = true;
+
+    /**
+     * The action being notified, to dispatch its events.
+     */
+    private Action current;
+
+    /**
+     * The number of notified actions and events.
+     */
+    private long step;
+
+    /**
+     * The checker that reported the last violation.
+     */
+    private int violator;
+
+    /**
+     * New sweep.
+     *
+     * @param checkers the checkers to notify
+     * @param ranks    the rank of each checker in the registration order
+     * @param indexed  {@code true} to only notify the scoped checkers about their elements
+     */
+    CheckerSweep(List<SatConstraintChecker<?>> checkers, int[] ranks, boolean indexed) {
+        this.checkers = checkers;
+        this.ranks = ranks;
+        this.indexed = indexed;
+        stamps = new int[checkers.size()];
+        if (!indexed) {
+            return;
+        }
+        for (int i = 0; i < checkers.size(); i++) {
+            SatConstraintChecker<?> c = checkers.get(i);
+            SatConstraint cstr = c.getConstraint();
+            if (!c.isScoped() || cstr == null
+                    || (cstr.getInvolvedVMs().isEmpty() && cstr.getInvolvedNodes().isEmpty())) {
+                globals.add(i);
+                continue;
+            }
+            for (VM v : cstr.getInvolvedVMs()) {
+                byVM.computeIfAbsent(v, k -> new TIntArrayList()).add(i);
+            }
+            for (Node n : cstr.getInvolvedNodes()) {
+                byNode.computeIfAbsent(n, k -> new TIntArrayList()).add(i);
+            }
+        }
+    }
+
+    /**
+     * Notify the checkers about the origin model and the actions of a plan.
+     *
+     * @param p the plan
+     * @return the first violation. {@code null} if there is none
+     */
+    Violation walk(ReconfigurationPlan p) {
+        step = 0;
+        try {
+            checkModel(p.getOrigin(), true);
+            if (p.getActions().isEmpty()) {
+                return null;
+            }
+            PriorityQueue<Action> starts = new PriorityQueue<>(p.getActions().size(), STARTS_CMP);
+            PriorityQueue<Action> ends = new PriorityQueue<>(p.getActions().size(), ENDS_CMP);
+            starts.addAll(p.getActions());
+            ends.addAll(p.getActions());
+
+            int curMoment = starts.peek().getStart();
+            while (!starts.isEmpty() || !ends.isEmpty()) {
+                Action a = ends.peek();
+                while (a != null && a.getEnd() == curMoment) {
+                    ends.remove();
+                    startingEvent = false;
+                    visitAndThrowOnViolation(a);
+                    visitEvents(a, Action.Hook.POST);
+                    a = ends.peek();
+                }
+                a = starts.peek();
+
+                while (a != null && a.getStart() == curMoment) {
+                    starts.remove();
+                    startingEvent = true;
+                    visitEvents(a, Action.Hook.PRE);
+                    visitAndThrowOnViolation(a);
+                    a = starts.peek();
+                }
+                int nextEnd = Integer.MAX_VALUE;
+                if (!ends.isEmpty()) {
+                    nextEnd = ends.peek().getEnd();
+                }
+                int nextStart = Integer.MAX_VALUE;
+                if (!starts.isEmpty()) {
+                    nextStart = starts.peek().getStart();
+                }
+
+                curMoment = Math.min(nextEnd, nextStart);
+            }
+        } catch (SatConstraintViolationException ex) {
+            return new Violation(step, ranks[violator], ex);
+        }
+        return null;
+    }
+
+    /**
+     * Notify the checkers about the resulting model.
+     *
+     * @param mo the resulting model
+     * @return the violation. {@code null} if there is none
+     */
+    Violation finish(Model mo) {
+        try {
+            checkModel(mo, false);
+        } catch (SatConstraintViolationException ex) {
+            return new Violation(Long.MAX_VALUE, ranks[violator], ex);
+        }
+        return null;
+    }
+
+    private void visitAndThrowOnViolation(Action a) throws SatConstraintViolationException {
+        current = a;
+        SatConstraint c = (SatConstraint) a.visit(this);
+        if (c != null) {
+            throw new ContinuousViolationException(c, a);
+        }
+    }
+
+    private void visitEvents(Action a, Action.Hook k) throws SatConstraintViolationException {
+        current = a;
+        SatConstraint c;
+        for (Event e : a.getEvents(k)) {
+            c = (SatConstraint) e.visit(this);
+            if (c != null) {
+                throw new ContinuousViolationException(c, a);
+            }
+        }
+    }
+
+    private void checkModel(Model mo, boolean start) throws SatConstraintViolationException {
+        for (int i = 0; i < checkers.size(); i++) {
+            SatConstraintChecker<?> c = checkers.get(i);
+            boolean ok = start ? c.startsWith(mo) : c.endsWith(mo);
+            SatConstraint cs = c.getConstraint();
+            if (!ok && cs != null) {
+                violator = i;
+                throw new DiscreteViolationException(cs, mo);
+            }
+        }
+    }
+
+    /**
+     * Compute the checkers to notify.
+     *
+     * @param v the VM involved in the action or the event. May be {@code null}
+     * @param a the action involving nodes, or enclosing the event. May be {@code null}
+     * @return the checkers, in their registration order
+     */
+    private TIntArrayList targets(VM v, Action a) {
+        targets.resetQuick();
+        step++;
+        if (!indexed) {
+            for (int i = 0; i < checkers.size(); i++) {
+                targets.add(i);
+            }
+            return targets;
+        }
+        stamp++;
+        add(globals);
+        add(byVM.get(v));
+        if (a != null) {
+            if (a instanceof VMEvent) {
+                add(byVM.get(((VMEvent) a).getVM()));
+            }
+            for (Node n : ActionNodes.get(a)) {
+                add(byNode.get(n));
+            }
+        }
+        targets.sort();
+        return targets;
+    }
+
+    private void add(TIntArrayList l) {
+        if (l == null) {
+            return;
+        }
+        for (int x = 0; x < l.size(); x++) {
+            int i = l.getQuick(x);
+            if (stamps[i] != stamp) {
+                stamps[i] = stamp;
+                targets.add(i);
+            }
+        }
+    }
+
+    /**
+     * Notify the checkers about the beginning or the end of an action.
+     */
+    private SatConstraint dispatch(Action a, Predicate<SatConstraintChecker<?>> start, Consumer<SatConstraintChecker<?>> end) {
+        TIntArrayList ts = targets(null, a);
+        for (int x = 0; x < ts.size(); x++) {
+            SatConstraintChecker<?> c = checkers.get(ts.getQuick(x));
+            if (startingEvent) {
+                if (!start.test(c)) {
+                    violator = ts.getQuick(x);
+                    return c.getConstraint();
+                }
+            } else {
+                end.accept(c);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Notify the checkers about an event attached to the current action.
+     */
+    private SatConstraint consume(VM v, Predicate<SatConstraintChecker<?>> consumer) {
+        TIntArrayList ts = targets(v, current);
+        for (int x = 0; x < ts.size(); x++) {
+            SatConstraintChecker<?> c = checkers.get(ts.getQuick(x));
+            if (!consumer.test(c)) {
+                violator = ts.getQuick(x);
+                return c.getConstraint();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public SatConstraint visit(Allocate a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    @Override
+    public Object visit(AllocateEvent a) {
+        return consume(a.getVM(), c -> c.consume(a));
+    }
+
+    @Override
+    public SatConstraint visit(SubstitutedVMEvent a) {
+        SatConstraint res = consume(a.getVM(), c -> c.consume(a));
+        //The checkers now follow the new VM
+        TIntArrayList l = byVM.get(a.getVM());
+        if (l != null) {
+            byVM.computeIfAbsent(a.getNewVM(), k -> new TIntArrayList()).addAll(l);
+        }
+        return res;
+    }
+
+    @Override
+    public SatConstraint visit(BootNode a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    @Override
+    public SatConstraint visit(BootVM a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    @Override
+    public SatConstraint visit(ForgeVM a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    @Override
+    public SatConstraint visit(KillVM a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    @Override
+    public SatConstraint visit(MigrateVM a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    @Override
+    public Object visit(ResumeVM a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    @Override
+    public Object visit(ShutdownNode a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    @Override
+    public Object visit(ShutdownVM a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    @Override
+    public Object visit(SuspendVM a) {
+        return dispatch(a, c -> c.start(a), c -> c.end(a));
+    }
+
+    /**
+     * A violation, along with its position in the checking process.
+     */
+    static final class Violation implements Comparable<Violation> {
+
+        private final long step;
+
+        private final int rank;
+
+        private final SatConstraintViolationException cause;
+
+        Violation(long step, int rank, SatConstraintViolationException cause) {
+            this.step = step;
+            this.rank = rank;
+            this.cause = cause;
+        }
+
+        SatConstraintViolationException getCause() {
+            return cause;
+        }
+
+        @Override
+        public int compareTo(Violation o) {
+            int c = Long.compare(step, o.step);
+            return c != 0 ? c : Integer.compare(rank, o.rank);
+        }
+    }
+
+    /**
+     * Get the ranks of checkers notified in their registration order.
+     *
+     * @param nb the number of checkers
+     * @return the ranks from 0 to {@code nb - 1}
+     */
+    static int[] identity(int nb) {
+        int[] r = new int[nb];
+        for (int i = 0; i < nb; i++) {
+            r[i] = i;
+        }
+        return r;
+    }
+
+    /**
+     * Get the earliest of two violations.
+     *
+     * @param a the first violation. May be {@code null}
+     * @param b the second violation. May be {@code null}
+     * @return the violation reported first. {@code null} if both are {@code null}
+     */
+    static Violation earliest(Violation a, Violation b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.plan;
+
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.MigrateVM;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An applier that really executes the actions of a plan, concurrently.
+ * <p>
+ * The execution relies on a {@link DefaultReconfigurationPlanMonitor}. An action is started as soon as
+ * all its dependencies have been committed, and it is committed once its {@link ActionHandler} reports it is over.
+ * The actions are executed by the registered handlers, {@link ActionHandler#SIMULATION} by default.
+ * <p>
+ * The number of actions running at the same time on a node, and the number of migrations running at the same time
+ * between two nodes can be bounded. An unblocked action that would exceed a bound is delayed until a running
+ * action involving the same node or the same pair of nodes is over.
+ * <p>
+ * The listeners are notified sequentially, once each action is committed.
+ * The configuration of the executor must not be modified while a plan is executed.
+ *
+ * @author Fabien Hermenier
+ */
+public class ConcurrentPlanExecutor extends DefaultPlanApplier {
+
+    private final Executor executor;
+
+    private final Map<Class<? extends Action>, ActionHandler> handlers;
+
+    private ActionHandler defaultHandler;
+
+    private int nodeCapacity;
+
+    private int linkCapacity;
+
+    /**
+     * Make a new executor that starts the actions using the common fork-join pool.
+     */
+    public ConcurrentPlanExecutor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Make a new executor.
+     *
+     * @param exe the executor used to start the actions
+     */
+    public ConcurrentPlanExecutor(Executor exe) {
+        executor = exe;
+        handlers = new HashMap<>();
+        defaultHandler = ActionHandler.SIMULATION;
+        nodeCapacity = Integer.MAX_VALUE;
+        linkCapacity = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Register the handler for a kind of action.
+     * The handler is also used for the subclasses of the action, unless they have their own handler.
+     *
+     * @param c the action class
+     * @param h the handler
+     * @return the previous handler for that action class. {@code null} if none
+     */
+    public ActionHandler register(Class<? extends Action> c, ActionHandler h) {
+        return handlers.put(c, h);
+    }
+
+    /**
+     * Get the handler for the actions that do not have a dedicated handler.
+     *
+     * @return the handler. {@link ActionHandler#SIMULATION} by default
+     */
+    public ActionHandler getDefaultHandler() {
+        return defaultHandler;
+    }
+
+    /**
+     * Set the handler for the actions that do not have a dedicated handler.
+     *
+     * @param h the handler
+     */
+    public void setDefaultHandler(ActionHandler h) {
+        defaultHandler = h;
+    }
+
+    /**
+     * Get the handler that executes an action.
+     *
+     * @param a the action
+     * @return the handler
+     */
+    public ActionHandler getHandler(Action a) {
+        for (Class<?> c = a.getClass(); Action.class.isAssignableFrom(c); c = c.getSuperclass()) {
+            ActionHandler h = handlers.get(c);
+            if (h != null) {
+                return h;
+            }
+        }
+        return defaultHandler;
+    }
+
+    /**
+     * Get the maximum number of actions running at the same time on a node.
+     *
+     * @return a positive number. {@link Integer#MAX_VALUE} by default
+     */
+    public int getNodeCapacity() {
+        return nodeCapacity;
+    }
+
+    /**
+     * Set the maximum number of actions running at the same time on a node.
+     *
+     * @param nb a positive number
+     */
+    public void setNodeCapacity(int nb) {
+        if (nb < 1) {
+            throw new IllegalArgumentException("The node capacity must be positive");
+        }
+        nodeCapacity = nb;
+    }
+
+    /**
+     * Get the maximum number of migrations running at the same time between two nodes.
+     *
+     * @return a positive number. {@link Integer#MAX_VALUE} by default
+     */
+    public int getLinkCapacity() {
+        return linkCapacity;
+    }
+
+    /**
+     * Set the maximum number of migrations running at the same time between two nodes,
+     * whatever their direction.
+     *
+     * @param nb a positive number
+     */
+    public void setLinkCapacity(int nb) {
+        if (nb < 1) {
+            throw new IllegalArgumentException("The link capacity must be positive");
+        }
+        linkCapacity = nb;
+    }
+
+    /**
+     * Execute a plan.
+     *
+     * @param p the plan to execute
+     * @return a future completed with the resulting model once all the actions are committed.
+     * It is completed exceptionally as soon as an action fails. The remaining actions are then not started.
+     * Cancelling the future prevents the remaining actions from being started
+     */
+    public CompletableFuture<Model> execute(ReconfigurationPlan p) {
+        return new Execution(p).start();
+    }
+
+    /**
+     * Execute a plan and wait for its termination.
+     *
+     * @param p the plan to apply
+     * @return the resulting model
+     * @throws InfeasibleActionException if an action cannot be committed
+     * @throws CompletionException       if a handler failed
+     */
+    @Override
+    public Model apply(ReconfigurationPlan p) {
+        try {
+            return execute(p).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof InfeasibleActionException) {
+                throw (InfeasibleActionException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public String toString(ReconfigurationPlan p) {
+        StringBuilder b = new StringBuilder();
+        for (Action a : p) {
+            b.append(String.format("%s -> %s%n", p.getDirectDependencies(a), a));
+        }
+        return b.toString();
+    }
+
+    /**
+     * The resources an action needs to be started.
+     */
+    private static class Slot {
+
+        private final int capacity;
+
+        private int used;
+
+        /**
+         * The unblocked actions that wait for this slot to be released.
+         */
+        private final Deque<Action> waiting = new ArrayDeque<>();
+
+        Slot(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * The execution of a plan.
+     */
+    private class Execution {
+
+        private final ReconfigurationPlan plan;
+
+        private final ReconfigurationPlanMonitor rpm;
+
+        private final CompletableFuture<Model> result;
+
+        private final AtomicInteger remaining;
+
+        /**
+         * The slots, per node and per pair of nodes. Guarded by {@code this}.
+         */
+        private final Map<Object, Slot> slots;
+
+        private final Object notifyLock;
+
+        Execution(ReconfigurationPlan p) {
+            plan = p;
+            rpm = new DefaultReconfigurationPlanMonitor(p);
+            result = new CompletableFuture<>();
+            remaining = new AtomicInteger(p.getSize());
+            slots = new HashMap<>();
+            notifyLock = new Object();
+        }
+
+        CompletableFuture<Model> start() {
+            if (plan.getSize() == 0) {
+                result.complete(rpm.getCurrentModel());
+                return result;
+            }
+            List<Action> feasible = new ArrayList<>();
+            for (Action a : plan) {
+                if (!rpm.isBlocked(a)) {
+                    feasible.add(a);
+                }
+            }
+            launch(admit(feasible));
+            return result;
+        }
+
+        private List<Slot> slotsOf(Action a) {
+            List<Slot> res = new ArrayList<>(3);
+            List<Node> ns = ActionNodes.get(a);
+            if (nodeCapacity != Integer.MAX_VALUE) {
+                for (Node n : ns) {
+                    res.add(slots.computeIfAbsent(n, k -> new Slot(nodeCapacity)));
+                }
+            }
+            if (linkCapacity != Integer.MAX_VALUE && a instanceof MigrateVM && ns.size() == 2) {
+                int x = ns.get(0).id();
+                int y = ns.get(1).id();
+                long link = ((long) Math.min(x, y) << 32) | (Math.max(x, y) & 0xFFFFFFFFL);
+                res.add(slots.computeIfAbsent(link, k -> new Slot(linkCapacity)));
+            }
+            return res;
+        }
+
+        /**
+         * Reserve the slots of an action.
+         *
+         * @return {@code true} iff the action can be started. Otherwise, it waits for a full slot
+         */
+        private boolean reserve(Action a) {
+            List<Slot> ss = slotsOf(a);
+            for (Slot s : ss) {
+                if (s.used >= s.capacity) {
+                    s.waiting.add(a);
+                    return false;
+                }
+            }
+            for (Slot s : ss) {
+                s.used++;
+            }
+            return true;
+        }
+
+        /**
+         * Get the unblocked actions that can be started now.
+         */
+        private synchronized List<Action> admit(Iterable<Action> unblocked) {
+            List<Action> res = new ArrayList<>();
+            for (Action a : unblocked) {
+                if (reserve(a)) {
+                    res.add(a);
+                }
+            }
+            return res;
+        }
+
+        /**
+         * Release the slots of a terminated action.
+         *
+         * @return the waiting actions that can be started now
+         */
+        private synchronized List<Action> release(Action a) {
+            List<Action> res = new ArrayList<>();
+            List<Slot> ss = slotsOf(a);
+            for (Slot s : ss) {
+                s.used--;
+            }
+            for (Slot s : ss) {
+                while (s.used < s.capacity && !s.waiting.isEmpty()) {
+                    Action x = s.waiting.poll();
+                    if (reserve(x)) {
+                        res.add(x);
+                    }
+                }
+            }
+            return res;
+        }
+
+        private void launch(List<Action> actions) {
+            if (result.isDone()) {
+                return;
+            }
+            for (Action a : actions) {
+                executor.execute(() -> run(a));
+            }
+        }
+
+        private void run(Action a) {
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<?> f;
+            try {
+                f = getHandler(a).execute(a);
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            f.whenComplete((r, ex) -> {
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    over(a);
+                }
+            });
+        }
+
+        /**
+         * Commit a terminated action and start the actions that are now possible.
+         */
+        private void over(Action a) {
+            Set<Action> unblocked;
+            try {
+                unblocked = rpm.commit(a);
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            synchronized (notifyLock) {
+                fireAction(a);
+            }
+            launch(release(a));
+            launch(admit(unblocked));
+            if (remaining.decrementAndGet() == 0) {
+                result.complete(rpm.getCurrentModel());
+            }
+        }
+    }
+}
@@ -7,13 +7,19 @@
 package org.btrplace.plan;
 
 import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
 import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.VMEvent;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
@@ -22,6 +28,10 @@ import java.util.TreeSet;
 /**
  * Default implementation for {@link ReconfigurationPlan}.
  * By default, the instance relies on a {@link TimeBasedPlanApplier} to check for the plan applicability.
+ * <p>
+ * The actions are indexed incrementally: they are kept sorted, the duration is maintained on each addition,
+ * and the actions per VM and per node are indexed once requested.
+ * The resulting model is computed on each request so it reflects the current origin model.
  *
  * @author Fabien Hermenier
  */
@@ -31,6 +41,14 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
 
   private final Set<Action> actions;
 
+    private final TreeSet<Action> sorted;
+
+    private int duration;
+
+    private Map<VM, List<Action>> byVM;
+
+    private Map<Node, List<Action>> byNode;
+
     private DependenciesExtractor depsExtractor;
 
   private static final Comparator<Action> startFirstComparator = new TimedBasedActionComparator(true, true);
@@ -53,6 +71,7 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
     public DefaultReconfigurationPlan(Model m) {
         this.src = m;
         this.actions = new HashSet<>();
+        this.sorted = new TreeSet<>(startFirstComparator);
         //Dependency management is performed lazily.
         this.depsExtractor = null;
     }
@@ -65,11 +84,19 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
     @Override
     public boolean add(Action a) {
         boolean ret = this.actions.add(a);
-        if (ret && depsExtractor != null) {
+        if (!ret) {
+            return false;
+        }
+        sorted.add(a);
+        duration = Math.max(duration, a.getEnd());
+        if (depsExtractor != null) {
             //We only track dependencies incrementally if already started
             a.visit(depsExtractor);
         }
-        return ret;
+        if (byVM != null) {
+            index(a);
+        }
+        return true;
     }
 
     @Override
@@ -79,31 +106,71 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
 
     @Override
     public int getDuration() {
-        int m = 0;
-        for (Action a : actions) {
-            if (a.getEnd() > m) {
-                m = a.getEnd();
-            }
-        }
-        return m;
+        return duration;
     }
 
+    /**
+     * {@inheritDoc}
+     * The set cannot be modified, use {@link #add(Action)} instead.
+     */
     @Override
     public Set<Action> getActions() {
-        return actions;
+        return Collections.unmodifiableSet(actions);
     }
 
     /**
      * Iterate over the actions.
      * The action are automatically sorted increasingly by their starting moment.
+     * The plan must not be modified during the iteration.
      *
      * @return an iterator.
      */
     @Override
     public Iterator<Action> iterator() {
-        Set<Action> sorted = new TreeSet<>(startFirstComparator);
-        sorted.addAll(actions);
-        return sorted.iterator();
+        return Collections.unmodifiableSet(sorted).iterator();
+    }
+
+    @Override
+    public List<Action> getActions(VM v) {
+        indexAll();
+        return Collections.unmodifiableList(byVM.getOrDefault(v, Collections.emptyList()));
+    }
+
+    @Override
+    public List<Action> getActions(Node n) {
+        indexAll();
+        return Collections.unmodifiableList(byNode.getOrDefault(n, Collections.emptyList()));
+    }
+
+    /**
+     * Index the actions per VM and per node, if not already done.
+     */
+    private void indexAll() {
+        if (byVM != null) {
+            return;
+        }
+        byVM = new HashMap<>();
+        byNode = new HashMap<>();
+        for (Action a : sorted) {
+            index(a);
+        }
+    }
+
+    /**
+     * Index an action while keeping the per-element lists sorted.
+     */
+    private void index(Action a) {
+        if (a instanceof VMEvent) {
+            insert(byVM.computeIfAbsent(((VMEvent) a).getVM(), k -> new ArrayList<>()), a);
+        }
+        for (Node n : ActionNodes.get(a)) {
+            insert(byNode.computeIfAbsent(n, k -> new ArrayList<>()), a);
+        }
+    }
+
+    private static void insert(List<Action> l, Action a) {
+        int idx = Collections.binarySearch(l, a, startFirstComparator);
+        l.add(idx < 0 ? -idx - 1 : idx, a);
     }
 
     @Override
@@ -9,11 +9,14 @@ package org.btrplace.plan;
 import org.btrplace.model.Model;
 import org.btrplace.plan.event.Action;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * Simulated execution of a {@link ReconfigurationPlan}.
@@ -23,6 +26,9 @@ import java.util.Set;
  * The dependencies are updated each time an action is committed, which means the action
  * have been successfully executed.
  * <p>
+ * The monitor can be used by concurrent threads. The number of pending dependencies
+ * of each action is an atomic counter so committing an action only serialises the update of the model.
+ * An action that is committed twice is only counted once and does not release its dependents twice.
  *
  * @author Fabien Hermenier
  */
@@ -32,13 +38,34 @@ public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMon
 
     private Model curModel;
 
-    private final Map<Action, Set<Dependency>> pre;
+    /**
+     * The index of each action.
+     */
+    private final Map<Action, Integer> index;
+
+    private final Action[] actions;
 
-    private final Map<Action, Dependency> dependencies;
+    /**
+     * The indexes of the actions that directly depend on each action.
+     */
+    private final int[][] successors;
 
+    /**
+     * The number of uncommitted dependencies of each action.
+     */
+    private final AtomicIntegerArray pending;
+
+    /**
+     * {@code 1} for the committed actions.
+     */
+    private final AtomicIntegerArray committed;
+
+    /**
+     * Guard the current model.
+     */
     private final Object lock;
 
-    private int nbCommitted;
+    private final AtomicInteger nbCommitted;
 
     /**
      * Make a new monitor.
@@ -47,33 +74,32 @@ public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMon
      */
     public DefaultReconfigurationPlanMonitor(ReconfigurationPlan p) {
         this.plan = p;
-
-        pre = new HashMap<>();
-        dependencies = new HashMap<>();
         lock = new Object();
-        reset();
-    }
+        nbCommitted = new AtomicInteger();
+        curModel = plan.getOrigin().copy();
 
-    private void reset() {
-        synchronized (lock) {
-            curModel = plan.getOrigin().copy();
-            pre.clear();
-            nbCommitted = 0;
-            for (Action a : plan) {
-                Set<Action> deps = plan.getDirectDependencies(a);
-                if (deps.isEmpty()) {
-                    this.dependencies.put(a, new Dependency(a, Collections.emptySet()));
-                } else {
-                    Dependency dep = new Dependency(a, deps);
-                    this.dependencies.put(a, dep);
-                    for (Action x : dep.getDependencies()) {
-                        pre.putIfAbsent(x, new HashSet<>());
-                        Set<Dependency> pres = pre.get(x);
-                        pres.add(dep);
-                    }
-                }
+        actions = plan.getActions().toArray(new Action[0]);
+        index = new HashMap<>(actions.length * 2);
+        for (int i = 0; i < actions.length; i++) {
+            index.put(actions[i], i);
+        }
+        pending = new AtomicIntegerArray(actions.length);
+        committed = new AtomicIntegerArray(actions.length);
+        List<List<Integer>> succs = new ArrayList<>(actions.length);
+        for (int i = 0; i < actions.length; i++) {
+            succs.add(new ArrayList<>());
+        }
+        for (int i = 0; i < actions.length; i++) {
+            Set<Action> deps = plan.getDirectDependencies(actions[i]);
+            pending.set(i, deps.size());
+            for (Action x : deps) {
+                succs.get(index.get(x)).add(i);
             }
         }
+        successors = new int[actions.length][];
+        for (int i = 0; i < actions.length; i++) {
+            successors[i] = succs.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
     }
 
     @Override
@@ -87,52 +113,52 @@ public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMon
 
     @Override
     public Set<Action> commit(Action a) {
+        apply(a);
+        Integer idx = index.get(a);
+        if (idx == null) {
+            //Not an action of the plan, nothing depends on it
+            nbCommitted.incrementAndGet();
+            return new HashSet<>();
+        }
+        if (!committed.compareAndSet(idx, 0, 1)) {
+            //Already committed
+            return new HashSet<>();
+        }
+        nbCommitted.incrementAndGet();
+        //Release the actions that were only waiting for this one
         Set<Action> s = new HashSet<>();
+        for (int x : successors[idx]) {
+            if (pending.decrementAndGet(x) == 0) {
+                s.add(actions[x]);
+            }
+        }
+        return s;
+    }
+
+    private void apply(Action a) {
         synchronized (lock) {
-            boolean ret = a.apply(curModel);
-            if (!ret) {
+            if (!a.apply(curModel)) {
                 throw new InfeasibleActionException(curModel, a);
             }
-            nbCommitted++;
-            //Browse all its dependencies for the action
-            Set<Dependency> deps = pre.get(a);
-            if (deps != null) {
-                for (Dependency dep : deps) {
-                    Set<Action> actions = dep.getDependencies();
-                    actions.remove(a);
-                    if (actions.isEmpty()) {
-                        Action x = dep.getAction();
-                        s.add(x);
-                    }
-                }
-            }
         }
-        return s;
     }
 
     @Override
     public int getNbCommitted() {
-        synchronized (lock) {
-            return nbCommitted;
-        }
+        return nbCommitted.get();
     }
 
     @Override
     public boolean isBlocked(Action a) {
-        synchronized (lock) {
-            return !dependencies.get(a).getDependencies().isEmpty();
-        }
+        return pending.get(index.get(a)) > 0;
     }
 
     @Override
     public ReconfigurationPlan getReconfigurationPlan() {
-        ReconfigurationPlan cpy;
-        synchronized (lock) {
-            cpy = new DefaultReconfigurationPlan(plan.getOrigin().copy());
-            for (Action a : plan) {
-                //Cannot clone an action. Sad
-                cpy.add(a);
-            }
+        ReconfigurationPlan cpy = new DefaultReconfigurationPlan(plan.getOrigin().copy());
+        for (Action a : plan) {
+            //Cannot clone an action. Sad
+            cpy.add(a);
         }
         return cpy;
     }
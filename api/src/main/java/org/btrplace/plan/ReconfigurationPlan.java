@@ -7,8 +7,13 @@
 package org.btrplace.plan;
 
 import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
 import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.VMEvent;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -59,6 +64,39 @@ public interface ReconfigurationPlan extends Iterable<Action> {
      */
     Set<Action> getActions();
 
+    /**
+     * Get the actions that manipulate a given VM.
+     *
+     * @param v the VM
+     * @return the actions, sorted by a {@link TimedBasedActionComparator}. May be empty
+     */
+    default List<Action> getActions(VM v) {
+        List<Action> res = new ArrayList<>();
+        for (Action a : this) {
+            if (a instanceof VMEvent && v.equals(((VMEvent) a).getVM())) {
+                res.add(a);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get the actions that involve a given node, either directly or as the source or the destination
+     * of a VM.
+     *
+     * @param n the node
+     * @return the actions, sorted by a {@link TimedBasedActionComparator}. May be empty
+     */
+    default List<Action> getActions(Node n) {
+        List<Action> res = new ArrayList<>();
+        for (Action a : this) {
+            if (ActionNodes.get(a).contains(n)) {
+                res.add(a);
+            }
+        }
+        return res;
+    }
+
     /**
      * Get the resulting model once all the actions are executed.
      *
@@ -9,13 +9,11 @@ package org.btrplace.plan;
 import org.btrplace.model.Model;
 import org.btrplace.model.constraint.SatConstraint;
 import org.btrplace.model.constraint.SatConstraintChecker;
-import org.btrplace.plan.event.Action;
 import org.btrplace.plan.event.ActionVisitor;
 import org.btrplace.plan.event.Allocate;
 import org.btrplace.plan.event.AllocateEvent;
 import org.btrplace.plan.event.BootNode;
 import org.btrplace.plan.event.BootVM;
-import org.btrplace.plan.event.Event;
 import org.btrplace.plan.event.ForgeVM;
 import org.btrplace.plan.event.KillVM;
 import org.btrplace.plan.event.MigrateVM;
@@ -28,7 +26,11 @@ import org.btrplace.scheduler.InconsistentSolutionException;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 /**
  * Checker to verify if a reconfiguration plan satisfies a set of
@@ -40,22 +42,53 @@ import java.util.PriorityQueue;
  * <p>
  * Actions start and end moment are notified in the increasing order of their associated moment with
  * a priority given to the end moments.
+ * <p>
+ * The {@link SatConstraintChecker#isScoped() scoped} checkers are only notified about the actions and the events
+ * involving the VMs and the nodes of their constraint, so the cost of checking a plan does not grow with
+ * the product of its size and the number of constraints.
  *
  * @author Fabien Hermenier
  */
 public class ReconfigurationPlanChecker implements ActionVisitor {
 
-    private boolean startingEvent = true;
+    private final List<SatConstraintChecker<?>> checkers;
 
-    private static final TimedBasedActionComparator STARTS_CMP = new TimedBasedActionComparator(true, true);
-  private static final TimedBasedActionComparator ENDS_CMP = new TimedBasedActionComparator(false, true);
-  private final List<SatConstraintChecker<?>> checkers;
+    private int workers;
+
+    /**
+     * The sweep used when the checker is visited directly.
+     */
+    private CheckerSweep sweep;
 
     /**
      * Make a new instance.
      */
     public ReconfigurationPlanChecker() {
         checkers = new ArrayList<>();
+        workers = 1;
+    }
+
+    /**
+     * Get the number of threads used to check a plan.
+     *
+     * @return a positive number
+     */
+    public int getWorkersCount() {
+        return workers;
+    }
+
+    /**
+     * Set the number of threads used to check a plan.
+     * With more than one worker, the checkers are dispatched among the workers
+     * that follow the plan concurrently. The reported violation stays the same.
+     *
+     * @param nb a positive number
+     */
+    public void setWorkersCount(int nb) {
+        if (nb < 1) {
+            throw new IllegalArgumentException("The number of workers must be positive");
+        }
+        workers = nb;
     }
 
     /**
@@ -65,6 +98,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
      * @return {@code true} iff the checker has been added
      */
     public boolean addChecker(SatConstraintChecker<?> c) {
+        sweep = null;
         return checkers.add(c);
     }
 
@@ -75,174 +109,81 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
      * @return {@code true} iff the checker was present
      */
     public boolean removeChecker(SatConstraintChecker<?> c) {
+        sweep = null;
         return checkers.remove(c);
     }
 
+    private CheckerSweep sweep() {
+        if (sweep == null) {
+            sweep = new CheckerSweep(checkers, CheckerSweep.identity(checkers.size()), false);
+        }
+        return sweep;
+    }
+
     @Override
     public SatConstraint visit(Allocate a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return (SatConstraint) a.visit(sweep());
     }
 
     @Override
     public Object visit(AllocateEvent a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (!c.consume(a)) {
-                return c.getConstraint();
-            }
-        }
-        return null;
+        return a.visit(sweep());
     }
 
     @Override
     public SatConstraint visit(SubstitutedVMEvent a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (!c.consume(a)) {
-                return c.getConstraint();
-            }
-        }
-        return null;
+        return (SatConstraint) a.visit(sweep());
     }
 
     @Override
     public SatConstraint visit(BootNode a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
-
+        return (SatConstraint) a.visit(sweep());
     }
 
     @Override
     public SatConstraint visit(BootVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
-
+        return (SatConstraint) a.visit(sweep());
     }
 
     @Override
     public SatConstraint visit(ForgeVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
-
+        return (SatConstraint) a.visit(sweep());
     }
 
     @Override
     public SatConstraint visit(KillVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return (SatConstraint) a.visit(sweep());
     }
 
     @Override
     public SatConstraint visit(MigrateVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return (SatConstraint) a.visit(sweep());
     }
 
     @Override
     public Object visit(ResumeVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return a.visit(sweep());
     }
 
     @Override
     public Object visit(ShutdownNode a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return a.visit(sweep());
     }
 
     @Override
     public Object visit(ShutdownVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return a.visit(sweep());
     }
 
     @Override
     public Object visit(SuspendVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (startingEvent) {
-                if (!c.start(a)) {
-                    return c.getConstraint();
-                }
-            } else {
-                c.end(a);
-            }
-        }
-        return null;
+        return a.visit(sweep());
     }
 
     /**
      * Check if a plan satisfies all the {@link SatConstraintChecker}.
+     * Each scoped checker is only notified about the actions and the events involving
+     * the elements of its constraint.
      *
      * @param p the plan to check
      * @throws SatConstraintViolationException if a violation is detected
@@ -252,91 +193,85 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
             return;
         }
 
-        checkModel(p.getOrigin(), true);
-
-        if (!p.getActions().isEmpty()) {
-            PriorityQueue<Action> starts = new PriorityQueue<>(p.getActions().size(), STARTS_CMP);
-            PriorityQueue<Action> ends = new PriorityQueue<>(p.getActions().size(), ENDS_CMP);
-            starts.addAll(p.getActions());
-            ends.addAll(p.getActions());
-
-            //Starts the actions
-            int curMoment = starts.peek().getStart();
-            while (!starts.isEmpty() || !ends.isEmpty()) {
-                Action a = ends.peek();
-                while (a != null && a.getEnd() == curMoment) {
-                    ends.remove();
-                    startingEvent = false;
-                    visitAndThrowOnViolation(a);
-                    visitEvents(a, Action.Hook.POST);
-                    a = ends.peek();
-                }
-                a = starts.peek();
-
-                while (a != null && a.getStart() == curMoment) {
-                    starts.remove();
-                    startingEvent = true;
-                    visitEvents(a, Action.Hook.PRE);
-                    visitAndThrowOnViolation(a);
-                    a = starts.peek();
-                }
-                int nextEnd = Integer.MAX_VALUE;
-                if (!ends.isEmpty()) {
-                    nextEnd = ends.peek().getEnd();
-                }
-                int nextStart = Integer.MAX_VALUE;
-                if (!starts.isEmpty()) {
-                    nextStart = starts.peek().getStart();
-                }
-
-                curMoment = Math.min(nextEnd, nextStart);
-            }
+        List<CheckerSweep> sweeps = shards(Math.min(workers, checkers.size()));
+        if (sweeps.size() == 1) {
+            CheckerSweep s = sweeps.get(0);
+            throwOnViolation(s.walk(p));
+            throwOnViolation(s.finish(result(p)));
+            return;
+        }
+        ExecutorService exe = Executors.newFixedThreadPool(sweeps.size());
+        try {
+            throwOnViolation(earliest(exe, sweeps, s -> s.walk(p)));
+            Model mo = result(p);
+            throwOnViolation(earliest(exe, sweeps, s -> s.finish(mo)));
+        } finally {
+            exe.shutdownNow();
         }
+    }
+
+    private static Model result(ReconfigurationPlan p) {
         Model mo = p.getResult();
         if (mo == null) {
-          throw new InconsistentSolutionException(p, "The resulting reconfiguration plan is not applyable");
+            throw new InconsistentSolutionException(p, "The resulting reconfiguration plan is not applyable");
         }
-        checkModel(mo, false);
+        return mo;
     }
 
-    private void visitAndThrowOnViolation(Action a) throws SatConstraintViolationException {
-        SatConstraint c = (SatConstraint) a.visit(this);
-        if (c != null) {
-            throw new ContinuousViolationException(c, a);
+    private static void throwOnViolation(CheckerSweep.Violation v) throws SatConstraintViolationException {
+        if (v != null) {
+            throw v.getCause();
         }
     }
 
-    private void visitEvents(Action a, Action.Hook k) throws SatConstraintViolationException {
-        SatConstraint c;
-        for (Event e : a.getEvents(k)) {
-            c = (SatConstraint) e.visit(this);
-            if (c != null) {
-                throw new ContinuousViolationException(c, a);
+    /**
+     * Dispatch the checkers among sweeps, in a round-robin manner.
+     *
+     * @param nb the number of sweeps
+     * @return the sweeps
+     */
+    private List<CheckerSweep> shards(int nb) {
+        List<CheckerSweep> res = new ArrayList<>(nb);
+        for (int s = 0; s < nb; s++) {
+            List<SatConstraintChecker<?>> cs = new ArrayList<>();
+            int[] ranks = new int[(checkers.size() - s + nb - 1) / nb];
+            for (int i = s; i < checkers.size(); i += nb) {
+                ranks[cs.size()] = i;
+                cs.add(checkers.get(i));
             }
+            res.add(new CheckerSweep(cs, ranks, true));
         }
+        return res;
     }
 
     /**
-     * Check for the validity of a model.
+     * Run a step of the checking process on every sweep.
      *
-     * @param mo    the model to check
-     * @param start {@code true} iff the model corresponds to the origin model. Otherwise it is considered
-     *              to be the resulting model
-     * @throws SatConstraintViolationException if at least one constraint is violated.
+     * @param exe    the executor to use
+     * @param sweeps the sweeps
+     * @param step   the step to run
+     * @return the violation that would have been reported first by a single sweep. {@code null} if there is none
      */
-    private void checkModel(Model mo, boolean start) throws SatConstraintViolationException {
-        for (SatConstraintChecker<?> c : checkers) {
-            if (start && !c.startsWith(mo)) {
-                SatConstraint cs = c.getConstraint();
-                if (cs != null) {
-                    throw new DiscreteViolationException(c.getConstraint(), mo);
-                }
-            } else if (!start && !c.endsWith(mo)) {
-                SatConstraint cs = c.getConstraint();
-                if (cs != null) {
-                    throw new DiscreteViolationException(c.getConstraint(), mo);
+    private static CheckerSweep.Violation earliest(ExecutorService exe, List<CheckerSweep> sweeps,
+                                                   Function<CheckerSweep, CheckerSweep.Violation> step) {
+        List<Future<CheckerSweep.Violation>> futures = new ArrayList<>(sweeps.size());
+        for (CheckerSweep s : sweeps) {
+            futures.add(exe.submit(() -> step.apply(s)));
+        }
+        CheckerSweep.Violation first = null;
+        for (Future<CheckerSweep.Violation> f : futures) {
+            try {
+                first = CheckerSweep.earliest(first, f.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
                 }
+                throw new IllegalStateException(ex.getCause());
             }
         }
+        return first;
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.model;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+
+/**
+ * Unit tests for {@link CompactMapping}.
+ * The tests of {@link DefaultMappingTest} are replayed on a compact mapping.
+ *
+ * @author Fabien Hermenier
+ */
+public class CompactMappingTest extends DefaultMappingTest {
+
+  @Override
+  protected Mapping newMapping() {
+    return new CompactMapping();
+  }
+
+  @Test
+  public void testViews() {
+    Mapping m = newMapping();
+    Node n = new Node(0);
+    VM v = new VM(3);
+    m.addOnlineNode(n);
+    Set<VM> running = m.getRunningVMs(n);
+    Assert.assertTrue(running.isEmpty());
+    m.addRunningVM(v, n);
+    Assert.assertEquals(running.size(), 1);
+    Assert.assertTrue(running.contains(v));
+    try {
+      running.add(new VM(4));
+      Assert.fail();
+    } catch (UnsupportedOperationException ex) {
+      //expected
+    }
+    m.addReadyVM(v);
+    Assert.assertTrue(running.isEmpty());
+  }
+
+  @Test
+  public void testModelCopy() {
+    Model mo = new DefaultModel(new DefaultElementBuilder(), new CompactMapping());
+    Node n = mo.newNode();
+    mo.getMapping().addOnlineNode(n);
+    mo.getMapping().addRunningVM(mo.newVM(), n);
+    Model cp = mo.copy();
+    Assert.assertTrue(cp.getMapping() instanceof CompactMapping);
+    Assert.assertEquals(cp, mo);
+  }
+
+  @Test
+  public void testCopyIsolation() {
+    Mapping m = newMapping();
+    Node n0 = new Node(0);
+    Node n1 = new Node(2000);
+    m.addOnlineNode(n0);
+    m.addOnlineNode(n1);
+    for (int i = 0; i < 3000; i++) {
+      m.addRunningVM(new VM(i), i % 2 == 0 ? n0 : n1);
+    }
+    Mapping cp = m.copy();
+    Assert.assertEquals(cp, m);
+
+    //Each mapping is modified on its own
+    m.addReadyVM(new VM(0));
+    cp.remove(new VM(1));
+    cp.addOfflineNode(new Node(1));
+    Assert.assertTrue(m.isReady(new VM(0)));
+    Assert.assertTrue(cp.isRunning(new VM(0)));
+    Assert.assertTrue(m.isRunning(new VM(1)));
+    Assert.assertFalse(cp.contains(new VM(1)));
+    Assert.assertFalse(m.contains(new Node(1)));
+    Assert.assertEquals(m.getRunningVMs(n0).size(), 1499);
+    Assert.assertEquals(cp.getRunningVMs(n0).size(), 1500);
+    Assert.assertEquals(m.getRunningVMs(n1).size(), 1500);
+    Assert.assertEquals(cp.getRunningVMs(n1).size(), 1499);
+
+    cp.clearAllVMs();
+    Assert.assertEquals(cp.getNbVMs(), 0);
+    Assert.assertEquals(m.getNbVMs(), 3000);
+    Assert.assertEquals(m.getReadyVMs().size(), 1);
+  }
+}
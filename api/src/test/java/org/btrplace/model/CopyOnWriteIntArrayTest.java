@@ -0,0 +1,115 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.model;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link CopyOnWriteIntArray}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CopyOnWriteIntArrayTest {
+
+    @Test
+    public void testGetSet() {
+        CopyOnWriteIntArray a = new CopyOnWriteIntArray(-1);
+        Assert.assertEquals(a.noEntry(), -1);
+        Assert.assertEquals(a.get(0), -1);
+        Assert.assertEquals(a.get(-5), -1);
+        Assert.assertEquals(a.get(100_000), -1);
+        a.set(3, 7);
+        a.set(5000, 0);
+        Assert.assertEquals(a.get(3), 7);
+        Assert.assertEquals(a.get(4), -1);
+        Assert.assertEquals(a.get(5000), 0);
+        a.clear();
+        Assert.assertEquals(a.get(3), -1);
+        Assert.assertEquals(a.nextSet(0), -1);
+    }
+
+    @Test(expectedExceptions = {IndexOutOfBoundsException.class})
+    public void testNegativeIndex() {
+        new CopyOnWriteIntArray(0).set(-1, 3);
+    }
+
+    @Test
+    public void testNextSet() {
+        CopyOnWriteIntArray a = new CopyOnWriteIntArray(0);
+        a.set(2, 1);
+        a.set(3000, 4);
+        a.set(10_000, 5);
+        a.set(3000, 0);
+        Assert.assertEquals(a.nextSet(0), 2);
+        Assert.assertEquals(a.nextSet(3), 10_000);
+        Assert.assertEquals(a.nextSet(10_001), -1);
+    }
+
+    @Test
+    public void testEnsureCapacity() {
+        CopyOnWriteIntArray a = new CopyOnWriteIntArray(-1);
+        a.ensureCapacity(-1);
+        a.ensureCapacity(5000);
+        Assert.assertEquals(a.get(5000), -1);
+        Assert.assertEquals(a.nextSet(0), -1);
+        a.set(5000, 3);
+        a.set(2, 1);
+        Assert.assertEquals(a.get(5000), 3);
+        Assert.assertEquals(a.nextSet(3), 5000);
+    }
+
+    @Test
+    public void testCopy() {
+        CopyOnWriteIntArray a = new CopyOnWriteIntArray(0);
+        for (int i = 0; i < 3000; i++) {
+            a.set(i, i);
+        }
+        CopyOnWriteIntArray b = a.copy();
+        CopyOnWriteIntArray c = b.copy();
+        a.set(1, 10);
+        b.set(2, 20);
+        b.set(5000, 50);
+        Assert.assertEquals(a.get(1), 10);
+        Assert.assertEquals(a.get(2), 2);
+        Assert.assertEquals(a.get(5000), 0);
+        Assert.assertEquals(b.get(1), 1);
+        Assert.assertEquals(b.get(2), 20);
+        Assert.assertEquals(b.get(5000), 50);
+        Assert.assertEquals(c.get(1), 1);
+        Assert.assertEquals(c.get(2), 2);
+        Assert.assertEquals(c.get(2999), 2999);
+        a.clear();
+        Assert.assertEquals(b.get(2999), 2999);
+    }
+
+    @Test
+    public void testConcurrentCopies() throws InterruptedException {
+        CopyOnWriteIntArray a = new CopyOnWriteIntArray(0);
+        for (int i = 0; i < 3000; i++) {
+            a.set(i, i);
+        }
+        CopyOnWriteIntArray[] copies = new CopyOnWriteIntArray[4];
+        Thread[] ts = new Thread[copies.length];
+        for (int t = 0; t < ts.length; t++) {
+            final int x = t;
+            ts[t] = new Thread(() -> copies[x] = a.copy());
+            ts[t].start();
+        }
+        for (Thread t : ts) {
+            t.join();
+        }
+        //The copies made by the other threads are noticed
+        a.set(1, 10);
+        a.set(2999, 20);
+        for (CopyOnWriteIntArray c : copies) {
+            Assert.assertEquals(c.get(1), 1);
+            Assert.assertEquals(c.get(2999), 2999);
+        }
+        Assert.assertEquals(a.get(1), 10);
+    }
+}
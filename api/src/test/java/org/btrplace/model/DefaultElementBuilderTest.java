@@ -50,4 +50,20 @@ public class DefaultElementBuilderTest {
         Assert.assertNotEquals(n2, n3);
     }
 
+    @Test
+    public void testCopy() {
+        ElementBuilder eb = new DefaultElementBuilder();
+        VM v = eb.newVM();
+        Node n = eb.newNode();
+        ElementBuilder cp = eb.copy();
+        Assert.assertTrue(cp.contains(v));
+        Assert.assertTrue(cp.contains(n));
+
+        VM v2 = eb.newVM();
+        Node n2 = cp.newNode();
+        Assert.assertFalse(cp.contains(v2));
+        Assert.assertFalse(eb.contains(n2));
+        Assert.assertEquals(cp.newVM(), v2);
+        Assert.assertEquals(eb.newNode(), n2);
+    }
 }
@@ -27,6 +27,7 @@ public class DefaultModelTest {
         Model i = new DefaultModel();
         Assert.assertTrue(i.getViews().isEmpty());
         Assert.assertNotNull(i.getAttributes());
+        Assert.assertTrue(i.getMapping() instanceof CompactMapping);
     }
 
     @Test
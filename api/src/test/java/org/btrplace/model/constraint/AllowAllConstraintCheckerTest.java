@@ -172,4 +172,16 @@ public class AllowAllConstraintCheckerTest {
         Assert.assertFalse(vs.contains(vms.get(6)));
         Assert.assertFalse(vs.contains(vms.get(0)));
     }
+
+    @Test
+    public void testScoping() {
+        Model mo = new DefaultModel();
+        VM v = mo.newVM();
+        Node n = mo.newNode();
+        //Third-party checkers are notified about everything unless they opt in
+        Assert.assertFalse(new AllowAllConstraintChecker<>(mock(SatConstraint.class)).isScoped());
+        Assert.assertFalse(new Lonely(new HashSet<>(Arrays.asList(v))).getChecker().isScoped());
+        Assert.assertTrue(new Ban(v, Arrays.asList(n)).getChecker().isScoped());
+        Assert.assertTrue(new Running(v).getChecker().isScoped());
+    }
 }
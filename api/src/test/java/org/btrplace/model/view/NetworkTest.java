@@ -10,12 +10,15 @@ import org.btrplace.model.DefaultModel;
 import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.view.network.Link;
+import org.btrplace.model.view.network.DefaultRouting;
 import org.btrplace.model.view.network.Network;
+import org.btrplace.model.view.network.Routing;
 import org.btrplace.model.view.network.StaticRouting;
 import org.btrplace.model.view.network.Switch;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -57,6 +60,56 @@ public class NetworkTest {
         Assert.assertTrue(net.getRouting().getPath(n1, n2).containsAll(net.getLinks()));
     }
 
+    /**
+     * Test the default routing over several switches.
+     */
+    @Test
+    public void defaultRoutingMultiHopTest() {
+        Model mo = new DefaultModel();
+        Network net = new Network(new DefaultRouting(1));
+        Switch core = net.newSwitch(10000);
+        Switch r1 = net.newSwitch(5000);
+        Switch r2 = net.newSwitch(-1);
+        Switch r3 = net.newSwitch(-1);
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        Node n4 = mo.newNode();
+        Link l1 = net.connect(1000, r1, n1);
+        Link l2 = net.connect(1000, r1, n2);
+        Link l3 = net.connect(500, r2, n3);
+        Link l4 = net.connect(1000, r3, n4);
+        Link up1 = net.connect(8000, r1, core);
+        Link up2 = net.connect(8000, core, r2);
+        mo.attach(net);
+
+        Routing r = net.getRouting();
+        // Same rack
+        Assert.assertEquals(r.getPath(n1, n2), Arrays.asList(l1, l2));
+        Assert.assertEquals(r.getMaxBW(n1, n2), 1000);
+        // Through the core switch
+        Assert.assertEquals(r.getPath(n1, n3), Arrays.asList(l1, up1, up2, l3));
+        Assert.assertEquals(r.getPath(n3, n1), Arrays.asList(l3, up2, up1, l1));
+        Assert.assertEquals(r.getMaxBW(n1, n3), 500);
+        Assert.assertEquals(r.getLinkDirection(n1, n3, l1), Routing.LinkDirection.DOWNLINK);
+        Assert.assertEquals(r.getLinkDirection(n1, n3, l3), Routing.LinkDirection.UPLINK);
+        Assert.assertEquals(r.getLinkDirection(n3, n1, l1), Routing.LinkDirection.UPLINK);
+        Assert.assertEquals(r.getLinkDirection(n1, n3, l2), Routing.LinkDirection.NONE);
+        Assert.assertEquals(r.getLinkDirection(n1, n1, l1), Routing.LinkDirection.NONE);
+        // Unreachable node
+        Assert.assertTrue(r.getPath(n1, n4).isEmpty());
+        Assert.assertEquals(r.getLinkDirection(n1, n4, l4), Routing.LinkDirection.NONE);
+
+        // Links added after a first routing are considered
+        Link up3 = net.connect(8000, r3, core);
+        Assert.assertEquals(r.getPath(n4, n2), Arrays.asList(l4, up3, up1, l2));
+        Assert.assertEquals(r.getMaxBW(n4, n2), 1000);
+
+        DefaultRouting cpy = (DefaultRouting) r.copy();
+        Assert.assertEquals(cpy.getCacheSize(), 1);
+        Assert.assertEquals(cpy.getPath(n1, n3), r.getPath(n1, n3));
+    }
+
     /**
      * Test the static routing implementation.
      */
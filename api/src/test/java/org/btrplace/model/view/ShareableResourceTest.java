@@ -14,6 +14,7 @@ import org.btrplace.model.VM;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -189,4 +190,43 @@ public class ShareableResourceTest {
         Assert.assertTrue(rc.substituteVM(vms.get(2), vms.get(6)));
         Assert.assertEquals(rc.getConsumption(vms.get(6)), 0);
     }
+
+    @Test
+    public void testBulkAccessors() {
+        ShareableResource rc = new ShareableResource("foo", 4, 2);
+        List<VM> l = Arrays.asList(vms.get(3), vms.get(0), vms.get(7));
+        rc.setConsumptions(l, new int[]{5, 6, 7});
+        Assert.assertEquals(rc.getConsumption(vms.get(0)), 6);
+        Assert.assertEquals(rc.getConsumptions(Arrays.asList(vms.get(7), vms.get(1), vms.get(3))), new int[]{7, 2, 5});
+        int[] to = new int[3];
+        Assert.assertSame(rc.getConsumptions(l, to), to);
+        Assert.assertEquals(to, new int[]{5, 6, 7});
+
+        List<Node> ns = Arrays.asList(nodes.get(5), nodes.get(2));
+        rc.setCapacities(ns, new int[]{10, 20});
+        Assert.assertEquals(rc.getCapacities(Arrays.asList(nodes.get(2), nodes.get(0), nodes.get(5))), new int[]{20, 4, 10});
+        Assert.assertEquals(rc.getDefinedNodes(), new HashSet<>(ns));
+    }
+
+    @Test
+    public void testBulkSettersAreAtomic() {
+        ShareableResource rc = new ShareableResource("foo", 4, 2);
+        try {
+            rc.setConsumptions(Arrays.asList(vms.get(1), vms.get(2)), new int[]{3, -1});
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertTrue(rc.getDefinedVMs().isEmpty());
+        }
+        try {
+            rc.setCapacities(Arrays.asList(nodes.get(1), nodes.get(2)), new int[]{3, -1});
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertTrue(rc.getDefinedNodes().isEmpty());
+        }
+        //Redefining a value does not count it twice
+        rc.setConsumption(vms.get(1), 8);
+        rc.setConsumptions(Arrays.asList(vms.get(1), vms.get(2)), new int[]{3, 5});
+        Assert.assertEquals(rc.getDefinedVMs().size(), 2);
+        Assert.assertEquals(rc.sumConsumptions(rc.getDefinedVMs(), false), 8);
+    }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.plan;
+
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.Util;
+import org.btrplace.model.VM;
+import org.btrplace.plan.event.BootNode;
+import org.btrplace.plan.event.MigrateVM;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link ConcurrentPlanExecutor}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ConcurrentPlanExecutorTest {
+
+    /**
+     * 4 online nodes hosting 40 VMs that are migrated to 2 nodes to boot.
+     */
+    private static ReconfigurationPlan makePlan() {
+        Model mo = new DefaultModel();
+        List<VM> vms = Util.newVMs(mo, 40);
+        List<Node> ns = Util.newNodes(mo, 6);
+        Mapping map = mo.getMapping();
+        for (int i = 0; i < 4; i++) {
+            map.addOnlineNode(ns.get(i));
+        }
+        map.addOfflineNode(ns.get(4));
+        map.addOfflineNode(ns.get(5));
+        for (int i = 0; i < vms.size(); i++) {
+            map.addRunningVM(vms.get(i), ns.get(i % 4));
+        }
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        plan.add(new BootNode(ns.get(4), 0, 3));
+        plan.add(new BootNode(ns.get(5), 0, 3));
+        for (int i = 0; i < vms.size(); i++) {
+            plan.add(new MigrateVM(vms.get(i), ns.get(i % 4), ns.get(4 + i % 2), 3, 5));
+        }
+        return plan;
+    }
+
+    @Test
+    public void testSimulation() {
+        ReconfigurationPlan plan = makePlan();
+        Model res = new ConcurrentPlanExecutor().apply(plan);
+        Assert.assertEquals(res, new DependencyBasedPlanApplier().apply(plan));
+    }
+
+    @Test
+    public void testEmptyPlan() {
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(new DefaultModel());
+        Assert.assertEquals(new ConcurrentPlanExecutor().apply(plan), plan.getOrigin());
+    }
+
+    @Test
+    public void testBoundedConcurrency() {
+        ReconfigurationPlan plan = makePlan();
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        List<AtomicInteger> running = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            running.add(new AtomicInteger());
+        }
+        AtomicInteger maxPerNode = new AtomicInteger();
+        Set<Node> booted = ConcurrentHashMap.newKeySet();
+        AtomicInteger early = new AtomicInteger();
+
+        ConcurrentPlanExecutor exe = new ConcurrentPlanExecutor();
+        exe.setNodeCapacity(2);
+        Assert.assertEquals(exe.getNodeCapacity(), 2);
+        exe.register(BootNode.class, a -> {
+            booted.add(((BootNode) a).getNode());
+            return CompletableFuture.completedFuture(null);
+        });
+        exe.register(MigrateVM.class, a -> {
+            MigrateVM m = (MigrateVM) a;
+            //The migrations are only started once their destination node is booted
+            if (!booted.contains(m.getDestinationNode())) {
+                early.incrementAndGet();
+            }
+            AtomicInteger src = running.get(m.getSourceNode().id());
+            AtomicInteger dst = running.get(m.getDestinationNode().id());
+            maxPerNode.accumulateAndGet(Math.max(src.incrementAndGet(), dst.incrementAndGet()), Math::max);
+            CompletableFuture<Void> f = new CompletableFuture<>();
+            timer.schedule(() -> {
+                src.decrementAndGet();
+                dst.decrementAndGet();
+                f.complete(null);
+            }, 1, TimeUnit.MILLISECONDS);
+            return f;
+        });
+        try {
+            Model res = exe.apply(plan);
+            Assert.assertEquals(res, new DependencyBasedPlanApplier().apply(plan));
+            Assert.assertEquals(maxPerNode.get(), 2);
+            Assert.assertEquals(early.get(), 0);
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        ReconfigurationPlan plan = makePlan();
+        ConcurrentPlanExecutor exe = new ConcurrentPlanExecutor();
+        AtomicInteger migrations = new AtomicInteger();
+        exe.setDefaultHandler(a -> {
+            CompletableFuture<Void> f = new CompletableFuture<>();
+            f.completeExceptionally(new IllegalStateException());
+            return f;
+        });
+        exe.register(MigrateVM.class, a -> {
+            migrations.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        });
+        try {
+            exe.apply(plan);
+            Assert.fail();
+        } catch (CompletionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        //The nodes were not booted so no migration was started
+        Assert.assertEquals(migrations.get(), 0);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadNodeCapacity() {
+        new ConcurrentPlanExecutor().setNodeCapacity(0);
+    }
+}
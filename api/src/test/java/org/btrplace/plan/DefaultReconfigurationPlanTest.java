@@ -11,13 +11,17 @@ import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.Util;
 import org.btrplace.model.VM;
+import org.btrplace.model.view.ShareableResource;
 import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.AllocateEvent;
 import org.btrplace.plan.event.MigrateVM;
 import org.btrplace.plan.event.ShutdownNode;
 import org.btrplace.plan.event.SuspendVM;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.Mockito.mock;
@@ -137,6 +141,65 @@ public class DefaultReconfigurationPlanTest {
         Assert.assertTrue(p1.getActions().contains(a3));
     }
 
+    @Test
+    public void testIndexes() {
+        Model mo = new DefaultModel();
+        VM v1 = mo.newVM();
+        VM v2 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        mo.getMapping().on(n1, n2, n3).run(n1, v1, v2);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        Action m2 = new MigrateVM(v2, n1, n3, 3, 5);
+        Action m1 = new MigrateVM(v1, n1, n2, 0, 2);
+        Action s3 = new ShutdownNode(n3, 0, 1);
+        Assert.assertTrue(p.add(m2));
+        Assert.assertTrue(p.add(m1));
+        Assert.assertEquals(p.getActions(n1), Arrays.asList(m1, m2));
+        Assert.assertEquals(p.getActions(n2), Collections.singletonList(m1));
+        Assert.assertEquals(p.getActions(v2), Collections.singletonList(m2));
+        Assert.assertTrue(p.getActions(v1).contains(m1));
+        //Incremental indexing
+        Assert.assertTrue(p.add(s3));
+        Assert.assertEquals(p.getActions(n3), Arrays.asList(s3, m2));
+        Assert.assertTrue(p.getActions(mo.newNode()).isEmpty());
+        Assert.assertEquals(p.getDuration(), 5);
+    }
+
+    @Test
+    public void testResultIsUpToDate() {
+        Model mo = new DefaultModel();
+        VM v = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        mo.getMapping().on(n1, n2).run(n1, v);
+        ShareableResource cpu = new ShareableResource("cpu", 4, 1);
+        mo.attach(cpu);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        MigrateVM m = new MigrateVM(v, n1, n2, 0, 2);
+        p.add(m);
+        Model r1 = p.getResult();
+        Assert.assertTrue(p.isApplyable());
+        Model r2 = p.getResult();
+        Assert.assertNotSame(r1, r2);
+        Assert.assertEquals(r1, r2);
+
+        //Modifying a result does not alter the next ones
+        r2.getMapping().addSleepingVM(v, n2);
+        Assert.assertEquals(p.getResult(), r1);
+
+        //The origin model can be modified after a first application
+        cpu.setConsumption(v, 2);
+        Assert.assertEquals(ShareableResource.get(p.getResult(), "cpu").getConsumption(v), 2);
+        //A new event is considered
+        m.addEvent(Action.Hook.POST, new AllocateEvent(v, "cpu", 3));
+        Assert.assertEquals(ShareableResource.get(p.getResult(), "cpu").getConsumption(v), 3);
+        //A new action too
+        p.add(new ShutdownNode(n1, 2, 3));
+        Assert.assertTrue(p.getResult().getMapping().isOffline(n1));
+    }
+
     @Test
     public void testEquals() {
         Model mo = new DefaultModel();
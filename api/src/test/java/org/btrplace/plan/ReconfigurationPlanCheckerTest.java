@@ -12,6 +12,9 @@ import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.Util;
 import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Ban;
+import org.btrplace.model.constraint.Fence;
+import org.btrplace.model.constraint.SatConstraint;
 import org.btrplace.model.constraint.SatConstraintChecker;
 import org.btrplace.plan.event.BootNode;
 import org.btrplace.plan.event.BootVM;
@@ -20,10 +23,14 @@ import org.mockito.InOrder;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 /**
  * Unit tests for {@link ReconfigurationPlanChecker}.
@@ -101,4 +108,82 @@ public class ReconfigurationPlanCheckerTest {
         order.verify(chk).endsWith(mo);
 
     }
+
+    @Test
+    public void testScopedDispatch() throws SatConstraintViolationException {
+        Model mo = new DefaultModel();
+        Mapping m = mo.getMapping();
+        List<Node> ns = Util.newNodes(mo, 3);
+        List<VM> vms = Util.newVMs(mo, 2);
+        for (Node n : ns) {
+            m.addOnlineNode(n);
+        }
+        m.addRunningVM(vms.get(0), ns.get(0));
+        m.addRunningVM(vms.get(1), ns.get(0));
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        MigrateVM m0 = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 1, 4);
+        MigrateVM m1 = new MigrateVM(vms.get(1), ns.get(0), ns.get(2), 0, 3);
+        p.add(m0);
+        p.add(m1);
+
+        SatConstraintChecker<?> scoped = spy(new Fence(vms.get(0), ns.get(1)).getChecker());
+        SatConstraintChecker<?> global = mock(SatConstraintChecker.class);
+        ReconfigurationPlanChecker rc = new ReconfigurationPlanChecker();
+        rc.addChecker(scoped);
+        rc.addChecker(global);
+        rc.check(p);
+
+        //Only the actions involving the VM or the nodes of the constraint
+        verify(scoped).start(m0);
+        verify(scoped, never()).start(m1);
+        verify(scoped, never()).end(m1);
+        verify(global).start(m0);
+        verify(global).start(m1);
+    }
+
+    @Test
+    public void testParallelCheck() {
+        Model mo = new DefaultModel();
+        Mapping m = mo.getMapping();
+        List<Node> ns = Util.newNodes(mo, 3);
+        List<VM> vms = Util.newVMs(mo, 6);
+        for (Node n : ns) {
+            m.addOnlineNode(n);
+        }
+        for (VM v : vms) {
+            m.addRunningVM(v, ns.get(0));
+        }
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 2, 4));
+        p.add(new MigrateVM(vms.get(1), ns.get(0), ns.get(2), 1, 3));
+        p.add(new MigrateVM(vms.get(2), ns.get(0), ns.get(1), 0, 3));
+
+        //The violation of the last constraint occurs first
+        SatConstraint first = new Ban(vms.get(2), ns.get(1));
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Ban(vms.get(0), ns.get(1)));
+        for (int i = 3; i < vms.size(); i++) {
+            cstrs.add(new Ban(vms.get(i), ns.get(2)));
+        }
+        cstrs.add(new Ban(vms.get(1), ns.get(1)));
+        cstrs.add(first);
+
+        for (int w = 1; w <= cstrs.size() + 1; w++) {
+            ReconfigurationPlanChecker rc = new ReconfigurationPlanChecker();
+            rc.setWorkersCount(w);
+            Assert.assertEquals(rc.getWorkersCount(), w);
+            cstrs.forEach(c -> rc.addChecker(c.getChecker()));
+            try {
+                rc.check(p);
+                Assert.fail("A violation was expected with " + w + " worker(s)");
+            } catch (SatConstraintViolationException ex) {
+                Assert.assertSame(ex.getConstraint(), first);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBadWorkersCount() {
+        new ReconfigurationPlanChecker().setWorkersCount(0);
+    }
 }
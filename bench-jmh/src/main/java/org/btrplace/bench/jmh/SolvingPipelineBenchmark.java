@@ -0,0 +1,308 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.bench.jmh;
+
+import org.btrplace.model.Instance;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultChocoScheduler;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.Parameters;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.btrplace.scheduler.choco.runner.single.InstanceSolverRunner;
+import org.chocosolver.solver.Solution;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bench the stages of {@link DefaultChocoScheduler#solve(Instance)} on synthetic datacenters:
+ * <ol>
+ *     <li>the core problem construction ({@code InstanceSolverRunner.buildRP()})</li>
+ *     <li>its specialisation ({@code InstanceSolverRunner.specialise()})</li>
+ *     <li>the search ({@link ReconfigurationProblem#solve(int, boolean)})</li>
+ *     <li>the plan construction ({@link ReconfigurationProblem#buildReconfigurationPlan(Solution, org.btrplace.model.Model)})</li>
+ * </ol>
+ * The whole pipeline is also measured. Each stage is fed by a fresh copy of the instance
+ * that has been through the previous stages during the setup, so only the stage itself is measured.
+ *
+ * @author Fabien Hermenier
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4G", "-Xmx4G"})
+public class SolvingPipelineBenchmark {
+
+    /**
+     * The synthetic datacenter shared by all the stages.
+     */
+    @State(Scope.Benchmark)
+    public static class Datacenter {
+
+        /**
+         * The number of VMs.
+         */
+        @Param({"1000", "5000", "10000", "50000"})
+        public int vms;
+
+        /**
+         * The side constraints.
+         */
+        @Param({"SPREAD", "BAN", "FENCE", "MIX"})
+        public SyntheticDatacenter.Mix constraints;
+
+        /**
+         * The solver time limit in seconds.
+         */
+        @Param({"10"})
+        public int timeLimit;
+
+        private Instance instance;
+
+        /**
+         * Generate the datacenter.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            instance = new SyntheticDatacenter().setNbVMs(vms).setMix(constraints).build();
+        }
+
+        /**
+         * Get a copy of the instance as a solving process might alter the model.
+         *
+         * @return a fresh instance
+         */
+        public Instance instance() {
+            return new Instance(instance.getModel().copy(), instance.getSatConstraints(), instance.getOptConstraint());
+        }
+
+        /**
+         * The solver parameters.
+         *
+         * @return fresh parameters
+         */
+        public Parameters parameters() {
+            return new DefaultParameters().doRepair(true).setTimeLimit(timeLimit);
+        }
+    }
+
+    /**
+     * A runner that exposes the solving stages.
+     */
+    public static class StagedRunner extends InstanceSolverRunner {
+
+        /**
+         * New runner.
+         *
+         * @param ps the parameters
+         * @param i  the instance to solve
+         */
+        public StagedRunner(Parameters ps, Instance i) {
+            super(ps, i);
+        }
+
+        @Override
+        public ReconfigurationProblem buildRP() throws SchedulerException {
+            return super.buildRP();
+        }
+
+        @Override
+        public boolean specialise() {
+            return super.specialise();
+        }
+    }
+
+    /**
+     * A runner ready to build its core problem.
+     */
+    @State(Scope.Thread)
+    public static class ToBuild {
+
+        private StagedRunner runner;
+
+        /**
+         * Prepare a fresh runner.
+         *
+         * @param dc the datacenter
+         */
+        @Setup(Level.Invocation)
+        public void setUp(Datacenter dc) {
+            runner = new StagedRunner(dc.parameters(), dc.instance());
+        }
+    }
+
+    /**
+     * A runner having a core problem to specialise.
+     */
+    @State(Scope.Thread)
+    public static class ToSpecialise {
+
+        private StagedRunner runner;
+
+        /**
+         * Prepare a runner and build its core problem.
+         *
+         * @param dc the datacenter
+         * @throws SchedulerException if the build failed
+         */
+        @Setup(Level.Invocation)
+        public void setUp(Datacenter dc) throws SchedulerException {
+            runner = new StagedRunner(dc.parameters(), dc.instance());
+            runner.buildRP();
+        }
+    }
+
+    /**
+     * A specialised problem ready to be solved.
+     */
+    @State(Scope.Thread)
+    public static class ToSolve {
+
+        private ReconfigurationProblem rp;
+
+        private Parameters ps;
+
+        /**
+         * Prepare a runner and build then specialise its problem.
+         *
+         * @param dc the datacenter
+         * @throws SchedulerException if the build failed
+         */
+        @Setup(Level.Invocation)
+        public void setUp(Datacenter dc) throws SchedulerException {
+            ps = dc.parameters();
+            StagedRunner runner = new StagedRunner(ps, dc.instance());
+            rp = runner.buildRP();
+            runner.specialise();
+        }
+    }
+
+    /**
+     * The last solution of a solved problem.
+     */
+    @State(Scope.Thread)
+    public static class ToConvert {
+
+        private ReconfigurationProblem rp;
+
+        private Solution solution;
+
+        /**
+         * Solve the problem and keep its last solution.
+         *
+         * @param dc the datacenter
+         * @throws SchedulerException if the solving process failed
+         */
+        @Setup(Level.Trial)
+        public void setUp(Datacenter dc) throws SchedulerException {
+            Parameters ps = dc.parameters();
+            StagedRunner runner = new StagedRunner(ps, dc.instance());
+            rp = runner.buildRP();
+            runner.specialise();
+            rp.getSolver().plugMonitor((IMonitorSolution) () -> solution = new Solution(rp.getModel()).record());
+            rp.solve(ps.getTimeLimit(), ps.doOptimize());
+            if (solution == null) {
+                throw new IllegalStateException("No solution to convert");
+            }
+        }
+    }
+
+    /**
+     * A scheduler to run on a fresh instance.
+     */
+    @State(Scope.Thread)
+    public static class ToSchedule {
+
+        private Instance instance;
+
+        private DefaultChocoScheduler scheduler;
+
+        /**
+         * Prepare the scheduler.
+         *
+         * @param dc the datacenter
+         */
+        @Setup(Level.Invocation)
+        public void setUp(Datacenter dc) {
+            instance = dc.instance();
+            scheduler = new DefaultChocoScheduler(dc.parameters());
+        }
+    }
+
+    /**
+     * Bench the core problem construction.
+     *
+     * @param s the state
+     * @return the core problem
+     * @throws SchedulerException if an error occurred
+     */
+    @Benchmark
+    public ReconfigurationProblem buildRP(ToBuild s) throws SchedulerException {
+        return s.runner.buildRP();
+    }
+
+    /**
+     * Bench the specialisation of the core problem.
+     *
+     * @param s the state
+     * @return the specialisation status
+     */
+    @Benchmark
+    public boolean specialise(ToSpecialise s) {
+        return s.runner.specialise();
+    }
+
+    /**
+     * Bench the solving process of the problem.
+     *
+     * @param s the state
+     * @return the resulting plan
+     * @throws SchedulerException if an error occurred
+     */
+    @Benchmark
+    public ReconfigurationPlan solve(ToSolve s) throws SchedulerException {
+        return s.rp.solve(s.ps.getTimeLimit(), s.ps.doOptimize());
+    }
+
+    /**
+     * Bench the conversion of a solution into a plan.
+     *
+     * @param s the state
+     * @return the resulting plan
+     * @throws SchedulerException if an error occurred
+     */
+    @Benchmark
+    public ReconfigurationPlan buildReconfigurationPlan(ToConvert s) throws SchedulerException {
+        return s.rp.buildReconfigurationPlan(s.solution, s.rp.getSourceModel());
+    }
+
+    /**
+     * Bench the whole pipeline.
+     *
+     * @param s the state
+     * @return the resulting plan
+     * @throws SchedulerException if an error occurred
+     */
+    @Benchmark
+    public ReconfigurationPlan scheduler(ToSchedule s) throws SchedulerException {
+        return s.scheduler.solve(s.instance);
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.bench.jmh;
+
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Ban;
+import org.btrplace.model.constraint.Fence;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.Offline;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.Spread;
+import org.btrplace.model.view.ShareableResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generate synthetic datacenters to bench the solving process.
+ * <p>
+ * The nodes are grouped by racks and share a {@code cpu} and a {@code mem}
+ * {@link ShareableResource}. Every VM is running and the placement is viable.
+ * Some nodes are set offline using {@link Offline} constraints to force the
+ * solver to relocate their VMs. Additional {@link Spread}, {@link Ban} or {@link Fence}
+ * constraints are then stated depending on the selected {@link Mix}.
+ * <p>
+ * The generation is deterministic for a given seed.
+ *
+ * @author Fabien Hermenier
+ */
+public class SyntheticDatacenter {
+
+    /**
+     * The side constraints to state.
+     */
+    public enum Mix {
+        /**
+         * Only the offline constraints.
+         */
+        NONE,
+        /**
+         * Spread constraints over pairs of VMs.
+         */
+        SPREAD,
+        /**
+         * Ban constraints on VMs.
+         */
+        BAN,
+        /**
+         * Fence constraints to keep VMs inside their rack.
+         */
+        FENCE,
+        /**
+         * Spread, Ban and Fence constraints.
+         */
+        MIX
+    }
+
+    /**
+     * The node capacity for the cpu resource.
+     */
+    public static final int CPU_CAPACITY = 64;
+
+    /**
+     * The node capacity for the mem resource.
+     */
+    public static final int MEM_CAPACITY = 128;
+
+    private int nbVMs = 1000;
+
+    private int vmsPerNode = 10;
+
+    private int rackSize = 20;
+
+    private double offlineRatio = 0.01;
+
+    private double constrainedRatio = 0.1;
+
+    private Mix mix = Mix.MIX;
+
+    private long seed = 0;
+
+    /**
+     * Set the number of VMs.
+     *
+     * @param n a positive number
+     * @return {@code this}
+     */
+    public SyntheticDatacenter setNbVMs(int n) {
+        nbVMs = n;
+        return this;
+    }
+
+    /**
+     * Set the average number of VMs per node.
+     * The number of nodes is deduced from it.
+     *
+     * @param n a positive number
+     * @return {@code this}
+     */
+    public SyntheticDatacenter setVMsPerNode(int n) {
+        vmsPerNode = n;
+        return this;
+    }
+
+    /**
+     * Set the number of nodes per rack.
+     *
+     * @param n a positive number
+     * @return {@code this}
+     */
+    public SyntheticDatacenter setRackSize(int n) {
+        rackSize = n;
+        return this;
+    }
+
+    /**
+     * Set the ratio of nodes that must go offline.
+     *
+     * @param r a ratio between 0 and 1
+     * @return {@code this}
+     */
+    public SyntheticDatacenter setOfflineRatio(double r) {
+        offlineRatio = r;
+        return this;
+    }
+
+    /**
+     * Set the ratio of VMs that are subject to a side constraint.
+     *
+     * @param r a ratio between 0 and 1
+     * @return {@code this}
+     */
+    public SyntheticDatacenter setConstrainedRatio(double r) {
+        constrainedRatio = r;
+        return this;
+    }
+
+    /**
+     * Set the side constraints to state.
+     *
+     * @param m the constraint mix
+     * @return {@code this}
+     */
+    public SyntheticDatacenter setMix(Mix m) {
+        mix = m;
+        return this;
+    }
+
+    /**
+     * Set the seed of the random number generator.
+     *
+     * @param s the seed
+     * @return {@code this}
+     */
+    public SyntheticDatacenter setSeed(long s) {
+        seed = s;
+        return this;
+    }
+
+    /**
+     * Generate a new instance.
+     *
+     * @return the resulting instance
+     */
+    public Instance build() {
+        Random rnd = new Random(seed);
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        ShareableResource cpu = new ShareableResource("cpu", CPU_CAPACITY, 0);
+        ShareableResource mem = new ShareableResource("mem", MEM_CAPACITY, 0);
+
+        //A 20% headroom to be able to evacuate the nodes that go offline
+        int nbNodes = Math.max(2, (int) Math.ceil(1.2 * nbVMs / vmsPerNode));
+        List<Node> nodes = new ArrayList<>(nbNodes);
+        for (int i = 0; i < nbNodes; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            nodes.add(n);
+        }
+
+        //Round-robin placement. The per-VM consumption cannot exceed the node capacity
+        int maxPerNode = (int) Math.ceil(1.0 * nbVMs / nbNodes);
+        int maxCpu = Math.max(1, CPU_CAPACITY / maxPerNode);
+        int maxMem = Math.max(1, MEM_CAPACITY / maxPerNode);
+        List<VM> vms = new ArrayList<>(nbVMs);
+        for (int i = 0; i < nbVMs; i++) {
+            VM v = mo.newVM();
+            map.addRunningVM(v, nodes.get(i % nbNodes));
+            cpu.setConsumption(v, 1 + rnd.nextInt(maxCpu));
+            mem.setConsumption(v, 1 + rnd.nextInt(maxMem));
+            vms.add(v);
+        }
+        mo.attach(cpu);
+        mo.attach(mem);
+
+        List<SatConstraint> cstrs = new ArrayList<>();
+        int nbOffline = Math.max(1, (int) (offlineRatio * nbNodes));
+        for (int i = 0; i < nbOffline; i++) {
+            cstrs.add(new Offline(nodes.get(rnd.nextInt(nbNodes))));
+        }
+
+        int nbConstrained = (int) (constrainedRatio * nbVMs);
+        if (mix == Mix.SPREAD || mix == Mix.MIX) {
+            spreads(vms, nodes, nbConstrained, rnd, cstrs);
+        }
+        if (mix == Mix.BAN || mix == Mix.MIX) {
+            bans(vms, nodes, nbConstrained, rnd, cstrs);
+        }
+        if (mix == Mix.FENCE || mix == Mix.MIX) {
+            fences(vms, nodes, nbConstrained, rnd, cstrs);
+        }
+        return new Instance(mo, cstrs, new MinMTTR());
+    }
+
+    /**
+     * Spread pairs of VMs that are consecutive in the round-robin placement, so on distinct nodes.
+     */
+    private static void spreads(List<VM> vms, List<Node> nodes, int nb, Random rnd, List<SatConstraint> cstrs) {
+        if (nodes.size() < 2) {
+            return;
+        }
+        for (int i = 0; i < nb / 2; i++) {
+            int x = rnd.nextInt(vms.size() - 1);
+            Set<VM> pair = new HashSet<>();
+            pair.add(vms.get(x));
+            pair.add(vms.get(x + 1));
+            cstrs.add(new Spread(pair, false));
+        }
+    }
+
+    /**
+     * Ban VMs from a random node that is not their current host.
+     */
+    private static void bans(List<VM> vms, List<Node> nodes, int nb, Random rnd, List<SatConstraint> cstrs) {
+        for (int i = 0; i < nb; i++) {
+            int x = rnd.nextInt(vms.size());
+            Node n = nodes.get((x + 1 + rnd.nextInt(nodes.size() - 1)) % nodes.size());
+            cstrs.add(new Ban(vms.get(x), Collections.singleton(n)));
+        }
+    }
+
+    /**
+     * Fence VMs inside their current rack.
+     */
+    private void fences(List<VM> vms, List<Node> nodes, int nb, Random rnd, List<SatConstraint> cstrs) {
+        for (int i = 0; i < nb; i++) {
+            int x = rnd.nextInt(vms.size());
+            //The VM is hosted by the node at position 'x % nodes.size()'
+            int rack = (x % nodes.size()) / rackSize;
+            int from = rack * rackSize;
+            int to = Math.min(nodes.size(), from + rackSize);
+            cstrs.add(new Fence(vms.get(x), new ArrayList<>(nodes.subList(from, to))));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.bench.jmh;
+
+import org.btrplace.model.Instance;
+import org.btrplace.model.constraint.Ban;
+import org.btrplace.model.constraint.Fence;
+import org.btrplace.model.constraint.Offline;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.Spread;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.choco.DefaultChocoScheduler;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.Parameters;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link SyntheticDatacenter} and the benchmark stages.
+ *
+ * @author Fabien Hermenier
+ */
+public class SyntheticDatacenterTest {
+
+    @Test
+    public void testGeneration() {
+        Instance i = new SyntheticDatacenter().setNbVMs(500).setMix(SyntheticDatacenter.Mix.MIX).build();
+        Assert.assertEquals(i.getModel().getMapping().getNbVMs(), 500);
+        Assert.assertEquals(i.getModel().getMapping().getNbNodes(), 60);
+        Assert.assertTrue(i.getSatConstraints().stream().anyMatch(c -> c instanceof Offline));
+        Assert.assertTrue(i.getSatConstraints().stream().anyMatch(c -> c instanceof Spread));
+        Assert.assertTrue(i.getSatConstraints().stream().anyMatch(c -> c instanceof Ban));
+        Assert.assertTrue(i.getSatConstraints().stream().anyMatch(c -> c instanceof Fence));
+        //The side constraints are satisfied by the initial placement
+        for (SatConstraint c : i.getSatConstraints()) {
+            if (!(c instanceof Offline)) {
+                Assert.assertTrue(c.isSatisfied(i.getModel()), c.toString());
+            }
+        }
+
+        Instance j = new SyntheticDatacenter().setNbVMs(500).setMix(SyntheticDatacenter.Mix.MIX).build();
+        Assert.assertEquals(j.getSatConstraints(), i.getSatConstraints());
+    }
+
+    @Test
+    public void testSolvable() {
+        Instance i = new SyntheticDatacenter().setNbVMs(500).build();
+        ReconfigurationPlan p = new DefaultChocoScheduler(new DefaultParameters().doRepair(true)).solve(i);
+        Assert.assertNotNull(p);
+        Assert.assertFalse(p.getActions().isEmpty());
+    }
+
+    @Test
+    public void testStages() throws Exception {
+        Instance i = new SyntheticDatacenter().setNbVMs(500).build();
+        Parameters ps = new DefaultParameters().doRepair(true);
+        SolvingPipelineBenchmark.StagedRunner r = new SolvingPipelineBenchmark.StagedRunner(ps, i);
+        ReconfigurationProblem rp = r.buildRP();
+        Assert.assertNotNull(rp);
+        Assert.assertTrue(r.specialise());
+        Assert.assertNotNull(rp.solve(ps.getTimeLimit(), ps.doOptimize()));
+    }
+}
@@ -6,10 +6,12 @@
 
 package org.btrplace.scheduler.choco;
 
+import org.btrplace.model.Instance;
 import org.btrplace.scheduler.Scheduler;
 import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.runner.InstanceSolver;
 import org.btrplace.scheduler.choco.runner.SolvingStatistics;
+import org.btrplace.scheduler.choco.runner.Telemetry;
 
 /**
  * A scheduler based on the Choco constraint solver.
@@ -26,6 +28,28 @@ public interface ChocoScheduler extends Scheduler, Parameters {
      */
     SolvingStatistics getStatistics() throws SchedulerException;
 
+    /**
+     * Get the last telemetry snapshot of the running solving process.
+     * This method can be called from any thread.
+     * Snapshots are only taken when the telemetry is enabled or at least one telemetry listener is registered.
+     *
+     * @return the snapshot. {@code null} if not available
+     */
+    Telemetry getTelemetry();
+
+    /**
+     * Solve an instance asynchronously.
+     * The solving process starts immediately in a dedicated thread, with a snapshot of the current parameters.
+     * The time limit, if any, is turned into a deadline that can be moved through the returned handle.
+     * A scheduler runs one solving process at a time. Cancelling the handle only stops the solver
+     * that was in use when the solving process started.
+     *
+     * @param i the instance to solve
+     * @return the handle to follow and control the solving process
+     * @throws IllegalStateException if an asynchronous solving process started by this scheduler is still running
+     */
+    SolvingHandle solveAsync(Instance i);
+
     /**
      * Get the solver used to solve a problem.
      *
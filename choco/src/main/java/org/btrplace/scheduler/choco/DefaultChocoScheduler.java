@@ -22,6 +22,7 @@ import org.btrplace.scheduler.choco.duration.DurationEvaluators;
 import org.btrplace.scheduler.choco.runner.InstanceSolver;
 import org.btrplace.scheduler.choco.runner.SolvingStatistics;
 import org.btrplace.scheduler.choco.runner.StagedSolvingStatistics;
+import org.btrplace.scheduler.choco.runner.Telemetry;
 import org.btrplace.scheduler.choco.runner.single.SingleRunner;
 import org.btrplace.scheduler.choco.transition.TransitionFactory;
 import org.btrplace.scheduler.choco.view.ChocoView;
@@ -31,11 +32,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Default implementation of {@link ChocoScheduler}.
- * A same instance cannot be used to solve multiple problems simultaneously.
+ * A same instance cannot be used to solve multiple problems simultaneously. This is enforced
+ * while an asynchronous solving process is running: any other solving request is then rejected.
  * <p>
  * By default, the algorithm relies on a {@link SingleRunner} solver.
  *
@@ -49,6 +52,11 @@ public class DefaultChocoScheduler implements ChocoScheduler {
 
     private StagedSolvingStatistics stages;
 
+    /**
+     * The last asynchronous solving process. Guarded by {@code this}.
+     */
+    private SolvingHandle async;
+
     /**
      * Make a new algorithm.
      *
@@ -76,6 +84,26 @@ public class DefaultChocoScheduler implements ChocoScheduler {
         return params.doOptimize();
     }
 
+    @Override
+    public Parameters doLNS(boolean b) {
+        return params.doLNS(b);
+    }
+
+    @Override
+    public boolean doLNS() {
+        return params.doLNS();
+    }
+
+    @Override
+    public Parameters doLazyPlans(boolean b) {
+        return params.doLazyPlans(b);
+    }
+
+    @Override
+    public boolean doLazyPlans() {
+        return params.doLazyPlans();
+    }
+
     @Override
     public Parameters setTimeLimit(int t) {
         return params.setTimeLimit(t);
@@ -103,6 +131,52 @@ public class DefaultChocoScheduler implements ChocoScheduler {
 
     @Override
     public ReconfigurationPlan solve(Instance i) throws SchedulerException {
+        InstanceSolver r;
+        synchronized (this) {
+            checkIdle();
+            r = runner;
+        }
+        return solve(r, params, i);
+    }
+
+    @Override
+    public synchronized SolvingHandle solveAsync(Instance i) {
+        checkIdle();
+        //The handle stops the runner of its own solving process, even if the scheduler runner is replaced meanwhile
+        InstanceSolver r = runner;
+        //The deadline is managed by the handle so it can be moved
+        Parameters ps = new DefaultParameters(params).setTimeLimit(-1);
+        long deadline = params.getTimeLimit() > 0 ? System.currentTimeMillis() + params.getTimeLimit() * 1000L : -1;
+        SolvingHandle h = new SolvingHandle(r::stop, deadline);
+        ps.addSolutionListener(h::onSolution);
+        async = h;
+        Thread t = new Thread(() -> {
+            try {
+                h.done(solve(r, ps, i), null);
+            } catch (Exception ex) {
+                h.done(null, ex);
+            }
+        }, "btrplace-solver");
+        t.setDaemon(true);
+        t.start();
+        return h;
+    }
+
+    /**
+     * Check no asynchronous solving process is running.
+     *
+     * @throws IllegalStateException if a solving process is running
+     */
+    private void checkIdle() {
+        if (async != null && !async.isDone()) {
+            throw new IllegalStateException("An asynchronous solving process is already running");
+        }
+    }
+
+    /**
+     * Solve an instance with given parameters.
+     */
+    private ReconfigurationPlan solve(InstanceSolver r, Parameters base, Instance i) throws SchedulerException {
         Model mo = i.getModel();
         Collection<SatConstraint> cstrs = i.getSatConstraints();
         // If a network view is attached, ensure that all the migrations' destination node are defined
@@ -113,8 +187,8 @@ public class DefaultChocoScheduler implements ChocoScheduler {
             mo.detach(net);
 
             // Solve a first time using placement oriented MinMTTR optimisation constraint
-            ReconfigurationPlan p = runner.solve(params, i);
-            stages = new StagedSolvingStatistics(runner.getStatistics());
+            ReconfigurationPlan p = r.solve(base, i);
+            stages = new StagedSolvingStatistics(r.getStatistics());
             if (p == null) {
                 return null;
             }
@@ -141,17 +215,17 @@ public class DefaultChocoScheduler implements ChocoScheduler {
             mo.attach(net);
 
             //New timeout value = elapsed time - initial timeout value
-            Parameters ps = new DefaultParameters(params);
+            Parameters ps = new DefaultParameters(base);
             if (ps.getTimeLimit() > 0) {
                 //in seconds
-                double timeout = params.getTimeLimit() - runner.getStatistics().getMetrics().timeCount() / 1000;
+                double timeout = base.getTimeLimit() - r.getStatistics().getMetrics().timeCount() / 1000;
                 ps.setTimeLimit((int) timeout);
             }
 
-            return runner.solve(ps, new Instance(mo, newCstrs, i.getOptConstraint()));
+            return r.solve(ps, new Instance(mo, newCstrs, i.getOptConstraint()));
         }
         // Solve and return the computed plan
-        return runner.solve(params, new Instance(mo, cstrs, i.getOptConstraint()));
+        return r.solve(base, new Instance(mo, cstrs, i.getOptConstraint()));
     }
 
     @Override
@@ -290,6 +364,41 @@ public class DefaultChocoScheduler implements ChocoScheduler {
         return params.solutionListeners();
     }
 
+    @Override
+    public Parameters addTelemetryListener(Consumer<Telemetry> consumer) {
+        return params.addTelemetryListener(consumer);
+    }
+
+    @Override
+    public List<Consumer<Telemetry>> telemetryListeners() {
+        return params.telemetryListeners();
+    }
+
+    @Override
+    public Parameters doTelemetry(boolean b) {
+        return params.doTelemetry(b);
+    }
+
+    @Override
+    public boolean doTelemetry() {
+        return params.doTelemetry();
+    }
+
+    @Override
+    public Parameters setTelemetryPeriod(int ms) {
+        return params.setTelemetryPeriod(ms);
+    }
+
+    @Override
+    public int getTelemetryPeriod() {
+        return params.getTelemetryPeriod();
+    }
+
+    @Override
+    public Telemetry getTelemetry() {
+        return runner.getTelemetry();
+    }
+
     @Override
     public void stop() {
         runner.stop();
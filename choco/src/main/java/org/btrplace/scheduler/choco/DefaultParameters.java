@@ -9,6 +9,7 @@ package org.btrplace.scheduler.choco;
 import org.btrplace.plan.ReconfigurationPlan;
 import org.btrplace.scheduler.choco.constraint.ChocoMapper;
 import org.btrplace.scheduler.choco.duration.DurationEvaluators;
+import org.btrplace.scheduler.choco.runner.Telemetry;
 import org.btrplace.scheduler.choco.transition.TransitionFactory;
 import org.btrplace.scheduler.choco.view.ChocoView;
 import org.btrplace.scheduler.choco.view.DefaultAliasedCumulatives;
@@ -23,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Default implementation of {@link Parameters}.
@@ -52,6 +54,10 @@ public class DefaultParameters implements Parameters {
 
     private boolean optimize = false;
 
+    private boolean lns = false;
+
+    private boolean lazyPlans = false;
+
     private long seed = 0;
 
   private final List<Class<? extends ChocoView>> views;
@@ -66,6 +72,15 @@ public class DefaultParameters implements Parameters {
 
     private final List<BiConsumer<ReconfigurationProblem, ReconfigurationPlan>> solutionListeners;
 
+    private final List<Consumer<Telemetry>> telemetryListeners;
+
+    /**
+     * One telemetry snapshot per second by default.
+     */
+    private int telemetryPeriod = 1000;
+
+    private boolean telemetry = false;
+
   /**
      * Default horizon is one hour.
      */
@@ -90,6 +105,7 @@ public class DefaultParameters implements Parameters {
         views.add(DefaultAliasedCumulatives.class);
 
         solutionListeners = new ArrayList<>();
+        telemetryListeners = new ArrayList<>();
 
         chocoSettings = new DefaultSettings() {
             @Override
@@ -118,6 +134,8 @@ public class DefaultParameters implements Parameters {
         seed = ps.getRandomSeed();
         amf = ps.getTransitionFactory();
         optimize = ps.doOptimize();
+        lns = ps.doLNS();
+        lazyPlans = ps.doLazyPlans();
         seed = ps.getRandomSeed();
         timeLimit = ps.getTimeLimit();
         repair = ps.doRepair();
@@ -128,6 +146,9 @@ public class DefaultParameters implements Parameters {
         mapper = ps.getMapper();
         envf = ps.getEnvironmentFactory();
       solutionListeners = new ArrayList<>(ps.solutionListeners());
+        telemetryListeners = new ArrayList<>(ps.telemetryListeners());
+        telemetryPeriod = ps.getTelemetryPeriod();
+        telemetry = ps.doTelemetry();
         chocoSettings = ps.chocoSettings();
     }
 
@@ -153,6 +174,28 @@ public class DefaultParameters implements Parameters {
         return optimize;
     }
 
+    @Override
+    public DefaultParameters doLNS(boolean b) {
+        lns = b;
+        return this;
+    }
+
+    @Override
+    public boolean doLNS() {
+        return lns;
+    }
+
+    @Override
+    public DefaultParameters doLazyPlans(boolean b) {
+        lazyPlans = b;
+        return this;
+    }
+
+    @Override
+    public boolean doLazyPlans() {
+        return lazyPlans;
+    }
+
     @Override
     public DefaultParameters setRandomSeed(long s) {
         seed = s;
@@ -282,4 +325,37 @@ public class DefaultParameters implements Parameters {
     public List<BiConsumer<ReconfigurationProblem, ReconfigurationPlan>> solutionListeners() {
         return Collections.unmodifiableList(solutionListeners);
     }
+
+    @Override
+    public Parameters addTelemetryListener(Consumer<Telemetry> consumer) {
+        this.telemetryListeners.add(consumer);
+        return this;
+    }
+
+    @Override
+    public List<Consumer<Telemetry>> telemetryListeners() {
+        return Collections.unmodifiableList(telemetryListeners);
+    }
+
+    @Override
+    public Parameters doTelemetry(boolean b) {
+        telemetry = b;
+        return this;
+    }
+
+    @Override
+    public boolean doTelemetry() {
+        return telemetry;
+    }
+
+    @Override
+    public Parameters setTelemetryPeriod(int ms) {
+        telemetryPeriod = ms;
+        return this;
+    }
+
+    @Override
+    public int getTelemetryPeriod() {
+        return telemetryPeriod;
+    }
 }
@@ -177,6 +177,13 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
         stopButton = new StopButton();
         solver.addStopCriterion(stopButton);
+
+        //Plugged first so the solution is recorded once and available to the other monitors
+        solver.plugMonitor((IMonitorSolution) () -> {
+            Solution s = new Solution(csp);
+            s.record();
+            solutions.add(s);
+        });
     }
 
     @Override
@@ -205,12 +212,6 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
             defaultHeuristic();
         }
 
-        solver.plugMonitor((IMonitorSolution) () -> {
-            Solution s = new Solution(csp);
-            s.record();
-            solutions.add(s);
-        });
-
         if (solvingPolicy == ResolutionPolicy.SATISFACTION) {
             solver.findSolution();
         } else {
@@ -260,6 +261,11 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         return ok;
     }
 
+    @Override
+    public Solution getLastSolution() {
+        return solutions.isEmpty() ? null : solutions.get(solutions.size() - 1);
+    }
+
     @Override
     public List<ReconfigurationPlan> getComputedSolutions() throws SchedulerException {
         return solutions.stream()
@@ -9,12 +9,14 @@ package org.btrplace.scheduler.choco;
 import org.btrplace.plan.ReconfigurationPlan;
 import org.btrplace.scheduler.choco.constraint.ChocoMapper;
 import org.btrplace.scheduler.choco.duration.DurationEvaluators;
+import org.btrplace.scheduler.choco.runner.Telemetry;
 import org.btrplace.scheduler.choco.transition.TransitionFactory;
 import org.btrplace.scheduler.choco.view.ChocoView;
 import org.chocosolver.solver.Settings;
 
 import java.util.List;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Parameters for a {@link ChocoScheduler}.
@@ -72,6 +74,45 @@ public interface Parameters {
      */
     boolean doOptimize();
 
+    /**
+     * State if the optimisation relies on a Large Neighbourhood Search.
+     * Once a first solution is computed, the search restarts from the incumbent plan while only relaxing
+     * the placement of a few VMs: the VMs on some nodes, the VMs involved in a migration cycle, or the VMs
+     * sharing a {@link org.btrplace.model.constraint.Spread} or a {@link org.btrplace.model.constraint.Gather}
+     * constraint. The neighbourhoods grow after each unsuccessful restart.
+     * This is only effective when {@link #doOptimize()} is set.
+     *
+     * @param b {@code true} to rely on a Large Neighbourhood Search
+     * @return the current instance
+     */
+    Parameters doLNS(boolean b);
+
+    /**
+     * Tell if the optimisation relies on a Large Neighbourhood Search.
+     *
+     * @return {@code true} iff the search relies on a LNS
+     */
+    boolean doLNS();
+
+    /**
+     * State if the plans are built lazily.
+     * When enabled, only the values of the variables are stored for each solution,
+     * and a plan is built the first time it is requested. Otherwise, a plan is built for every solution.
+     * The plans are always built for every solution when solution listeners are registered.
+     *
+     * @param b {@code true} to build the plans lazily
+     * @return the current instance
+     * @see #addSolutionListener(BiConsumer)
+     */
+    Parameters doLazyPlans(boolean b);
+
+    /**
+     * Tell if the plans are built lazily.
+     *
+     * @return {@code true} iff the plans are built only when requested
+     */
+    boolean doLazyPlans();
+
     /**
      * Set the timeout value for the solving process.
      * Use a negative number to remove any timeout.
@@ -246,4 +287,55 @@ public interface Parameters {
      * @return a list that may be empty.
      */
     List<BiConsumer<ReconfigurationProblem, ReconfigurationPlan>> solutionListeners();
+
+    /**
+     * Add a consumer to call with each telemetry snapshot of the solving process.
+     * The solving process is monitored when at least one listener is registered,
+     * or when the telemetry is enabled with {@link #doTelemetry(boolean)}.
+     *
+     * @param consumer the consumer to call
+     * @return {@code this}
+     * @see #setTelemetryPeriod(int)
+     */
+    Parameters addTelemetryListener(Consumer<Telemetry> consumer);
+
+    /**
+     * Returns the telemetry listeners.
+     *
+     * @return a list that may be empty.
+     */
+    List<Consumer<Telemetry>> telemetryListeners();
+
+    /**
+     * State if the solving process is monitored even when no telemetry listener is registered.
+     * The last snapshot can then be polled from another thread.
+     * Monitoring has a cost at each search node so it is disabled by default.
+     *
+     * @param b {@code true} to monitor the solving process
+     * @return {@code this}
+     */
+    Parameters doTelemetry(boolean b);
+
+    /**
+     * Tell if the solving process is monitored even when no telemetry listener is registered.
+     *
+     * @return {@code true} iff the telemetry is enabled
+     */
+    boolean doTelemetry();
+
+    /**
+     * Set the minimum delay between two periodic telemetry snapshots.
+     * Snapshots are also taken at each solution and at the end of the solving process.
+     *
+     * @param ms the delay in milliseconds
+     * @return {@code this}
+     */
+    Parameters setTelemetryPeriod(int ms);
+
+    /**
+     * Get the minimum delay between two periodic telemetry snapshots.
+     *
+     * @return the delay in milliseconds
+     */
+    int getTelemetryPeriod();
 }
@@ -231,6 +231,14 @@ public interface ReconfigurationProblem {
      */
     ReconfigurationPlan buildReconfigurationPlan(Solution s, Model src) throws SchedulerException;
 
+    /**
+     * Get the last solution recorded by the solver.
+     * The solution is recorded before the solution monitors plugged by the callers are notified.
+     *
+     * @return the solution. {@code null} if there is no solution for the moment
+     */
+    Solution getLastSolution();
+
     /**
      * Return all the solutions that have been computed from a previous {@link #solve(int, boolean)} call.
      * @return a list of plan that may be empty
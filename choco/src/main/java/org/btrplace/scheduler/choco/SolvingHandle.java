@@ -0,0 +1,282 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.choco;
+
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.choco.runner.Metrics;
+import org.btrplace.scheduler.choco.runner.SolutionStatistics;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A handle over an asynchronous solving process started with {@link ChocoScheduler#solveAsync(org.btrplace.model.Instance)}.
+ * <p>
+ * The handle exposes the improving solutions as soon as they are computed, either through
+ * listeners or through futures. The search can be cancelled, and its deadline
+ * can be moved while the search is running.
+ * <p>
+ * The listeners are called by the solver thread so they must be quick.
+ * The futures are completed by the solver thread too, use the {@code *Async} methods of
+ * {@link CompletableFuture} to chain heavy computations.
+ *
+ * @author Fabien Hermenier
+ */
+public class SolvingHandle {
+
+    /**
+     * The delay between two stop requests once the deadline is reached,
+     * in case the solver was not started yet.
+     */
+    private static final long RETRY_DELAY = 100;
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "btrplace-solving-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Runnable stopper;
+
+    private final List<SolutionStatistics> solutions = new ArrayList<>();
+
+    private final List<Consumer<SolutionStatistics>> listeners = new ArrayList<>();
+
+    private final List<CompletableFuture<SolutionStatistics>> waiting = new ArrayList<>();
+
+    private final CompletableFuture<ReconfigurationPlan> result = new CompletableFuture<>();
+
+    private final long start;
+
+    private long deadline;
+
+    private ScheduledFuture<?> timer;
+
+    /**
+     * Make a new handle.
+     *
+     * @param stopper  the action that stops the solver
+     * @param deadline the moment the solver must be stopped (epoch format, in milliseconds). {@code -1} for no deadline
+     */
+    SolvingHandle(Runnable stopper, long deadline) {
+        this.stopper = stopper;
+        start = System.currentTimeMillis();
+        setDeadline(deadline);
+    }
+
+    /**
+     * Get the future result of the solving process.
+     * Once completed, it is the best computed plan, {@code null} if there is no solution.
+     * It is completed exceptionally if the solving process failed, or if it was
+     * stopped before computing any solution.
+     *
+     * @return the future plan
+     */
+    public CompletableFuture<ReconfigurationPlan> result() {
+        return result;
+    }
+
+    /**
+     * Get a future solution.
+     *
+     * @param idx the solution index, starting at 0
+     * @return a future completed with the solution, or with {@code null} if the search
+     * ended before computing that solution
+     */
+    public synchronized CompletableFuture<SolutionStatistics> solution(int idx) {
+        if (idx < solutions.size()) {
+            return CompletableFuture.completedFuture(solutions.get(idx));
+        }
+        if (result.isDone()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        while (waiting.size() <= idx) {
+            waiting.add(new CompletableFuture<>());
+        }
+        return waiting.get(idx);
+    }
+
+    /**
+     * Get the first solution.
+     *
+     * @return a future completed with the first solution, or with {@code null} if there is no solution
+     * @see #solution(int)
+     */
+    public CompletableFuture<SolutionStatistics> firstSolution() {
+        return solution(0);
+    }
+
+    /**
+     * Get the solutions computed so far.
+     *
+     * @return a snapshot of the solutions, from the first to the best
+     */
+    public synchronized List<SolutionStatistics> solutions() {
+        return Collections.unmodifiableList(new ArrayList<>(solutions));
+    }
+
+    /**
+     * Get the best solution computed so far.
+     *
+     * @return the solution. {@code null} if there is no solution for the moment
+     */
+    public synchronized SolutionStatistics best() {
+        return solutions.isEmpty() ? null : solutions.get(solutions.size() - 1);
+    }
+
+    /**
+     * Register a listener that is notified with each solution.
+     * The solutions computed so far are replayed first.
+     *
+     * @param l the listener
+     * @return {@code this}
+     */
+    public synchronized SolvingHandle onSolution(Consumer<SolutionStatistics> l) {
+        solutions.forEach(l);
+        listeners.add(l);
+        return this;
+    }
+
+    /**
+     * Stop the solving process.
+     * The result is then completed with the best computed plan.
+     *
+     * @return {@code this}
+     */
+    public SolvingHandle cancel() {
+        return setDeadline(System.currentTimeMillis());
+    }
+
+    /**
+     * Get the moment the solving process will be stopped.
+     *
+     * @return the deadline, in milliseconds (epoch format). {@code -1} if there is no deadline
+     */
+    public synchronized long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Set the moment the solving process must be stopped.
+     *
+     * @param d the deadline, in milliseconds (epoch format). {@code -1} to remove the deadline
+     * @return {@code this}
+     */
+    public synchronized SolvingHandle setDeadline(long d) {
+        if (result.isDone()) {
+            return this;
+        }
+        deadline = d;
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        if (d >= 0) {
+            timer = WATCHDOG.schedule(this::expire, Math.max(0, d - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * Postpone the deadline.
+     * If there is no deadline, the solving process is stopped after the given delay.
+     *
+     * @param ms the delay to add, in milliseconds
+     * @return {@code this}
+     */
+    public synchronized SolvingHandle extendDeadline(long ms) {
+        return setDeadline((deadline < 0 ? System.currentTimeMillis() : deadline) + ms);
+    }
+
+    /**
+     * Get the time elapsed since the solving process started.
+     *
+     * @return a duration in milliseconds
+     */
+    public long elapsed() {
+        return System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Indicate if the solving process is over.
+     *
+     * @return {@code true} iff the result is available
+     */
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * Stop the solver and retry until the solving process is over
+     * as the deadline may occur before the solver is ready.
+     */
+    private synchronized void expire() {
+        if (result.isDone()) {
+            return;
+        }
+        stopper.run();
+        timer = WATCHDOG.schedule(this::expire, RETRY_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record a new solution. Called by the solver thread.
+     *
+     * @param rp   the problem
+     * @param plan the computed plan
+     */
+    void onSolution(ReconfigurationProblem rp, ReconfigurationPlan plan) {
+        SolutionStatistics st = new SolutionStatistics(new Metrics(rp.getSolver().getMeasures()), plan);
+        IntVar o = rp.getObjective();
+        if (o != null && o.isInstantiated()) {
+            st.setObjective(o.getValue());
+        }
+        List<Consumer<SolutionStatistics>> ls;
+        CompletableFuture<SolutionStatistics> f = null;
+        synchronized (this) {
+            if (waiting.size() > solutions.size()) {
+                f = waiting.get(solutions.size());
+            }
+            solutions.add(st);
+            ls = new ArrayList<>(listeners);
+        }
+        ls.forEach(l -> l.accept(st));
+        if (f != null) {
+            f.complete(st);
+        }
+    }
+
+    /**
+     * Terminate the solving process.
+     *
+     * @param plan the resulting plan
+     * @param ex   the failure cause. {@code null} if none
+     */
+    void done(ReconfigurationPlan plan, Throwable ex) {
+        List<CompletableFuture<SolutionStatistics>> pending;
+        synchronized (this) {
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+            pending = new ArrayList<>(waiting.subList(Math.min(solutions.size(), waiting.size()), waiting.size()));
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(plan);
+            }
+        }
+        pending.forEach(f -> f.complete(null));
+    }
+}
@@ -21,6 +21,7 @@ import org.btrplace.scheduler.choco.constraint.CObjective;
 import org.btrplace.scheduler.choco.constraint.mttr.HostingVariableSelector;
 import org.btrplace.scheduler.choco.constraint.mttr.MovementGraph;
 import org.btrplace.scheduler.choco.constraint.mttr.MyInputOrder;
+import org.btrplace.scheduler.choco.constraint.mttr.NodeLoadIndex;
 import org.btrplace.scheduler.choco.constraint.mttr.OnStableNodeFirst;
 import org.btrplace.scheduler.choco.constraint.mttr.RandomVMPlacement;
 import org.btrplace.scheduler.choco.constraint.mttr.StartOnLeafNodes;
@@ -68,6 +69,11 @@ public class CMinMigrations implements CObjective {
 
     private ReconfigurationProblem rp;
 
+    /**
+     * The load of the nodes, shared by the worst fit placement heuristics.
+     */
+    private NodeLoadIndex loads;
+
     private IntVar cost;
 
     /**
@@ -84,6 +90,7 @@ public class CMinMigrations implements CObjective {
     @Override
     public boolean inject(Parameters ps, ReconfigurationProblem p) throws SchedulerException {
         this.rp = p;
+        loads = null;
         costActivated = false;
 
         cost = rp.getModel().intVar(rp.makeVarLabel("#migs"), 0, Integer.MAX_VALUE / 100, true);
@@ -190,8 +197,14 @@ public class CMinMigrations implements CObjective {
      * Try to place the VMs associated on the actions in a random node while trying first to stay on the current node
      */
     private void placeVMs(Parameters ps, List<AbstractStrategy<?>> strategies, List<VMTransition> actions, OnStableNodeFirst schedHeuristic, Map<IntVar, VM> map) {
-        IntValueSelector rnd = new WorstFit(map, rp, new BiggestDimension());
-        if (!useResources) {
+        IntValueSelector rnd;
+        if (useResources) {
+            if (loads == null) {
+                //Shared by all the placement strategies
+                loads = new NodeLoadIndex(rp, new BiggestDimension());
+            }
+            rnd = new WorstFit(map, rp, loads, true);
+        } else {
             rnd = new RandomVMPlacement(rp, map, true, ps.getRandomSeed());
         }
         IntVar[] hosts = dSlices(actions).map(Slice::getHoster).filter(v -> !v.isInstantiated()).toArray(IntVar[]::new);
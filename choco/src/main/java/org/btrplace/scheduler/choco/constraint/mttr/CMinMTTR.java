@@ -19,6 +19,8 @@ import org.btrplace.scheduler.choco.ReconfigurationProblem;
 import org.btrplace.scheduler.choco.Slice;
 import org.btrplace.scheduler.choco.constraint.CObjective;
 import org.btrplace.scheduler.choco.constraint.mttr.load.BiggestDimension;
+import org.btrplace.scheduler.choco.constraint.mttr.load.GlobalLoadEstimator;
+import org.btrplace.scheduler.choco.constraint.mttr.load.Mean;
 import org.btrplace.scheduler.choco.transition.RelocatableVM;
 import org.btrplace.scheduler.choco.transition.Transition;
 import org.btrplace.scheduler.choco.transition.VMTransition;
@@ -57,9 +59,37 @@ public class CMinMTTR implements CObjective {
 
     private ReconfigurationProblem rp;
 
+    /**
+     * The load of the nodes, shared by the worst fit placement heuristics.
+     */
+    private NodeLoadIndex loads;
+
     private IntVar cost;
 
     private boolean useResources = false;
+
+    private Placement placement = null;
+
+    /**
+     * The available heuristics to place the VMs.
+     */
+    public enum Placement {
+        /**
+         * Place each VM on the least loaded node, the load of a node being
+         * the load of its most loaded dimension.
+         */
+        WORST_FIT,
+        /**
+         * Place each VM on the least loaded node, the load of a node being
+         * the mean load of its dimensions.
+         */
+        WORST_FIT_MEAN,
+        /**
+         * Place each VM on a random node.
+         */
+        RANDOM
+    }
+
     /**
      * Make a new objective.
      * @param m the user-side objective.
@@ -71,9 +101,32 @@ public class CMinMTTR implements CObjective {
         this(null);
     }
 
+    /**
+     * Set the heuristic to use to place the VMs.
+     * A VM always tries to stay on its current node first.
+     *
+     * @param h the heuristic. {@code null} to use {@link Placement#WORST_FIT} when there is
+     *          at least one {@link ShareableResource} and {@link Placement#RANDOM} otherwise
+     * @return {@code this}
+     */
+    public CMinMTTR setPlacementHeuristic(Placement h) {
+        placement = h;
+        return this;
+    }
+
+    /**
+     * Get the heuristic to use to place the VMs.
+     *
+     * @return the heuristic. {@code null} if chosen automatically
+     */
+    public Placement getPlacementHeuristic() {
+        return placement;
+    }
+
     @Override
     public boolean inject(Parameters ps, ReconfigurationProblem p) throws SchedulerException {
         this.rp = p;
+        loads = null;
         costActivated = false;
         org.chocosolver.solver.Model csp = p.getModel();
         cost = csp.intVar(p.makeVarLabel("globalCost"), 0, Integer.MAX_VALUE / 100, true);
@@ -172,8 +225,17 @@ public class CMinMTTR implements CObjective {
      * Try to place the VMs associated on the actions in a random node while trying first to stay on the current node
      */
     private void placeVMs(Parameters ps, List<AbstractStrategy<?>> strategies, List<VMTransition> actions, OnStableNodeFirst schedHeuristic, Map<IntVar, VM> map) {
-        IntValueSelector rnd = new WorstFit(map, rp, new BiggestDimension());
-        if (!useResources) {
+        Placement h = placement;
+        if (h == null || !useResources) {
+            //The worst fit heuristics are only meaningful with resources
+            h = useResources ? Placement.WORST_FIT : Placement.RANDOM;
+        }
+        IntValueSelector rnd;
+        if (h == Placement.WORST_FIT) {
+            rnd = new WorstFit(map, rp, loadIndex(new BiggestDimension()), true);
+        } else if (h == Placement.WORST_FIT_MEAN) {
+            rnd = new WorstFit(map, rp, loadIndex(new Mean()), true);
+        } else {
             rnd = new RandomVMPlacement(rp, map, true, ps.getRandomSeed());
         }
         IntVar[] hosts = dSlices(actions).map(Slice::getHoster).filter(v -> !v.isInstantiated()).toArray(IntVar[]::new);
@@ -182,6 +244,13 @@ public class CMinMTTR implements CObjective {
         }
     }
 
+    private NodeLoadIndex loadIndex(GlobalLoadEstimator e) {
+        if (loads == null) {
+            loads = new NodeLoadIndex(rp, e);
+        }
+        return loads;
+    }
+
     @Override
     public Set<VM> getMisPlacedVMs(Instance i) {
         return Collections.emptySet();
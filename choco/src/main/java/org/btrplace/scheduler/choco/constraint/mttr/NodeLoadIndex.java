@@ -0,0 +1,254 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.choco.constraint.mttr;
+
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.btrplace.scheduler.choco.constraint.mttr.load.GlobalLoadEstimator;
+import org.btrplace.scheduler.choco.view.CShareableResource;
+import org.btrplace.scheduler.choco.view.ChocoView;
+import org.btrplace.scheduler.choco.view.Packing;
+import org.btrplace.scheduler.choco.view.VectorPacking;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An index of the nodes ordered by their global load, computed from the load assigned by
+ * the {@link VectorPacking} view.
+ * <p>
+ * The index is built on its first use. It is then updated each time VMs are assigned to a node
+ * and restored on backtrack, so it always follows the current state of the search.
+ * When the load estimator is {@link GlobalLoadEstimator#isMonotonic() monotonic}, the least loaded
+ * node is found by browsing the nodes by increasing load until no remaining node can be better.
+ * Otherwise, the candidate nodes are all browsed.
+ *
+ * @author Fabien Hermenier
+ */
+public class NodeLoadIndex {
+
+    private final VectorPacking packing;
+
+    private final GlobalLoadEstimator estimator;
+
+    private final IEnvironment env;
+
+    /**
+     * The capacity of each node, per dimension. [nbNodes][nbDims]
+     */
+    private final double[][] capacities;
+
+    private final int nbDims;
+
+    /**
+     * The indexed load of each node.
+     */
+    private final double[] keys;
+
+    /**
+     * The nodes by increasing load.
+     */
+    private final int[] order;
+
+    /**
+     * The position of each node in {@link #order}.
+     */
+    private final int[] positions;
+
+    /**
+     * Buffer for the normalised load of a node.
+     */
+    private final double[] normalised;
+
+    private final int[] noUsage;
+
+    private boolean ready;
+
+    private boolean listening;
+
+    /**
+     * Make a new index.
+     *
+     * @param rp        the problem
+     * @param estimator the estimator that reduces the load of a node to a single value
+     */
+    public NodeLoadIndex(ReconfigurationProblem rp, GlobalLoadEstimator estimator) {
+        this.estimator = estimator;
+        packing = (VectorPacking) rp.getRequiredView(Packing.VIEW_ID);
+        env = rp.getModel().getEnvironment();
+        List<CShareableResource> rcs = new ArrayList<>();
+        for (String s : rp.getViews()) {
+            ChocoView cv = rp.getRequiredView(s);
+            if (cv instanceof CShareableResource) {
+                rcs.add((CShareableResource) cv);
+            }
+        }
+        nbDims = rcs.size();
+        int nbNodes = rp.getNodes().length;
+        capacities = new double[nbNodes][nbDims];
+        for (int n = 0; n < nbNodes; n++) {
+            for (int d = 0; d < nbDims; d++) {
+                CShareableResource rc = rcs.get(d);
+                capacities[n][d] = (int) (rc.getFutureNodeCapacity(n) * rc.getOverbookRatio(n));
+            }
+        }
+        keys = new double[nbNodes];
+        order = new int[nbNodes];
+        positions = new int[nbNodes];
+        normalised = new double[nbDims];
+        noUsage = new int[nbDims];
+    }
+
+    /**
+     * Get the estimator used to compute the load of the nodes.
+     *
+     * @return the estimator
+     */
+    public GlobalLoadEstimator getEstimator() {
+        return estimator;
+    }
+
+    /**
+     * Get the load of a node if it hosts additional resources.
+     *
+     * @param nId   the node index
+     * @param usage the additional resources to host, per dimension
+     * @return the global load. {@code 1} denotes a node that is fully loaded
+     */
+    public double loadWith(int nId, int[] usage) {
+        IStateInt[][] loads = packing.assignedLoad();
+        for (int d = 0; d < nbDims; d++) {
+            normalised[d] = (1.0d * loads[d][nId].get() + usage[d]) / capacities[nId][d];
+        }
+        return estimator.getLoad(normalised);
+    }
+
+    /**
+     * Get the least loaded node once it hosts additional resources.
+     * Among the nodes having the same load, the one with the smallest index is retained.
+     *
+     * @param v     the variable whose domain contains the candidate nodes
+     * @param usage the additional resources to host, per dimension
+     * @param bound the load the node must stay below
+     * @return the node index. {@code -1} if no candidate node stays below the bound
+     */
+    public int leastLoaded(IntVar v, int[] usage, double bound) {
+        if (!estimator.isMonotonic() || 2 * v.getDomainSize() < keys.length || !index()) {
+            return scan(v, usage, bound);
+        }
+        int best = -1;
+        double min = bound;
+        for (int x = 0; x < order.length; x++) {
+            int nId = order[x];
+            //The load only grows with the additional resources
+            if (keys[nId] > min || (best < 0 && keys[nId] >= min)) {
+                break;
+            }
+            if (v.contains(nId)) {
+                double l = loadWith(nId, usage);
+                if (l < min || (best >= 0 && l == min && nId < best)) {
+                    best = nId;
+                    min = l;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int scan(IntVar v, int[] usage, double bound) {
+        int best = -1;
+        double min = bound;
+        for (int nId = v.getLB(); nId <= v.getUB(); nId = v.nextValue(nId)) {
+            double l = loadWith(nId, usage);
+            if (l < min) {
+                best = nId;
+                min = l;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Build the index if needed.
+     *
+     * @return {@code false} if the index cannot be maintained
+     */
+    private boolean index() {
+        if (ready) {
+            return true;
+        }
+        if (!listening) {
+            if (!packing.addAssignedLoadListener(this::update)) {
+                return false;
+            }
+            listening = true;
+        }
+        Integer[] nodes = new Integer[keys.length];
+        for (int nId = 0; nId < keys.length; nId++) {
+            keys[nId] = key(nId);
+            nodes[nId] = nId;
+        }
+        Arrays.sort(nodes, (a, b) -> before(a, b) ? -1 : (before(b, a) ? 1 : 0));
+        for (int x = 0; x < nodes.length; x++) {
+            order[x] = nodes[x];
+            positions[nodes[x]] = x;
+        }
+        ready = true;
+        //The loads were computed in the current world, they are no longer valid once it is left
+        env.save(() -> ready = false);
+        return true;
+    }
+
+    /**
+     * Update the position of a node once its assigned load changed.
+     *
+     * @param nId the node index
+     */
+    private void update(int nId) {
+        if (!ready) {
+            return;
+        }
+        double k = key(nId);
+        double old = keys[nId];
+        if (k != old) {
+            move(nId, k);
+            env.save(() -> move(nId, old));
+        }
+    }
+
+    private double key(int nId) {
+        double k = loadWith(nId, noUsage);
+        return Double.isNaN(k) ? Double.POSITIVE_INFINITY : k;
+    }
+
+    private boolean before(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    /**
+     * Change the load of a node and move it to its new position.
+     */
+    private void move(int nId, double k) {
+        keys[nId] = k;
+        int p = positions[nId];
+        while (p + 1 < order.length && before(order[p + 1], nId)) {
+            order[p] = order[p + 1];
+            positions[order[p]] = p;
+            p++;
+        }
+        while (p > 0 && before(nId, order[p - 1])) {
+            order[p] = order[p - 1];
+            positions[order[p]] = p;
+            p--;
+        }
+        order[p] = nId;
+        positions[nId] = p;
+    }
+}
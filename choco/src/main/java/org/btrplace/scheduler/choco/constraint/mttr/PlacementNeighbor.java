@@ -0,0 +1,240 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.choco.constraint.mttr;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Gather;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.Spread;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.btrplace.scheduler.choco.Slice;
+import org.btrplace.scheduler.choco.transition.VMTransition;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.loop.lns.neighbors.IntNeighbor;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A neighbourhood for a Large Neighbourhood Search that relaxes the placement of some VMs.
+ * The placement of the other VMs is fixed to their placement in the incumbent solution while
+ * the scheduling variables are always relaxed.
+ * <p>
+ * The neighbourhoods are used in turn:
+ * <ul>
+ * <li>the VMs hosted by some nodes, either currently or in the incumbent solution</li>
+ * <li>the VMs involved in a migration cycle of the incumbent solution</li>
+ * <li>the VMs sharing a {@link Spread} or a {@link Gather} constraint</li>
+ * </ul>
+ * The number of nodes and constraints to relax starts at 1 and grows after each unsuccessful restart.
+ * It is reset each time a solution is computed. The nodes to relax are distinct so the search is considered
+ * as complete once a neighbourhood relaxed all the nodes, hence all the variables.
+ *
+ * @author Fabien Hermenier
+ */
+public class PlacementNeighbor extends IntNeighbor {
+
+    /**
+     * The VM index associated to each variable.
+     */
+    private final int[] vmIndex;
+
+    /**
+     * The current host of each variable. {@code -1} if none.
+     */
+    private final int[] currentHost;
+
+    /**
+     * The variables to relax per Spread or Gather constraint.
+     */
+    private final List<int[]> groups;
+
+    private final int nbNodes;
+
+    /**
+     * The node indexes, shuffled to pick distinct nodes.
+     */
+    private final int[] nodes;
+
+    private final Random rnd;
+
+    /**
+     * {@code true} once a neighbourhood did not fix any variable.
+     */
+    private boolean complete;
+
+    private int size;
+
+    private int turn;
+
+    /**
+     * Make a new neighbourhood.
+     *
+     * @param rp     the problem to optimise
+     * @param cstrs  the satisfaction constraints of the instance
+     * @param seed the seed for the random number generator
+     */
+    public PlacementNeighbor(ReconfigurationProblem rp, Collection<SatConstraint> cstrs, long seed) {
+        this(rp, hosters(rp), cstrs, seed);
+    }
+
+    private PlacementNeighbor(ReconfigurationProblem rp, List<Slice> slices, Collection<SatConstraint> cstrs, long seed) {
+        super(slices.stream().map(Slice::getHoster).toArray(IntVar[]::new));
+        nbNodes = rp.getNodes().size();
+        nodes = new int[nbNodes];
+        for (int i = 0; i < nbNodes; i++) {
+            nodes[i] = i;
+        }
+        rnd = new Random(seed);
+        vmIndex = new int[slices.size()];
+        currentHost = new int[slices.size()];
+        TIntIntHashMap varIndex = new TIntIntHashMap(slices.size(), 0.5f, -1, -1);
+        for (int i = 0; i < slices.size(); i++) {
+            VM v = slices.get(i).getSubject();
+            vmIndex[i] = rp.getVM(v);
+            currentHost[i] = rp.getCurrentVMLocation(vmIndex[i]);
+            varIndex.put(v.id(), i);
+        }
+
+        groups = new ArrayList<>();
+        for (SatConstraint c : cstrs) {
+            if (c instanceof Spread || c instanceof Gather) {
+                TIntArrayList g = new TIntArrayList();
+                for (VM v : c.getInvolvedVMs()) {
+                    int i = varIndex.get(v.id());
+                    if (i >= 0) {
+                        g.add(i);
+                    }
+                }
+                if (!g.isEmpty()) {
+                    groups.add(g.toArray());
+                }
+            }
+        }
+        size = 1;
+    }
+
+    private static List<Slice> hosters(ReconfigurationProblem rp) {
+        List<Slice> l = new ArrayList<>();
+        for (VMTransition t : rp.getVMActions()) {
+            if (t.getDSlice() != null) {
+                l.add(t.getDSlice());
+            }
+        }
+        return l;
+    }
+
+    @Override
+    public void recordSolution() {
+        super.recordSolution();
+        size = 1;
+    }
+
+    @Override
+    public void fixSomeVariables() throws ContradictionException {
+        BitSet relaxed = new BitSet(variables.length);
+        int kind = turn++ % 3;
+        if (kind == 1) {
+            relaxCycles(relaxed);
+        } else if (kind == 2) {
+            relaxGroups(relaxed);
+        }
+        if (relaxed.isEmpty()) {
+            relaxNodes(relaxed);
+        }
+        complete = relaxed.cardinality() == variables.length;
+        for (int i = 0; i < variables.length; i++) {
+            if (!relaxed.get(i)) {
+                variables[i].instantiateTo(values[i], Cause.Null);
+            }
+        }
+    }
+
+    /**
+     * Relax the VMs hosted by a few distinct random nodes.
+     */
+    private void relaxNodes(BitSet relaxed) {
+        BitSet picked = new BitSet(nbNodes);
+        //Partial Fisher-Yates shuffle
+        for (int k = 0; k < Math.min(size, nbNodes); k++) {
+            int x = k + rnd.nextInt(nbNodes - k);
+            int n = nodes[x];
+            nodes[x] = nodes[k];
+            nodes[k] = n;
+            picked.set(n);
+        }
+        for (int i = 0; i < variables.length; i++) {
+            if (picked.get(values[i]) || (currentHost[i] >= 0 && picked.get(currentHost[i]))) {
+                relaxed.set(i);
+            }
+        }
+    }
+
+    /**
+     * Relax the VMs migrating between the nodes involved in a cycle of migrations.
+     * The nodes that are not a source or a destination of migrations are removed
+     * repeatedly, the remaining nodes belong to cycles or paths between cycles.
+     */
+    private void relaxCycles(BitSet relaxed) {
+        int[] in = new int[nbNodes];
+        int[] out = new int[nbNodes];
+        BitSet migrating = new BitSet(variables.length);
+        for (int i = 0; i < variables.length; i++) {
+            if (currentHost[i] >= 0 && currentHost[i] != values[i]) {
+                migrating.set(i);
+                out[currentHost[i]]++;
+                in[values[i]]++;
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = migrating.nextSetBit(0); i >= 0; i = migrating.nextSetBit(i + 1)) {
+                int src = currentHost[i];
+                int dst = values[i];
+                if (in[src] == 0 || out[dst] == 0) {
+                    migrating.clear(i);
+                    out[src]--;
+                    in[dst]--;
+                    changed = true;
+                }
+            }
+        }
+        relaxed.or(migrating);
+    }
+
+    /**
+     * Relax the VMs involved in a few random Spread or Gather constraints.
+     */
+    private void relaxGroups(BitSet relaxed) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        for (int k = 0; k < size; k++) {
+            for (int i : groups.get(rnd.nextInt(groups.size()))) {
+                relaxed.set(i);
+            }
+        }
+    }
+
+    @Override
+    public void restrictLess() {
+        size++;
+    }
+
+    @Override
+    public boolean isSearchComplete() {
+        return complete;
+    }
+}
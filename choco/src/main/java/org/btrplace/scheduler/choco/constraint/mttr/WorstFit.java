@@ -14,9 +14,6 @@ import org.btrplace.scheduler.choco.ReconfigurationProblem;
 import org.btrplace.scheduler.choco.constraint.mttr.load.GlobalLoadEstimator;
 import org.btrplace.scheduler.choco.view.CShareableResource;
 import org.btrplace.scheduler.choco.view.ChocoView;
-import org.btrplace.scheduler.choco.view.Packing;
-import org.btrplace.scheduler.choco.view.VectorPacking;
-import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.search.strategy.selectors.values.IntValueSelector;
 import org.chocosolver.solver.variables.IntVar;
 
@@ -26,6 +23,7 @@ import java.util.Map;
 
 /**
  * Placement heuristic implementing a worst fit.
+ * The nodes are browsed using a {@link NodeLoadIndex} that can be shared among multiple heuristics.
  * @author Fabien Hermenier
  */
 public class WorstFit implements IntValueSelector {
@@ -36,16 +34,12 @@ public class WorstFit implements IntValueSelector {
 
   private final ReconfigurationProblem rp;
 
-  private final GlobalLoadEstimator globalLoad;
+  private final NodeLoadIndex index;
 
   private final List<CShareableResource> rcs;
 
-  private final VectorPacking packing;
-
   private final TIntObjectMap<int[]> usages;
 
-  private final TIntObjectMap<int[]> capacities;
-
   /**
    * New heuristic.
    * Will try to make the VM stay on their current node in prior if possible
@@ -67,10 +61,21 @@ public class WorstFit implements IntValueSelector {
    * @param stayFirst {@code true} to try to let the VM on place first if possible
    */
   public WorstFit(Map<IntVar, VM> vmMap, ReconfigurationProblem rp, GlobalLoadEstimator load, boolean stayFirst) {
+    this(vmMap, rp, new NodeLoadIndex(rp, load), stayFirst);
+  }
+
+  /**
+   * New heuristic that relies on an existing index of the node loads.
+   *
+   * @param vmMap     the VM to placement variable mapping
+   * @param rp        the CSP to solve
+   * @param index     the index of the node loads
+   * @param stayFirst {@code true} to try to let the VM on place first if possible
+   */
+  public WorstFit(Map<IntVar, VM> vmMap, ReconfigurationProblem rp, NodeLoadIndex index, boolean stayFirst) {
     this.stayFirst = stayFirst;
     this.vmMap = vmMap;
-    globalLoad = load;
-    packing = (VectorPacking) rp.getRequiredView(Packing.VIEW_ID);
+    this.index = index;
     this.rp = rp;
     rcs = new ArrayList<>();
     for (String s : rp.getViews()) {
@@ -79,18 +84,7 @@ public class WorstFit implements IntValueSelector {
         rcs.add((CShareableResource) cv);
       }
     }
-
     usages = new TIntObjectHashMap<>();
-    capacities = new TIntObjectHashMap<>();
-    for (Node node : rp.getNodes()) {
-      int nIdx = rp.getNode(node);
-      int[] capa = new int[rcs.size()];
-      for (int i = 0; i < rcs.size(); i++) {
-        capa[i] += (int) (rcs.get(i).getFutureNodeCapacity(nIdx) * rcs.get(i).getOverbookRatio(nIdx));
-      }
-      capacities.put(nIdx, capa);
-
-    }
   }
 
   @Override
@@ -103,30 +97,8 @@ public class WorstFit implements IntValueSelector {
       return nodeId;
     }
 
-    //Get the load
-    int leastId = v.getLB();
-    double minLoad = 2;
-    IStateInt[] loads = new IStateInt[rcs.size()];
-    for (int nId = v.getLB(); nId <= v.getUB(); nId = v.nextValue(nId)) {
-      for (int d = 0; d < rcs.size(); d++) {
-        loads[d] = packing.assignedLoad()[d][nId];
-      }
-      double global = loadWith(nId, loads, vmId);
-
-      if (global < minLoad) {
-        leastId = nId;
-        minLoad = global;
-      }
-    }
-    return leastId;
-  }
-
-  private IStateInt[] load(int nId) {
-    IStateInt[] loads = new IStateInt[rcs.size()];
-    for (int d = 0; d < rcs.size(); d++) {
-      loads[d] = packing.assignedLoad()[d][nId];
-    }
-    return loads;
+    int leastId = index.leastLoaded(v, usage(vmId), 2);
+    return leastId < 0 ? v.getLB() : leastId;
   }
 
   private int[] usage(int vId) {
@@ -142,16 +114,6 @@ public class WorstFit implements IntValueSelector {
 
   }
 
-  private double loadWith(int nId, IStateInt[] loads, int vmId) {
-    int[] capas = capacities.get(nId);
-    double[] normalised = new double[capas.length];
-    int[] usage = usage(vmId);
-    for (int i = 0; i < capas.length; i++) {
-      normalised[i] = (1.0d * loads[i].get() + usage[i]) / capas[i];
-    }
-    return globalLoad.getLoad(normalised);
-  }
-
   /**
    * Check if a VM can stay on its current node.
    *
@@ -167,7 +129,6 @@ public class WorstFit implements IntValueSelector {
     if (!rp.getVMActions().get(vmId).getDSlice().getHoster().contains(hostId)) {
       return false;
     }
-    IStateInt[] loads = load(hostId);
-    return loadWith(hostId, loads, vmId) <= 1.0;
+    return index.loadWith(hostId, usage(vmId)) <= 1.0;
   }
 }
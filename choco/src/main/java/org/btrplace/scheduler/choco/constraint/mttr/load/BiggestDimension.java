@@ -21,4 +21,9 @@ public class BiggestDimension implements GlobalLoadEstimator {
         }
         return m;
     }
+
+    @Override
+    public boolean isMonotonic() {
+        return true;
+    }
 }
@@ -22,4 +22,14 @@ public interface GlobalLoadEstimator {
      * @return the resulting load
      */
     double getLoad(double[] loads);
+
+    /**
+     * Indicate if the load never decreases when the load of a dimension increases.
+     * A monotonic estimator allows to browse the nodes by increasing load and to stop early.
+     *
+     * @return {@code false} by default
+     */
+    default boolean isMonotonic() {
+        return false;
+    }
 }
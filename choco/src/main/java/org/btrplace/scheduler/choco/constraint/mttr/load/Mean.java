@@ -20,4 +20,9 @@ public class Mean implements GlobalLoadEstimator {
         }
         return t / loads.length;
     }
+
+    @Override
+    public boolean isMonotonic() {
+        return true;
+    }
 }
@@ -11,6 +11,8 @@ import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.variables.IntVar;
 
+import java.util.function.IntConsumer;
+
 /**
  * Lighter but faster version of BinPacking that does not provide the knapsack filtering
  *
@@ -34,4 +36,14 @@ public class VectorPacking extends Constraint {
     public IStateInt[][] assignedLoad() {
         return ((VectorPackingPropagator) propagators[0]).assignedLoad();
     }
+
+    /**
+     * Register a listener that is notified each time items are assigned to a bin.
+     *
+     * @param l the listener, called with the bin index
+     * @see VectorPackingPropagator#addAssignedLoadListener(IntConsumer)
+     */
+    public void addAssignedLoadListener(IntConsumer l) {
+        ((VectorPackingPropagator) propagators[0]).addAssignedLoadListener(l);
+    }
 }
@@ -21,7 +21,10 @@ import org.chocosolver.util.iterators.DisposableValueIterator;
 import org.chocosolver.util.procedure.UnaryIntProcedure;
 import org.chocosolver.util.tools.ArrayUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * Lighter but faster version of a multi dimension vector packing that does not provide the knapsack filtering
@@ -97,6 +100,11 @@ public class VectorPackingPropagator extends Propagator<IntVar> {
   private final VectorPackingHeapDecorator decoHeap;
   private final KnapsackDecorator decoKPSimple;
 
+  /**
+   * The listeners notified when the assigned load of a bin increases.
+   */
+  private final List<IntConsumer> assignedLoadListeners = new ArrayList<>();
+
   /**
    * constructor of the VectorPacking global constraint
    *
@@ -319,6 +327,9 @@ public class VectorPackingPropagator extends Propagator<IntVar> {
         for (int d = 0; d < nbDims; d++) {
             filterLoadInf(d, bin, assignedLoad[d][bin].add(iSizes[d][item]));
         }
+        for (int i = 0; i < assignedLoadListeners.size(); i++) {
+            assignedLoadListeners.get(i).accept(bin);
+        }
         if (decoKPSimple != null) {
             decoKPSimple.postAssignItem(item, bin);
         }
@@ -554,6 +565,16 @@ public class VectorPackingPropagator extends Propagator<IntVar> {
         return assignedLoad;
     }
 
+    /**
+     * Register a listener that is notified with the bin index each time items are assigned to a bin.
+     * The listener is called once the assigned load has been updated. It is not notified on backtrack.
+     *
+     * @param l the listener
+     */
+    public void addAssignedLoadListener(IntConsumer l) {
+        assignedLoadListeners.add(l);
+    }
+
     /**
      * the procedure of removal for an assignment variable
      */
@@ -36,6 +36,17 @@ public interface InstanceSolver {
      */
     SolvingStatistics getStatistics() throws SchedulerException;
 
+    /**
+     * Return the last telemetry snapshot of the running solving process.
+     * This method can be called from any thread.
+     * Snapshots are only taken when the telemetry is enabled or at least one telemetry listener is registered.
+     *
+     * @return the snapshot. {@code null} if not available
+     */
+    default Telemetry getTelemetry() {
+        return null;
+    }
+
     /**
      * Stop the solving process.
      */
@@ -8,6 +8,8 @@ package org.btrplace.scheduler.choco.runner;
 
 import org.btrplace.plan.ReconfigurationPlan;
 
+import java.util.function.Supplier;
+
 /**
  * Store statistics about a solution.
  *
@@ -18,6 +20,11 @@ public class SolutionStatistics {
 
     private ReconfigurationPlan solution = null;
 
+    /**
+     * To build the plan on demand. {@code null} once built.
+     */
+    private Supplier<ReconfigurationPlan> builder;
+
   private final Metrics measures;
 
     private boolean hasObjective;
@@ -35,11 +42,28 @@ public class SolutionStatistics {
         solution = plan;
     }
 
+    /**
+     * Make a new statistics where the plan is built on demand.
+     *
+     * @param m the solver metrics at the moment of the solution
+     * @param b the builder for the resulting plan. Called at most once
+     */
+    public SolutionStatistics(Metrics m, Supplier<ReconfigurationPlan> b) {
+        measures = m;
+        builder = b;
+    }
+
     /**
      * Return the computed solution.
+     * The plan is built at the first call if needed.
+     *
      * @return a plan that might be null
      */
-    public ReconfigurationPlan getReconfigurationPlan() {
+    public synchronized ReconfigurationPlan getReconfigurationPlan() {
+        if (builder != null) {
+            solution = builder.get();
+            builder = null;
+        }
         return solution;
     }
 
@@ -0,0 +1,158 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.choco.runner;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A snapshot of the progress of a running solving process.
+ * Snapshots are taken periodically during the search by a {@link TelemetryRecorder}.
+ *
+ * @author Fabien Hermenier
+ */
+public class Telemetry {
+
+    private final long elapsed;
+
+    private final long nodes;
+
+    private final long backtracks;
+
+    private final long fails;
+
+    private final long restarts;
+
+    private final int solutions;
+
+    private final boolean hasObjective;
+
+    private final int objective;
+
+    private final Map<String, Long> failsPerCause;
+
+    /**
+     * New snapshot.
+     *
+     * @param elapsed       the time since the beginning of the search, in milliseconds
+     * @param nodes         the number of opened search nodes
+     * @param backtracks    the number of backtracks
+     * @param fails         the number of failures
+     * @param restarts      the number of restarts
+     * @param solutions     the number of computed solutions
+     * @param objective     the value of the best solution. {@code null} if there is none
+     * @param failsPerCause the number of failures per class of propagator (or of cause) that raised them
+     */
+    public Telemetry(long elapsed, long nodes, long backtracks, long fails, long restarts,
+                     int solutions, Integer objective, Map<String, Long> failsPerCause) {
+        this.elapsed = elapsed;
+        this.nodes = nodes;
+        this.backtracks = backtracks;
+        this.fails = fails;
+        this.restarts = restarts;
+        this.solutions = solutions;
+        this.hasObjective = objective != null;
+        this.objective = objective == null ? 0 : objective;
+        this.failsPerCause = Collections.unmodifiableMap(failsPerCause);
+    }
+
+    /**
+     * Returns the time since the beginning of the search.
+     *
+     * @return a duration in milliseconds
+     */
+    public long elapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the number of opened search nodes.
+     *
+     * @return a number
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of backtracks.
+     *
+     * @return a number
+     */
+    public long backtracks() {
+        return backtracks;
+    }
+
+    /**
+     * Returns the number of failures.
+     *
+     * @return a number
+     */
+    public long fails() {
+        return fails;
+    }
+
+    /**
+     * Returns the number of restarts.
+     *
+     * @return a number
+     */
+    public long restarts() {
+        return restarts;
+    }
+
+    /**
+     * Returns the number of computed solutions.
+     *
+     * @return a number
+     */
+    public int solutions() {
+        return solutions;
+    }
+
+    /**
+     * Indicates if a solution with an objective value has been computed.
+     *
+     * @return {@code true} iff {@link #objective()} is meaningful
+     */
+    public boolean hasObjective() {
+        return hasObjective;
+    }
+
+    /**
+     * Returns the objective value of the best computed solution.
+     *
+     * @return the value. Meaningless if {@link #hasObjective()} is {@code false}
+     */
+    public int objective() {
+        return objective;
+    }
+
+    /**
+     * Returns the number of failures per cause.
+     * The key is the simple name of the class of the propagator that raised the failure,
+     * {@code VectorPackingPropagator} for example.
+     *
+     * @return an immutable map that may be empty
+     */
+    public Map<String, Long> failsPerCause() {
+        return failsPerCause;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder(String.format("at %dms, %d Nodes, %d Backtracks, %d Fails, %d Restarts, %d Solutions",
+                elapsed, nodes, backtracks, fails, restarts, solutions));
+        if (hasObjective) {
+            b.append(", objective: ").append(objective);
+        }
+        if (!failsPerCause.isEmpty()) {
+            b.append(", fails per cause: ").append(failsPerCause);
+        }
+        return b.toString();
+    }
+}
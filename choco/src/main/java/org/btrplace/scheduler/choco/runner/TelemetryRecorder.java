@@ -0,0 +1,128 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.choco.runner;
+
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.loop.monitors.IMonitorContradiction;
+import org.chocosolver.solver.search.loop.monitors.IMonitorOpenNode;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.search.measure.Measures;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A search monitor that takes periodic {@link Telemetry} snapshots of a solving process.
+ * <p>
+ * The snapshots are taken by the solver thread at the first search node following the end of
+ * a period, at each solution and at the end of the search with {@link #publish()}.
+ * Each snapshot is passed to the listeners and exposed through {@link #get()},
+ * that can be called from any thread.
+ *
+ * @author Fabien Hermenier
+ */
+public class TelemetryRecorder implements IMonitorOpenNode, IMonitorContradiction, IMonitorSolution {
+
+    private final Solver solver;
+
+    private final IntVar objective;
+
+    private final long period;
+
+    private final List<Consumer<Telemetry>> listeners;
+
+    private final long start;
+
+    private long next;
+
+    private int solutions;
+
+    private Integer best;
+
+    /**
+     * The failures per cause. Only accessed by the solver thread.
+     */
+    private final Map<Class<?>, long[]> fails = new HashMap<>();
+
+    private volatile Telemetry last;
+
+    /**
+     * Make a new recorder and plug it into the solver of a problem.
+     *
+     * @param rp        the problem to monitor
+     * @param period    the minimum delay between two periodic snapshots, in milliseconds
+     * @param listeners the listeners to notify with each snapshot
+     */
+    public TelemetryRecorder(ReconfigurationProblem rp, int period, List<Consumer<Telemetry>> listeners) {
+        this.solver = rp.getSolver();
+        this.objective = rp.getObjective();
+        this.period = TimeUnit.MILLISECONDS.toNanos(period);
+        this.listeners = listeners;
+        start = System.nanoTime();
+        next = start + this.period;
+        solver.plugMonitor(this);
+    }
+
+    @Override
+    public void beforeOpenNode() {
+        if (System.nanoTime() >= next) {
+            publish();
+        }
+    }
+
+    @Override
+    public void afterOpenNode() {
+        //Nothing to do
+    }
+
+    @Override
+    public void onContradiction(ContradictionException cex) {
+        Class<?> k = cex.c == null ? ContradictionException.class : cex.c.getClass();
+        fails.computeIfAbsent(k, x -> new long[1])[0]++;
+    }
+
+    @Override
+    public void onSolution() {
+        solutions++;
+        if (objective != null) {
+            best = objective.getValue();
+        }
+        publish();
+    }
+
+    /**
+     * Take a snapshot and notify the listeners.
+     * Must be called by the solver thread, or once the search is over.
+     */
+    public void publish() {
+        long now = System.nanoTime();
+        Measures m = solver.getMeasures();
+        Map<String, Long> perCause = new HashMap<>();
+        fails.forEach((k, v) -> perCause.merge(k.getSimpleName().isEmpty() ? k.getName() : k.getSimpleName(), v[0], Long::sum));
+        Telemetry t = new Telemetry(TimeUnit.NANOSECONDS.toMillis(now - start),
+                m.getNodeCount(), m.getBackTrackCount(), m.getFailCount(), m.getRestartCount(),
+                solutions, best, perCause);
+        last = t;
+        listeners.forEach(l -> l.accept(t));
+        next = now + period;
+    }
+
+    /**
+     * Get the last snapshot.
+     *
+     * @return the snapshot. {@code null} if none has been taken so far
+     */
+    public Telemetry get() {
+        return last;
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.choco.runner.portfolio;
+
+import org.btrplace.model.Instance;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.Parameters;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.btrplace.scheduler.choco.constraint.ChocoConstraint;
+import org.btrplace.scheduler.choco.constraint.mttr.CMinMTTR;
+import org.btrplace.scheduler.choco.runner.InstanceSolver;
+import org.btrplace.scheduler.choco.runner.SolutionStatistics;
+import org.btrplace.scheduler.choco.runner.SolvingStatistics;
+import org.btrplace.scheduler.choco.runner.single.InstanceSolverRunner;
+import org.chocosolver.solver.ResolutionPolicy;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.loop.monitors.IMonitorOpenNode;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A solver that runs multiple copies of a same problem in parallel.
+ * <p>
+ * Each copy relies on its own placement heuristic for {@link CMinMTTR} and its own random seed.
+ * The first copies get the heuristics of {@link #getHeuristics()}, one each. As the other heuristics are
+ * deterministic, the remaining copies rely on {@link CMinMTTR.Placement#RANDOM}.
+ * The seed of the copy {@code k} is {@code Parameters#getRandomSeed() + k}.
+ * The copies share the value of the best computed solution so each copy only looks for better solutions.
+ * <p>
+ * The solving process stops once a copy proves the optimality of the best solution (or the absence of solution)
+ * or once the time limit is hit. In satisfaction mode, the process stops at the first solution.
+ * The resulting plan is the best plan among the copies. The statistics are those of the copy that computed it.
+ *
+ * @author Fabien Hermenier
+ */
+public class PortfolioRunner implements InstanceSolver {
+
+    private int workersCount;
+
+    private final List<CMinMTTR.Placement> heuristics;
+
+    private List<Worker> workers;
+
+    private SolvingStatistics stats;
+
+    /**
+     * Make a new runner.
+     * The number of copies is set to the number of available cores.
+     */
+    public PortfolioRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Make a new runner.
+     *
+     * @param n the number of copies to run in parallel
+     */
+    public PortfolioRunner(int n) {
+        workersCount = n;
+        heuristics = new ArrayList<>(Arrays.asList(CMinMTTR.Placement.values()));
+        workers = new ArrayList<>();
+    }
+
+    /**
+     * Get the number of copies that are solved in parallel.
+     *
+     * @return a number &gt;= 1
+     */
+    public int getWorkersCount() {
+        return workersCount;
+    }
+
+    /**
+     * Set the number of copies that are solved in parallel.
+     *
+     * @param n a number &gt;= 1
+     */
+    public void setWorkersCount(int n) {
+        this.workersCount = n;
+    }
+
+    /**
+     * Get the placement heuristics to assign to the first copies.
+     * The list can be modified.
+     *
+     * @return a list of heuristics.
+     */
+    public List<CMinMTTR.Placement> getHeuristics() {
+        return heuristics;
+    }
+
+    @Override
+    public ReconfigurationPlan solve(Parameters ps, Instance i) throws SchedulerException {
+        stats = null;
+        Bound bound = new Bound();
+        ExecutorService exe = Executors.newFixedThreadPool(workersCount);
+        CompletionService<SolvingStatistics> completionService = new ExecutorCompletionService<>(exe);
+        List<Worker> ws = new ArrayList<>(workersCount);
+        for (int k = 0; k < workersCount; k++) {
+            Parameters p = new DefaultParameters(ps).setRandomSeed(ps.getRandomSeed() + k);
+            //A deterministic heuristic would only repeat the same search
+            CMinMTTR.Placement h = k < heuristics.size() ? heuristics.get(k) : CMinMTTR.Placement.RANDOM;
+            Worker w = new Worker(p, i, h, bound);
+            ws.add(w);
+        }
+        synchronized (this) {
+            workers = ws;
+        }
+
+        SolvingStatistics best = null;
+        SchedulerException error = null;
+        try {
+            for (Worker w : ws) {
+                completionService.submit(w);
+            }
+            for (int k = 0; k < ws.size(); k++) {
+                Future<SolvingStatistics> f = completionService.take();
+                try {
+                    SolvingStatistics st = f.get();
+                    if (best == null || isBetter(st, best, bound.maximize)) {
+                        best = st;
+                    }
+                    if (st.completed() || (!ps.doOptimize() && st.lastSolution() != null)) {
+                        //Optimality or absence of solution proven, or satisfied.
+                        stop();
+                    }
+                } catch (ExecutionException ex) {
+                    //Most likely stopped without any solution
+                    if (error == null) {
+                        error = ex.getCause() instanceof SchedulerException
+                                ? (SchedulerException) ex.getCause()
+                                : new SchedulerException(i.getModel(), ex.getMessage(), ex);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+            throw new SchedulerException(i.getModel(), e.getMessage(), e);
+        } finally {
+            exe.shutdown();
+        }
+
+        if (best == null || (best.lastSolution() == null && !best.completed() && error != null)) {
+            throw error;
+        }
+        stats = best;
+        return best.lastSolution();
+    }
+
+    /**
+     * Check if some statistics report a better solution than others.
+     *
+     * @param a        the statistics to test
+     * @param b        the reference
+     * @param maximize {@code true} if the objective is maximised
+     * @return {@code true} iff {@code a} has a solution that is better than the one of {@code b}
+     */
+    private static boolean isBetter(SolvingStatistics a, SolvingStatistics b, boolean maximize) {
+        if (a.lastSolution() == null) {
+            return false;
+        }
+        if (b.lastSolution() == null) {
+            return true;
+        }
+        SolutionStatistics sa = a.getSolutions().get(a.getSolutions().size() - 1);
+        SolutionStatistics sb = b.getSolutions().get(b.getSolutions().size() - 1);
+        if (!sa.hasObjective() || !sb.hasObjective()) {
+            return false;
+        }
+        return maximize ? sa.objective() > sb.objective() : sa.objective() < sb.objective();
+    }
+
+    @Override
+    public SolvingStatistics getStatistics() {
+        return stats;
+    }
+
+    @Override
+    public synchronized void stop() {
+        for (Worker w : workers) {
+            w.stop();
+        }
+    }
+
+    /**
+     * The value of the best solution among the copies.
+     */
+    private static class Bound {
+
+        private volatile boolean set = false;
+
+        private volatile int value;
+
+        private volatile boolean maximize = false;
+
+        synchronized void offer(int v) {
+            if (!set || (maximize ? v > value : v < value)) {
+                value = v;
+                set = true;
+            }
+        }
+    }
+
+    /**
+     * A runner that customizes the placement heuristic
+     * and shares the best objective value with the other copies.
+     */
+    private static class Worker extends InstanceSolverRunner {
+
+        private final CMinMTTR.Placement placement;
+
+        private final Bound bound;
+
+        private volatile ReconfigurationProblem rp;
+
+        private volatile boolean stopped = false;
+
+        Worker(Parameters ps, Instance i, CMinMTTR.Placement h, Bound b) {
+            super(ps, i);
+            placement = h;
+            bound = b;
+        }
+
+        @Override
+        protected ReconfigurationProblem buildRP() throws SchedulerException {
+            rp = super.buildRP();
+            return rp;
+        }
+
+        @Override
+        protected boolean specialise() {
+            for (ChocoConstraint c : getChocoConstraints()) {
+                if (c instanceof CMinMTTR) {
+                    ((CMinMTTR) c).setPlacementHeuristic(placement);
+                }
+            }
+            if (!super.specialise()) {
+                return false;
+            }
+            IntVar o = rp.getObjective();
+            if (o == null) {
+                return true;
+            }
+            bound.maximize = rp.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE;
+            Solver s = rp.getSolver();
+            s.plugMonitor((IMonitorSolution) () -> bound.offer(o.getValue()));
+            s.plugMonitor(new IMonitorOpenNode() {
+
+                private boolean seen = false;
+
+                private int last;
+
+                @Override
+                public void beforeOpenNode() {
+                    //Restrict the objective with the best value found by the other copies
+                    if (bound.set && (!seen || last != bound.value)
+                            && s.getObjectiveManager().getPolicy() != ResolutionPolicy.SATISFACTION) {
+                        last = bound.value;
+                        seen = true;
+                        s.getObjectiveManager().updateBestSolution(last);
+                    }
+                }
+
+                @Override
+                public void afterOpenNode() {
+                    //Nothing to do
+                }
+            });
+            if (stopped) {
+                //Stopped while the problem was being built
+                rp.stop();
+            }
+            return true;
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+            ReconfigurationProblem p = rp;
+            if (p != null) {
+                p.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+/**
+ * A solving method that solves a same instance with multiple search strategies in parallel.
+ */
+package org.btrplace.scheduler.choco.runner.portfolio;
@@ -27,9 +27,12 @@ import org.btrplace.scheduler.choco.ReconfigurationProblem;
 import org.btrplace.scheduler.choco.constraint.CObjective;
 import org.btrplace.scheduler.choco.constraint.ChocoConstraint;
 import org.btrplace.scheduler.choco.constraint.ChocoMapper;
+import org.btrplace.scheduler.choco.constraint.mttr.PlacementNeighbor;
 import org.btrplace.scheduler.choco.runner.Metrics;
 import org.btrplace.scheduler.choco.runner.SolutionStatistics;
 import org.btrplace.scheduler.choco.runner.SolvingStatistics;
+import org.btrplace.scheduler.choco.runner.Telemetry;
+import org.btrplace.scheduler.choco.runner.TelemetryRecorder;
 import org.btrplace.scheduler.choco.view.ChocoView;
 import org.btrplace.scheduler.choco.view.ChocoViews;
 import org.chocosolver.solver.Cause;
@@ -43,6 +46,7 @@ import org.chocosolver.solver.variables.IntVar;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -71,6 +75,8 @@ public class InstanceSolverRunner implements Callable<SolvingStatistics> {
 
     private SingleRunnerStatistics stats;
 
+    private volatile TelemetryRecorder telemetry;
+
     /**
      * Choco version of the constraints.
      */
@@ -97,6 +103,7 @@ public class InstanceSolverRunner implements Callable<SolvingStatistics> {
     public SolvingStatistics call() throws SchedulerException {
         stats = new SingleRunnerStatistics(params, instance, System.currentTimeMillis());
         rp = null;
+        telemetry = null;
 
         //Build the core problem
         long d = -System.currentTimeMillis();
@@ -129,33 +136,67 @@ public class InstanceSolverRunner implements Callable<SolvingStatistics> {
         stats.setMetrics(new Metrics(rp.getSolver().getMeasures()));
         rp.getLogger().debug(stats.toString());
 
-        //The solution monitor to store the measures at each solution
+        //The solution monitor to store the measures at each solution.
+        //The solution itself is already recorded by the problem
+        boolean lazy = params.doLazyPlans() && params.solutionListeners().isEmpty();
         rp.getSolver().plugMonitor((IMonitorSolution) () -> {
-            Solution solution = new Solution(rp.getModel());
-            solution.record();
-
-            ReconfigurationPlan plan = rp.buildReconfigurationPlan(solution, origin);
-            views.forEach(v -> v.insertActions(rp, solution, plan));
-
+            Solution solution = rp.getLastSolution();
             MeasuresRecorder m = rp.getSolver().getMeasures();
-            SolutionStatistics st = new SolutionStatistics(new Metrics(m), plan);
+            SolutionStatistics st;
+            if (lazy) {
+                st = new SolutionStatistics(new Metrics(m), () -> buildPlan(solution));
+            } else {
+                st = new SolutionStatistics(new Metrics(m), buildPlan(solution));
+            }
             IntVar o = rp.getObjective();
             if (o != null) {
                 st.setObjective(solution.getIntVal(o));
             }
             stats.addSolution(st);
 
-          params.solutionListeners().forEach(c -> c.accept(rp, plan));
+            if (!lazy) {
+                ReconfigurationPlan plan = st.getReconfigurationPlan();
+                params.solutionListeners().forEach(c -> c.accept(rp, plan));
+            }
         });
 
         setVerbosity();
+        //The monitor has a cost at each search node, so it is only plugged when asked for or when someone listens
+        TelemetryRecorder rec = null;
+        if (params.doTelemetry() || !params.telemetryListeners().isEmpty()) {
+            rec = new TelemetryRecorder(rp, params.getTelemetryPeriod(), params.telemetryListeners());
+        }
+        telemetry = rec;
+
+        if (params.doOptimize() && params.doLNS() && rp.getObjective() != null) {
+            //Restart from the incumbent plan and only relax a few VMs
+            rp.getSolver().setLNS(new PlacementNeighbor(rp, cstrs, params.getRandomSeed()));
+        }
 
         //The actual solving process
-        rp.solve(params.getTimeLimit(), params.doOptimize());
+        try {
+            rp.solve(params.getTimeLimit(), params.doOptimize());
+        } finally {
+            if (rec != null) {
+                rec.publish();
+            }
+        }
         return getStatistics();
     }
 
 
+    /**
+     * Build the plan associated to a solution, views included.
+     *
+     * @param solution the solution
+     * @return the resulting plan
+     */
+    private ReconfigurationPlan buildPlan(Solution solution) {
+        ReconfigurationPlan plan = rp.buildReconfigurationPlan(solution, origin);
+        views.forEach(v -> v.insertActions(rp, solution, plan));
+        return plan;
+    }
+
     private void setVerbosity() {
         if (params.getVerbosity() >= 2) {
             //every second
@@ -169,8 +210,14 @@ public class InstanceSolverRunner implements Callable<SolvingStatistics> {
         }
     }
 
-    private boolean specialise() {
-        
+    /**
+     * Specialise the core problem returned by {@link #buildRP()}.
+     * The views are resolved and injected, then the constraints and finally the objective.
+     *
+     * @return {@code false} if it is certain the problem has no solution
+     */
+    protected boolean specialise() {
+
         //Resolve the view dependencies, add them and inject them
         views = ChocoViews.resolveDependencies(origin, views, rp.getViews());
         views.forEach(rp::addView);
@@ -183,7 +230,14 @@ public class InstanceSolverRunner implements Callable<SolvingStatistics> {
                 (!o.isPresent() || o.isPresent() && o.get().inject(params, rp));
     }
 
-    private ReconfigurationProblem buildRP() throws SchedulerException {
+    /**
+     * Build the core problem.
+     * The solver-side constraints and views are instantiated but not injected yet.
+     *
+     * @return the core problem. {@code null} if the maximum plan duration cannot be restricted
+     * @throws SchedulerException if an error occurred
+     */
+    protected ReconfigurationProblem buildRP() throws SchedulerException {
         //Build the RP. As VM state management is not possible
         //We extract VM-state related constraints first.
         //For other constraint, we just create the right choco constraint
@@ -242,9 +296,30 @@ public class InstanceSolverRunner implements Callable<SolvingStatistics> {
             p.getLogger().error("Unable to restrict the maximum plan duration to " + params.getMaxEnd(), e);
             return null;
         }
+        rp = p;
         return p;
     }
 
+    /**
+     * Get the solver-side constraints.
+     * They follow the order of the instance satisfaction constraints.
+     * The last one is the optimisation constraint.
+     *
+     * @return a list of constraints. Empty until the core problem is built
+     */
+    protected List<ChocoConstraint> getChocoConstraints() {
+        return cConstraints == null ? Collections.emptyList() : cConstraints;
+    }
+
+    /**
+     * Get the instance to solve.
+     *
+     * @return the instance
+     */
+    public Instance getInstance() {
+        return instance;
+    }
+
     private List<ChocoView> makeViews() throws SchedulerException {
         List<ChocoView> l = new ArrayList<>();
         ChocoMapper mapper = params.getMapper();
@@ -310,6 +385,18 @@ public class InstanceSolverRunner implements Callable<SolvingStatistics> {
         return stats;
     }
 
+    /**
+     * Get the last telemetry snapshot of the solving process.
+     * This method can be called from any thread.
+     *
+     * @return the snapshot. {@code null} if the search has not started, no snapshot has been taken yet,
+     * or the telemetry is disabled and no telemetry listener is registered
+     */
+    public Telemetry getTelemetry() {
+        TelemetryRecorder t = telemetry;
+        return t == null ? null : t.get();
+    }
+
     /**
      * Stop the solver.
      */
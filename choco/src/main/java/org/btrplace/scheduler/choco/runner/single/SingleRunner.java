@@ -12,6 +12,7 @@ import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.Parameters;
 import org.btrplace.scheduler.choco.runner.InstanceSolver;
 import org.btrplace.scheduler.choco.runner.SolvingStatistics;
+import org.btrplace.scheduler.choco.runner.Telemetry;
 
 /**
  * A simple runner that solve in one stage a whole instance.
@@ -20,7 +21,7 @@ import org.btrplace.scheduler.choco.runner.SolvingStatistics;
  */
 public class SingleRunner implements InstanceSolver {
 
-    private InstanceSolverRunner r;
+    private volatile InstanceSolverRunner r;
     @Override
     public ReconfigurationPlan solve(Parameters cra,
                                 Instance i) throws SchedulerException {
@@ -36,6 +37,12 @@ public class SingleRunner implements InstanceSolver {
         return r.getStatistics();
     }
 
+    @Override
+    public Telemetry getTelemetry() {
+        InstanceSolverRunner x = r;
+        return x == null ? null : x.getTelemetry();
+    }
+
     @Override
     public void stop() {
         if (r != null) {
@@ -26,8 +26,13 @@ import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Task;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The solver part of the network view.
@@ -46,21 +51,50 @@ public class CNetwork implements ChocoView {
   public static final String VIEW_ID = "NetworkView";
   private final Network net;
   private org.chocosolver.solver.Model csp;
-    private Model source;
+
+    private final boolean aggregate;
 
     /**
-     * Make a new network view.
+     * The migrations crossing each link, per direction, and each switch.
+     */
+    private final Map<Link, List<RelocatableVM>> upLinks = new HashMap<>();
+    private final Map<Link, List<RelocatableVM>> downLinks = new HashMap<>();
+    private final Map<Switch, List<RelocatableVM>> switches = new HashMap<>();
+
+    /**
+     * Make a new network view that aggregates the links.
      *
      * @param n the network view we rely on
+     * @see #CNetwork(Network, boolean)
      */
     public CNetwork(Network n) throws SchedulerException {
+        this(n, true);
+    }
+
+    /**
+     * Make a new network view.
+     *
+     * @param n         the network view we rely on
+     * @param aggregate {@code true} to post a single cumulative constraint for the links having the same
+     *                  capacity and crossed by the same migrations in the same direction
+     */
+    public CNetwork(Network n, boolean aggregate) throws SchedulerException {
         net = n;
+        this.aggregate = aggregate;
+    }
+
+    /**
+     * Indicates if the links crossed by the same migrations are aggregated.
+     *
+     * @return {@code true} iff a single constraint is posted for identical links
+     */
+    public boolean aggregateLinks() {
+        return aggregate;
     }
 
     @Override
     public boolean inject(Parameters ps, ReconfigurationProblem rp) throws SchedulerException {
         csp = rp.getModel();
-        source = rp.getSourceModel();
 
         return true;
     }
@@ -75,6 +109,9 @@ public class CNetwork implements ChocoView {
 
         Model mo = rp.getSourceModel();
         Attributes attrs = mo.getAttributes();
+        upLinks.clear();
+        downLinks.clear();
+        switches.clear();
 
         // Pre-compute duration and bandwidth for each VM migration
         for (VMTransition migration : rp.getVMActions()) {
@@ -152,6 +189,7 @@ public class CNetwork implements ChocoView {
                 int dd = (int) Math.max(1, Math.round(durationTotal));
                 duration.instantiateTo(dd, Cause.Null);
                 bandwidth.instantiateTo(maxBW, Cause.Null);
+                dispatch((RelocatableVM) migration, src, dst);
             } catch (ContradictionException e) {
                 rp.getLogger().error("Contradiction exception when trying to instantiate bandwidth and " +
                         " duration variables for " + vm + " migration: ", e);
@@ -160,136 +198,99 @@ public class CNetwork implements ChocoView {
         }
 
         // Add links and switches constraints
-        addLinkConstraints(rp);        
-        addSwitchConstraints(rp);
+        addLinkConstraints();
+        addSwitchConstraints();
 
         return true;
     }
 
+    /**
+     * Resolve the path of a migration once and register it in the buckets of the links and switches it crosses.
+     *
+     * @param m   the migration
+     * @param src the source node
+     * @param dst the destination node
+     */
+    private void dispatch(RelocatableVM m, Node src, Node dst) {
+        Set<Switch> crossed = new LinkedHashSet<>();
+        for (Link l : net.getRouting().getPath(src, dst)) {
+            // Full-duplex links, one bucket per direction
+            if (net.getRouting().getLinkDirection(src, dst, l) == LinkDirection.UPLINK) {
+                upLinks.computeIfAbsent(l, k -> new ArrayList<>()).add(m);
+            } else {
+                downLinks.computeIfAbsent(l, k -> new ArrayList<>()).add(m);
+            }
+            crossed.add(l.getSwitch());
+            if (l.getElement() instanceof Switch) {
+                crossed.add((Switch) l.getElement());
+            }
+        }
+        for (Switch sw : crossed) {
+            switches.computeIfAbsent(sw, k -> new ArrayList<>()).add(m);
+        }
+    }
+
     /**
      * Add the cumulative constraints for each link.
      *
      * Full-duplex links are considered, two cumulative constraints are defined per link by looking at
      * the migration direction for each link on the migration path.
-     *
-     * @param rp the reconfiguration problem
+     * When links are aggregated, a single constraint is posted for the links having the same capacity and
+     * crossed by the same migrations.
      */
-    private void addLinkConstraints(ReconfigurationProblem rp) {
-
-        // Links limitation
-        List<Task> tasksListUp = new ArrayList<>();
-        List<Task> tasksListDown = new ArrayList<>();
-        List<IntVar> heightsListUp = new ArrayList<>();
-        List<IntVar> heightsListDown = new ArrayList<>();
-
+    private void addLinkConstraints() {
+        Set<List<Object>> posted = new HashSet<>();
         for (Link l : net.getLinks()) {
-
-            for (VM vm : rp.getVMs()) {
-                VMTransition a = rp.getVMAction(vm);
-
-                if (a instanceof RelocatableVM
-                        && !a.getDSlice().getHoster().isInstantiatedTo(a.getCSlice().getHoster().getValue())) {
-
-                    Node src = source.getMapping().getVMLocation(vm);
-                    Node dst = rp.getNode(a.getDSlice().getHoster().getValue());
-                    List<Link> path = net.getRouting().getPath(src, dst);
-
-                    // Check first if the link is on migration path
-                    if (path.contains(l)) {
-                        // Get link direction
-                        LinkDirection linkDirection = net.getRouting().getLinkDirection(src, dst, l);
-                        // UpLink
-                        if (linkDirection == LinkDirection.UPLINK) {
-                            tasksListUp.add(((RelocatableVM) a).getMigrationTask());
-                            heightsListUp.add(((RelocatableVM) a).getBandwidth());
-                        }
-                        // DownLink
-                        else {
-                            tasksListDown.add(((RelocatableVM) a).getMigrationTask());
-                            heightsListDown.add(((RelocatableVM) a).getBandwidth());
-                        }
+            for (List<RelocatableVM> bucket : Arrays.asList(upLinks.get(l), downLinks.get(l))) {
+                if (bucket == null) {
+                    continue;
+                }
+                if (aggregate) {
+                    List<Object> key = new ArrayList<>(bucket.size() + 1);
+                    key.add(l.getCapacity());
+                    key.addAll(bucket);
+                    if (!posted.add(key)) {
+                        continue;
                     }
                 }
-            }
-            if (!tasksListUp.isEmpty()) {
-
-                // Post the cumulative constraint for the current UpLink
-                csp.post(csp.cumulative(
-                        tasksListUp.toArray(new Task[tasksListUp.size()]),
-                        heightsListUp.toArray(new IntVar[heightsListUp.size()]),
-                        csp.intVar(l.getCapacity()),
-                        true
-                ));
-
-                tasksListUp.clear();
-                heightsListUp.clear();
-            }
-            if (!tasksListDown.isEmpty()) {
-
-                // Post the cumulative constraint for the current DownLink
-                csp.post(csp.cumulative(
-                        tasksListDown.toArray(new Task[tasksListDown.size()]),
-                        heightsListDown.toArray(new IntVar[heightsListDown.size()]),
-                        csp.intVar(l.getCapacity()),
-                        true
-                ));
-
-                tasksListDown.clear();
-                heightsListDown.clear();
+                List<Task> tasks = new ArrayList<>(bucket.size());
+                List<IntVar> heights = new ArrayList<>(bucket.size());
+                for (RelocatableVM m : bucket) {
+                    tasks.add(m.getMigrationTask());
+                    heights.add(m.getBandwidth());
+                }
+                postCumulative(tasks, heights, l.getCapacity());
             }
         }
     }
+
     /**
      * Add the cumulative constraints for each blocking switch (having limited capacity)
-     *
-     * @param rp the reconfiguration problem
      */
-    private void addSwitchConstraints(ReconfigurationProblem rp) {
-        
-        // Switches capacity limitation
-        List<Task> tasksList = new ArrayList<>();
-        List<IntVar> heightsList = new ArrayList<>();
-        
-        for(Switch sw : net.getSwitches()) {
-
-
+    private void addSwitchConstraints() {
+        Map<RelocatableVM, Task> tasksPerMigration = new HashMap<>();
+        for (Switch sw : net.getSwitches()) {
+            List<RelocatableVM> bucket = switches.get(sw);
             // Only if the capacity is limited
-            if (sw.getCapacity() != Integer.MAX_VALUE) {
-
-                for (VM vm : rp.getVMs()) {
-                    VMTransition a = rp.getVMAction(vm);
-
-                    if (a != null && a instanceof RelocatableVM) {
-
-                        if (a.getDSlice().getHoster().isInstantiated()) {
-
-                            if (a.getCSlice().getHoster().getValue() != a.getDSlice().getHoster().getValue()) {
-
-                                Node src = source.getMapping().getVMLocation(vm);
-                                Node dst = rp.getNode(a.getDSlice().getHoster().getValue());
-
-                                if (!Collections.disjoint(net.getConnectedLinks(sw), net.getRouting().getPath(src, dst))) {
-                                    tasksList.add(new Task(a.getStart(), a.getDuration(), a.getEnd()));
-                                    heightsList.add(((RelocatableVM) a).getBandwidth());
-                                }
-                            }
-                        }
-                    }
-                }
-
-                if (!tasksList.isEmpty()) {
-                    // Post the cumulative constraint for the current switch
-                    csp.post(csp.cumulative(
-                            tasksList.toArray(new Task[tasksList.size()]),
-                            heightsList.toArray(new IntVar[heightsList.size()]),
-                            csp.intVar(sw.getCapacity()),
-                            true
-                    ));
-
-                    tasksList.clear();
-                    heightsList.clear();
-                }
+            if (sw.getCapacity() == Integer.MAX_VALUE || bucket == null) {
+                continue;
             }
+            List<Task> tasks = new ArrayList<>(bucket.size());
+            List<IntVar> heights = new ArrayList<>(bucket.size());
+            for (RelocatableVM m : bucket) {
+                tasks.add(tasksPerMigration.computeIfAbsent(m, k -> new Task(k.getStart(), k.getDuration(), k.getEnd())));
+                heights.add(m.getBandwidth());
+            }
+            postCumulative(tasks, heights, sw.getCapacity());
         }
     }
+
+    private void postCumulative(List<Task> tasks, List<IntVar> heights, int capacity) {
+        csp.post(csp.cumulative(
+                tasks.toArray(new Task[0]),
+                heights.toArray(new IntVar[0]),
+                csp.intVar(capacity),
+                true
+        ));
+    }
 }
@@ -79,6 +79,16 @@ public class CShareableResource implements ChocoView {
 
     private TDoubleList ratios;
 
+    /**
+     * The current capacity of each node, indexed by the node index in the problem.
+     */
+    private int[] curCapacity;
+
+    /**
+     * The current consumption of each VM, indexed by the VM index in the problem.
+     */
+    private int[] curConsumption;
+
     private ReconfigurationProblem rp;
 
     private org.chocosolver.solver.Model csp;
@@ -118,8 +128,11 @@ public class CShareableResource implements ChocoView {
         virtRcUsage = new ArrayList<>(nodes.size());
         this.ratios = new TDoubleArrayList(nodes.size());
         id = ShareableResource.VIEW_ID_BASE + rc.getResourceIdentifier();
-        for (Node nId : p.getNodes()) {
-            phyRcUsage.add(csp.intVar(p.makeVarLabel("phyRcUsage('", rc.getResourceIdentifier(), "', '", nId, "')"), 0, rc.getCapacity(nId), true));
+        curCapacity = rc.getCapacities(nodes);
+        curConsumption = rc.getConsumptions(p.getVMs());
+        for (int i = 0; i < nodes.size(); i++) {
+            Node nId = nodes.get(i);
+            phyRcUsage.add(csp.intVar(p.makeVarLabel("phyRcUsage('", rc.getResourceIdentifier(), "', '", nId, "')"), 0, curCapacity[i], true));
             virtRcUsage.add(csp.intVar(p.makeVarLabel("virtRcUsage('", rc.getResourceIdentifier(), "', '", nId, "')"), 0, Integer.MAX_VALUE / 100, true));
             ratios.add(UNCHECKED_RATIO);
         }
@@ -236,7 +249,7 @@ public class CShareableResource implements ChocoView {
         if (next == -1) {
             // The value has not been changed by a ResourceCapacity constraint.
             // Thus we consider that the capacity equals the current one.
-            return rc.getCapacity(rp.getNode(nodeIdx));
+            return curCapacity[nodeIdx];
         }
         return next;
     }
@@ -252,7 +265,7 @@ public class CShareableResource implements ChocoView {
         if (next == -1) {
             // The value has not been changed by a Preserve constraint.
             // Thus we consider that the demands equals the current one.
-            return rc.getConsumption(rp.getVM(vmIdx));
+            return curConsumption[vmIdx];
         }
         return next;
     }
@@ -624,29 +637,37 @@ public class CShareableResource implements ChocoView {
 
         int[] capa = new int[rcs.size()];
         int[] cons = new int[rcs.size()];
-        TObjectIntMap<VM> cost = new TObjectIntHashMap<>();
+        Set<VM> vms = mo.getMapping().getAllVMs();
+        TObjectIntMap<VM> cost = new TObjectIntHashMap<>(vms.size());
         for (Node n : mo.getMapping().getAllNodes()) {
+            int nIdx = rp.getNode(n);
             for (int i = 0; i < rcs.size(); i++) {
-                capa[i] += (int) (rcs.get(i).virtRcUsage.get(rp.getNode(n)).getUB() * rcs.get(i).ratios.get(rp.getNode(n)));
+                capa[i] += (int) (rcs.get(i).virtRcUsage.get(nIdx).getUB() * rcs.get(i).ratios.get(nIdx));
             }
         }
 
-        for (VM v : mo.getMapping().getAllVMs()) {
+        //The allocations, per VM then per resource.
+        int[][] alloc = new int[vms.size()][rcs.size()];
+        int k = 0;
+        for (VM v : vms) {
+            int vIdx = rp.getVM(v);
             for (int i = 0; i < rcs.size(); i++) {
-                cons[i] += rcs.get(i).getFutureVMAllocation(rp.getVM(v));
+                alloc[k][i] = rcs.get(i).getFutureVMAllocation(vIdx);
+                cons[i] += alloc[k][i];
             }
+            k++;
         }
 
-        for (VM v : mo.getMapping().getAllVMs()) {
+        k = 0;
+        for (VM v : vms) {
             double sum = 0;
             for (int i = 0; i < rcs.size(); i++) {
-                double ratio = 0;
                 if (cons[i] > 0) {
-                    ratio = 1.0 * rcs.get(i).getFutureVMAllocation(rp.getVM(v)) / capa[i];
+                    sum += 1.0 * alloc[k][i] / capa[i];
                 }
-                sum += ratio;
             }
             cost.put(v, (int) (sum * 10000));
+            k++;
         }
         return cost;
     }
@@ -14,6 +14,7 @@ import org.chocosolver.solver.variables.IntVar;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 
 /*
@@ -33,6 +34,8 @@ public class VectorPacking extends Packing {
 
     private IStateInt[][] assignedLoad;
 
+    private org.btrplace.scheduler.choco.extensions.pack.VectorPacking cstr;
+
     private int dim;
 
     @Override
@@ -72,6 +75,7 @@ public class VectorPacking extends Packing {
             org.btrplace.scheduler.choco.extensions.pack.VectorPacking c = new org.btrplace.scheduler.choco.extensions.pack.VectorPacking(aNames, aLoads, aSizes, bins.get(0));
             p.getModel().post(c);
             assignedLoad = c.assignedLoad();
+            cstr = c;
 
         }
         return true;
@@ -80,4 +84,18 @@ public class VectorPacking extends Packing {
     public IStateInt[][] assignedLoad() {
         return assignedLoad;
     }
+
+    /**
+     * Register a listener that is notified each time VMs are assigned to a node.
+     *
+     * @param l the listener, called with the node index
+     * @return {@code false} if there is no packing constraint as no VM will be running
+     */
+    public boolean addAssignedLoadListener(IntConsumer l) {
+        if (cstr == null) {
+            return false;
+        }
+        cstr.addAssignedLoadListener(l);
+        return true;
+    }
 }
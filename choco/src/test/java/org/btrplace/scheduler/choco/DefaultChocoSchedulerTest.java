@@ -23,6 +23,8 @@ import org.btrplace.model.constraint.SatConstraint;
 import org.btrplace.model.view.ShareableResource;
 import org.btrplace.plan.ReconfigurationPlan;
 import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.runner.InstanceSolver;
+import org.btrplace.scheduler.choco.runner.SolutionStatistics;
 import org.btrplace.scheduler.choco.runner.SolvingStatistics;
 import org.btrplace.scheduler.choco.transition.TransitionFactory;
 import org.btrplace.scheduler.choco.transition.VMTransitionBuilder;
@@ -33,6 +35,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -318,4 +322,156 @@ public class DefaultChocoSchedulerTest {
         Assert.assertEquals(plan, onSolutions.get(0));
 
     }
+
+    @Test
+    public void testLazyPlans() throws SchedulerException {
+        Model mo = new DefaultModel();
+        List<VM> ready = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Node n = mo.newNode();
+            mo.getMapping().addOnlineNode(n);
+            mo.getMapping().addRunningVM(mo.newVM(), n);
+            VM v = mo.newVM();
+            mo.getMapping().addReadyVM(v);
+            ready.add(v);
+        }
+        List<SatConstraint> cstrs = new ArrayList<>(Running.newRunning(ready));
+        ChocoScheduler cra = new DefaultChocoScheduler();
+        Assert.assertFalse(cra.doLazyPlans());
+        cra.doLazyPlans(true);
+        Assert.assertTrue(cra.doLazyPlans());
+        cra.doOptimize(true);
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getResult().getMapping().getRunningVMs().size(), 10);
+        List<SolutionStatistics> sols = cra.getStatistics().getSolutions();
+        Assert.assertSame(sols.get(sols.size() - 1).getReconfigurationPlan(), p);
+        for (SolutionStatistics st : sols) {
+            Assert.assertNotNull(st.getReconfigurationPlan());
+        }
+
+        //The plans are built immediately for the listeners
+        List<ReconfigurationPlan> notified = new ArrayList<>();
+        cra.addSolutionListener((rp, plan) -> notified.add(plan));
+        p = cra.solve(mo, cstrs);
+        Assert.assertEquals(notified.size(), cra.getStatistics().getSolutions().size());
+        Assert.assertSame(notified.get(notified.size() - 1), p);
+    }
+
+    @Test
+    public void testSolveAsync() throws Exception {
+        Model mo = new DefaultModel();
+        ShareableResource cpu = new ShareableResource("cpu", 20, 2);
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Node n = mo.newNode();
+            ns.add(n);
+            mo.getMapping().addOnlineNode(n);
+            for (int j = 0; j < 3; j++) {
+                mo.getMapping().addRunningVM(mo.newVM(), n);
+            }
+        }
+        mo.attach(cpu);
+        List<VM> ready = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            VM v = mo.newVM();
+            mo.getMapping().addReadyVM(v);
+            ready.add(v);
+        }
+        List<SatConstraint> cstrs = new ArrayList<>(Running.newRunning(ready));
+
+        ChocoScheduler cra = new DefaultChocoScheduler();
+        cra.doOptimize(true);
+        SolvingHandle h = cra.solveAsync(new Instance(mo, cstrs, new MinMTTR()));
+        Assert.assertEquals(h.getDeadline(), -1);
+        List<SolutionStatistics> seen = new ArrayList<>();
+        h.onSolution(seen::add);
+        SolutionStatistics first = h.firstSolution().get(30, TimeUnit.SECONDS);
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(first.getReconfigurationPlan());
+        ReconfigurationPlan best = h.result().get(30, TimeUnit.SECONDS);
+        Assert.assertTrue(h.isDone());
+        Assert.assertNotNull(best);
+        Assert.assertEquals(h.solutions(), seen);
+        Assert.assertSame(h.best().getReconfigurationPlan(), best);
+        //Improving solutions
+        for (int i = 1; i < seen.size(); i++) {
+            Assert.assertTrue(seen.get(i).objective() < seen.get(i - 1).objective());
+        }
+        //No more solutions
+        Assert.assertNull(h.solution(seen.size()).get());
+
+        //Deadline management
+        cra.setTimeLimit(60);
+        h = cra.solveAsync(new Instance(mo, cstrs, new MinMTTR()));
+        long d = h.getDeadline();
+        Assert.assertTrue(d > System.currentTimeMillis());
+        h.extendDeadline(1000);
+        Assert.assertEquals(h.getDeadline(), d + 1000);
+        h.firstSolution().get(30, TimeUnit.SECONDS);
+        h.cancel();
+        Assert.assertNotNull(h.result().get(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testOneAsyncSolveAtATime() throws Exception {
+        Instance i = new Instance(new DefaultModel(), new ArrayList<>(), new MinMTTR());
+        ChocoScheduler cra = new DefaultChocoScheduler();
+        BlockingSolver first = new BlockingSolver();
+        cra.setInstanceSolver(first);
+        SolvingHandle h = cra.solveAsync(i);
+        try {
+            cra.solveAsync(i);
+            Assert.fail("Only one solving process at a time");
+        } catch (IllegalStateException ex) {
+            //expected
+        }
+        try {
+            cra.solve(i);
+            Assert.fail("Only one solving process at a time");
+        } catch (IllegalStateException ex) {
+            //expected
+        }
+        //The handle stops its own solver, not the current one
+        BlockingSolver second = new BlockingSolver();
+        cra.setInstanceSolver(second);
+        h.cancel();
+        Assert.assertNull(h.result().get(30, TimeUnit.SECONDS));
+        Assert.assertEquals(first.stopped.getCount(), 0);
+        Assert.assertEquals(second.stopped.getCount(), 1);
+
+        //Over, so a new solving process can start
+        SolvingHandle h2 = cra.solveAsync(i);
+        h2.cancel();
+        Assert.assertNull(h2.result().get(30, TimeUnit.SECONDS));
+        Assert.assertEquals(second.stopped.getCount(), 0);
+    }
+
+    /**
+     * A solver that runs until it is stopped.
+     */
+    private static class BlockingSolver implements InstanceSolver {
+
+        private final CountDownLatch stopped = new CountDownLatch(1);
+
+        @Override
+        public ReconfigurationPlan solve(Parameters ps, Instance i) {
+            try {
+                stopped.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        @Override
+        public SolvingStatistics getStatistics() {
+            return null;
+        }
+
+        @Override
+        public void stop() {
+            stopped.countDown();
+        }
+    }
 }
@@ -10,14 +10,20 @@ import org.btrplace.model.DefaultModel;
 import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Ban;
 import org.btrplace.model.constraint.Preserve;
 import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.Spread;
 import org.btrplace.model.view.ShareableResource;
 import org.btrplace.plan.ReconfigurationPlan;
 import org.btrplace.scheduler.choco.DefaultChocoScheduler;
 import org.testng.Assert;
+import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -63,4 +69,71 @@ public class CMinMTTRTest {
         Assert.assertTrue(sched.getStatistics().getMetrics().backtracks() < 100);
         System.err.flush();
     }
+
+    @Test
+    public void testLNS() {
+        Model mo = new DefaultModel();
+        ShareableResource cpu = new ShareableResource("cpu", 8, 2);
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Node n = mo.newNode();
+            ns.add(n);
+            mo.getMapping().addOnlineNode(n);
+        }
+        List<SatConstraint> l = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            //The first nodes are overloaded
+            Node n = ns.get(i % 3);
+            VM v1 = mo.newVM();
+            VM v2 = mo.newVM();
+            mo.getMapping().addRunningVM(v1, n);
+            mo.getMapping().addRunningVM(v2, n);
+            l.add(new Spread(new HashSet<>(Arrays.asList(v1, v2)), false));
+        }
+        mo.attach(cpu);
+        DefaultChocoScheduler sched = new DefaultChocoScheduler();
+        sched.doOptimize(true);
+        sched.doLNS(true);
+        Assert.assertTrue(sched.doLNS());
+        sched.setTimeLimit(3);
+        ReconfigurationPlan p = sched.solve(mo, l);
+        Assert.assertNotNull(p);
+        for (Node n : ns) {
+            Assert.assertTrue(cpu.sumConsumptions(p.getResult().getMapping().getRunningVMs(n), true) <= 8);
+        }
+        //The LNS restarts from each solution
+        Assert.assertTrue(sched.getStatistics().getMetrics().restarts() > 0);
+
+        sched.doLNS(false);
+        Assert.assertNotNull(sched.solve(mo, l));
+        Assert.assertEquals(sched.getStatistics().getMetrics().restarts(), 0);
+    }
+
+    /**
+     * The VMs leaving a node must be spread over the least loaded nodes.
+     */
+    @Test
+    public void testWorstFitSpreading() {
+        Model mo = new DefaultModel();
+        ShareableResource cpu = new ShareableResource("cpu", 10, 2);
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Node n = mo.newNode();
+            ns.add(n);
+            mo.getMapping().addOnlineNode(n);
+        }
+        List<SatConstraint> l = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            VM v = mo.newVM();
+            mo.getMapping().addRunningVM(v, ns.get(0));
+            l.add(new Ban(v, Collections.singleton(ns.get(0))));
+        }
+        mo.attach(cpu);
+        DefaultChocoScheduler sched = new DefaultChocoScheduler();
+        ReconfigurationPlan p = sched.solve(mo, l);
+        Assert.assertNotNull(p);
+        for (Node n : ns.subList(1, ns.size())) {
+            Assert.assertEquals(p.getResult().getMapping().getRunningVMs(n).size(), 1);
+        }
+    }
 }
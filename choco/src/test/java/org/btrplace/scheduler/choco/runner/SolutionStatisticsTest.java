@@ -12,6 +12,8 @@ import org.btrplace.plan.ReconfigurationPlan;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Simple unit tests for {@link org.btrplace.scheduler.choco.runner.SolutionStatistics}.
  *
@@ -32,4 +34,18 @@ public class SolutionStatisticsTest {
         Assert.assertEquals(st.objective(), 12);
         System.out.println(st);
     }
+
+    @Test
+    public void testLazyPlan() {
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(new DefaultModel());
+        AtomicInteger builds = new AtomicInteger();
+        SolutionStatistics st = new SolutionStatistics(new Metrics(), () -> {
+            builds.incrementAndGet();
+            return p;
+        });
+        Assert.assertEquals(builds.get(), 0);
+        Assert.assertSame(st.getReconfigurationPlan(), p);
+        Assert.assertSame(st.getReconfigurationPlan(), p);
+        Assert.assertEquals(builds.get(), 1);
+    }
 }
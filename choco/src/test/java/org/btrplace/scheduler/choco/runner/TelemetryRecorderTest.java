@@ -0,0 +1,106 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.choco.runner;
+
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Fence;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.ShareableResource;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.choco.ChocoScheduler;
+import org.btrplace.scheduler.choco.DefaultChocoScheduler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link TelemetryRecorder}.
+ *
+ * @author Fabien Hermenier
+ */
+public class TelemetryRecorderTest {
+
+    @Test
+    public void testListenersAndPolling() {
+        Model mo = new DefaultModel();
+        ShareableResource cpu = new ShareableResource("cpu", 20, 2);
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Node n = mo.newNode();
+            ns.add(n);
+            mo.getMapping().addOnlineNode(n);
+            for (int j = 0; j < 3; j++) {
+                mo.getMapping().addRunningVM(mo.newVM(), n);
+            }
+        }
+        mo.attach(cpu);
+        List<VM> ready = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            VM v = mo.newVM();
+            mo.getMapping().addReadyVM(v);
+            ready.add(v);
+        }
+        List<SatConstraint> cstrs = new ArrayList<>(Running.newRunning(ready));
+        cstrs.addAll(Fence.newFence(mo.getMapping().getRunningVMs(ns.get(0)), Collections.singleton(ns.get(1))));
+
+        ChocoScheduler s = new DefaultChocoScheduler();
+        Assert.assertNull(s.getTelemetry());
+        List<Telemetry> samples = new ArrayList<>();
+        s.setTelemetryPeriod(0);
+        Assert.assertEquals(s.getTelemetryPeriod(), 0);
+        s.addTelemetryListener(samples::add);
+        s.doOptimize(true);
+        ReconfigurationPlan p = s.solve(new Instance(mo, cstrs, new MinMTTR()));
+        Assert.assertNotNull(p);
+
+        Assert.assertFalse(samples.isEmpty());
+        Telemetry last = s.getTelemetry();
+        Assert.assertSame(last, samples.get(samples.size() - 1));
+        Assert.assertEquals(last.solutions(), s.getStatistics().getSolutions().size());
+        Assert.assertTrue(last.hasObjective());
+        SolutionStatistics best = s.getStatistics().getSolutions().get(last.solutions() - 1);
+        Assert.assertEquals(last.objective(), best.objective());
+        Assert.assertEquals(last.nodes(), s.getStatistics().getMetrics().nodes());
+        Assert.assertEquals(last.fails() > 0, !last.failsPerCause().isEmpty());
+        //Monotonic counters
+        for (int i = 1; i < samples.size(); i++) {
+            Assert.assertTrue(samples.get(i).nodes() >= samples.get(i - 1).nodes());
+            Assert.assertTrue(samples.get(i).elapsed() >= samples.get(i - 1).elapsed());
+        }
+    }
+
+    @Test
+    public void testNoListener() {
+        Model mo = new DefaultModel();
+        Node n = mo.newNode();
+        mo.getMapping().addOnlineNode(n);
+        VM v = mo.newVM();
+        mo.getMapping().addReadyVM(v);
+
+        ChocoScheduler s = new DefaultChocoScheduler();
+        ReconfigurationPlan p = s.solve(new Instance(mo, new ArrayList<>(Running.newRunning(Collections.singletonList(v))), new MinMTTR()));
+        Assert.assertNotNull(p);
+        //Nobody listens so the search is not monitored
+        Assert.assertNull(s.getTelemetry());
+
+        //Monitored for polling only
+        s.doTelemetry(true);
+        Assert.assertTrue(s.doTelemetry());
+        p = s.solve(new Instance(mo, new ArrayList<>(Running.newRunning(Collections.singletonList(v))), new MinMTTR()));
+        Assert.assertNotNull(p);
+        Assert.assertNotNull(s.getTelemetry());
+    }
+}
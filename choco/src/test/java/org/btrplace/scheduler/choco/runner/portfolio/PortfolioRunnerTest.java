@@ -0,0 +1,87 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.choco.runner.portfolio;
+
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Fence;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.ShareableResource;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.choco.ChocoScheduler;
+import org.btrplace.scheduler.choco.DefaultChocoScheduler;
+import org.btrplace.scheduler.choco.constraint.mttr.CMinMTTR;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link PortfolioRunner}.
+ *
+ * @author Fabien Hermenier
+ */
+public class PortfolioRunnerTest {
+
+    @Test
+    public void testBasics() {
+        PortfolioRunner r = new PortfolioRunner(3);
+        Assert.assertEquals(r.getWorkersCount(), 3);
+        r.setWorkersCount(5);
+        Assert.assertEquals(r.getWorkersCount(), 5);
+        Assert.assertEquals(r.getHeuristics().size(), CMinMTTR.Placement.values().length);
+        Assert.assertNull(r.getStatistics());
+    }
+
+    @Test
+    public void testSolve() {
+        Model mo = new DefaultModel();
+        ShareableResource cpu = new ShareableResource("cpu", 20, 2);
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Node n = mo.newNode();
+            ns.add(n);
+            mo.getMapping().addOnlineNode(n);
+            for (int j = 0; j < 3; j++) {
+                mo.getMapping().addRunningVM(mo.newVM(), n);
+            }
+        }
+        mo.attach(cpu);
+        List<VM> ready = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            VM v = mo.newVM();
+            mo.getMapping().addReadyVM(v);
+            ready.add(v);
+        }
+        List<SatConstraint> cstrs = new ArrayList<>(Running.newRunning(ready));
+        cstrs.addAll(Fence.newFence(mo.getMapping().getRunningVMs(ns.get(0)), Collections.singleton(ns.get(1))));
+
+        ChocoScheduler s = new DefaultChocoScheduler();
+        PortfolioRunner r = new PortfolioRunner(3);
+        s.setInstanceSolver(r);
+        s.doOptimize(true);
+        s.setTimeLimit(5);
+        ReconfigurationPlan p = s.solve(new Instance(mo, cstrs, new MinMTTR()));
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 7);
+        Assert.assertNotNull(r.getStatistics());
+        Assert.assertEquals(r.getStatistics().lastSolution(), p);
+
+        //Same result in satisfaction mode
+        s.doOptimize(false);
+        p = s.solve(new Instance(mo, cstrs, new MinMTTR()));
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 7);
+    }
+}
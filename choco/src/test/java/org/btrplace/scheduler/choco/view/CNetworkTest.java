@@ -22,12 +22,16 @@ import org.btrplace.plan.event.MigrateVM;
 import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.ChocoScheduler;
 import org.btrplace.scheduler.choco.DefaultChocoScheduler;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.ConstraintsName;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Unit tests for {@link org.btrplace.scheduler.choco.view.CNetwork}.
@@ -133,4 +137,73 @@ public class CNetworkTest {
         Assert.assertNotNull(p);
 
     }
+
+    /**
+     * A network view that does not aggregate the links.
+     */
+    public static class CNetworkNoAggregation extends CNetwork {
+
+        /**
+         * New view.
+         *
+         * @param n the network view we rely on
+         * @throws SchedulerException never
+         */
+        public CNetworkNoAggregation(Network n) throws SchedulerException {
+            super(n, false);
+        }
+    }
+
+    private static int solveAndCountCumulatives(Model mo, List<SatConstraint> cstrs, boolean aggregate) {
+        ChocoScheduler s = new DefaultChocoScheduler();
+        if (!aggregate) {
+            s.getMapper().mapView(Network.class, CNetworkNoAggregation.class);
+        }
+        int[] nb = new int[1];
+        s.addSolutionListener((ReconfigurationProblem rp, ReconfigurationPlan p) ->
+                nb[0] = (int) Stream.of(rp.getModel().getCstrs())
+                        .map(Constraint::getName)
+                        .filter(ConstraintsName.CUMULATIVE::equals)
+                        .count());
+        ReconfigurationPlan p = s.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getActions().stream().filter(a -> a instanceof MigrateVM).count(), 2);
+        return nb[0];
+    }
+
+    /**
+     * Two migrations crossing the same links through a core switch.
+     * With aggregation, a single cumulative constraint is posted for the links having
+     * the same capacity and the same migrations.
+     */
+    @Test
+    public void testLinkAggregation() {
+        Model mo = new DefaultModel();
+        Network net = new Network();
+        mo.attach(net);
+        Switch core = net.newSwitch();
+        Switch r1 = net.newSwitch();
+        Switch r2 = net.newSwitch();
+        net.connect(1000, r1, core);
+        net.connect(1000, r2, core);
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Node n = mo.newNode();
+            mo.getMapping().addOnlineNode(n);
+            net.connect(1000, i < 2 ? r1 : r2, n);
+            ns.add(n);
+        }
+        List<SatConstraint> cstrs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            VM v = mo.newVM();
+            mo.getMapping().addRunningVM(v, ns.get(i));
+            mo.getAttributes().put(v, "memUsed", 1000);
+            cstrs.add(new Fence(v, ns.get(i + 2)));
+        }
+        Assert.assertTrue(new CNetwork(net).aggregateLinks());
+        int withAggregation = solveAndCountCumulatives(mo, cstrs, true);
+        int withoutAggregation = solveAndCountCumulatives(mo, cstrs, false);
+        // 4 node links crossed by one migration each, 2 trunks crossed by both migrations in the same direction
+        Assert.assertEquals(withoutAggregation - withAggregation, 6 - 3);
+    }
 }
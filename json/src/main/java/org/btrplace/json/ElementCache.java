@@ -0,0 +1,229 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json;
+
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of the elements decoded for a given model.
+ * <p>
+ * Each thread has its own cache, bound to the last model it decoded elements for, so the cache
+ * never needs to be synchronised and the elements of a model are never returned for another one.
+ * The cache interns the VMs and the nodes by identifier once they have been checked against the model,
+ * and remembers the last decoded lists of elements, indexed by their identifiers.
+ *
+ * @author Fabien Hermenier
+ */
+final class ElementCache {
+
+    /**
+     * The default number of lists of elements to remember.
+     */
+    static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /**
+     * The elements having a larger identifier are not interned.
+     */
+    private static final int MAX_INTERNED_ID = 1 << 22;
+
+    private static final ThreadLocal<ElementCache> CACHES = new ThreadLocal<>();
+
+    private static volatile int cacheSize = DEFAULT_CACHE_SIZE;
+
+    /**
+     * Incremented each time the caches are reset, to invalidate the caches of all the threads.
+     */
+    private static volatile int epoch;
+
+    private final WeakReference<Model> model;
+
+    private final int version;
+
+    private VM[] vms = new VM[0];
+
+    private Node[] nodes = new Node[0];
+
+    private final Map<IdList, List<VM>> vmLists;
+
+    private final Map<IdList, List<Node>> nodeLists;
+
+    private ElementCache(Model mo, int size, int version) {
+        model = new WeakReference<>(mo);
+        this.version = version;
+        vmLists = new LinkedHashMap<IdList, List<VM>>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdList, List<VM>> foo) {
+                return size() > size;
+            }
+        };
+        nodeLists = new LinkedHashMap<IdList, List<Node>>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdList, List<Node>> foo) {
+                return size() > size;
+            }
+        };
+    }
+
+    /**
+     * Get the cache of the current thread for a given model.
+     *
+     * @param mo the model
+     * @return the cache
+     */
+    static ElementCache of(Model mo) {
+        ElementCache c = CACHES.get();
+        int v = epoch;
+        if (c == null || c.version != v || c.model.get() != mo) {
+            c = new ElementCache(mo, cacheSize, v);
+            CACHES.set(c);
+        }
+        return c;
+    }
+
+    /**
+     * Reset the caches of all the threads.
+     *
+     * @param size the number of lists of elements to remember
+     */
+    static synchronized void reset(int size) {
+        cacheSize = size;
+        epoch++;
+    }
+
+    /**
+     * Get a VM of the model.
+     *
+     * @param mo the model
+     * @param id the VM identifier
+     * @return the VM
+     * @throws JSONConverterException if the VM is not in the model
+     */
+    VM vm(Model mo, int id) throws JSONConverterException {
+        if (id >= 0 && id < vms.length && vms[id] != null) {
+            return vms[id];
+        }
+        VM v = new VM(id);
+        if (!mo.contains(v)) {
+            throw new JSONConverterException("Undeclared vm '" + id + "'");
+        }
+        if (id >= 0 && id < MAX_INTERNED_ID) {
+            if (id >= vms.length) {
+                vms = Arrays.copyOf(vms, Math.min(MAX_INTERNED_ID, Math.max(id + 1, vms.length * 2)));
+            }
+            vms[id] = v;
+        }
+        return v;
+    }
+
+    /**
+     * Get a node of the model.
+     *
+     * @param mo the model
+     * @param id the node identifier
+     * @return the node
+     * @throws JSONConverterException if the node is not in the model
+     */
+    Node node(Model mo, int id) throws JSONConverterException {
+        if (id >= 0 && id < nodes.length && nodes[id] != null) {
+            return nodes[id];
+        }
+        Node n = new Node(id);
+        if (!mo.contains(n)) {
+            throw new JSONConverterException("Undeclared node '" + id + "'");
+        }
+        if (id >= 0 && id < MAX_INTERNED_ID) {
+            if (id >= nodes.length) {
+                nodes = Arrays.copyOf(nodes, Math.min(MAX_INTERNED_ID, Math.max(id + 1, nodes.length * 2)));
+            }
+            nodes[id] = n;
+        }
+        return n;
+    }
+
+    /**
+     * Get a list of VMs of the model.
+     *
+     * @param mo  the model
+     * @param ids the VM identifiers
+     * @return the VMs, in the same order
+     * @throws JSONConverterException if a VM is not in the model
+     */
+    List<VM> vms(Model mo, int[] ids) throws JSONConverterException {
+        IdList k = new IdList(ids);
+        List<VM> l = vmLists.get(k);
+        if (l == null) {
+            l = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                l.add(vm(mo, id));
+            }
+            vmLists.put(k, l);
+        }
+        return l;
+    }
+
+    /**
+     * Get a list of nodes of the model.
+     *
+     * @param mo  the model
+     * @param ids the node identifiers
+     * @return the nodes, in the same order
+     * @throws JSONConverterException if a node is not in the model
+     */
+    List<Node> nodes(Model mo, int[] ids) throws JSONConverterException {
+        IdList k = new IdList(ids);
+        List<Node> l = nodeLists.get(k);
+        if (l == null) {
+            l = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                l.add(node(mo, id));
+            }
+            nodeLists.put(k, l);
+        }
+        return l;
+    }
+
+    /**
+     * A list of identifiers, to be used as a key.
+     */
+    private static final class IdList {
+
+        private final int[] ids;
+
+        private final int hash;
+
+        IdList(int[] ids) {
+            this.ids = ids;
+            hash = Arrays.hashCode(ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            IdList that = (IdList) o;
+            return hash == that.hash && Arrays.equals(ids, that.ids);
+        }
+    }
+}
@@ -8,9 +8,12 @@ package org.btrplace.json;
 
 import org.btrplace.json.model.InstanceConverter;
 import org.btrplace.json.plan.ReconfigurationPlanConverter;
+import org.btrplace.json.stream.JSONStreamReader;
+import org.btrplace.json.stream.JSONStreamWriter;
 import org.btrplace.model.Instance;
 import org.btrplace.plan.ReconfigurationPlan;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -18,6 +21,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.Writer;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -25,6 +29,8 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * Utility class to ease the serialisation and the deserialisation of the main btrplace entities.
+ * The streams are read and written using {@link JSONStreamReader} and {@link JSONStreamWriter}
+ * so the JSON documents are never entirely materialised in memory.
  *
  * @author Fabien Hermenier
  */
@@ -40,11 +46,11 @@ public class JSON {
         return new InputStreamReader(new FileInputStream(f), UTF_8);
     }
 
-    private static OutputStreamWriter makeOut(File f) throws IOException {
+    private static Writer makeOut(File f) throws IOException {
         if (f.getName().endsWith(".gz")) {
-            return new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(f)), UTF_8);
+            return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(f)), UTF_8));
         }
-        return new OutputStreamWriter(new FileOutputStream(f), UTF_8);
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f), UTF_8));
     }
 
     /**
@@ -72,8 +78,7 @@ public class JSON {
      */
     public static Instance readInstance(Reader r) {
         try {
-            InstanceConverter c = new InstanceConverter();
-            return c.fromJSON(r);
+            return new JSONStreamReader().readInstance(r);
         } catch (JSONConverterException e) {
             throw new IllegalArgumentException(e);
         }
@@ -87,7 +92,7 @@ public class JSON {
      * @throws IllegalArgumentException if an error occurred while writing the json
      */
     public static void write(Instance instance, File f) {
-        try (OutputStreamWriter out = makeOut(f)) {
+        try (Writer out = makeOut(f)) {
             write(instance, out);
         } catch (IOException e) {
             throw new IllegalArgumentException(e);
@@ -103,8 +108,7 @@ public class JSON {
      */
     public static void write(Instance instance, Appendable a) {
         try {
-            InstanceConverter c = new InstanceConverter();
-            c.toJSON(instance).writeJSONString(a);
+            new JSONStreamWriter().write(instance, a);
         } catch (IOException | JSONConverterException e) {
             throw new IllegalArgumentException(e);
         }
@@ -152,9 +156,7 @@ public class JSON {
      */
     public static ReconfigurationPlan readReconfigurationPlan(Reader r) {
         try {
-            ReconfigurationPlanConverter c =
-                ReconfigurationPlanConverter.newBundle();
-            return c.fromJSON(r);
+            return new JSONStreamReader().readReconfigurationPlan(r);
         } catch (JSONConverterException e) {
             throw new IllegalArgumentException(e);
         }
@@ -168,7 +170,7 @@ public class JSON {
      * @throws IllegalArgumentException if an error occurred while writing the json
      */
     public static void write(ReconfigurationPlan plan, File f) {
-        try (OutputStreamWriter out = makeOut(f)) {
+        try (Writer out = makeOut(f)) {
             write(plan, out);
         } catch (IOException e) {
             throw new IllegalArgumentException(e);
@@ -184,9 +186,7 @@ public class JSON {
      */
     public static void write(ReconfigurationPlan plan, Appendable a) {
         try {
-            ReconfigurationPlanConverter c =
-                ReconfigurationPlanConverter.newBundle();
-            c.toJSON(plan).writeJSONString(a);
+            new JSONStreamWriter().write(plan, a);
         } catch (IOException | JSONConverterException e) {
             throw new IllegalArgumentException(e);
         }
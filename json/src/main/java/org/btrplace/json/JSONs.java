@@ -13,40 +13,20 @@ import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.VM;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
  * A helper class to ease JSON conversion.
+ * <p>
+ * The helpers can be used concurrently. The elements are cached per thread and per model.
  *
  * @author Fabien Hermenier
  */
 public class JSONs {
 
-    /**
-     * The default cache for set of VMs and nodes.
-     */
-    private static final int DEFAULT_CACHE_SIZE = 1024;
-
-    private static Map<String, List<VM>> vmsCache = new LinkedHashMap<String, List<VM>>() {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, List<VM>> foo) {
-            return size() == DEFAULT_CACHE_SIZE;
-        }
-    };
-
-    private static Map<String, List<Node>> nodesCache = new LinkedHashMap<String, List<Node>>() {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, List<Node>> foo) {
-            return size() == DEFAULT_CACHE_SIZE;
-        }
-    };
-
     /**
      * Utility class.
      * No instantiation
@@ -56,23 +36,12 @@ public class JSONs {
 
     /**
      * Reset the cache of element sets.
+     * The caches are scoped to a thread and a model. They are all reset.
      *
      * @param size the new cache size
      */
     public static void resetCaches(int size) {
-        nodesCache = new LinkedHashMap<String, List<Node>>() {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<String, List<Node>> foo) {
-                return size() == size;
-            }
-        };
-
-        vmsCache = new LinkedHashMap<String, List<VM>>() {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<String, List<VM>> foo) {
-                return size() == size;
-            }
-        };
+        ElementCache.reset(size);
     }
 
     /**
@@ -178,45 +147,35 @@ public class JSONs {
     /**
      * Convert an array of VM identifiers to a set of VMs.
      * This operation uses a cache of previously converted set of VMs.
+     * The cache is specific to the current thread and the model.
      * @param mo the associated model to browse
      * @param a the json array
      * @return the set of VMs
      * @throws JSONConverterException if a error occurred during the conversion
      */
     public static List<VM> vmsFromJSON(Model mo, JSONArray a) throws JSONConverterException {
-        String json = a.toJSONString();
-        List<VM> s = vmsCache.get(json);
-        if (s != null) {
-            return s;
-        }
-        s = new ArrayList<>(a.size());
-        for (Object o : a) {
-            s.add(getVM(mo, (int) o));
-        }
-        vmsCache.put(json, s);
-        return s;
+        return ElementCache.of(mo).vms(mo, ids(a));
     }
 
     /**
      * Convert an array of VM identifiers to a set of VMs.
      * This operation uses a cache of previously converted set of nodes.
+     * The cache is specific to the current thread and the model.
      * @param mo the associated model to browse
      * @param a the json array
      * @return the set of nodes
      * @throws JSONConverterException if a error occurred during the conversion
      */
     public static List<Node> nodesFromJSON(Model mo, JSONArray a) throws JSONConverterException {
-        String json = a.toJSONString();
-        List<Node> s = nodesCache.get(json);
-        if (s != null) {
-            return s;
-        }
-        s = new ArrayList<>(a.size());
-        for (Object o : a) {
-            s.add(getNode(mo, (int) o));
+        return ElementCache.of(mo).nodes(mo, ids(a));
+    }
+
+    private static int[] ids(JSONArray a) {
+        int[] ids = new int[a.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) a.get(i);
         }
-        nodesCache.put(json, s);
-        return s;
+        return ids;
     }
 
     /**
@@ -371,11 +330,7 @@ public class JSONs {
      * @throws JSONConverterException if there is no model, or if the VM is unknown.
      */
     public static VM getVM(Model mo, int vmID) throws JSONConverterException {
-        VM vm = new VM(vmID);
-        if (!mo.contains(vm)) {
-            throw new JSONConverterException("Undeclared vm '" + vmID + "'");
-        }
-        return vm;
+        return ElementCache.of(mo).vm(mo, vmID);
     }
 
     /**
@@ -388,11 +343,7 @@ public class JSONs {
      * @throws JSONConverterException if there is no model, or if the node is unknown.
      */
     public static Node getNode(Model mo, int nodeID) throws JSONConverterException {
-        Node n = new Node(nodeID);
-        if (!mo.contains(n)) {
-            throw new JSONConverterException("Undeclared node '" + nodeID + "'");
-        }
-        return n;
+        return ElementCache.of(mo).node(mo, nodeID);
     }
 
     /**
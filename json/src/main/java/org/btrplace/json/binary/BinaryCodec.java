@@ -0,0 +1,57 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.binary;
+
+import org.btrplace.json.JSONConverterException;
+import org.btrplace.model.Model;
+
+import java.io.IOException;
+
+/**
+ * A dedicated binary codec for a view or a constraint.
+ * Views and constraints without a dedicated codec are encoded
+ * through their JSON converter.
+ *
+ * @author Fabien Hermenier
+ * @see BinaryConverter#register(BinaryCodec)
+ */
+public interface BinaryCodec<E> {
+
+    /**
+     * Get the class of the supported objects.
+     *
+     * @return a class
+     */
+    Class<E> getSupportedClass();
+
+    /**
+     * Get the codec identifier, written before each encoded object.
+     *
+     * @return a non-empty string
+     */
+    String getId();
+
+    /**
+     * Encode an object.
+     *
+     * @param e   the object to encode
+     * @param out the stream to write on
+     * @throws IOException if an error occurred while writing
+     */
+    void write(E e, BinaryOutput out) throws IOException;
+
+    /**
+     * Decode an object.
+     *
+     * @param mo the model to rely on
+     * @param in the stream to read
+     * @return the decoded object
+     * @throws IOException            if an error occurred while reading
+     * @throws JSONConverterException if the encoded object is not consistent with the model
+     */
+    E read(Model mo, BinaryInput in) throws IOException, JSONConverterException;
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.binary;
+
+import gnu.trove.list.array.TIntArrayList;
+import net.minidev.json.JSONObject;
+import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.model.InstanceConverter;
+import org.btrplace.json.model.constraint.ConstraintsConverter;
+import org.btrplace.json.model.view.ModelViewsConverter;
+import org.btrplace.json.plan.ReconfigurationPlanConverter;
+import org.btrplace.model.Attributes;
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Element;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Constraint;
+import org.btrplace.model.constraint.OptConstraint;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.ModelView;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.Action;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A converter between models, instances or plans and a compact binary format.
+ * <p>
+ * The elements are written as runs of consecutive identifiers per state, integers as variable-length
+ * integers and strings such as attribute keys or constraint identifiers are dictionary-encoded.
+ * Views and constraints having a {@link BinaryCodec} registered with {@link #register(BinaryCodec)} are
+ * encoded using it. The others, and the actions, are encoded in binary from the JSON objects
+ * produced by the converters of the {@link InstanceConverter} or the {@link ReconfigurationPlanConverter}.
+ * A custom view or constraint is then supported as soon as it has a JSON converter.
+ *
+ * @author Fabien Hermenier
+ */
+public class BinaryConverter {
+
+    /**
+     * The header of a binary document.
+     */
+    private static final byte[] MAGIC = {'B', 'T', 'R'};
+
+    /**
+     * The version of the format.
+     */
+    public static final int VERSION = 1;
+
+    private static final byte MODEL = 0;
+
+    private static final byte INSTANCE = 1;
+
+    private static final byte PLAN = 2;
+
+    /**
+     * The codec identifier of the objects encoded through a JSON converter.
+     */
+    private static final String JSON_CODEC = "json";
+
+    private static final byte VM_ATTRS = 0;
+
+    private static final byte NODE_ATTRS = 1;
+
+    private final ModelViewsConverter vc;
+
+    private final ConstraintsConverter cc;
+
+    private final ReconfigurationPlanConverter pc;
+
+    private final Map<Class<?>, BinaryCodec<?>> java2bin;
+
+    private final Map<String, BinaryCodec<?>> bin2java;
+
+    /**
+     * Make a new converter that relies on the default JSON converters.
+     * No dedicated codec is registered.
+     */
+    public BinaryConverter() {
+        this(new InstanceConverter(), ReconfigurationPlanConverter.newBundle());
+    }
+
+    /**
+     * Make a new converter.
+     * No dedicated codec is registered.
+     *
+     * @param ic the converter providing the view and the constraint converters
+     * @param pc the converter for the actions and their events
+     */
+    public BinaryConverter(InstanceConverter ic, ReconfigurationPlanConverter pc) {
+        vc = ic.getModelConverter().getViewsConverter();
+        cc = ic.getConstraintsConverter();
+        this.pc = pc;
+        java2bin = new HashMap<>();
+        bin2java = new HashMap<>();
+    }
+
+    /**
+     * Make a new converter relying on the default JSON converters
+     * and the following codecs:
+     * <ul>
+     * <li>{@link ShareableResourceCodec}</li>
+     * </ul>
+     *
+     * @return a fulfilled converter
+     */
+    public static BinaryConverter newBundle() {
+        BinaryConverter c = new BinaryConverter();
+        c.register(new ShareableResourceCodec());
+        return c;
+    }
+
+    /**
+     * Register a dedicated codec for a view or a constraint.
+     *
+     * @param c the codec to register
+     */
+    public void register(BinaryCodec<?> c) {
+        if (JSON_CODEC.equals(c.getId())) {
+            throw new IllegalArgumentException("Codec identifier '" + JSON_CODEC + "' is reserved");
+        }
+        java2bin.put(c.getSupportedClass(), c);
+        bin2java.put(c.getId(), c);
+    }
+
+    /**
+     * Get the classes having a dedicated codec.
+     *
+     * @return a set that may be empty
+     */
+    public Set<Class<?>> getSupportedClasses() {
+        return java2bin.keySet();
+    }
+
+    /**
+     * Write a model.
+     *
+     * @param mo  the model to write
+     * @param out the stream to write on. It is flushed but not closed
+     * @throws IOException            if an error occurred while writing
+     * @throws JSONConverterException if an element cannot be converted
+     */
+    public void write(Model mo, OutputStream out) throws IOException, JSONConverterException {
+        BinaryOutput bo = header(out, MODEL);
+        writeModel(mo, bo);
+        bo.flush();
+    }
+
+    /**
+     * Write an instance.
+     *
+     * @param i   the instance to write
+     * @param out the stream to write on. It is flushed but not closed
+     * @throws IOException            if an error occurred while writing
+     * @throws JSONConverterException if an element cannot be converted
+     */
+    public void write(Instance i, OutputStream out) throws IOException, JSONConverterException {
+        BinaryOutput bo = header(out, INSTANCE);
+        writeModel(i.getModel(), bo);
+        bo.writeVarInt(i.getSatConstraints().size());
+        for (SatConstraint c : i.getSatConstraints()) {
+            writeObject(c, bo);
+        }
+        writeObject(i.getOptConstraint(), bo);
+        bo.flush();
+    }
+
+    /**
+     * Write a reconfiguration plan.
+     *
+     * @param p   the plan to write
+     * @param out the stream to write on. It is flushed but not closed
+     * @throws IOException            if an error occurred while writing
+     * @throws JSONConverterException if an element cannot be converted
+     */
+    public void write(ReconfigurationPlan p, OutputStream out) throws IOException, JSONConverterException {
+        BinaryOutput bo = header(out, PLAN);
+        writeModel(p.getOrigin(), bo);
+        bo.writeVarInt(p.getSize());
+        for (Action a : p) {
+            bo.writeValue(pc.actionToJSON(a));
+        }
+        bo.flush();
+    }
+
+    /**
+     * Read a model.
+     *
+     * @param in the stream to read. It is not closed
+     * @return the resulting model
+     * @throws IOException            if an error occurred while reading
+     * @throws JSONConverterException if the content is not valid
+     */
+    public Model readModel(InputStream in) throws IOException, JSONConverterException {
+        return readModel(header(in, MODEL));
+    }
+
+    /**
+     * Read an instance.
+     *
+     * @param in the stream to read. It is not closed
+     * @return the resulting instance
+     * @throws IOException            if an error occurred while reading
+     * @throws JSONConverterException if the content is not valid
+     */
+    public Instance readInstance(InputStream in) throws IOException, JSONConverterException {
+        BinaryInput bi = header(in, INSTANCE);
+        Model mo = readModel(bi);
+        int nb = bi.readVarInt();
+        List<SatConstraint> cstrs = new ArrayList<>(nb);
+        for (int i = 0; i < nb; i++) {
+            cstrs.add((SatConstraint) readConstraint(mo, bi));
+        }
+        OptConstraint o = (OptConstraint) readConstraint(mo, bi);
+        return new Instance(mo, cstrs, o);
+    }
+
+    /**
+     * Read a reconfiguration plan.
+     *
+     * @param in the stream to read. It is not closed
+     * @return the resulting plan
+     * @throws IOException            if an error occurred while reading
+     * @throws JSONConverterException if the content is not valid
+     */
+    public ReconfigurationPlan readReconfigurationPlan(InputStream in) throws IOException, JSONConverterException {
+        BinaryInput bi = header(in, PLAN);
+        Model mo = readModel(bi);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        int nb = bi.readVarInt();
+        for (int i = 0; i < nb; i++) {
+            p.add(pc.actionFromJSON(mo, (JSONObject) bi.readValue()));
+        }
+        return p;
+    }
+
+    private static BinaryOutput header(OutputStream out, byte kind) throws IOException {
+        BinaryOutput bo = new BinaryOutput(new BufferedOutputStream(out));
+        for (byte b : MAGIC) {
+            bo.writeByte(b);
+        }
+        bo.writeByte(VERSION);
+        bo.writeByte(kind);
+        return bo;
+    }
+
+    private static BinaryInput header(InputStream in, byte kind) throws IOException, JSONConverterException {
+        //Buffering reads ahead of the document, so the stream cannot be reused afterward
+        BinaryInput bi = new BinaryInput(new BufferedInputStream(in));
+        for (byte b : MAGIC) {
+            if (bi.readByte() != b) {
+                throw new JSONConverterException("Not a binary btrplace document");
+            }
+        }
+        int v = bi.readByte();
+        if (v != VERSION) {
+            throw new JSONConverterException("Unsupported format version '" + v + "'");
+        }
+        byte k = bi.readByte();
+        if (k != kind) {
+            throw new JSONConverterException("Unexpected document kind '" + k + "'. Expected '" + kind + "'");
+        }
+        return bi;
+    }
+
+    private void writeModel(Model mo, BinaryOutput out) throws IOException, JSONConverterException {
+        Mapping m = mo.getMapping();
+        out.writeElements(m.getOfflineNodes());
+        Set<Node> online = m.getOnlineNodes();
+        out.writeElements(online);
+        //The hosted VMs, following the order of the online nodes identifiers
+        List<Node> ons = new ArrayList<>(online);
+        ons.sort((a, b) -> Integer.compare(a.id(), b.id()));
+        for (Node n : ons) {
+            out.writeElements(m.getRunningVMs(n));
+            out.writeElements(m.getSleepingVMs(n));
+        }
+        out.writeElements(m.getReadyVMs());
+
+        Attributes attrs = mo.getAttributes();
+        Set<Element> defined = attrs.getDefined();
+        out.writeVarInt(defined.size());
+        for (Element e : defined) {
+            out.writeByte(e instanceof VM ? VM_ATTRS : NODE_ATTRS);
+            out.writeVarInt(e.id());
+            Set<String> keys = attrs.getKeys(e);
+            out.writeVarInt(keys.size());
+            for (String k : keys) {
+                out.writeString(k);
+                out.writeValue(attrs.get(e, k));
+            }
+        }
+
+        out.writeVarInt(mo.getViews().size());
+        for (ModelView v : mo.getViews()) {
+            writeObject(v, out);
+        }
+    }
+
+    private Model readModel(BinaryInput in) throws IOException, JSONConverterException {
+        Model mo = new DefaultModel();
+        Mapping m = mo.getMapping();
+        TIntArrayList ids = new TIntArrayList();
+        in.readElements(ids::add);
+        for (int i = 0; i < ids.size(); i++) {
+            m.addOfflineNode(newNode(mo, ids.get(i)));
+        }
+        ids.resetQuick();
+        in.readElements(ids::add);
+        for (int i = 0; i < ids.size(); i++) {
+            m.addOnlineNode(newNode(mo, ids.get(i)));
+        }
+        TIntArrayList vms = new TIntArrayList();
+        for (int i = 0; i < ids.size(); i++) {
+            Node n = new Node(ids.get(i));
+            vms.resetQuick();
+            in.readElements(vms::add);
+            for (int j = 0; j < vms.size(); j++) {
+                m.addRunningVM(newVM(mo, vms.get(j)), n);
+            }
+            vms.resetQuick();
+            in.readElements(vms::add);
+            for (int j = 0; j < vms.size(); j++) {
+                m.addSleepingVM(newVM(mo, vms.get(j)), n);
+            }
+        }
+        vms.resetQuick();
+        in.readElements(vms::add);
+        for (int j = 0; j < vms.size(); j++) {
+            m.addReadyVM(newVM(mo, vms.get(j)));
+        }
+
+        Attributes attrs = mo.getAttributes();
+        int nb = in.readVarInt();
+        for (int i = 0; i < nb; i++) {
+            byte kind = in.readByte();
+            int id = in.readVarInt();
+            Element e = kind == VM_ATTRS ? new VM(id) : new Node(id);
+            int nbKeys = in.readVarInt();
+            for (int k = 0; k < nbKeys; k++) {
+                putAttribute(attrs, e, in.readString(), in.readValue());
+            }
+        }
+
+        nb = in.readVarInt();
+        for (int i = 0; i < nb; i++) {
+            mo.attach(readView(mo, in));
+        }
+        return mo;
+    }
+
+    private static void putAttribute(Attributes attrs, Element e, String k, Object v) throws JSONConverterException {
+        if (v instanceof Boolean) {
+            attrs.put(e, k, (Boolean) v);
+        } else if (v instanceof Integer) {
+            attrs.put(e, k, (Integer) v);
+        } else if (v instanceof Double) {
+            attrs.put(e, k, (Double) v);
+        } else if (v instanceof String) {
+            attrs.put(e, k, (String) v);
+        } else {
+            throw new JSONConverterException("Unsupported value for attribute '" + k + "': " + v);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeObject(Object o, BinaryOutput out) throws IOException, JSONConverterException {
+        BinaryCodec<Object> c = (BinaryCodec<Object>) java2bin.get(o.getClass());
+        if (c != null) {
+            out.writeString(c.getId());
+            c.write(o, out);
+            return;
+        }
+        out.writeString(JSON_CODEC);
+        if (o instanceof ModelView) {
+            out.writeValue(vc.toJSON((ModelView) o));
+        } else {
+            out.writeValue(cc.toJSON((Constraint) o));
+        }
+    }
+
+    private ModelView readView(Model mo, BinaryInput in) throws IOException, JSONConverterException {
+        String id = in.readString();
+        if (JSON_CODEC.equals(id)) {
+            return vc.fromJSON(mo, (JSONObject) in.readValue());
+        }
+        return (ModelView) codec(id).read(mo, in);
+    }
+
+    private Constraint readConstraint(Model mo, BinaryInput in) throws IOException, JSONConverterException {
+        String id = in.readString();
+        if (JSON_CODEC.equals(id)) {
+            return cc.fromJSON(mo, (JSONObject) in.readValue());
+        }
+        return (Constraint) codec(id).read(mo, in);
+    }
+
+    private BinaryCodec<?> codec(String id) throws JSONConverterException {
+        BinaryCodec<?> c = bin2java.get(id);
+        if (c == null) {
+            throw new JSONConverterException("No codec available for identifier '" + id + "'");
+        }
+        return c;
+    }
+
+    private static Node newNode(Model mo, int id) throws JSONConverterException {
+        Node n = mo.newNode(id);
+        if (n == null) {
+            throw JSONConverterException.nodeAlreadyDeclared(id);
+        }
+        return n;
+    }
+
+    private static VM newVM(Model mo, int id) throws JSONConverterException {
+        VM v = mo.newVM(id);
+        if (v == null) {
+            throw JSONConverterException.vmAlreadyDeclared(id);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.binary;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.btrplace.json.JSONConverterException;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A stream to read values written by a {@link BinaryOutput}.
+ *
+ * @author Fabien Hermenier
+ */
+public class BinaryInput {
+
+    private final DataInputStream in;
+
+    private final List<String> dictionary = new ArrayList<>();
+
+    /**
+     * Make a new stream.
+     *
+     * @param i the underlying stream
+     */
+    public BinaryInput(InputStream i) {
+        in = new DataInputStream(i);
+    }
+
+    /**
+     * Read a byte.
+     *
+     * @return the byte
+     * @throws IOException if an error occurred while reading
+     */
+    public byte readByte() throws IOException {
+        return in.readByte();
+    }
+
+    /**
+     * Read a positive variable-length integer.
+     *
+     * @return the value
+     * @throws IOException if an error occurred while reading
+     */
+    public int readVarInt() throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * Read a zigzag-encoded variable-length integer.
+     *
+     * @return the value
+     * @throws IOException if an error occurred while reading
+     */
+    public int readInt() throws IOException {
+        int z = readVarInt();
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    /**
+     * Read a zigzag-encoded variable-length long.
+     *
+     * @return the value
+     * @throws IOException if an error occurred while reading
+     */
+    public long readLong() throws IOException {
+        long z = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            z |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (z >>> 1) ^ -(z & 1);
+            }
+        }
+        throw new IOException("Malformed variable-length long");
+    }
+
+    /**
+     * Read a double.
+     *
+     * @return the value
+     * @throws IOException if an error occurred while reading
+     */
+    public double readDouble() throws IOException {
+        return in.readDouble();
+    }
+
+    /**
+     * Read a dictionary-encoded string.
+     *
+     * @return the string
+     * @throws IOException if an error occurred while reading
+     */
+    public String readString() throws IOException {
+        int idx = readVarInt();
+        if (idx == 0) {
+            byte[] b = new byte[readVarInt()];
+            in.readFully(b);
+            String s = new String(b, UTF_8);
+            dictionary.add(s);
+            return s;
+        }
+        if (idx > dictionary.size()) {
+            throw new IOException("Unknown string reference " + idx);
+        }
+        return dictionary.get(idx - 1);
+    }
+
+    /**
+     * Read a set of element identifiers written by {@link BinaryOutput#writeElements(java.util.Collection)}.
+     *
+     * @param to the consumer receiving each identifier, in increasing order
+     * @throws IOException if an error occurred while reading
+     */
+    public void readElements(IntConsumer to) throws IOException {
+        int nbRuns = readVarInt();
+        int prev = 0;
+        for (int r = 0; r < nbRuns; r++) {
+            int start = prev + readVarInt();
+            int len = readVarInt();
+            for (int id = start; id < start + len; id++) {
+                to.accept(id);
+            }
+            prev = start + len;
+        }
+    }
+
+    /**
+     * Read a JSON value written by {@link BinaryOutput#writeValue(Object)}.
+     *
+     * @return the value
+     * @throws IOException            if an error occurred while reading
+     * @throws JSONConverterException if the value is malformed
+     */
+    public Object readValue() throws IOException, JSONConverterException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case BinaryOutput.NULL:
+                return null;
+            case BinaryOutput.TRUE:
+                return Boolean.TRUE;
+            case BinaryOutput.FALSE:
+                return Boolean.FALSE;
+            case BinaryOutput.INT:
+                return readInt();
+            case BinaryOutput.LONG:
+                return readLong();
+            case BinaryOutput.DOUBLE:
+                return readDouble();
+            case BinaryOutput.STRING:
+                return readString();
+            case BinaryOutput.OBJECT:
+                int nb = readVarInt();
+                JSONObject o = new JSONObject();
+                for (int i = 0; i < nb; i++) {
+                    String k = readString();
+                    o.put(k, readValue());
+                }
+                return o;
+            case BinaryOutput.ARRAY:
+            case BinaryOutput.INT_ARRAY:
+                nb = readVarInt();
+                JSONArray a = new JSONArray();
+                for (int i = 0; i < nb; i++) {
+                    a.add(tag == BinaryOutput.INT_ARRAY ? readInt() : readValue());
+                }
+                return a;
+            default:
+                throw new JSONConverterException("Unknown value type '" + tag + "'");
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.binary;
+
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.btrplace.model.Element;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A stream to write values in the compact binary format.
+ * <p>
+ * Integers are written as variable-length integers, strings are dictionary-encoded
+ * so a string is written once per stream and then referred by its index, and sets of elements are
+ * written as runs of consecutive identifiers.
+ *
+ * @author Fabien Hermenier
+ * @see BinaryInput
+ */
+public class BinaryOutput {
+
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte INT = 3;
+    static final byte LONG = 4;
+    static final byte DOUBLE = 5;
+    static final byte STRING = 6;
+    static final byte OBJECT = 7;
+    static final byte ARRAY = 8;
+    static final byte INT_ARRAY = 9;
+
+    private final DataOutputStream out;
+
+    private final TObjectIntHashMap<String> dictionary = new TObjectIntHashMap<>(64, 0.5f, -1);
+
+    /**
+     * Make a new stream.
+     *
+     * @param o the underlying stream
+     */
+    public BinaryOutput(OutputStream o) {
+        out = new DataOutputStream(o);
+    }
+
+    /**
+     * Write a byte.
+     *
+     * @param b the byte to write
+     * @throws IOException if an error occurred while writing
+     */
+    public void writeByte(int b) throws IOException {
+        out.writeByte(b);
+    }
+
+    /**
+     * Write a positive integer using a variable number of bytes.
+     *
+     * @param v the value. Must be positive
+     * @throws IOException if an error occurred while writing
+     */
+    public void writeVarInt(int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    /**
+     * Write an integer using a variable number of bytes.
+     * Small negative values remain short thanks to a zigzag encoding.
+     *
+     * @param v the value
+     * @throws IOException if an error occurred while writing
+     */
+    public void writeInt(int v) throws IOException {
+        writeVarInt((v << 1) ^ (v >> 31));
+    }
+
+    /**
+     * Write a long using a variable number of bytes.
+     *
+     * @param v the value
+     * @throws IOException if an error occurred while writing
+     */
+    public void writeLong(long v) throws IOException {
+        long z = (v << 1) ^ (v >> 63);
+        while ((z & ~0x7FL) != 0) {
+            out.writeByte((int) ((z & 0x7F) | 0x80));
+            z >>>= 7;
+        }
+        out.writeByte((int) z);
+    }
+
+    /**
+     * Write a double.
+     *
+     * @param d the value
+     * @throws IOException if an error occurred while writing
+     */
+    public void writeDouble(double d) throws IOException {
+        out.writeDouble(d);
+    }
+
+    /**
+     * Write a dictionary-encoded string.
+     * The string is written in full the first time only.
+     *
+     * @param s the string to write
+     * @throws IOException if an error occurred while writing
+     */
+    public void writeString(String s) throws IOException {
+        int idx = dictionary.get(s);
+        if (idx >= 0) {
+            writeVarInt(idx + 1);
+            return;
+        }
+        dictionary.put(s, dictionary.size());
+        writeVarInt(0);
+        byte[] b = s.getBytes(UTF_8);
+        writeVarInt(b.length);
+        out.write(b);
+    }
+
+    /**
+     * Write a set of elements as runs of consecutive identifiers.
+     * The order of the elements is not preserved.
+     *
+     * @param elems the elements to write
+     * @throws IOException if an error occurred while writing
+     */
+    public void writeElements(Collection<? extends Element> elems) throws IOException {
+        int[] ids = new int[elems.size()];
+        int i = 0;
+        for (Element e : elems) {
+            ids[i++] = e.id();
+        }
+        Arrays.sort(ids);
+        int nbRuns = 0;
+        for (i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1] + 1) {
+                nbRuns++;
+            }
+        }
+        writeVarInt(nbRuns);
+        int prev = 0;
+        i = 0;
+        while (i < ids.length) {
+            int start = i;
+            while (i + 1 < ids.length && ids[i + 1] == ids[i] + 1) {
+                i++;
+            }
+            //The gap with the previous run then the run length
+            writeVarInt(ids[start] - prev);
+            writeVarInt(i - start + 1);
+            prev = ids[i] + 1;
+            i++;
+        }
+    }
+
+    /**
+     * Write a JSON value, as produced by the JSON converters.
+     *
+     * @param o the value to write
+     * @throws IOException if an error occurred while writing
+     */
+    public void writeValue(Object o) throws IOException {
+        if (o == null) {
+            out.writeByte(NULL);
+        } else if (o instanceof Boolean) {
+            out.writeByte((Boolean) o ? TRUE : FALSE);
+        } else if (o instanceof Integer || o instanceof Short || o instanceof Byte) {
+            out.writeByte(INT);
+            writeInt(((Number) o).intValue());
+        } else if (o instanceof Long) {
+            out.writeByte(LONG);
+            writeLong((Long) o);
+        } else if (o instanceof Number) {
+            out.writeByte(DOUBLE);
+            writeDouble(((Number) o).doubleValue());
+        } else if (o instanceof Map) {
+            out.writeByte(OBJECT);
+            Map<?, ?> m = (Map<?, ?>) o;
+            writeVarInt(m.size());
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                writeString(e.getKey().toString());
+                writeValue(e.getValue());
+            }
+        } else if (o instanceof List) {
+            writeList((List<?>) o);
+        } else {
+            out.writeByte(STRING);
+            writeString(o.toString());
+        }
+    }
+
+    private void writeList(List<?> l) throws IOException {
+        boolean ints = true;
+        for (Object x : l) {
+            if (!(x instanceof Integer)) {
+                ints = false;
+                break;
+            }
+        }
+        out.writeByte(ints ? INT_ARRAY : ARRAY);
+        writeVarInt(l.size());
+        for (Object x : l) {
+            if (ints) {
+                writeInt((Integer) x);
+            } else {
+                writeValue(x);
+            }
+        }
+    }
+
+    /**
+     * Flush the underlying stream.
+     *
+     * @throws IOException if an error occurred while writing
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.binary;
+
+import gnu.trove.list.array.TIntArrayList;
+import org.btrplace.json.JSONConverterException;
+import org.btrplace.model.Element;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.view.ShareableResource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.btrplace.json.JSONs.getNode;
+import static org.btrplace.json.JSONs.getVM;
+
+/**
+ * A binary codec for {@link ShareableResource}.
+ * The defined VMs and nodes are written as runs of identifiers followed by their values.
+ *
+ * @author Fabien Hermenier
+ */
+public class ShareableResourceCodec implements BinaryCodec<ShareableResource> {
+
+    @Override
+    public Class<ShareableResource> getSupportedClass() {
+        return ShareableResource.class;
+    }
+
+    @Override
+    public String getId() {
+        return "shareableResource";
+    }
+
+    @Override
+    public void write(ShareableResource rc, BinaryOutput out) throws IOException {
+        out.writeString(rc.getResourceIdentifier());
+        out.writeInt(rc.getDefaultCapacity());
+        out.writeInt(rc.getDefaultConsumption());
+
+        List<VM> vms = sorted(rc.getDefinedVMs());
+        out.writeElements(vms);
+        for (int c : rc.getConsumptions(vms)) {
+            out.writeInt(c);
+        }
+
+        List<Node> nodes = sorted(rc.getDefinedNodes());
+        out.writeElements(nodes);
+        for (int c : rc.getCapacities(nodes)) {
+            out.writeInt(c);
+        }
+    }
+
+    private static <E extends Element> List<E> sorted(Collection<E> s) {
+        List<E> l = new ArrayList<>(s);
+        l.sort(Comparator.comparingInt(Element::id));
+        return l;
+    }
+
+    @Override
+    public ShareableResource read(Model mo, BinaryInput in) throws IOException, JSONConverterException {
+        String id = in.readString();
+        int defCapacity = in.readInt();
+        int defConsumption = in.readInt();
+        ShareableResource rc = new ShareableResource(id, defCapacity, defConsumption);
+
+        TIntArrayList ids = new TIntArrayList();
+        in.readElements(ids::add);
+        List<VM> vms = new ArrayList<>(ids.size());
+        int[] values = new int[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            vms.add(getVM(mo, ids.get(i)));
+            values[i] = in.readInt();
+        }
+        rc.setConsumptions(vms, values);
+
+        ids.resetQuick();
+        in.readElements(ids::add);
+        List<Node> nodes = new ArrayList<>(ids.size());
+        values = new int[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            nodes.add(getNode(mo, ids.get(i)));
+            values[i] = in.readInt();
+        }
+        rc.setCapacities(nodes, values);
+        return rc;
+    }
+}
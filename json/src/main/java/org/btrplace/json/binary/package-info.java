@@ -0,0 +1,10 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+/**
+ * A compact binary format for models, instances and plans.
+ */
+package org.btrplace.json.binary;
@@ -27,17 +27,17 @@ public class InstanceConverter implements JSONObjectConverter<Instance> {
     /**
      * Key that indicates the model.
      */
-    private static final String MODEL_LABEL = "model";
+    public static final String MODEL_LABEL = "model";
 
     /**
      * Key that indicates the constraint list.
      */
-    private static final String CONSTRAINTS_LABEL = "constraints";
+    public static final String CONSTRAINTS_LABEL = "constraints";
 
     /**
      * Key that indicates the objective.
      */
-    private static final String OBJ_LABEL = "objective";
+    public static final String OBJ_LABEL = "objective";
 
     private final ModelConverter moc;
 
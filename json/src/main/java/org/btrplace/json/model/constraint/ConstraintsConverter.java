@@ -24,6 +24,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 import static org.btrplace.json.JSONs.checkKeys;
 
@@ -37,12 +42,65 @@ public class ConstraintsConverter {
   private final Map<Class<? extends Constraint>, ConstraintConverter<? extends Constraint>> java2json;
   private final Map<String, ConstraintConverter<? extends Constraint>> json2java;
 
+  /**
+   * The minimum number of constraints decoded by a worker.
+   */
+  private static final int MIN_CHUNK_SIZE = 512;
+
+  private int workers;
+
+  private Executor executor;
+
   /**
    * Make a new empty converter.
    */
   public ConstraintsConverter() {
     java2json = new HashMap<>();
     json2java = new HashMap<>();
+    workers = 1;
+  }
+
+  /**
+   * Get the number of threads used to decode a list of constraints.
+   *
+   * @return a positive number
+   */
+  public int getWorkersCount() {
+    return workers;
+  }
+
+  /**
+   * Set the number of threads used to decode a list of constraints.
+   * With more than one worker, large lists are split into chunks that are decoded concurrently.
+   * The registered converters must then be thread-safe, which is the case of the default ones.
+   *
+   * @param nb a positive number
+   */
+  public void setWorkersCount(int nb) {
+    if (nb < 1) {
+      throw new IllegalArgumentException("The number of workers must be positive");
+    }
+    workers = nb;
+  }
+
+  /**
+   * Get the executor that decodes the chunks of a list of constraints.
+   *
+   * @return the executor. {@code null} if a thread pool is made for each decoded list
+   */
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Set the executor that decodes the chunks of a list of constraints.
+   * Sharing an executor avoids making a thread pool each time a list is decoded concurrently.
+   * The executor is not shut down by the converter.
+   *
+   * @param exe the executor to use. {@code null} to make a thread pool for each decoded list
+   */
+  public void setExecutor(Executor exe) {
+    executor = exe;
   }
 
   /**
@@ -151,14 +209,65 @@ public class ConstraintsConverter {
 
     /**
      * Convert a list of json-encoded sat-constraints.
+     * With multiple workers, a large list is split into chunks. The first chunk is decoded by the current thread,
+     * the other ones by the executor, if any.
      * @param mo the model to rely on
      * @param in the constraints to decode
      * @return the constraint list. Might be empty
      * @throws JSONConverterException if the conversion failed
      */
     public List<SatConstraint> listFromJSON(Model mo, JSONArray in) throws JSONConverterException {
-        List<SatConstraint> l = new ArrayList<>(in.size());
-        for (Object o : in) {
+        int nb = Math.min(workers, in.size() / MIN_CHUNK_SIZE);
+        if (nb <= 1) {
+            return listFromJSON(mo, in, 0, in.size());
+        }
+        int chunk = (in.size() + nb - 1) / nb;
+        ExecutorService own = executor == null ? Executors.newFixedThreadPool(nb - 1) : null;
+        Executor exe = own == null ? executor : own;
+        List<FutureTask<List<SatConstraint>>> tasks = new ArrayList<>(nb - 1);
+        try {
+            //The first chunk is decoded by the current thread, the other ones by the executor
+            for (int from = chunk; from < in.size(); from += chunk) {
+                int start = from;
+                int end = Math.min(in.size(), from + chunk);
+                FutureTask<List<SatConstraint>> t = new FutureTask<>(() -> listFromJSON(mo, in, start, end));
+                tasks.add(t);
+                exe.execute(t);
+            }
+            List<SatConstraint> l = new ArrayList<>(in.size());
+            l.addAll(listFromJSON(mo, in, 0, Math.min(in.size(), chunk)));
+            //The chunks are collected in order so the first error is the one of a sequential decoding.
+            //A chunk the executor did not start yet is decoded by the current thread
+            for (FutureTask<List<SatConstraint>> t : tasks) {
+                t.run();
+                l.addAll(t.get());
+            }
+            return l;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JSONConverterException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof JSONConverterException) {
+                throw (JSONConverterException) ex.getCause();
+            }
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new JSONConverterException(ex.getCause());
+        } finally {
+            for (FutureTask<List<SatConstraint>> t : tasks) {
+                t.cancel(true);
+            }
+            if (own != null) {
+                own.shutdownNow();
+            }
+        }
+    }
+
+    private List<SatConstraint> listFromJSON(Model mo, JSONArray in, int from, int to) throws JSONConverterException {
+        List<SatConstraint> l = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Object o = in.get(i);
             if (!(o instanceof JSONObject)) {
                 throw new JSONConverterException("Expected an array of JSONObject but got an array of " + o.getClass().getName());
             }
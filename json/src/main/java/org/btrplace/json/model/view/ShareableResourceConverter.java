@@ -13,6 +13,8 @@ import org.btrplace.model.Node;
 import org.btrplace.model.VM;
 import org.btrplace.model.view.ShareableResource;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -104,12 +106,14 @@ public class ShareableResourceConverter implements ModelViewConverter<ShareableR
         if (o != null) {
             try {
                 JSONObject values = (JSONObject) o;
+                List<VM> vms = new ArrayList<>(values.size());
+                int[] cons = new int[values.size()];
                 for (Map.Entry<String, Object> e : values.entrySet()) {
-                    String k = e.getKey();
-                    VM u = getVM(mo, Integer.parseInt(k));
-                    int v = Integer.parseInt(e.getValue().toString());
-                    rc.setConsumption(u, v);
+                    VM u = getVM(mo, Integer.parseInt(e.getKey()));
+                    cons[vms.size()] = Integer.parseInt(e.getValue().toString());
+                    vms.add(u);
                 }
+                rc.setConsumptions(vms, cons);
             } catch (ClassCastException cc) {
                 throw new JSONConverterException("Unable to read the VMs at key 'vms'. Expect a JSONObject but got a '" + o.getClass().getName() + "'", cc);
             }
@@ -120,12 +124,14 @@ public class ShareableResourceConverter implements ModelViewConverter<ShareableR
         if (o != null) {
             try {
                 JSONObject values = (JSONObject) o;
+                List<Node> nodes = new ArrayList<>(values.size());
+                int[] capas = new int[values.size()];
                 for (Map.Entry<String, Object> e : values.entrySet()) {
-                    String k = e.getKey();
-                    Node u = getNode(mo, Integer.parseInt(k));
-                    int v = Integer.parseInt(e.getValue().toString());
-                    rc.setCapacity(u, v);
+                    Node u = getNode(mo, Integer.parseInt(e.getKey()));
+                    capas[nodes.size()] = Integer.parseInt(e.getValue().toString());
+                    nodes.add(u);
                 }
+                rc.setCapacities(nodes, capas);
             } catch (ClassCastException cc) {
                 throw new JSONConverterException("Unable to read the nodes at key '" + NODES_LABEL + "'. Expect a JSONObject but got a '" + o.getClass().getName() + "'", cc);
             }
@@ -0,0 +1,354 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.stream;
+
+import net.minidev.json.parser.JSONParser;
+import net.minidev.json.parser.ParseException;
+import org.btrplace.json.JSONConverterException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.BitSet;
+
+/**
+ * A pull tokenizer for JSON documents.
+ * Objects and arrays are browsed entry by entry while any value can be
+ * materialised on demand as a json-smart object.
+ *
+ * @author Fabien Hermenier
+ */
+class JSONLexer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+
+    private final char[] buf = new char[BUFFER_SIZE];
+
+    private int pos = 0;
+
+    private int len = 0;
+
+    /**
+     * The number of characters consumed before the current buffer.
+     */
+    private long offset = 0;
+
+    /**
+     * The nesting level of the containers being browsed.
+     */
+    private int depth = 0;
+
+    /**
+     * Tell for each nesting level if the first entry is still expected.
+     */
+    private final BitSet first = new BitSet();
+
+    private final StringBuilder capture = new StringBuilder();
+
+    /**
+     * Make a new lexer.
+     *
+     * @param r the stream to read
+     */
+    JSONLexer(Reader r) {
+        in = r;
+    }
+
+    private int read() throws JSONConverterException {
+        if (pos == len) {
+            try {
+                offset += len;
+                len = in.read(buf, 0, buf.length);
+            } catch (IOException ex) {
+                throw new JSONConverterException(ex);
+            }
+            pos = 0;
+            if (len <= 0) {
+                len = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+
+    /**
+     * Get the next meaningful character without consuming it.
+     *
+     * @return the character. {@code -1} at the end of the stream
+     * @throws JSONConverterException if the stream cannot be read
+     */
+    int peek() throws JSONConverterException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return c;
+            }
+            if (!Character.isWhitespace(c)) {
+                pos--;
+                return c;
+            }
+        }
+    }
+
+    private JSONConverterException error(String msg) {
+        return new JSONConverterException(msg + " at position " + (offset + pos));
+    }
+
+    private void expect(char c) throws JSONConverterException {
+        int x = peek();
+        if (x != c) {
+            throw error("Expected '" + c + "' but got " + (x == -1 ? "the end of the stream" : "'" + (char) x + "'"));
+        }
+        pos++;
+    }
+
+    /**
+     * Enter an object.
+     *
+     * @throws JSONConverterException if the next value is not an object
+     */
+    void beginObject() throws JSONConverterException {
+        expect('{');
+        first.set(++depth);
+    }
+
+    /**
+     * Get the key of the next entry in the current object.
+     * The associated value must be consumed before the next call.
+     *
+     * @return the key. {@code null} once the object is closed
+     * @throws JSONConverterException if the stream is not valid JSON
+     */
+    String nextName() throws JSONConverterException {
+        if (peek() == '}') {
+            pos++;
+            depth--;
+            return null;
+        }
+        if (!first.get(depth)) {
+            expect(',');
+        }
+        first.clear(depth);
+        String k = nextString();
+        expect(':');
+        return k;
+    }
+
+    /**
+     * Enter an array.
+     *
+     * @throws JSONConverterException if the next value is not an array
+     */
+    void beginArray() throws JSONConverterException {
+        expect('[');
+        first.set(++depth);
+    }
+
+    /**
+     * Check if the current array has a next element.
+     * The element must be consumed before the next call.
+     *
+     * @return {@code false} once the array is closed
+     * @throws JSONConverterException if the stream is not valid JSON
+     */
+    boolean hasNextElement() throws JSONConverterException {
+        if (peek() == ']') {
+            pos++;
+            depth--;
+            return false;
+        }
+        if (!first.get(depth)) {
+            expect(',');
+        }
+        first.clear(depth);
+        return true;
+    }
+
+    /**
+     * Read a string value.
+     *
+     * @return the unescaped string
+     * @throws JSONConverterException if the next value is not a string
+     */
+    String nextString() throws JSONConverterException {
+        expect('"');
+        StringBuilder b = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw error("Unterminated string");
+            }
+            if (c == '"') {
+                return b.toString();
+            }
+            if (c == '\\') {
+                b.append(unescape());
+            } else {
+                b.append((char) c);
+            }
+        }
+    }
+
+    private char unescape() throws JSONConverterException {
+        int c = read();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int v = 0;
+                for (int i = 0; i < 4; i++) {
+                    int d = Character.digit(read(), 16);
+                    if (d < 0) {
+                        throw error("Invalid unicode escape sequence");
+                    }
+                    v = v * 16 + d;
+                }
+                return (char) v;
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            default:
+                throw error("Invalid escape sequence");
+        }
+    }
+
+    /**
+     * Read an integer value.
+     *
+     * @return the integer
+     * @throws JSONConverterException if the next value is not an integer
+     */
+    int nextInt() throws JSONConverterException {
+        peek();
+        int start = capture.length();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                break;
+            }
+            if (c != '-' && (c < '0' || c > '9')) {
+                pos--;
+                break;
+            }
+            capture.append((char) c);
+        }
+        String s = capture.substring(start);
+        capture.setLength(start);
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException ex) {
+            throw error("Expected an integer but got '" + s + "'");
+        }
+    }
+
+    /**
+     * Read the next value entirely and convert it using json-smart.
+     * This should only be used for values of a reasonable size.
+     *
+     * @return the resulting object
+     * @throws JSONConverterException if the value is not valid JSON
+     */
+    Object nextValue() throws JSONConverterException {
+        capture.setLength(0);
+        peek();
+        copyValue();
+        try {
+            return new JSONParser(JSONParser.MODE_RFC4627).parse(capture.toString());
+        } catch (ParseException ex) {
+            throw new JSONConverterException(ex);
+        } finally {
+            capture.setLength(0);
+        }
+    }
+
+    /**
+     * Copy the raw text of the next value into the capture buffer.
+     */
+    private void copyValue() throws JSONConverterException {
+        int level = 0;
+        boolean scalar = true;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (level == 0 && scalar && capture.length() > 0) {
+                    return;
+                }
+                throw error("Unexpected end of the stream");
+            }
+            if (c == '"') {
+                capture.append('"');
+                copyString();
+                if (level == 0) {
+                    return;
+                }
+            } else if (c == '{' || c == '[') {
+                level++;
+                scalar = false;
+                capture.append((char) c);
+            } else if (c == '}' || c == ']') {
+                if (level == 0) {
+                    //The end of the enclosing container
+                    pos--;
+                    return;
+                }
+                level--;
+                capture.append((char) c);
+                if (level == 0) {
+                    return;
+                }
+            } else if (c == ',' && level == 0) {
+                pos--;
+                return;
+            } else {
+                capture.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Copy the rest of a string, including the closing quote.
+     */
+    private void copyString() throws JSONConverterException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw error("Unterminated string");
+            }
+            capture.append((char) c);
+            if (c == '\\') {
+                int x = read();
+                if (x == -1) {
+                    throw error("Unterminated string");
+                }
+                capture.append((char) x);
+            } else if (c == '"') {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Check the stream has been consumed entirely.
+     *
+     * @throws JSONConverterException if there is remaining content
+     */
+    void end() throws JSONConverterException {
+        if (peek() != -1) {
+            throw error("Unexpected content after the document");
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.stream;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.model.AttributesConverter;
+import org.btrplace.json.model.InstanceConverter;
+import org.btrplace.json.model.ModelConverter;
+import org.btrplace.json.model.constraint.ConstraintsConverter;
+import org.btrplace.json.model.view.ModelViewsConverter;
+import org.btrplace.json.plan.ReconfigurationPlanConverter;
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Constraint;
+import org.btrplace.model.constraint.OptConstraint;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlan;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An event-based reader for instances and reconfiguration plans.
+ * <p>
+ * The mapping is built while the tokens are read, without materialising its JSON tree.
+ * The views, the constraints and the actions are materialised one at a time
+ * and converted using the converters of the {@link InstanceConverter} or the
+ * {@link ReconfigurationPlanConverter}. The peak memory is then close to the size of the resulting model.
+ * When the constraints converter relies on multiple workers, the array of constraints is materialised
+ * at once to be decoded concurrently.
+ * <p>
+ * The documents are the ones produced by the converters. When the elements of a model
+ * appear after content that refers to them, this content is buffered until the model is built.
+ *
+ * @author Fabien Hermenier
+ */
+public class JSONStreamReader {
+
+    private final ModelConverter moc;
+
+    private final ConstraintsConverter cc;
+
+    private final ReconfigurationPlanConverter pc;
+
+    /**
+     * Make a new reader that relies on the default converters.
+     */
+    public JSONStreamReader() {
+        this(new InstanceConverter(), ReconfigurationPlanConverter.newBundle());
+    }
+
+    /**
+     * Make a new reader.
+     *
+     * @param ic the converter providing the model and the constraint converters
+     * @param pc the converter for the actions and their events
+     */
+    public JSONStreamReader(InstanceConverter ic, ReconfigurationPlanConverter pc) {
+        moc = ic.getModelConverter();
+        cc = ic.getConstraintsConverter();
+        this.pc = pc;
+    }
+
+    /**
+     * Read an instance.
+     *
+     * @param r the stream to read. It is not closed
+     * @return the resulting instance
+     * @throws JSONConverterException if the stream cannot be parsed
+     */
+    public Instance readInstance(Reader r) throws JSONConverterException {
+        JSONLexer lex = new JSONLexer(r);
+        Model mo = null;
+        List<SatConstraint> cstrs = null;
+        OptConstraint obj = null;
+        //Content read before the model
+        JSONArray pendingCstrs = null;
+        JSONObject pendingObj = null;
+
+        lex.beginObject();
+        for (String k = lex.nextName(); k != null; k = lex.nextName()) {
+            if (InstanceConverter.MODEL_LABEL.equals(k)) {
+                mo = readModel(lex);
+            } else if (InstanceConverter.CONSTRAINTS_LABEL.equals(k)) {
+                if (mo == null) {
+                    pendingCstrs = (JSONArray) lex.nextValue();
+                } else {
+                    cstrs = readConstraints(lex, mo);
+                }
+            } else if (InstanceConverter.OBJ_LABEL.equals(k)) {
+                if (mo == null) {
+                    pendingObj = (JSONObject) lex.nextValue();
+                } else {
+                    obj = (OptConstraint) cc.fromJSON(mo, (JSONObject) lex.nextValue());
+                }
+            } else {
+                lex.nextValue();
+            }
+        }
+        lex.end();
+
+        if (mo == null) {
+            throw missing(InstanceConverter.MODEL_LABEL);
+        }
+        if (pendingCstrs != null) {
+            cstrs = cc.listFromJSON(mo, pendingCstrs);
+        }
+        if (pendingObj != null) {
+            obj = (OptConstraint) cc.fromJSON(mo, pendingObj);
+        }
+        if (cstrs == null) {
+            throw missing(InstanceConverter.CONSTRAINTS_LABEL);
+        }
+        if (obj == null) {
+            throw missing(InstanceConverter.OBJ_LABEL);
+        }
+        return new Instance(mo, cstrs, obj);
+    }
+
+    /**
+     * Read a reconfiguration plan.
+     *
+     * @param r the stream to read. It is not closed
+     * @return the resulting plan
+     * @throws JSONConverterException if the stream cannot be parsed
+     */
+    public ReconfigurationPlan readReconfigurationPlan(Reader r) throws JSONConverterException {
+        JSONLexer lex = new JSONLexer(r);
+        ReconfigurationPlan plan = null;
+        JSONArray pending = null;
+        boolean actions = false;
+
+        lex.beginObject();
+        for (String k = lex.nextName(); k != null; k = lex.nextName()) {
+            if (ReconfigurationPlanConverter.ORIGIN_LABEL.equals(k)) {
+                plan = new DefaultReconfigurationPlan(readModel(lex));
+            } else if (ReconfigurationPlanConverter.ACTIONS_LABEL.equals(k)) {
+                actions = true;
+                if (plan == null) {
+                    pending = (JSONArray) lex.nextValue();
+                } else {
+                    lex.beginArray();
+                    while (lex.hasNextElement()) {
+                        plan.add(pc.actionFromJSON(plan.getOrigin(), (JSONObject) lex.nextValue()));
+                    }
+                }
+            } else {
+                lex.nextValue();
+            }
+        }
+        lex.end();
+
+        if (plan == null) {
+            throw missing(ReconfigurationPlanConverter.ORIGIN_LABEL);
+        }
+        if (!actions) {
+            throw missing(ReconfigurationPlanConverter.ACTIONS_LABEL);
+        }
+        if (pending != null) {
+            for (Object o : pending) {
+                plan.add(pc.actionFromJSON(plan.getOrigin(), (JSONObject) o));
+            }
+        }
+        return plan;
+    }
+
+    private List<SatConstraint> readConstraints(JSONLexer lex, Model mo) throws JSONConverterException {
+        if (cc.getWorkersCount() > 1) {
+            //The array is materialised to be decoded concurrently
+            Object o = lex.nextValue();
+            if (!(o instanceof JSONArray)) {
+                throw new JSONConverterException("Expected an array of constraints but got " + (o == null ? "null" : o.getClass().getName()));
+            }
+            return cc.listFromJSON(mo, (JSONArray) o);
+        }
+        List<SatConstraint> l = new ArrayList<>();
+        lex.beginArray();
+        while (lex.hasNextElement()) {
+            Object o = lex.nextValue();
+            if (!(o instanceof JSONObject)) {
+                throw new JSONConverterException("Expected an array of JSONObject but got an array of " + o.getClass().getName());
+            }
+            Constraint c = cc.fromJSON(mo, (JSONObject) o);
+            l.add((SatConstraint) c);
+        }
+        return l;
+    }
+
+    private Model readModel(JSONLexer lex) throws JSONConverterException {
+        Model mo = new DefaultModel();
+        boolean mapping = false;
+        JSONObject attrs = null;
+        JSONArray views = null;
+        ModelViewsConverter vc = moc.getViewsConverter();
+
+        lex.beginObject();
+        for (String k = lex.nextName(); k != null; k = lex.nextName()) {
+            if (ModelConverter.MAPPING_LABEL.equals(k)) {
+                readMapping(lex, mo);
+                mapping = true;
+            } else if (ModelConverter.ATTRS_LABEL.equals(k)) {
+                attrs = (JSONObject) lex.nextValue();
+            } else if (ModelConverter.VIEWS_LABEL.equals(k)) {
+                if (!mapping) {
+                    views = (JSONArray) lex.nextValue();
+                } else {
+                    views = new JSONArray();
+                    lex.beginArray();
+                    while (lex.hasNextElement()) {
+                        mo.attach(vc.fromJSON(mo, (JSONObject) lex.nextValue()));
+                    }
+                }
+            } else {
+                lex.nextValue();
+            }
+        }
+        if (!mapping) {
+            throw missing(ModelConverter.MAPPING_LABEL);
+        }
+        if (attrs == null) {
+            throw missing(ModelConverter.ATTRS_LABEL);
+        }
+        if (views == null) {
+            throw missing(ModelConverter.VIEWS_LABEL);
+        }
+        mo.setAttributes(AttributesConverter.fromJSON(mo, attrs));
+        for (Object v : views) {
+            mo.attach(vc.fromJSON(mo, (JSONObject) v));
+        }
+        return mo;
+    }
+
+    private static void readMapping(JSONLexer lex, Model mo) throws JSONConverterException {
+        Mapping c = mo.getMapping();
+        boolean offline = false;
+        boolean ready = false;
+        boolean online = false;
+        lex.beginObject();
+        for (String k = lex.nextName(); k != null; k = lex.nextName()) {
+            if ("offlineNodes".equals(k)) {
+                lex.beginArray();
+                while (lex.hasNextElement()) {
+                    c.addOfflineNode(newNode(mo, lex.nextInt()));
+                }
+                offline = true;
+            } else if ("readyVMs".equals(k)) {
+                lex.beginArray();
+                while (lex.hasNextElement()) {
+                    c.addReadyVM(newVM(mo, lex.nextInt()));
+                }
+                ready = true;
+            } else if ("onlineNodes".equals(k)) {
+                lex.beginObject();
+                for (String id = lex.nextName(); id != null; id = lex.nextName()) {
+                    readOnlineNode(lex, mo, newNode(mo, parseId(id)));
+                }
+                online = true;
+            } else {
+                lex.nextValue();
+            }
+        }
+        if (!offline) {
+            throw missing("offlineNodes");
+        }
+        if (!ready) {
+            throw missing("readyVMs");
+        }
+        if (!online) {
+            throw missing("onlineNodes");
+        }
+    }
+
+    private static void readOnlineNode(JSONLexer lex, Model mo, Node n) throws JSONConverterException {
+        Mapping c = mo.getMapping();
+        c.addOnlineNode(n);
+        boolean running = false;
+        boolean sleeping = false;
+        lex.beginObject();
+        for (String k = lex.nextName(); k != null; k = lex.nextName()) {
+            if ("runningVMs".equals(k)) {
+                lex.beginArray();
+                while (lex.hasNextElement()) {
+                    c.addRunningVM(newVM(mo, lex.nextInt()), n);
+                }
+                running = true;
+            } else if ("sleepingVMs".equals(k)) {
+                lex.beginArray();
+                while (lex.hasNextElement()) {
+                    c.addSleepingVM(newVM(mo, lex.nextInt()), n);
+                }
+                sleeping = true;
+            } else {
+                lex.nextValue();
+            }
+        }
+        if (!running) {
+            throw missing("runningVMs");
+        }
+        if (!sleeping) {
+            throw missing("sleepingVMs");
+        }
+    }
+
+    private static int parseId(String id) throws JSONConverterException {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException ex) {
+            throw new JSONConverterException("Invalid node identifier '" + id + "'", ex);
+        }
+    }
+
+    private static Node newNode(Model mo, int id) throws JSONConverterException {
+        Node n = mo.newNode(id);
+        if (n == null) {
+            throw JSONConverterException.nodeAlreadyDeclared(id);
+        }
+        return n;
+    }
+
+    private static VM newVM(Model mo, int id) throws JSONConverterException {
+        VM v = mo.newVM(id);
+        if (v == null) {
+            throw JSONConverterException.vmAlreadyDeclared(id);
+        }
+        return v;
+    }
+
+    private static JSONConverterException missing(String k) {
+        return new JSONConverterException("Missing key '" + k + "'");
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.stream;
+
+import net.minidev.json.JSONValue;
+import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.model.AttributesConverter;
+import org.btrplace.json.model.InstanceConverter;
+import org.btrplace.json.model.ModelConverter;
+import org.btrplace.json.model.constraint.ConstraintsConverter;
+import org.btrplace.json.model.view.ModelViewsConverter;
+import org.btrplace.json.plan.ReconfigurationPlanConverter;
+import org.btrplace.model.Element;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.ModelView;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.Action;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A writer that serialises instances and reconfiguration plans directly on a stream.
+ * <p>
+ * The mapping is written element by element while the views, the constraints and the actions
+ * are converted and written one at a time using the converters of the {@link InstanceConverter} or the
+ * {@link ReconfigurationPlanConverter}. The resulting documents can be read by these converters.
+ *
+ * @author Fabien Hermenier
+ */
+public class JSONStreamWriter {
+
+    private final ModelConverter moc;
+
+    private final ConstraintsConverter cc;
+
+    private final ReconfigurationPlanConverter pc;
+
+    /**
+     * Make a new writer that relies on the default converters.
+     */
+    public JSONStreamWriter() {
+        this(new InstanceConverter(), ReconfigurationPlanConverter.newBundle());
+    }
+
+    /**
+     * Make a new writer.
+     *
+     * @param ic the converter providing the model and the constraint converters
+     * @param pc the converter for the actions and their events
+     */
+    public JSONStreamWriter(InstanceConverter ic, ReconfigurationPlanConverter pc) {
+        moc = ic.getModelConverter();
+        cc = ic.getConstraintsConverter();
+        this.pc = pc;
+    }
+
+    /**
+     * Write an instance.
+     *
+     * @param i the instance to write
+     * @param a the stream to write on
+     * @throws JSONConverterException if an error occurred while converting the instance
+     * @throws IOException            if an error occurred while writing
+     */
+    public void write(Instance i, Appendable a) throws JSONConverterException, IOException {
+        a.append('{');
+        key(a, InstanceConverter.MODEL_LABEL);
+        write(i.getModel(), a);
+        a.append(',');
+        key(a, InstanceConverter.CONSTRAINTS_LABEL);
+        a.append('[');
+        boolean first = true;
+        for (SatConstraint c : i.getSatConstraints()) {
+            if (!first) {
+                a.append(',');
+            }
+            first = false;
+            cc.toJSON(c).writeJSONString(a);
+        }
+        a.append("],");
+        key(a, InstanceConverter.OBJ_LABEL);
+        cc.toJSON(i.getOptConstraint()).writeJSONString(a);
+        a.append('}');
+    }
+
+    /**
+     * Write an instance.
+     *
+     * @param i   the instance to write
+     * @param out the stream to write on. It is flushed but not closed
+     * @throws JSONConverterException if an error occurred while converting the instance
+     * @throws IOException            if an error occurred while writing
+     */
+    public void write(Instance i, OutputStream out) throws JSONConverterException, IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+        write(i, w);
+        w.flush();
+    }
+
+    /**
+     * Write a reconfiguration plan.
+     * The actions are written one by one.
+     *
+     * @param p the plan to write
+     * @param a the stream to write on
+     * @throws JSONConverterException if an error occurred while converting the plan
+     * @throws IOException            if an error occurred while writing
+     */
+    public void write(ReconfigurationPlan p, Appendable a) throws JSONConverterException, IOException {
+        a.append('{');
+        key(a, ReconfigurationPlanConverter.ORIGIN_LABEL);
+        write(p.getOrigin(), a);
+        a.append(',');
+        key(a, ReconfigurationPlanConverter.ACTIONS_LABEL);
+        a.append('[');
+        boolean first = true;
+        for (Action action : p) {
+            if (!first) {
+                a.append(',');
+            }
+            first = false;
+            pc.actionToJSON(action).writeJSONString(a);
+        }
+        a.append("]}");
+    }
+
+    /**
+     * Write a reconfiguration plan.
+     *
+     * @param p   the plan to write
+     * @param out the stream to write on. It is flushed but not closed
+     * @throws JSONConverterException if an error occurred while converting the plan
+     * @throws IOException            if an error occurred while writing
+     */
+    public void write(ReconfigurationPlan p, OutputStream out) throws JSONConverterException, IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+        write(p, w);
+        w.flush();
+    }
+
+    /**
+     * Write a model.
+     *
+     * @param mo the model to write
+     * @param a  the stream to write on
+     * @throws JSONConverterException if an error occurred while converting the model
+     * @throws IOException            if an error occurred while writing
+     */
+    public void write(Model mo, Appendable a) throws JSONConverterException, IOException {
+        a.append('{');
+        key(a, ModelConverter.MAPPING_LABEL);
+        write(mo.getMapping(), a);
+        a.append(',');
+        key(a, ModelConverter.ATTRS_LABEL);
+        AttributesConverter.toJSON(mo.getAttributes()).writeJSONString(a);
+        a.append(',');
+        key(a, ModelConverter.VIEWS_LABEL);
+        a.append('[');
+        ModelViewsConverter vc = moc.getViewsConverter();
+        boolean first = true;
+        for (ModelView v : mo.getViews()) {
+            if (!first) {
+                a.append(',');
+            }
+            first = false;
+            vc.toJSON(v).writeJSONString(a);
+        }
+        a.append("]}");
+    }
+
+    private static void write(Mapping m, Appendable a) throws IOException {
+        a.append('{');
+        key(a, "offlineNodes");
+        ids(a, m.getOfflineNodes());
+        a.append(',');
+        key(a, "readyVMs");
+        ids(a, m.getReadyVMs());
+        a.append(',');
+        key(a, "onlineNodes");
+        a.append('{');
+        boolean first = true;
+        for (Node n : m.getOnlineNodes()) {
+            if (!first) {
+                a.append(',');
+            }
+            first = false;
+            key(a, Integer.toString(n.id()));
+            a.append('{');
+            key(a, "runningVMs");
+            ids(a, m.getRunningVMs(n));
+            a.append(',');
+            key(a, "sleepingVMs");
+            ids(a, m.getSleepingVMs(n));
+            a.append('}');
+        }
+        a.append("}}");
+    }
+
+    private static void key(Appendable a, String k) throws IOException {
+        a.append('"').append(JSONValue.escape(k)).append("\":");
+    }
+
+    private static void ids(Appendable a, Collection<? extends Element> elems) throws IOException {
+        a.append('[');
+        boolean first = true;
+        for (Element e : elems) {
+            if (!first) {
+                a.append(',');
+            }
+            first = false;
+            a.append(Integer.toString(e.id()));
+        }
+        a.append(']');
+    }
+}
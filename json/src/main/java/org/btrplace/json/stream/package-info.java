@@ -0,0 +1,10 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+/**
+ * Event-based readers and writers for instances and plans that do not materialise the whole JSON documents.
+ */
+package org.btrplace.json.stream;
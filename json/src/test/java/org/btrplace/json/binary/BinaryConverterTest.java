@@ -0,0 +1,150 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.binary;
+
+import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.model.InstanceConverter;
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Fence;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.Online;
+import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.ShareableResource;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.BootVM;
+import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.plan.event.ShutdownNode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link BinaryConverter}.
+ *
+ * @author Fabien Hermenier
+ */
+public class BinaryConverterTest {
+
+    private static Model makeModel() {
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        for (int i = 0; i < 10; i++) {
+            Node n = mo.newNode();
+            if (i == 4) {
+                ma.addOfflineNode(n);
+                continue;
+            }
+            ma.addOnlineNode(n);
+            for (int j = 0; j < 3; j++) {
+                ma.addRunningVM(mo.newVM(), n);
+            }
+        }
+        ma.addSleepingVM(mo.newVM(), new Node(2));
+        ma.addReadyVM(mo.newVM());
+        ma.addReadyVM(mo.newVM(100));
+        ShareableResource rc = new ShareableResource("cpu", 8, 1);
+        rc.setConsumption(new VM(0), 4);
+        rc.setConsumption(new VM(7), 2);
+        rc.setCapacity(new Node(3), 16);
+        mo.attach(rc);
+        mo.getAttributes().put(new Node(0), "name", "node-0");
+        mo.getAttributes().put(new VM(1), "boot", 7);
+        mo.getAttributes().put(new VM(1), "ratio", 0.5);
+        mo.getAttributes().put(new VM(2), "template", true);
+        return mo;
+    }
+
+    private static byte[] toBytes(Instance i, BinaryConverter c) throws IOException, JSONConverterException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        c.write(i, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testModel() throws IOException, JSONConverterException {
+        Model mo = makeModel();
+        BinaryConverter c = BinaryConverter.newBundle();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        c.write(mo, out);
+        Assert.assertEquals(c.readModel(new ByteArrayInputStream(out.toByteArray())), mo);
+    }
+
+    @Test
+    public void testInstance() throws IOException, JSONConverterException {
+        Model mo = makeModel();
+        List<SatConstraint> cstrs = new ArrayList<>(Online.newOnline(mo.getMapping().getOnlineNodes()));
+        cstrs.add(new Running(new VM(100)));
+        cstrs.add(new Fence(new VM(0), Collections.singleton(new Node(1))));
+        Instance i = new Instance(mo, cstrs, new MinMTTR());
+
+        //With and without the dedicated codec for the resources
+        for (BinaryConverter c : new BinaryConverter[]{BinaryConverter.newBundle(), new BinaryConverter()}) {
+            byte[] b = toBytes(i, c);
+            Assert.assertEquals(c.readInstance(new ByteArrayInputStream(b)), i);
+            Assert.assertTrue(b.length < new InstanceConverter().toJSONString(i).length());
+        }
+    }
+
+    @Test
+    public void testPlan() throws IOException, JSONConverterException {
+        Model mo = makeModel();
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(new VM(0), new Node(0), new Node(1), 0, 3));
+        p.add(new BootVM(new VM(100), new Node(0), 1, 4));
+        p.add(new ShutdownNode(new Node(3), 5, 7));
+
+        BinaryConverter c = BinaryConverter.newBundle();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        c.write(p, out);
+        Assert.assertEquals(c.readReconfigurationPlan(new ByteArrayInputStream(out.toByteArray())), p);
+    }
+
+    @Test(expectedExceptions = {JSONConverterException.class})
+    public void testBadKind() throws IOException, JSONConverterException {
+        BinaryConverter c = new BinaryConverter();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        c.write(makeModel(), out);
+        c.readInstance(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void testValues() throws IOException, JSONConverterException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryOutput bo = new BinaryOutput(out);
+        int[] ints = {0, 1, -1, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int i : ints) {
+            bo.writeInt(i);
+        }
+        bo.writeLong(Long.MIN_VALUE);
+        bo.writeString("foo");
+        bo.writeString("bar");
+        bo.writeString("foo");
+        bo.flush();
+
+        BinaryInput bi = new BinaryInput(new ByteArrayInputStream(out.toByteArray()));
+        for (int i : ints) {
+            Assert.assertEquals(bi.readInt(), i);
+        }
+        Assert.assertEquals(bi.readLong(), Long.MIN_VALUE);
+        Assert.assertEquals(bi.readString(), "foo");
+        Assert.assertEquals(bi.readString(), "bar");
+        Assert.assertEquals(bi.readString(), "foo");
+    }
+}
@@ -6,17 +6,28 @@
 
 package org.btrplace.json.model.constraint;
 
+import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.btrplace.json.JSONConverterException;
+import org.btrplace.model.DefaultModel;
 import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Ban;
+import org.btrplace.model.constraint.Fence;
 import org.btrplace.model.constraint.SatConstraint;
 import org.btrplace.model.constraint.SatConstraintChecker;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 /**
@@ -128,4 +139,85 @@ public class ConstraintsConverterTest {
         c.register(new MockConstraintConverter());
         c.fromJSON(null, ob);
     }
+
+    @Test
+    public void testParallelListFromJSON() throws JSONConverterException {
+        Model mo = new DefaultModel();
+        List<VM> vms = new ArrayList<>();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            vms.add(mo.newVM());
+            ns.add(mo.newNode());
+        }
+        List<SatConstraint> cstrs = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            cstrs.add(new Ban(vms.get(i % vms.size()), Collections.singletonList(ns.get(i % ns.size()))));
+            cstrs.add(new Fence(vms.get(i % vms.size()), Arrays.asList(ns.get(0), ns.get(i % ns.size()))));
+        }
+        ConstraintsConverter cc = ConstraintsConverter.newBundle();
+        JSONArray arr = cc.toJSON(cstrs);
+        cc.setWorkersCount(4);
+        Assert.assertEquals(cc.getWorkersCount(), 4);
+        Assert.assertEquals(cc.listFromJSON(mo, arr), cstrs);
+
+        //The elements of another model are not reused
+        Model other = new DefaultModel();
+        other.newVM();
+        for (int i = 0; i < 10; i++) {
+            other.newNode();
+        }
+        try {
+            cc.listFromJSON(other, arr);
+            Assert.fail();
+        } catch (JSONConverterException ex) {
+            Assert.assertEquals(ex.getMessage(), "Undeclared vm '1'");
+        }
+    }
+
+    @Test
+    public void testSharedExecutor() throws JSONConverterException, InterruptedException {
+        Model mo = new DefaultModel();
+        List<VM> vms = new ArrayList<>();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            vms.add(mo.newVM());
+            ns.add(mo.newNode());
+        }
+        List<SatConstraint> cstrs = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            cstrs.add(new Ban(vms.get(i % vms.size()), Collections.singletonList(ns.get(i % ns.size()))));
+        }
+        ConstraintsConverter cc = ConstraintsConverter.newBundle();
+        JSONArray arr = cc.toJSON(cstrs);
+        cc.setWorkersCount(4);
+        Assert.assertNull(cc.getExecutor());
+        ExecutorService exe = Executors.newSingleThreadExecutor();
+        CountDownLatch busy = new CountDownLatch(1);
+        try {
+            cc.setExecutor(exe);
+            Assert.assertSame(cc.getExecutor(), exe);
+            Assert.assertEquals(cc.listFromJSON(mo, arr), cstrs);
+
+            //The chunks left in the queue of a busy executor are decoded by the current thread
+            exe.execute(() -> {
+                try {
+                    busy.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Assert.assertEquals(cc.listFromJSON(mo, arr), cstrs);
+        } finally {
+            busy.countDown();
+            exe.shutdownNow();
+        }
+        //Back to a thread pool per decoded list
+        cc.setExecutor(null);
+        Assert.assertEquals(cc.listFromJSON(mo, arr), cstrs);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadWorkersCount() {
+        new ConstraintsConverter().setWorkersCount(0);
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.json.stream;
+
+import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.model.InstanceConverter;
+import org.btrplace.json.plan.ReconfigurationPlanConverter;
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Fence;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.Online;
+import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.ShareableResource;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.BootVM;
+import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.plan.event.ShutdownNode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link JSONStreamReader} and {@link JSONStreamWriter}.
+ *
+ * @author Fabien Hermenier
+ */
+public class JSONStreamTest {
+
+    private static Model makeModel() {
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        ma.addOnlineNode(n1);
+        ma.addOnlineNode(n2);
+        ma.addOfflineNode(n3);
+        ma.addRunningVM(mo.newVM(), n1);
+        ma.addRunningVM(mo.newVM(), n1);
+        ma.addSleepingVM(mo.newVM(), n2);
+        ma.addReadyVM(mo.newVM());
+        ShareableResource rc = new ShareableResource("cpu", 8, 1);
+        rc.setConsumption(new VM(0), 4);
+        mo.attach(rc);
+        mo.getAttributes().put(n1, "name", "node \"1\"");
+        mo.getAttributes().put(new VM(1), "boot", 7);
+        return mo;
+    }
+
+    @Test
+    public void testInstance() throws JSONConverterException, IOException {
+        Model mo = makeModel();
+        List<SatConstraint> cstrs = new ArrayList<>(Online.newOnline(mo.getMapping().getOnlineNodes()));
+        cstrs.add(new Running(new VM(3)));
+        cstrs.add(new Fence(new VM(0), Collections.singleton(new Node(1))));
+        Instance i = new Instance(mo, cstrs, new MinMTTR());
+
+        StringBuilder b = new StringBuilder();
+        new JSONStreamWriter().write(i, b);
+        //Readable by the converter
+        Assert.assertEquals(new InstanceConverter().fromJSON(b.toString()), i);
+        Assert.assertEquals(new JSONStreamReader().readInstance(new StringReader(b.toString())), i);
+
+        //The streaming reader accepts the documents produced by the converter
+        String json = new InstanceConverter().toJSONString(i);
+        Assert.assertEquals(new JSONStreamReader().readInstance(new StringReader(json)), i);
+
+        //The constraints are decoded in bulk when the constraints converter has multiple workers
+        InstanceConverter ic = new InstanceConverter();
+        ic.getConstraintsConverter().setWorkersCount(2);
+        Assert.assertEquals(new JSONStreamReader(ic, ReconfigurationPlanConverter.newBundle()).readInstance(new StringReader(json)), i);
+    }
+
+    @Test
+    public void testPlan() throws JSONConverterException, IOException {
+        Model mo = makeModel();
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(new VM(0), new Node(0), new Node(1), 0, 3));
+        p.add(new BootVM(new VM(3), new Node(0), 1, 4));
+        p.add(new ShutdownNode(new Node(1), 5, 7));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JSONStreamWriter().write(p, out);
+        String json = out.toString("UTF-8");
+        Assert.assertEquals(ReconfigurationPlanConverter.newBundle().fromJSON(json), p);
+        Assert.assertEquals(new JSONStreamReader().readReconfigurationPlan(new StringReader(json)), p);
+
+        json = ReconfigurationPlanConverter.newBundle().toJSONString(p);
+        Assert.assertEquals(new JSONStreamReader().readReconfigurationPlan(new StringReader(json)), p);
+    }
+
+    @Test(expectedExceptions = {JSONConverterException.class})
+    public void testMissingKey() throws JSONConverterException {
+        new JSONStreamReader().readInstance(new StringReader("{\"constraints\":[]}"));
+    }
+
+    @Test(expectedExceptions = {JSONConverterException.class})
+    public void testMalformed() throws JSONConverterException {
+        new JSONStreamReader().readReconfigurationPlan(new StringReader("{\"origin\":{\"mapping\":{\"offlineNodes\":[1,]"));
+    }
+}
@@ -27,12 +27,25 @@ import org.btrplace.scheduler.choco.Parameters;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
+ * Default implementation of a test campaign.
+ * <p>
+ * The test cases can be fuzzed and run by multiple workers. Each worker relies on its own copy of the
+ * {@link DefaultFuzzer}, seeded by the worker index, so each worker generates a reproducible sequence of test cases.
+ * A replayed campaign shares its test cases between the workers.
+ * The results are collected by one worker at a time so the limits are enforced globally:
+ * once a limit is reached, the results of the tests that were still running are discarded.
+ *
  * @author Fabien Hermenier
  */
 public class DefaultTestCampaign implements Tester, TestCampaign {
@@ -57,6 +70,28 @@ public class DefaultTestCampaign implements Tester, TestCampaign {
 
   private final String name;
 
+    private int workers;
+
+    /**
+     * Guards the results collection.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * A limit was reached. The results of the running tests are discarded.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * The fuzzer has no more test cases. The running tests are still collected.
+     */
+    private volatile boolean exhausted;
+
+    /**
+     * The index of the next collected result. Guarded by {@code lock}.
+     */
+    private int nbTests;
+
     public DefaultTestCampaign(String name, List<Constraint> cstrs) {
         this.name = name;
         limits = new Limits();
@@ -66,6 +101,7 @@ public class DefaultTestCampaign implements Tester, TestCampaign {
         params.getMapper().mapConstraint(Schedule.class, CSchedule.class);
         oracle = new SpecVerifier();
         report = new Counting();
+        workers = 1;
     }
 
     @Override
@@ -93,40 +129,120 @@ public class DefaultTestCampaign implements Tester, TestCampaign {
     @Override
     @SuppressWarnings("squid:S106")
     public Report go() {
-        TestCaseResult res;
-        int nb = 1;
-        boolean first = true;
+        nbTests = 1;
+        stopped = false;
+        exhausted = false;
         System.out.println(this.name + ":");
-        do {
-            if (first) {
+        if (workers == 1) {
+            run(tcFuzzer);
+        } else {
+            runConcurrently();
+        }
+        if (printProgress && nbTests % 80 != 0) {
+            System.out.println();
+        }
+        return report;
+    }
+
+    private void runConcurrently() {
+        ExecutorService exe = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                Fuzzer f = fuzzer(i);
+                futures.add(exe.submit(() -> run(f)));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Error) {
+                //Typically a failed assertion from the defect hook
+                throw (Error) ex.getCause();
+            }
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            stopped = true;
+            exe.shutdownNow();
+        }
+    }
 
-                first = false;
+    /**
+     * Get the fuzzer of a worker.
+     *
+     * @param w the worker index
+     * @return the fuzzer
+     */
+    private Fuzzer fuzzer(int w) {
+        if (tcFuzzer instanceof DefaultFuzzer) {
+            return ((DefaultFuzzer) tcFuzzer).copy(w);
+        }
+        //A fuzzer that cannot be copied, hence shared
+        return tcFuzzer;
+    }
+
+    /**
+     * Fuzz and run test cases until a limit is reached.
+     *
+     * @param f the fuzzer to use. It may be shared with other workers
+     */
+    private void run(Fuzzer f) {
+        while (!stopped && !exhausted) {
+            TestCase tc;
+            long validation;
+            long fuzzing;
+            int iterations;
+            synchronized (f) {
+                tc = f.get();
+                validation = f.lastValidationDuration();
+                fuzzing = f.lastFuzzingDuration();
+                iterations = f.lastFuzzingIterations();
             }
-            TestCase tc = tcFuzzer.get();
             if (tc == null) {
-                //We are done
-                break;
+                //No more test cases. The other workers complete their running tests
+                exhausted = true;
+                return;
             }
             long d = -System.currentTimeMillis();
-            res = test(tc);
+            TestCaseResult res = test(tc);
             d += System.currentTimeMillis();
-            if (res.result() != Result.SUCCESS) {
-                defectHook.accept(res);
-            }
-            printProgress(res.result(), nb);
 
             res.metrics().testing(d);
-            res.metrics().validation(tcFuzzer.lastValidationDuration());
+            res.metrics().validation(validation);
             // - validation because it is embedded
-            res.metrics().fuzzing(Math.max(0, tcFuzzer.lastFuzzingDuration() - res.metrics().validation()));
-            res.metrics().fuzzingIterations(tcFuzzer.lastFuzzingIterations());
+            res.metrics().fuzzing(Math.max(0, fuzzing - validation));
+            res.metrics().fuzzingIterations(iterations);
+            collect(res);
+        }
+    }
+
+    /**
+     * Collect the result of a test and check the limits.
+     *
+     * @param res the result
+     */
+    private void collect(TestCaseResult res) {
+        synchronized (lock) {
+            if (stopped) {
+                //A limit was reached while the test was running
+                return;
+            }
+            if (res.result() != Result.SUCCESS) {
+                defectHook.accept(res);
+            }
+            printProgress(res.result(), nbTests);
             report.with(res);
-            nb++;
-        } while (limits.test(res.result()));
-        if (printProgress && nb % 80 != 0) {
-            System.out.println();
+            nbTests++;
+            if (!limits.test(res.result())) {
+                stopped = true;
+            }
         }
-        return report;
     }
 
     @SuppressWarnings("squid:S106")
@@ -188,6 +304,20 @@ public class DefaultTestCampaign implements Tester, TestCampaign {
         return new TestCaseResult(tc, sched.getStatistics(), res);
     }
 
+    @Override
+    public TestCampaign workers(int nb) {
+        if (nb < 1) {
+            throw new IllegalArgumentException("The number of workers must be positive");
+        }
+        workers = nb;
+        return this;
+    }
+
+    @Override
+    public int workers() {
+        return workers;
+    }
+
     @Override
     public TestCampaign printProgress(boolean b) {
         printProgress = b;
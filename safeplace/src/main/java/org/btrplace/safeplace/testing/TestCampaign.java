@@ -38,5 +38,21 @@ public interface TestCampaign {
 
     TestCampaign onDefect(Consumer<TestCaseResult> res);
 
+    /**
+     * Set the number of workers that fuzz and run the test cases concurrently.
+     * Each worker has its own fuzzer, seeded differently. The limits and the report are shared.
+     *
+     * @param nb a positive number. {@code 1} by default
+     * @return {@code this}
+     */
+    TestCampaign workers(int nb);
+
+    /**
+     * Get the number of workers that fuzz and run the test cases concurrently.
+     *
+     * @return a positive number
+     */
+    int workers();
+
     Report go();
 }
@@ -47,7 +47,7 @@ public class DefaultFuzzer implements ConfigurableFuzzer {
 
   private final Random rnd;
 
-  private final ReconfigurationPlanFuzzer fuzzer;
+  private ReconfigurationPlanFuzzer fuzzer;
 
   private final Validator predicates;
 
@@ -55,6 +55,10 @@ public class DefaultFuzzer implements ConfigurableFuzzer {
 
   private final Constraint cstr;
 
+  private final Tester tester;
+
+  private final List<Constraint> pre;
+
     private Set<Restriction> restrictions;
 
     private long fuzzingDuration = 0;
@@ -73,12 +77,48 @@ public class DefaultFuzzer implements ConfigurableFuzzer {
      * @param pre    the constraint to use to validate the generate test case
      */
     public DefaultFuzzer(Tester t, Constraint toTest, List<Constraint> pre) {
-      rnd = new Random(0);
+        this(t, toTest, pre, 0);
+    }
+
+    /**
+     * Make a new fuzzer.
+     *
+     * @param t      the tester to use to validate the test case
+     * @param toTest the constraint to test inside the test cases
+     * @param pre    the constraint to use to validate the generate test case
+     * @param seed   the seed of the random number generator
+     */
+    public DefaultFuzzer(Tester t, Constraint toTest, List<Constraint> pre, long seed) {
+      rnd = new Random(seed);
       fuzzer = new ReconfigurationPlanFuzzer(rnd);
         doms = new HashMap<>();
         restrictions = EnumSet.allOf(Restriction.class);
         predicates = new Validator(t, pre);
         cstr = toTest;
+        tester = t;
+        this.pre = pre;
+    }
+
+    /**
+     * Make a new fuzzer having the same configuration as this one but another seed.
+     * The decorators and the domains are copied to rely on the random number generator of the copy,
+     * so a copy generates a reproducible sequence of test cases, and copies can be used concurrently.
+     * This holds as long as the custom decorators and domains that rely on randomness override
+     * {@link FuzzerDecorator#copy(Random)} and {@link Domain#copy(Random)}.
+     * The copy saves its test cases in the same writer, if any.
+     *
+     * @param seed the seed of the random number generator of the copy
+     * @return a new fuzzer
+     */
+    public DefaultFuzzer copy(long seed) {
+        DefaultFuzzer f = new DefaultFuzzer(tester, cstr, pre, seed);
+        f.fuzzer = fuzzer.copy(f.rnd);
+        for (Map.Entry<String, Domain<?>> e : doms.entrySet()) {
+            f.doms.put(e.getKey(), e.getValue().copy(f.rnd));
+        }
+        f.restrictions = restrictions;
+        f.writer = writer;
+        return f;
     }
 
     @Override
@@ -234,8 +274,12 @@ public class DefaultFuzzer implements ConfigurableFuzzer {
             return;
         }
         try {
-            writer.write(tc.toJSON());
-            writer.flush();
+            String json = tc.toJSON();
+            //The writer may be shared with copies of this fuzzer
+            synchronized (writer) {
+                writer.write(json);
+                writer.flush();
+            }
         } catch (IOException | JSONConverterException e) {
             throw new IllegalArgumentException(e);
         }
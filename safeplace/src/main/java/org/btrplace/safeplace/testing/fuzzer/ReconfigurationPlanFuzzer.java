@@ -270,4 +270,32 @@ public class ReconfigurationPlanFuzzer implements Supplier<ReconfigurationPlan>
         return this;
     }
 
+    /**
+     * Make a new fuzzer having the same parameters and decorators as this one.
+     * The decorators are copied using {@link FuzzerDecorator#copy(Random)} so they rely
+     * on the random number generator of the new fuzzer.
+     *
+     * @param r the random number generator of the copy
+     * @return a new fuzzer
+     */
+    public ReconfigurationPlanFuzzer copy(Random r) {
+        ReconfigurationPlanFuzzer f = new ReconfigurationPlanFuzzer(r);
+        f.nbNodes = nbNodes;
+        f.nbVMs = nbVMs;
+        f.minDuration = minDuration;
+        f.maxDuration = maxDuration;
+        f.srcOffNodes = srcOffNodes;
+        f.dstOffNodes = dstOffNodes;
+        f.srcReadyVMs = srcReadyVMs;
+        f.srcRunningVMs = srcRunningVMs;
+        f.srcSleepingVMs = srcSleepingVMs;
+        f.dstReadyVMs = dstReadyVMs;
+        f.dstRunningVMs = dstRunningVMs;
+        f.dstSleepingVMs = dstSleepingVMs;
+        for (FuzzerDecorator d : exts) {
+            f.exts.add(d.copy(r));
+        }
+        return f;
+    }
+
 }
@@ -8,6 +8,8 @@ package org.btrplace.safeplace.testing.fuzzer.decorators;
 
 import org.btrplace.plan.ReconfigurationPlan;
 
+import java.util.Random;
+
 /**
  * Specify a decorator that can alter a generated reconfiguration
  * @author Fabien Hermenier
@@ -22,5 +24,17 @@ public interface FuzzerDecorator {
      */
     void decorate(ReconfigurationPlan p);
 
+    /**
+     * Make a decorator that decorates the same way but relies on another random number generator.
+     * By default, the decorator is returned as-is, which only suits decorators that
+     * do not rely on randomness.
+     *
+     * @param rnd the random number generator to use
+     * @return a decorator
+     */
+    default FuzzerDecorator copy(Random rnd) {
+        return this;
+    }
+
 
 }
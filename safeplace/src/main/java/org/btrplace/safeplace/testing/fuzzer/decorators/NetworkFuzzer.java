@@ -24,7 +24,21 @@ public class NetworkFuzzer implements FuzzerDecorator {
   private final Random rnd;
 
     public NetworkFuzzer() {
-        rnd = new Random();
+        this(new Random());
+    }
+
+    /**
+     * New fuzzer.
+     *
+     * @param rnd the random number generator to use
+     */
+    public NetworkFuzzer(Random rnd) {
+        this.rnd = rnd;
+    }
+
+    @Override
+    public NetworkFuzzer copy(Random r) {
+        return new NetworkFuzzer(r);
     }
 
     @Override
@@ -39,8 +39,22 @@ public class ShareableResourceFuzzer implements FuzzerDecorator {
   private double variability = 0.5;
 
   public ShareableResourceFuzzer(String rc, int minCons, int maxCons, int minCapa, int maxCapa) {
+    this(new Random(), rc, minCons, maxCons, minCapa, maxCapa);
+  }
+
+  /**
+   * New fuzzer.
+   *
+   * @param rnd     the random number generator to use
+   * @param rc      the resource identifier
+   * @param minCons the minimum VM consumption
+   * @param maxCons the maximum VM consumption
+   * @param minCapa the minimum node capacity
+   * @param maxCapa the maximum node capacity
+   */
+  public ShareableResourceFuzzer(Random rnd, String rc, int minCons, int maxCons, int minCapa, int maxCapa) {
     id = rc;
-    rnd = new Random();
+    this.rnd = rnd;
     this.minCons = minCons;
     this.minCapa = minCapa;
     this.maxCapa = maxCapa;
@@ -52,6 +66,11 @@ public class ShareableResourceFuzzer implements FuzzerDecorator {
         return this;
     }
 
+    @Override
+    public ShareableResourceFuzzer copy(Random r) {
+        return new ShareableResourceFuzzer(r, id, minCons, maxCons, minCapa, maxCapa).variability(variability);
+    }
+
     @Override
     public void decorate(ReconfigurationPlan p) {
         Model mo = p.getOrigin();
@@ -84,4 +84,9 @@ public class ConstantDomain<T> implements Domain<T> {
     public List<T> eval(Context mo, Object... args) {
         return dom;
     }
+
+  @Override
+  public ConstantDomain<T> copy(Random r) {
+    return new ConstantDomain<>(r, name, t, dom);
+  }
 }
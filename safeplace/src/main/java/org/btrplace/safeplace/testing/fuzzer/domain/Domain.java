@@ -10,6 +10,7 @@ import org.btrplace.safeplace.spec.term.Term;
 import org.btrplace.safeplace.spec.type.Type;
 
 import java.util.List;
+import java.util.Random;
 
 /**
  * @author Fabien Hermenier
@@ -28,4 +29,16 @@ public interface Domain<T> extends Term<List<T>>{
 
     List<List<T>> randomPacking();
 
+    /**
+     * Make a domain having the same values but relying on another random number generator.
+     * By default, the domain is returned as-is, which only suits domains that
+     * do not rely on randomness.
+     *
+     * @param rnd the random number generator to use
+     * @return a domain
+     */
+    default Domain<T> copy(Random rnd) {
+        return this;
+    }
+
 }
@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
  * Define stop criteria for a test campaign.
  * Criteria can be accumulated and updated.
  * When a new limit is set, ANY existing limit having the same class is removed.
+ * The limits are thread-safe so they are enforced globally when the tests are run by multiple workers.
  *
  * @author Fabien Hermenier
  */
@@ -82,7 +83,7 @@ public class Limits implements Predicate<Result> {
      * @param p the predicate modeling the limit
      * @return {@code this}
      */
-    public Limits with(Predicate<Result> p) {
+    public synchronized Limits with(Predicate<Result> p) {
         predicates.removeIf(r -> r.getClass().equals(p.getClass()));
         predicates.add(p);
         return this;
@@ -92,18 +93,18 @@ public class Limits implements Predicate<Result> {
      * Clean all the registered predicates.
      * @return {@code this}
      */
-    public Limits clear() {
+    public synchronized Limits clear() {
         predicates.clear();
         return this;
     }
 
     @Override
-    public boolean test(Result o) {
+    public synchronized boolean test(Result o) {
         return predicates.stream().allMatch(l -> l.test(o));
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return predicates.stream().map(Predicate::toString).collect(Collectors.joining(" && ", "[", "]"));
     }
 }
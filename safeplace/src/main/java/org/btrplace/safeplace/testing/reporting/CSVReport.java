@@ -42,7 +42,7 @@ public class CSVReport extends Counting {
     }
 
     @Override
-    public void with(TestCaseResult r) {
+    public synchronized void with(TestCaseResult r) {
         super.with(r); //to count
         try {
             if (output.getParent().toFile().exists()) {
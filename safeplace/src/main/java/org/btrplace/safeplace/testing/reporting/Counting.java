@@ -12,6 +12,7 @@ import org.btrplace.safeplace.testing.TestCaseResult;
 
 /**
  * A minimal report to count the results.
+ * The report is thread-safe.
  *
  * @author Fabien Hermenier
  */
@@ -28,7 +29,7 @@ public class Counting implements Report {
 
     @SuppressWarnings("squid:S106")
     @Override
-    public void with(TestCaseResult r) {
+    public synchronized void with(TestCaseResult r) {
         if (currentConstraint == null || !currentConstraint.id().equals(r.testCase().constraint().id())) {
             currentConstraint = r.testCase().constraint();
         }
@@ -53,27 +54,27 @@ public class Counting implements Report {
     }
 
     @Override
-    public int overFiltering() {
+    public synchronized int overFiltering() {
         return under;
     }
 
     @Override
-    public int underFiltering() {
+    public synchronized int underFiltering() {
         return over;
     }
 
     @Override
-    public int failures() {
+    public synchronized int failures() {
         return failures;
     }
 
     @Override
-    public int success() {
+    public synchronized int success() {
         return ok;
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
       if (global == null) {
         // We never received a test result.
         return "\t Unable to fuzz a valid state. Consider tuning the fuzzer search space or check the core constraints implementation";
@@ -16,7 +16,9 @@ import org.btrplace.safeplace.testing.TestCaseResult;
 public interface Report {
 
     /**
-     * Add a given result
+     * Add a given result.
+     * When a campaign is run by multiple workers, the results are added by one worker at a time
+     * but the report may be read concurrently, so the implementations should be thread-safe.
      *
      * @param r the result to add
      */
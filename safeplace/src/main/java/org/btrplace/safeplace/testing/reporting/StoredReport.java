@@ -56,7 +56,7 @@ public class StoredReport extends Counting {
     }
 
     @Override
-    public void with(TestCaseResult r) {
+    public synchronized void with(TestCaseResult r) {
         super.with(r);
 
         if (toSave.test(r)) {
@@ -0,0 +1,36 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.safeplace.testing.fuzzer;
+
+import org.btrplace.safeplace.testing.fuzzer.decorators.NetworkFuzzer;
+import org.btrplace.safeplace.testing.fuzzer.decorators.ShareableResourceFuzzer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+/**
+ * Unit tests for {@link ReconfigurationPlanFuzzer}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ReconfigurationPlanFuzzerTest {
+
+    @Test
+    public void testCopyIsReproducible() {
+        ReconfigurationPlanFuzzer f = new ReconfigurationPlanFuzzer()
+                .vms(10)
+                .nodes(3)
+                .with(new ShareableResourceFuzzer("cpu", 1, 5, 10, 20))
+                .with(new NetworkFuzzer());
+        ReconfigurationPlanFuzzer a = f.copy(new Random(3));
+        ReconfigurationPlanFuzzer b = f.copy(new Random(3));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(a.get(), b.get());
+        }
+    }
+}
@@ -10,6 +10,13 @@ import org.btrplace.safeplace.testing.Result;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author Fabien Hermenier
  */
@@ -31,4 +38,30 @@ public class LimitsTest {
         l.clear();
         Assert.assertTrue(l.test(Result.CRASH));
     }
+
+    @Test
+    public void testConcurrentTests() throws Exception {
+        Limits l = new Limits().tests(1000);
+        AtomicInteger ok = new AtomicInteger();
+        ExecutorService exe = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(exe.submit(() -> {
+                    for (int x = 0; x < 500; x++) {
+                        if (l.test(Result.SUCCESS)) {
+                            ok.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            exe.shutdownNow();
+        }
+        //The limit is global to all the threads
+        Assert.assertEquals(ok.get(), 999);
+    }
 }
\ No newline at end of file
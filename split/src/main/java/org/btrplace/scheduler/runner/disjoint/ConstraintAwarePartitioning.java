@@ -0,0 +1,244 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.runner.disjoint;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Among;
+import org.btrplace.model.constraint.Gather;
+import org.btrplace.model.constraint.MaxOnline;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.Seq;
+import org.btrplace.model.view.ModelView;
+import org.btrplace.model.view.ShareableResource;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.Parameters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * An extension of {@link FixedNodeSetsPartitioning} where the
+ * partitions of nodes are computed from the constraints.
+ * <p>
+ * The instance is modeled as a hypergraph. The vertices are the nodes and the VMs to launch.
+ * Each {@link SatConstraint} is a hyperedge joining the nodes it involves, the nodes hosting the
+ * VMs it involves and the VMs to launch it involves. The vertices are weighted by their number of VMs
+ * and their load for each {@link ShareableResource}. The hypergraph is then split into balanced partitions
+ * that cut as few constraints as possible. The constraints that cannot be split over multiple partitions
+ * ({@link Among}, {@link Gather}, {@link Seq} and {@link MaxOnline} by default) are never cut.
+ * <p>
+ * The VMs to launch are hosted by the partition of their vertex.
+ *
+ * @author Fabien Hermenier
+ */
+public class ConstraintAwarePartitioning extends FixedNodeSetsPartitioning {
+
+    /**
+     * The default tolerated imbalance between the partitions.
+     */
+    public static final double DEFAULT_IMBALANCE = 0.1;
+
+    private int nbPartitions;
+
+    private double imbalance;
+
+    private final Set<Class<? extends SatConstraint>> unbreakables;
+
+    /**
+     * The partition for each VM to launch.
+     */
+    private final TIntIntHashMap launchHints = new TIntIntHashMap();
+
+    /**
+     * Make a new partitioning algorithm that computes as many partitions as workers.
+     */
+    public ConstraintAwarePartitioning() {
+        this(0);
+    }
+
+    /**
+     * Make a new partitioning algorithm.
+     *
+     * @param nb the expected number of partitions. {@code 0} for as many partitions as workers
+     */
+    public ConstraintAwarePartitioning(int nb) {
+        super(new ArrayList<>());
+        nbPartitions = nb;
+        imbalance = DEFAULT_IMBALANCE;
+        unbreakables = new HashSet<>(Arrays.asList(Among.class, Gather.class, Seq.class, MaxOnline.class));
+    }
+
+    /**
+     * Get the expected number of partitions.
+     *
+     * @return a positive number. {@code 0} for as many partitions as workers
+     */
+    public int getPartitionsCount() {
+        return nbPartitions;
+    }
+
+    /**
+     * Set the expected number of partitions.
+     * There may be less partitions if the constraints prevent it.
+     *
+     * @param nb a positive number. {@code 0} for as many partitions as workers
+     */
+    public void setPartitionsCount(int nb) {
+        nbPartitions = nb;
+    }
+
+    /**
+     * Get the tolerated imbalance between the partitions.
+     *
+     * @return the tolerated overweight of a partition with regards to a perfect balance
+     */
+    public double getImbalance() {
+        return imbalance;
+    }
+
+    /**
+     * Set the tolerated imbalance between the partitions.
+     *
+     * @param i the tolerated overweight of a partition with regards to a perfect balance. 0.1 for 10%
+     */
+    public void setImbalance(double i) {
+        imbalance = i;
+    }
+
+    /**
+     * Get the constraints that must not be cut.
+     * The returned set can be modified.
+     *
+     * @return the classes of the constraints that must stay inside a single partition
+     */
+    public Set<Class<? extends SatConstraint>> getUnbreakableConstraints() {
+        return unbreakables;
+    }
+
+    @Override
+    protected List<Instance> split(Parameters ps, Instance i, Consumer<Instance> ready) throws SchedulerException {
+        int nb = nbPartitions > 0 ? nbPartitions : getWorkersCount();
+        setPartitions(computePartitions(i, nb));
+        return super.split(ps, i, ready);
+    }
+
+    @Override
+    protected int getLaunchPartition(VM v, int next) {
+        return launchHints.containsKey(v.id()) ? launchHints.get(v.id()) : next;
+    }
+
+    /**
+     * Compute the partitions of nodes, and where to launch the ready VMs.
+     *
+     * @param i  the instance to split
+     * @param nb the expected number of partitions
+     * @return the partitions of nodes
+     */
+    private List<Collection<Node>> computePartitions(Instance i, int nb) {
+        Model mo = i.getModel();
+        Mapping map = mo.getMapping();
+        List<Node> nodes = new ArrayList<>(map.getAllNodes());
+        List<VM> ready = new ArrayList<>(map.getReadyVMs());
+        TIntIntHashMap nodeVertex = new TIntIntHashMap(nodes.size());
+        TIntIntHashMap vmVertex = new TIntIntHashMap(ready.size());
+        for (Node n : nodes) {
+            nodeVertex.put(n.id(), nodeVertex.size());
+        }
+        for (VM v : ready) {
+            vmVertex.put(v.id(), nodes.size() + vmVertex.size());
+        }
+
+        double[] weights = new double[nodes.size() + ready.size()];
+        boolean[] anchors = new boolean[weights.length];
+        weigh(mo, nodes, ready, weights);
+        Arrays.fill(anchors, 0, nodes.size(), true);
+
+        HypergraphPartitioner hp = new HypergraphPartitioner(weights, anchors);
+        for (SatConstraint c : i.getSatConstraints()) {
+            TIntArrayList vs = new TIntArrayList();
+            for (Node n : c.getInvolvedNodes()) {
+                if (nodeVertex.containsKey(n.id())) {
+                    vs.add(nodeVertex.get(n.id()));
+                }
+            }
+            for (VM v : c.getInvolvedVMs()) {
+                Node host = map.getVMLocation(v);
+                if (host != null && nodeVertex.containsKey(host.id())) {
+                    vs.add(nodeVertex.get(host.id()));
+                } else if (vmVertex.containsKey(v.id())) {
+                    vs.add(vmVertex.get(v.id()));
+                }
+            }
+            hp.addEdge(vs.toArray(), unbreakables.contains(c.getClass()));
+        }
+
+        int[] part = hp.partition(nb, imbalance);
+        List<Collection<Node>> parts = new ArrayList<>();
+        for (int x = 0; x < nodes.size(); x++) {
+            while (parts.size() <= part[x]) {
+                parts.add(new HashSet<>());
+            }
+            parts.get(part[x]).add(nodes.get(x));
+        }
+        launchHints.clear();
+        for (int x = 0; x < ready.size(); x++) {
+            launchHints.put(ready.get(x).id(), part[nodes.size() + x]);
+        }
+        return parts;
+    }
+
+    /**
+     * Weigh the vertices.
+     * A node weighs 1 plus its number of VMs plus, for each resource, its load ratio
+     * scaled by the average number of VMs per node.
+     * A VM to launch weighs 1 plus, for each resource, its demand with regards to the average node capacity,
+     * scaled the same way.
+     */
+    private static void weigh(Model mo, List<Node> nodes, List<VM> ready, double[] weights) {
+        Mapping map = mo.getMapping();
+        List<ShareableResource> rcs = new ArrayList<>();
+        for (ModelView v : mo.getViews()) {
+            if (v instanceof ShareableResource) {
+                rcs.add((ShareableResource) v);
+            }
+        }
+        double vmsPerNode = nodes.isEmpty() ? 1 : Math.max(1.0, (double) (map.getNbVMs() - ready.size()) / nodes.size());
+        double[] meanCapa = new double[rcs.size()];
+        for (int x = 0; x < nodes.size(); x++) {
+            Node n = nodes.get(x);
+            Set<VM> running = map.getRunningVMs(n);
+            weights[x] = 1 + running.size() + map.getSleepingVMs(n).size();
+            for (int r = 0; r < rcs.size(); r++) {
+                ShareableResource rc = rcs.get(r);
+                int capa = rc.getCapacity(n);
+                meanCapa[r] += (double) capa / nodes.size();
+                if (capa > 0) {
+                    weights[x] += vmsPerNode * rc.sumConsumptions(running, true) / capa;
+                }
+            }
+        }
+        for (int x = 0; x < ready.size(); x++) {
+            weights[nodes.size() + x] = 1;
+            for (int r = 0; r < rcs.size(); r++) {
+                if (meanCapa[r] > 0) {
+                    weights[nodes.size() + x] += vmsPerNode * rcs.get(r).getConsumption(ready.get(x)) / meanCapa[r];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,575 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.runner.disjoint;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.set.hash.THashSet;
+import org.btrplace.model.ElementBuilder;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.SynchronizedElementBuilder;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlanChecker;
+import org.btrplace.plan.SatConstraintViolationException;
+import org.btrplace.plan.event.Action;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.UnstatableProblemException;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.Parameters;
+import org.btrplace.scheduler.choco.runner.InstanceSolver;
+import org.btrplace.scheduler.choco.runner.SolvingStatistics;
+import org.btrplace.scheduler.choco.runner.single.InstanceSolverRunner;
+import org.btrplace.scheduler.runner.disjoint.model.SubModel;
+import org.btrplace.scheduler.runner.disjoint.splitter.ConstraintSplitterMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A solver that decomposes an instance into disjoint sub-instances
+ * then adapts the decomposition while the sub-instances are solved in parallel.
+ * <p>
+ * The initial decomposition is computed by a {@link FixedNodeSetsPartitioning}.
+ * Before being dispatched to the workers, the partitions having more nodes than
+ * {@link #getMaxPartitionSize()} are split again while the consecutive partitions
+ * having less nodes than {@link #getMinPartitionSize()} are coalesced.
+ * <p>
+ * During the solving process:
+ * <ul>
+ * <li>a partition that hits its time limit without a solution is split in two halves</li>
+ * <li>a partition that is proven to have no solution is merged with its closest
+ * partition that is not under resolution, and the result is solved again. The original constraints
+ * are split again over the nodes of the merged partition</li>
+ * <li>each partition is dispatched with a share of the remaining time budget that depends
+ * on the number of partitions to solve and the number of workers</li>
+ * </ul>
+ * The resulting reconfiguration plan is composed by the sub reconfiguration plans of the
+ * final partitions and is checked against the original constraints. There is no solution when a partition covering the whole instance
+ * has no solution, or when the time budget is exhausted while a partition is still unsolved.
+ *
+ * @author Fabien Hermenier
+ */
+public class DynamicPartitioning implements InstanceSolver {
+
+    private final FixedNodeSetsPartitioning initial;
+
+    private int workersCount;
+
+    private int maxPartSize;
+
+    private int minPartSize;
+
+    private DynamicPartitioningStatistics stats;
+
+    private final List<InstanceSolverRunner> runners;
+
+    private volatile boolean stopped;
+
+    private Instance origin;
+
+    private Model root;
+
+    private ElementBuilder eb;
+
+    /**
+     * Make a new partitioning algorithm.
+     * The number of workers is set to the number of available cores.
+     * There is no limit on the partition size by default.
+     *
+     * @param init the partitioning algorithm that computes the initial partitions
+     */
+    public DynamicPartitioning(FixedNodeSetsPartitioning init) {
+        initial = init;
+        workersCount = Runtime.getRuntime().availableProcessors();
+        maxPartSize = Integer.MAX_VALUE;
+        minPartSize = 0;
+        runners = new ArrayList<>();
+    }
+
+    /**
+     * Get the algorithm that computes the initial partitions.
+     *
+     * @return the partitioning algorithm
+     */
+    public FixedNodeSetsPartitioning getInitialPartitioning() {
+        return initial;
+    }
+
+    /**
+     * Get the number of workers that are used to solve instances.
+     *
+     * @return a number &gt;= 1
+     */
+    public int getWorkersCount() {
+        return workersCount;
+    }
+
+    /**
+     * Set the number of workers that solve instances.
+     *
+     * @param s a number &gt;= 1
+     */
+    public void setWorkersCount(int s) {
+        this.workersCount = s;
+    }
+
+    /**
+     * Get the maximum number of nodes in a partition to dispatch.
+     *
+     * @return a number &gt;= 1
+     */
+    public int getMaxPartitionSize() {
+        return maxPartSize;
+    }
+
+    /**
+     * Set the maximum number of nodes in a partition to dispatch.
+     * Larger partitions are split before being solved.
+     *
+     * @param s a number &gt;= 1
+     */
+    public void setMaxPartitionSize(int s) {
+        this.maxPartSize = s;
+    }
+
+    /**
+     * Get the minimum number of nodes in a partition to dispatch.
+     *
+     * @return a number &gt;= 0
+     */
+    public int getMinPartitionSize() {
+        return minPartSize;
+    }
+
+    /**
+     * Set the minimum number of nodes in a partition to dispatch.
+     * Consecutive smaller partitions are coalesced before being solved.
+     *
+     * @param s a number &gt;= 0
+     */
+    public void setMinPartitionSize(int s) {
+        this.minPartSize = s;
+    }
+
+    @Override
+    public ReconfigurationPlan solve(Parameters ps, Instance orig) throws SchedulerException {
+        long start = System.currentTimeMillis();
+        stats = new DynamicPartitioningStatistics(ps, orig, start, workersCount);
+        stopped = false;
+        synchronized (runners) {
+            runners.clear();
+        }
+        long deadline = ps.getTimeLimit() > 0 ? start + ps.getTimeLimit() * 1000L : -1;
+
+        long d = -System.currentTimeMillis();
+        List<Instance> parts = initial.split(ps, orig);
+        origin = orig;
+        root = orig.getModel();
+        eb = new SynchronizedElementBuilder(root);
+        List<Partition> partitions = new ArrayList<>();
+        for (Instance i : coalesce(resize(parts))) {
+            partitions.add(new Partition(i));
+        }
+        d += System.currentTimeMillis();
+        stats.setSplittingStatistics(partitions.size(), d);
+
+        ExecutorService exe = Executors.newFixedThreadPool(workersCount);
+        CompletionService<SolvingStatistics> completionService = new ExecutorCompletionService<>(exe);
+        Map<Future<SolvingStatistics>, Partition> running = new HashMap<>();
+
+        long duration = -System.currentTimeMillis();
+        try {
+            if (!dispatch(ps, deadline, partitions, running, completionService)) {
+                return null;
+            }
+            while (!running.isEmpty()) {
+                Future<SolvingStatistics> f = completionService.take();
+                Partition p = running.remove(f);
+                SolvingStatistics result = get(f, p);
+                stats.addPartitionStatistics(result);
+                if (stopped) {
+                    continue;
+                }
+                if (!onResult(p, result, deadline, partitions)
+                        || !dispatch(ps, deadline, partitions, running, completionService)) {
+                    return null;
+                }
+            }
+            if (stopped) {
+                return null;
+            }
+            return merge(orig, partitions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SplitException(orig.getModel(), e.getMessage(), e);
+        } finally {
+            duration += System.currentTimeMillis();
+            stats.setSolvingDuration(duration);
+            stop();
+            exe.shutdown();
+        }
+    }
+
+    /**
+     * Update the partitions depending on the result of one of them.
+     *
+     * @return {@code false} iff the instance is known to have no solution
+     */
+    private boolean onResult(Partition p, SolvingStatistics result, long deadline, List<Partition> partitions) throws SchedulerException {
+        if (result.lastSolution() != null) {
+            p.state = State.SOLVED;
+            p.plan = result.lastSolution();
+            return true;
+        }
+        if (result.completed()) {
+            //Proven without solution. Will be merged as soon as possible.
+            p.state = State.INFEASIBLE;
+            return true;
+        }
+        //Timeout. Split in two halves if possible
+        if (p.nbNodes() < 2 || remainingTime(deadline) <= 0) {
+            return false;
+        }
+        int idx = partitions.indexOf(p);
+        partitions.remove(idx);
+        for (Instance i : split(p.instance, 2)) {
+            partitions.add(idx++, new Partition(i));
+        }
+        stats.incSplits();
+        return true;
+    }
+
+    /**
+     * Merge the infeasible partitions with their neighbour, then dispatch
+     * the pending partitions to the available workers.
+     *
+     * @return {@code false} iff the instance is known to have no solution
+     */
+    private boolean dispatch(Parameters ps, long deadline, List<Partition> partitions,
+                             Map<Future<SolvingStatistics>, Partition> running,
+                             CompletionService<SolvingStatistics> completionService) throws SplitException {
+
+        for (int idx = 0; idx < partitions.size(); idx++) {
+            Partition p = partitions.get(idx);
+            if (p.state != State.INFEASIBLE) {
+                continue;
+            }
+            int n = neighbour(partitions, idx);
+            if (n < 0) {
+                if (running.isEmpty()) {
+                    //The partition covers all the remaining nodes
+                    return false;
+                }
+                //Wait for a neighbour to be available
+                continue;
+            }
+            Partition q = partitions.get(n);
+            Partition m = new Partition(merge(Arrays.asList(p.instance, q.instance)));
+            int at = Math.min(idx, n);
+            partitions.remove(Math.max(idx, n));
+            partitions.set(at, m);
+            stats.incMerges();
+            idx = at;
+        }
+
+        int nbPending = 0;
+        for (Partition p : partitions) {
+            if (p.state == State.PENDING) {
+                nbPending++;
+            }
+        }
+        for (Partition p : partitions) {
+            if (running.size() >= workersCount) {
+                break;
+            }
+            if (p.state != State.PENDING) {
+                continue;
+            }
+            Parameters sub = ps;
+            if (deadline > 0) {
+                int remaining = remainingTime(deadline);
+                if (remaining <= 0) {
+                    return false;
+                }
+                //The remaining budget is shared among the waves of partitions to solve
+                int waves = (nbPending + running.size() + workersCount - 1) / workersCount;
+                sub = new DefaultParameters(ps).setTimeLimit(Math.max(1, remaining / waves));
+            }
+            InstanceSolverRunner runner = new InstanceSolverRunner(sub, p.instance);
+            synchronized (runners) {
+                runners.add(runner);
+            }
+            p.state = State.RUNNING;
+            p.runner = runner;
+            running.put(completionService.submit(runner), p);
+            nbPending--;
+        }
+        return true;
+    }
+
+    /**
+     * Get the closest partition that is not under resolution.
+     *
+     * @return the partition index. {@code -1} if there is no such partition
+     */
+    private static int neighbour(List<Partition> partitions, int idx) {
+        for (int dist = 1; dist < partitions.size(); dist++) {
+            int left = idx - dist;
+            int right = idx + dist;
+            if (left < 0 && right >= partitions.size()) {
+                break;
+            }
+            if (left >= 0 && partitions.get(left).state != State.RUNNING) {
+                return left;
+            }
+            if (right < partitions.size() && partitions.get(right).state != State.RUNNING) {
+                return right;
+            }
+        }
+        return -1;
+    }
+
+    private static int remainingTime(long deadline) {
+        return (int) ((deadline - System.currentTimeMillis()) / 1000);
+    }
+
+    private static SolvingStatistics get(Future<SolvingStatistics> f, Partition p) throws SplitException, InterruptedException {
+        try {
+            return f.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UnstatableProblemException) {
+                //Timeout without any solution
+                return p.runner.getStatistics();
+            }
+            throw new SplitException(null, ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Split the partitions that are too large.
+     */
+    private List<Instance> resize(List<Instance> parts) throws SchedulerException {
+        List<Instance> res = new ArrayList<>(parts.size());
+        for (Instance i : parts) {
+            int nb = scope(i).size();
+            if (nb > maxPartSize) {
+                res.addAll(split(i, (nb + maxPartSize - 1) / maxPartSize));
+            } else {
+                res.add(i);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Coalesce the consecutive partitions that are too small.
+     */
+    private List<Instance> coalesce(List<Instance> parts) throws SplitException {
+        List<Instance> res = new ArrayList<>(parts.size());
+        List<Instance> group = new ArrayList<>();
+        int size = 0;
+        for (Instance i : parts) {
+            int nb = scope(i).size();
+            if (!group.isEmpty() && (size >= minPartSize || size + nb > maxPartSize)) {
+                res.add(merge(group));
+                group.clear();
+                size = 0;
+            }
+            if (!group.isEmpty()) {
+                stats.incMerges();
+            }
+            group.add(i);
+            size += nb;
+        }
+        if (!group.isEmpty()) {
+            res.add(merge(group));
+        }
+        return res;
+    }
+
+    /**
+     * Split a partition into multiple partitions having
+     * the same number of nodes.
+     *
+     * @param i  the partition to split
+     * @param nb the number of partitions to make
+     * @return the resulting partitions
+     * @throws SplitException if a constraint cannot be split
+     */
+    private List<Instance> split(Instance i, int nb) throws SplitException {
+        List<Node> nodes = new ArrayList<>(scope(i));
+        nodes.sort(Comparator.comparingInt(Node::id));
+        int chunk = (nodes.size() + nb - 1) / nb;
+
+        //Round-robin placement for the VMs to launch
+        List<Set<VM>> readies = new ArrayList<>(nb);
+        for (int k = 0; k < nb; k++) {
+            readies.add(new THashSet<>());
+        }
+        int p = 0;
+        for (VM v : i.getModel().getMapping().getReadyVMs()) {
+            readies.get(p).add(v);
+            p = (p + 1) % nb;
+        }
+
+        List<Instance> parts = new ArrayList<>(nb);
+        TIntIntHashMap vmPosition = new TIntIntHashMap();
+        TIntIntHashMap nodePosition = new TIntIntHashMap();
+        for (int k = 0; k < nb; k++) {
+            List<Node> s = nodes.subList(Math.min(k * chunk, nodes.size()), Math.min((k + 1) * chunk, nodes.size()));
+            SubModel partModel = new SubModel(root, eb, new ArrayList<>(s), readies.get(k));
+            parts.add(new Instance(partModel, new THashSet<>(), i.getOptConstraint()));
+            partModel.getMapping().fillVMIndex(vmPosition, k);
+            for (Node n : s) {
+                nodePosition.put(n.id(), k);
+            }
+        }
+
+        ConstraintSplitterMapper mapper = initial.getSplitterMapper();
+        for (SatConstraint cstr : i.getSatConstraints()) {
+            if (!mapper.split(cstr, i, parts, vmPosition, nodePosition)) {
+                throw new SplitException(i.getModel(), "Unable to split " + cstr);
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Merge partitions. The resulting partition contains the nodes and the VMs of
+     * all the partitions. Its constraints are obtained by splitting again the original
+     * constraints, so the constraints that were cut between the partitions are enforced.
+     *
+     * @param group the partitions to merge
+     * @return the resulting partition
+     * @throws SplitException if a constraint cannot be split
+     */
+    private Instance merge(List<Instance> group) throws SplitException {
+        if (group.size() == 1) {
+            return group.get(0);
+        }
+        Set<Node> nodes = new THashSet<>();
+        Set<VM> ready = new THashSet<>();
+        for (Instance i : group) {
+            nodes.addAll(scope(i));
+            ready.addAll(i.getModel().getMapping().getReadyVMs());
+        }
+        SubModel mo = new SubModel(root, eb, nodes, ready);
+        Instance merged = new Instance(mo, new THashSet<>(), origin.getOptConstraint());
+
+        //The elements that are not indexed are in the first partition, which is then ignored
+        Instance rest = new Instance(root, new THashSet<>(), origin.getOptConstraint());
+        List<Instance> parts = Arrays.asList(rest, merged);
+        TIntIntHashMap vmPosition = new TIntIntHashMap();
+        TIntIntHashMap nodePosition = new TIntIntHashMap();
+        mo.getMapping().fillVMIndex(vmPosition, 1);
+        for (Node n : nodes) {
+            nodePosition.put(n.id(), 1);
+        }
+        ConstraintSplitterMapper mapper = initial.getSplitterMapper();
+        for (SatConstraint cstr : origin.getSatConstraints()) {
+            if (!mapper.split(cstr, origin, parts, vmPosition, nodePosition)) {
+                throw new SplitException(root, "Unable to split " + cstr);
+            }
+        }
+        return merged;
+    }
+
+    private static Collection<Node> scope(Instance i) {
+        return ((SubModel) i.getModel()).getScope();
+    }
+
+    /**
+     * Make the union of the sub-plans and check it against the original constraints.
+     *
+     * @param i          the original instance
+     * @param partitions the solved partitions
+     * @return the resulting plan
+     * @throws SplitException if the sub-plans cannot be merged or if the resulting plan violates a constraint
+     */
+    private ReconfigurationPlan merge(Instance i, List<Partition> partitions) throws SplitException {
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(i.getModel());
+        for (Partition p : partitions) {
+            for (Action a : p.plan) {
+                if (!plan.add(a)) {
+                    throw new SplitException(plan.getOrigin(),
+                            "Unable to add action '" + a + "' while merging the sub-plans");
+                }
+            }
+        }
+        ReconfigurationPlanChecker chk = new ReconfigurationPlanChecker();
+        for (SatConstraint c : i.getSatConstraints()) {
+            chk.addChecker(c.getChecker());
+        }
+        try {
+            chk.check(plan);
+        } catch (SatConstraintViolationException ex) {
+            throw new SplitException(plan.getOrigin(), "The merged plan violates " + ex.getConstraint(), ex);
+        }
+        return plan;
+    }
+
+    @Override
+    public DynamicPartitioningStatistics getStatistics() {
+        return stats;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        synchronized (runners) {
+            for (InstanceSolverRunner runner : runners) {
+                runner.stop();
+            }
+        }
+    }
+
+    /**
+     * The possible states for a partition.
+     */
+    private enum State {
+        PENDING, RUNNING, SOLVED, INFEASIBLE
+    }
+
+    /**
+     * A partition and its solving state.
+     */
+    private static class Partition {
+
+        private final Instance instance;
+
+        private State state;
+
+        private ReconfigurationPlan plan;
+
+        private InstanceSolverRunner runner;
+
+        Partition(Instance i) {
+            instance = i;
+            state = State.PENDING;
+        }
+
+        int nbNodes() {
+            return scope(instance).size();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.runner.disjoint;
+
+import org.btrplace.model.Instance;
+import org.btrplace.scheduler.choco.Parameters;
+
+/**
+ * Statistics for a solving process partitioned dynamically.
+ * Each solving attempt of a partition is reported as a partition result.
+ *
+ * @author Fabien Hermenier
+ */
+public class DynamicPartitioningStatistics extends StaticPartitioningStatistics {
+
+    private int nbSplits;
+
+    private int nbMerges;
+
+    /**
+     * Make the statistics.
+     *
+     * @param ps the scheduler parameters
+     * @param i  the instance to solve;
+     * @param st the moment the computation starts (epoch format)
+     * @param w  the number of workers to solve the partitions in parallel
+     */
+    public DynamicPartitioningStatistics(Parameters ps, Instance i, long st, int w) {
+        super(ps, i, st, w);
+    }
+
+    /**
+     * Get the number of partitions that have been split after a timeout.
+     *
+     * @return a number &gt;= 0
+     */
+    public int getNbSplits() {
+        return nbSplits;
+    }
+
+    /**
+     * Get the number of partitions that have been merged, either
+     * when they were coalesced or after being proven without solution.
+     *
+     * @return a number &gt;= 0
+     */
+    public int getNbMerges() {
+        return nbMerges;
+    }
+
+    /**
+     * Notify a partition has been split.
+     */
+    public void incSplits() {
+        nbSplits++;
+    }
+
+    /**
+     * Notify two partitions have been merged.
+     */
+    public void incMerges() {
+        nbMerges++;
+    }
+}
@@ -27,6 +27,13 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
 
 /**
  * A partitioning algorithm to split an instance
@@ -40,6 +47,12 @@ import java.util.Set;
  * splitters available through the {@link ConstraintSplitterMapper}.
  * The {@link org.btrplace.model.constraint.OptConstraint} is re-used
  * for each sub-instance.
+ * <p>
+ * The sub-models are built and the constraints are split concurrently, using
+ * as many threads as workers. A sub-instance is handed over to the solving
+ * process as soon as all the constraints involving its elements have been split,
+ * so a splitter must only add constraints to the partitions hosting the elements
+ * involved in the constraint to split.
  *
  * @author Fabien Hermenier
  */
@@ -110,54 +123,235 @@ public class FixedNodeSetsPartitioning extends StaticPartitioning {
 
     @Override
     public List<Instance> split(Parameters ps, Instance i) throws SchedulerException {
-        Model mo = i.getModel();
-
-        SynchronizedElementBuilder eb = new SynchronizedElementBuilder(mo);
-
-        List<Instance> parts = new ArrayList<>(partitions.size());
+        return split(ps, i, p -> {
+        });
+    }
 
-        //nb of VMs
+    @Override
+    protected List<Instance> split(Parameters ps, Instance i, Consumer<Instance> ready) throws SchedulerException {
         int nbVMs = i.getModel().getMapping().getNbVMs();
         int nbNodes = i.getModel().getMapping().getNbNodes();
         TIntIntHashMap vmPosition = new TIntIntHashMap(nbVMs);
         TIntIntHashMap nodePosition = new TIntIntHashMap(nbNodes);
 
-        int partNumber = 0;
+        ExecutorService exe = Executors.newFixedThreadPool(Math.max(1, getWorkersCount()));
+        try {
+            List<Instance> parts = buildSubInstances(exe, i, vmPosition, nodePosition);
+            splitConstraints(exe, i, parts, vmPosition, nodePosition, ready);
+            return parts;
+        } finally {
+            exe.shutdownNow();
+        }
+    }
 
+    /**
+     * Build the sub-instances, one per node partition, along with the VM and the node indexes.
+     * The sub-models are built concurrently, the VMs to launch are then dispatched in a round-robin manner.
+     *
+     * @param exe          the executor to rely on
+     * @param i            the instance to split
+     * @param vmPosition   the index to fill with the partition of each VM
+     * @param nodePosition the index to fill with the partition of each node
+     * @return the sub-instances, without any constraints
+     */
+    private List<Instance> buildSubInstances(ExecutorService exe, Instance i, TIntIntHashMap vmPosition, TIntIntHashMap nodePosition) {
+        Model mo = i.getModel();
+        SynchronizedElementBuilder eb = new SynchronizedElementBuilder(mo);
         Set<VM> toLaunch = getVMsToLaunch(i);
 
-        for (Collection<Node> s : partitions) {
-            SubModel partModel = new SubModel(mo, eb, s, new HashSet<>(toLaunch.size() / partitions.size()));
-
-            parts.add(new Instance(partModel, new THashSet<>(), i.getOptConstraint()));
+        List<Collection<Node>> scopes = new ArrayList<>(partitions);
+        List<Callable<Instance>> builders = new ArrayList<>(scopes.size());
+        for (Collection<Node> s : scopes) {
+            builders.add(() -> {
+                SubModel partModel = new SubModel(mo, eb, s, new HashSet<>(toLaunch.size() / scopes.size()));
+                return new Instance(partModel, new THashSet<>(), i.getOptConstraint());
+            });
+        }
+        List<Instance> parts = await(mo, exe, builders);
 
-            //VM Index
-            partModel.getMapping().fillVMIndex(vmPosition, partNumber);
-            //Node index
-            for (Node n : s) {
-                nodePosition.put(n.id(), partNumber);
+        //The indexes are filled once every sub-model is ready
+        for (int p = 0; p < parts.size(); p++) {
+            ((SubModel) parts.get(p).getModel()).getMapping().fillVMIndex(vmPosition, p);
+            for (Node n : scopes.get(p)) {
+                nodePosition.put(n.id(), p);
             }
-            partNumber++;
         }
 
-        //Round-robin placement for the VMs to launch
+        //Round-robin placement for the VMs to launch, unless stated otherwise
         int p = 0;
         for (VM v : toLaunch) {
-            if (!parts.get(p).getModel().getMapping().addReadyVM(v)) {
-                throw new SplitException(parts.get(p).getModel(), "Unable to dispatch the VM to launch '" + v + "'");
+            int dst = getLaunchPartition(v, p);
+            if (!parts.get(dst).getModel().getMapping().addReadyVM(v)) {
+                throw new SplitException(parts.get(dst).getModel(), "Unable to dispatch the VM to launch '" + v + "'");
             }
-            vmPosition.put(v.id(), p);
+            vmPosition.put(v.id(), dst);
             p = (p + 1) % parts.size();
         }
+        return parts;
+    }
 
-        //Split the constraints
-        for (SatConstraint cstr : i.getSatConstraints()) {
-            if (!cstrMapper.split(cstr, i, parts, vmPosition, nodePosition)) {
-                throw new SplitException(i.getModel(), "Unable to split " + cstr);
+    /**
+     * Split the constraints concurrently.
+     * The constraints are sharded among the workers. Each worker splits its constraints into its own
+     * queue per sub-instance. A sub-instance is handed over once all the constraints that may concern it,
+     * i.e. that involve one of its elements, have been split.
+     *
+     * @param exe          the executor to rely on
+     * @param i            the instance to split
+     * @param parts        the sub-instances
+     * @param vmPosition   the partition of each VM
+     * @param nodePosition the partition of each node
+     * @param ready        the consumer receiving each complete sub-instance
+     */
+    private void splitConstraints(ExecutorService exe, Instance i, List<Instance> parts,
+                                  TIntIntHashMap vmPosition, TIntIntHashMap nodePosition, Consumer<Instance> ready) {
+        Model mo = i.getModel();
+        List<SatConstraint> cstrs = new ArrayList<>(i.getSatConstraints());
+        int nbWorkers = Math.max(1, Math.min(getWorkersCount(), cstrs.size()));
+        int shard = (cstrs.size() + nbWorkers - 1) / nbWorkers;
+
+        //The partitions concerned by each constraint and the number of constraints for each partition
+        int[][] concerned = new int[cstrs.size()][];
+        List<Callable<int[]>> counters = new ArrayList<>(nbWorkers);
+        for (int w = 0; w < nbWorkers; w++) {
+            int from = w * shard;
+            int to = Math.min(cstrs.size(), from + shard);
+            counters.add(() -> {
+                int[] nb = new int[parts.size()];
+                for (int c = from; c < to; c++) {
+                    concerned[c] = concernedPartitions(cstrs.get(c), parts.size(), vmPosition, nodePosition);
+                    for (int p : concerned[c]) {
+                        nb[p]++;
+                    }
+                }
+                return nb;
+            });
+        }
+        AtomicIntegerArray pending = new AtomicIntegerArray(parts.size());
+        for (int[] nb : await(mo, exe, counters)) {
+            for (int p = 0; p < nb.length; p++) {
+                pending.addAndGet(p, nb[p]);
             }
         }
 
-        return parts;
+        List<List<Instance>> queues = new ArrayList<>(nbWorkers);
+        for (int w = 0; w < nbWorkers; w++) {
+            List<Instance> q = new ArrayList<>(parts.size());
+            for (Instance part : parts) {
+                q.add(new Instance(part.getModel(), new THashSet<>(), i.getOptConstraint()));
+            }
+            queues.add(q);
+        }
+
+        //Sub-instances without any constraint are ready right now
+        for (int p = 0; p < parts.size(); p++) {
+            if (pending.get(p) == 0) {
+                ready.accept(parts.get(p));
+            }
+        }
+
+        List<Callable<Void>> splitters = new ArrayList<>(nbWorkers);
+        for (int w = 0; w < nbWorkers; w++) {
+            int from = w * shard;
+            int to = Math.min(cstrs.size(), from + shard);
+            List<Instance> q = queues.get(w);
+            splitters.add(() -> {
+                for (int c = from; c < to; c++) {
+                    SatConstraint cstr = cstrs.get(c);
+                    if (!cstrMapper.split(cstr, i, q, vmPosition, nodePosition)) {
+                        throw new SplitException(mo, "Unable to split " + cstr);
+                    }
+                    for (int p : concerned[c]) {
+                        if (pending.decrementAndGet(p) == 0) {
+                            //No more constraints to come for that partition
+                            Instance part = parts.get(p);
+                            for (List<Instance> other : queues) {
+                                part.getSatConstraints().addAll(other.get(p).getSatConstraints());
+                            }
+                            ready.accept(part);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        await(mo, exe, splitters);
+    }
+
+    /**
+     * Get the partitions that may be concerned by a constraint.
+     * These are the partitions hosting the elements involved in the constraint.
+     * All the partitions are concerned when no element is involved or when an element is not indexed.
+     *
+     * @param c            the constraint
+     * @param nbParts      the number of partitions
+     * @param vmPosition   the partition of each VM
+     * @param nodePosition the partition of each node
+     * @return the partition indexes, without duplicates
+     */
+    private static int[] concernedPartitions(SatConstraint c, int nbParts, TIntIntHashMap vmPosition, TIntIntHashMap nodePosition) {
+        TIntHashSet s = new TIntHashSet();
+        for (VM v : c.getInvolvedVMs()) {
+            if (!vmPosition.containsKey(v.id())) {
+                return allPartitions(nbParts);
+            }
+            s.add(vmPosition.get(v.id()));
+        }
+        for (Node n : c.getInvolvedNodes()) {
+            if (!nodePosition.containsKey(n.id())) {
+                return allPartitions(nbParts);
+            }
+            s.add(nodePosition.get(n.id()));
+        }
+        return s.isEmpty() ? allPartitions(nbParts) : s.toArray();
+    }
+
+    private static int[] allPartitions(int nbParts) {
+        int[] all = new int[nbParts];
+        for (int p = 0; p < nbParts; p++) {
+            all[p] = p;
+        }
+        return all;
+    }
+
+    /**
+     * Execute tasks and wait for their results.
+     *
+     * @param mo    the model being split
+     * @param exe   the executor to rely on
+     * @param tasks the tasks to execute
+     * @param <T>   the result type
+     * @return the results, in the order of the tasks
+     * @throws SchedulerException the exception thrown by a failing task
+     */
+    private static <T> List<T> await(Model mo, ExecutorService exe, List<Callable<T>> tasks) {
+        List<T> res = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> f : exe.invokeAll(tasks)) {
+                res.add(f.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SchedulerException) {
+                throw (SchedulerException) e.getCause();
+            }
+            throw new SplitException(mo, e.getCause().getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SplitException(mo, e.getMessage(), e);
+        }
+        return res;
+    }
+
+    /**
+     * Get the partition that will host a VM to launch.
+     * By default, the VMs are dispatched in a round-robin manner.
+     *
+     * @param v    the VM to launch
+     * @param next the partition that is next in the round-robin order
+     * @return the index of the partition in {@link #getPartitions()}
+     */
+    protected int getLaunchPartition(VM v, int next) {
+        return next;
     }
 
     private Set<VM> getVMsToLaunch(Instance i) {
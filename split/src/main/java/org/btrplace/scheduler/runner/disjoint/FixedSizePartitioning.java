@@ -19,6 +19,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * An extension of {@link FixedNodeSetsPartitioning} where
@@ -64,11 +65,11 @@ public class FixedSizePartitioning extends FixedNodeSetsPartitioning {
     }
 
     @Override
-    public List<Instance> split(Parameters ps, Instance i) throws SchedulerException {
+    protected List<Instance> split(Parameters ps, Instance i, Consumer<Instance> ready) throws SchedulerException {
         Mapping map = i.getModel().getMapping();
 
         setPartitions(random ? randomPartitions(ps.getRandomSeed(), map) : linearPartitions(map));
-        return super.split(ps, i);
+        return super.split(ps, i, ready);
     }
 
 
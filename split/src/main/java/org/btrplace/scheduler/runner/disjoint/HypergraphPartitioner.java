@@ -0,0 +1,321 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.runner.disjoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * A balanced min-cut partitioner for weighted hypergraphs.
+ * <p>
+ * Vertices joined by a hard hyperedge always end in the same part. They are first
+ * merged into atoms. The atoms are then dispatched by growing each part from its heaviest
+ * free atom, preferring the atoms that share the most soft hyperedges with the part, until the
+ * part reaches its share of the total weight. A refinement pass finally moves the atoms
+ * that reduce the number of parts spanned by the soft hyperedges while preserving the balance.
+ * <p>
+ * Each resulting part contains at least one anchor vertex.
+ *
+ * @author Fabien Hermenier
+ */
+class HypergraphPartitioner {
+
+    private final double[] weights;
+
+    private final boolean[] anchors;
+
+    private final int[] parent;
+
+    private final List<int[]> softEdges = new ArrayList<>();
+
+    /**
+     * New partitioner.
+     *
+     * @param weights the weight of each vertex
+     * @param anchors the vertices that must be spread so that every part contains at least one
+     */
+    HypergraphPartitioner(double[] weights, boolean[] anchors) {
+        this.weights = weights;
+        this.anchors = anchors;
+        parent = IntStream.range(0, weights.length).toArray();
+    }
+
+    private int root(int v) {
+        int r = v;
+        while (parent[r] != r) {
+            r = parent[r];
+        }
+        //Path compression
+        while (parent[v] != r) {
+            int next = parent[v];
+            parent[v] = r;
+            v = next;
+        }
+        return r;
+    }
+
+    /**
+     * Add a hyperedge.
+     *
+     * @param vertices the vertices joined by the hyperedge
+     * @param hard     {@code true} if the vertices must end in the same part
+     */
+    void addEdge(int[] vertices, boolean hard) {
+        if (vertices.length < 2) {
+            return;
+        }
+        if (hard) {
+            int r = root(vertices[0]);
+            for (int i = 1; i < vertices.length; i++) {
+                int o = root(vertices[i]);
+                if (o != r) {
+                    parent[o] = r;
+                }
+            }
+        } else {
+            softEdges.add(vertices);
+        }
+    }
+
+    /**
+     * Compute the partition.
+     *
+     * @param nbParts   the expected number of parts
+     * @param imbalance the tolerated overweight of a part with regards to a perfect balance. 0.1 for 10%
+     * @return the part of each vertex. The parts are numbered from 0 without holes.
+     * There may be less parts than expected when the hard hyperedges or the anchors prevent it
+     */
+    int[] partition(int nbParts, double imbalance) {
+        //The atoms
+        int[] atomOf = new int[weights.length];
+        int[] atomIdx = new int[weights.length];
+        Arrays.fill(atomIdx, -1);
+        int nbAtoms = 0;
+        for (int v = 0; v < weights.length; v++) {
+            int r = root(v);
+            if (atomIdx[r] < 0) {
+                atomIdx[r] = nbAtoms++;
+            }
+            atomOf[v] = atomIdx[r];
+        }
+        double[] atomWeight = new double[nbAtoms];
+        boolean[] anchored = new boolean[nbAtoms];
+        double total = 0;
+        for (int v = 0; v < weights.length; v++) {
+            atomWeight[atomOf[v]] += weights[v];
+            anchored[atomOf[v]] |= anchors[v];
+            total += weights[v];
+        }
+
+        //The soft hyperedges over the atoms, without the inner ones
+        List<int[]> edges = new ArrayList<>();
+        int[] mark = new int[nbAtoms];
+        Arrays.fill(mark, -1);
+        for (int[] e : softEdges) {
+            int[] as = new int[e.length];
+            int nb = 0;
+            for (int v : e) {
+                int a = atomOf[v];
+                if (mark[a] != edges.size()) {
+                    mark[a] = edges.size();
+                    as[nb++] = a;
+                }
+            }
+            if (nb >= 2) {
+                edges.add(Arrays.copyOf(as, nb));
+            }
+        }
+        int[][] incident = incidence(edges, nbAtoms);
+
+        int k = Math.max(1, nbParts);
+        double target = total / k;
+        double maxLoad = target * (1 + imbalance);
+        int[] part = new int[nbAtoms];
+        Arrays.fill(part, -1);
+        double[] load = new double[k];
+        grow(k, target, maxLoad, atomWeight, edges, incident, part, load);
+        refine(k, maxLoad, atomWeight, edges, incident, part, load);
+        return relabel(k, anchored, atomOf, part, load, atomWeight);
+    }
+
+    private static int[][] incidence(List<int[]> edges, int nbAtoms) {
+        int[] deg = new int[nbAtoms];
+        for (int[] e : edges) {
+            for (int a : e) {
+                deg[a]++;
+            }
+        }
+        int[][] incident = new int[nbAtoms][];
+        for (int a = 0; a < nbAtoms; a++) {
+            incident[a] = new int[deg[a]];
+            deg[a] = 0;
+        }
+        for (int x = 0; x < edges.size(); x++) {
+            for (int a : edges.get(x)) {
+                incident[a][deg[a]++] = x;
+            }
+        }
+        return incident;
+    }
+
+    /**
+     * Greedy growing of each part.
+     */
+    private static void grow(int k, double target, double maxLoad, double[] atomWeight, List<int[]> edges,
+                             int[][] incident, int[] part, double[] load) {
+        int nbAtoms = atomWeight.length;
+        Integer[] heaviest = new Integer[nbAtoms];
+        for (int a = 0; a < nbAtoms; a++) {
+            heaviest[a] = a;
+        }
+        Arrays.sort(heaviest, Comparator.comparingDouble((Integer a) -> atomWeight[a]).reversed());
+        int cursor = 0;
+
+        int[] gain = new int[nbAtoms];
+        int[] edgeSeen = new int[edges.size()];
+        Arrays.fill(edgeSeen, -1);
+        for (int p = 0; p < k; p++) {
+            boolean last = p == k - 1;
+            List<Integer> touched = new ArrayList<>();
+            //Max-heap of (gain, atom), lazily invalidated
+            PriorityQueue<long[]> frontier = new PriorityQueue<>((x, y) -> Long.compare(y[0], x[0]));
+            while (last || load[p] < target) {
+                int next = -1;
+                while (!frontier.isEmpty() && next < 0) {
+                    long[] c = frontier.poll();
+                    int a = (int) c[1];
+                    if (part[a] < 0 && gain[a] == c[0]) {
+                        next = a;
+                    }
+                }
+                if (next < 0) {
+                    //Disconnected, restart from the heaviest free atom
+                    while (cursor < nbAtoms && part[heaviest[cursor]] >= 0) {
+                        cursor++;
+                    }
+                    if (cursor == nbAtoms) {
+                        break;
+                    }
+                    next = heaviest[cursor];
+                }
+                if (!last && load[p] > 0 && load[p] + atomWeight[next] > maxLoad) {
+                    break;
+                }
+                part[next] = p;
+                load[p] += atomWeight[next];
+                for (int x : incident[next]) {
+                    if (edgeSeen[x] == p) {
+                        continue;
+                    }
+                    edgeSeen[x] = p;
+                    for (int b : edges.get(x)) {
+                        if (part[b] < 0) {
+                            if (gain[b] == 0) {
+                                touched.add(b);
+                            }
+                            gain[b]++;
+                            frontier.add(new long[]{gain[b], b});
+                        }
+                    }
+                }
+            }
+            for (int a : touched) {
+                gain[a] = 0;
+            }
+        }
+    }
+
+    /**
+     * Move the atoms that reduce the number of parts spanned by the hyperedges.
+     */
+    private static void refine(int k, double maxLoad, double[] atomWeight, List<int[]> edges,
+                               int[][] incident, int[] part, double[] load) {
+        int[][] spread = new int[edges.size()][k];
+        int[] size = new int[k];
+        for (int x = 0; x < edges.size(); x++) {
+            for (int a : edges.get(x)) {
+                spread[x][part[a]]++;
+            }
+        }
+        for (int p : part) {
+            size[p]++;
+        }
+        int[] moveGain = new int[k];
+        for (int a = 0; a < part.length; a++) {
+            int from = part[a];
+            if (incident[a].length == 0 || size[from] == 1) {
+                continue;
+            }
+            Arrays.fill(moveGain, 0);
+            for (int x : incident[a]) {
+                int leave = spread[x][from] == 1 ? 1 : 0;
+                for (int q = 0; q < k; q++) {
+                    if (q != from) {
+                        moveGain[q] += leave - (spread[x][q] == 0 ? 1 : 0);
+                    }
+                }
+            }
+            int best = -1;
+            for (int q = 0; q < k; q++) {
+                if (q != from && moveGain[q] > 0 && load[q] + atomWeight[a] <= maxLoad
+                        && (best < 0 || moveGain[q] > moveGain[best])) {
+                    best = q;
+                }
+            }
+            if (best >= 0) {
+                for (int x : incident[a]) {
+                    spread[x][from]--;
+                    spread[x][best]++;
+                }
+                load[from] -= atomWeight[a];
+                load[best] += atomWeight[a];
+                size[from]--;
+                size[best]++;
+                part[a] = best;
+            }
+        }
+    }
+
+    /**
+     * Merge the parts without anchors into the lightest anchored part,
+     * and number the remaining parts without holes.
+     */
+    private static int[] relabel(int k, boolean[] anchored, int[] atomOf, int[] part, double[] load, double[] atomWeight) {
+        boolean[] hasAnchor = new boolean[k];
+        for (int a = 0; a < part.length; a++) {
+            hasAnchor[part[a]] |= anchored[a];
+        }
+        int lightest = -1;
+        for (int p = 0; p < k; p++) {
+            if (hasAnchor[p] && (lightest < 0 || load[p] < load[lightest])) {
+                lightest = p;
+            }
+        }
+        int[] label = new int[k];
+        Arrays.fill(label, -1);
+        int nb = 0;
+        for (int a = 0; a < part.length; a++) {
+            if (!hasAnchor[part[a]] && lightest >= 0) {
+                load[part[a]] -= atomWeight[a];
+                load[lightest] += atomWeight[a];
+                part[a] = lightest;
+            }
+            if (label[part[a]] < 0) {
+                label[part[a]] = nb++;
+            }
+        }
+        int[] res = new int[atomOf.length];
+        for (int v = 0; v < atomOf.length; v++) {
+            res[v] = label[part[atomOf[v]]];
+        }
+        return res;
+    }
+}
@@ -6,34 +6,69 @@
 
 package org.btrplace.scheduler.runner.disjoint;
 
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.set.hash.THashSet;
 import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.SynchronizedElementBuilder;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Offline;
+import org.btrplace.model.constraint.Online;
+import org.btrplace.model.constraint.Ready;
+import org.btrplace.model.constraint.Root;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.Sleeping;
 import org.btrplace.plan.DefaultReconfigurationPlan;
 import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlanChecker;
+import org.btrplace.plan.SatConstraintViolationException;
 import org.btrplace.plan.event.Action;
 import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.UnstatableProblemException;
+import org.btrplace.scheduler.choco.DefaultParameters;
 import org.btrplace.scheduler.choco.Parameters;
 import org.btrplace.scheduler.choco.runner.InstanceSolver;
 import org.btrplace.scheduler.choco.runner.SolvingStatistics;
 import org.btrplace.scheduler.choco.runner.single.InstanceSolverRunner;
+import org.btrplace.scheduler.runner.disjoint.model.SubModel;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * An abstract solver that decompose statically an instance
  * into multiple disjoint sub-instances than are solved in parallel.
  * <p>
  * The resulting reconfiguration plan is composed by all the sub
- * reconfiguration plans. Each sub-instance must then have a solution.
+ * reconfiguration plans.
  * <p>
  * The solving process relies on a master/worker paradigm with a number
  * of workers equals to the number of available cores by default.
+ * A sub-instance is solved as soon as the splitting process reports it as ready.
+ * <p>
+ * Once every sub-instance is solved, the sub-plans are merged and checked against the
+ * original constraints. The sub-instances without a solution or involved in a violated
+ * constraint are then repaired: they are solved again as a single instance, along with the
+ * original constraints involving them and the spare nodes borrowed from their neighbours.
+ * A spare node is a node that hosts no VM and whose state is not changed by the sub-plan of its
+ * partition. The sub-plans of the solved partitions are kept: their nodes and VMs involved in
+ * a constraint of the repair are added to it at their planned state and cannot be changed.
+ * The repair only gets the time left from the original time limit.
  *
  * @author Fabien Hermenier
  */
@@ -45,12 +80,56 @@ public abstract class StaticPartitioning implements InstanceSolver {
 
     private List<InstanceSolverRunner> runners;
 
+    private boolean repair;
+
+    private int repairNeighbours;
+
     /**
      * Make a new partitioning algorithm.
      * The number of workers is set to the number of available cores.
+     * The merge repair is enabled and borrows spare nodes from one neighbour on each side.
      */
     public StaticPartitioning() {
         workersCount = Runtime.getRuntime().availableProcessors();
+        repair = true;
+        repairNeighbours = 1;
+    }
+
+    /**
+     * Indicate if the failing partitions are repaired while merging the sub-plans.
+     *
+     * @return {@code true} iff the repair is enabled
+     */
+    public boolean doMergeRepair() {
+        return repair;
+    }
+
+    /**
+     * Enable or disable the repair of the failing partitions while merging the sub-plans.
+     * When disabled, there is no solution as soon as one partition has no solution.
+     *
+     * @param b {@code true} to enable the repair
+     */
+    public void doMergeRepair(boolean b) {
+        repair = b;
+    }
+
+    /**
+     * Get the number of neighbours, on each side of a failing partition, that lend their spare nodes.
+     *
+     * @return a number &gt;= 0
+     */
+    public int getRepairNeighbours() {
+        return repairNeighbours;
+    }
+
+    /**
+     * Set the number of neighbours, on each side of a failing partition, that lend their spare nodes.
+     *
+     * @param nb a number &gt;= 0
+     */
+    public void setRepairNeighbours(int nb) {
+        repairNeighbours = nb;
     }
 
     /**
@@ -74,31 +153,44 @@ public abstract class StaticPartitioning implements InstanceSolver {
 
     @Override
     public ReconfigurationPlan solve(Parameters cra, Instance orig) throws SchedulerException {
-        stats = new StaticPartitioningStatistics(cra, orig, System.currentTimeMillis(), workersCount);
-        long d = -System.currentTimeMillis();
-        List<Instance> partitions = split(cra, orig);
-        d += System.currentTimeMillis();
-
-        stats.setSplittingStatistics(partitions.size(), d);
+        long start = System.currentTimeMillis();
+        long deadline = cra.getTimeLimit() > 0 ? start + cra.getTimeLimit() * 1000L : -1;
+        stats = new StaticPartitioningStatistics(cra, orig, start, workersCount);
         ExecutorService exe = Executors.newFixedThreadPool(this.workersCount);
         CompletionService<SolvingStatistics> completionService = new ExecutorCompletionService<>(exe);
-        List<SolvingStatistics> results = new ArrayList<>(partitions.size());
-
+        runners = new CopyOnWriteArrayList<>();
+        Map<Future<SolvingStatistics>, Instance> submitted = new ConcurrentHashMap<>();
 
-        runners = new ArrayList<>();
+        //The sub-instances are solved as soon as they are ready
         long duration = -System.currentTimeMillis();
-        for (Instance partition : partitions) {
-            InstanceSolverRunner runner = new InstanceSolverRunner(cra, partition);
-            completionService.submit(runner);
-            runners.add(runner);
+        long d = -System.currentTimeMillis();
+        List<Instance> partitions;
+        try {
+            partitions = split(cra, orig, partition -> {
+                InstanceSolverRunner runner = new InstanceSolverRunner(cra, partition);
+                runners.add(runner);
+                submitted.put(completionService.submit(runner), partition);
+            });
+        } catch (SchedulerException e) {
+            stop();
+            exe.shutdownNow();
+            throw e;
         }
+        d += System.currentTimeMillis();
+        stats.setSplittingStatistics(partitions.size(), d);
 
+        Map<Instance, SolvingStatistics> results = new IdentityHashMap<>(partitions.size());
         for (int i = 0; i < partitions.size(); i++) {
+            Future<SolvingStatistics> f = null;
             try {
-                results.add(completionService.take().get());
+                f = completionService.take();
+                results.put(submitted.get(f), f.get());
             } catch (ExecutionException ignore) {
                 Throwable cause = ignore.getCause();
-                if (cause != null) {
+                if (cause instanceof UnstatableProblemException) {
+                    //Timeout without any solution
+                    results.put(submitted.get(f), runnerOf(submitted.get(f)).getStatistics());
+                } else if (cause != null) {
                     throw new SplitException(null, cause.getMessage(), ignore);
                 }
             } catch (InterruptedException e) {
@@ -106,32 +198,326 @@ public abstract class StaticPartitioning implements InstanceSolver {
                 throw new SplitException(orig.getModel(), e.getMessage(), e);
             }
         }
-        duration += System.currentTimeMillis();
-        stats.setSolvingDuration(duration);
         exe.shutdown();
+        try {
+            return merge(cra, orig, partitions, results, deadline);
+        } finally {
+            duration += System.currentTimeMillis();
+            stats.setSolvingDuration(duration);
+        }
+    }
+
+    /**
+     * Merge the sub-plans and repair the failing partitions.
+     *
+     * @param ps         the solver parameters
+     * @param i          the original instance
+     * @param partitions the partitions
+     * @param results    the solving result of each partition
+     * @param deadline   the date, in milliseconds, the solving process must end. {@code -1} if there is no time limit
+     * @return the merged plan. {@code null} if there is no solution
+     * @throws SchedulerException if an error occurred while merging or repairing
+     */
+    private ReconfigurationPlan merge(Parameters ps, Instance i, List<Instance> partitions,
+                                      Map<Instance, SolvingStatistics> results, long deadline) throws SchedulerException {
+        TIntIntHashMap vmPart = new TIntIntHashMap();
+        TIntIntHashMap nodePart = new TIntIntHashMap();
+        boolean[] bad = new boolean[partitions.size()];
+        for (int p = 0; p < partitions.size(); p++) {
+            Instance part = partitions.get(p);
+            SolvingStatistics result = results.get(part);
+            if (result != null) {
+                getStatistics().addPartitionStatistics(result);
+            }
+            if (result == null || result.lastSolution() == null) {
+                if (!repair) {
+                    return null;
+                }
+                bad[p] = true;
+            }
+            Mapping map = part.getModel().getMapping();
+            for (VM v : map.getAllVMs()) {
+                vmPart.put(v.id(), p);
+            }
+            for (Node n : map.getAllNodes()) {
+                nodePart.put(n.id(), p);
+            }
+        }
+
+        //Isolate the partitions involved in a violation of an original constraint
+        while (true) {
+            ReconfigurationPlanChecker chk = new ReconfigurationPlanChecker();
+            for (SatConstraint c : i.getSatConstraints()) {
+                if (!touches(c, bad, vmPart, nodePart)) {
+                    chk.addChecker(c.getChecker());
+                }
+            }
+            try {
+                chk.check(union(i, partitions, results, bad, null));
+                break;
+            } catch (SatConstraintViolationException ex) {
+                if (!repair) {
+                    return null;
+                }
+                boolean marked = false;
+                for (int p : concerned(ex.getConstraint(), vmPart, nodePart)) {
+                    marked |= !bad[p];
+                    bad[p] = true;
+                }
+                if (!marked) {
+                    //Not due to a partition
+                    return null;
+                }
+            }
+        }
+
+        //The solved partitions sharing a constraint with a failing one are kept at their planned state.
+        //One is only repaired too when a VM involved in the constraint is no longer in its planned model
+        Model[] planned = new Model[partitions.size()];
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (SatConstraint c : i.getSatConstraints()) {
+                if (!touches(c, bad, vmPart, nodePart)) {
+                    continue;
+                }
+                for (VM v : c.getInvolvedVMs()) {
+                    if (!vmPart.containsKey(v.id())) {
+                        continue;
+                    }
+                    int q = vmPart.get(v.id());
+                    if (!bad[q] && !planned(q, partitions, results, planned).getMapping().contains(v)) {
+                        bad[q] = true;
+                        grown = true;
+                    }
+                }
+            }
+        }
+
+        ReconfigurationPlan fix = null;
+        for (boolean b : bad) {
+            if (b) {
+                fix = repair(ps, i, partitions, results, bad, planned, vmPart, nodePart, deadline);
+                if (fix == null) {
+                    return null;
+                }
+                break;
+            }
+        }
+        ReconfigurationPlan plan = union(i, partitions, results, bad, fix);
+        if (fix != null) {
+            //The final plan must satisfy all the original constraints
+            ReconfigurationPlanChecker chk = new ReconfigurationPlanChecker();
+            for (SatConstraint c : i.getSatConstraints()) {
+                chk.addChecker(c.getChecker());
+            }
+            try {
+                chk.check(plan);
+            } catch (SatConstraintViolationException ex) {
+                return null;
+            }
+        }
+        return plan;
+    }
 
-        return merge(orig, results);
+    /**
+     * Get the model resulting from the sub-plan of a solved partition.
+     * The model is computed once.
+     */
+    private static Model planned(int p, List<Instance> partitions, Map<Instance, SolvingStatistics> results,
+                                 Model[] planned) {
+        if (planned[p] == null) {
+            planned[p] = results.get(partitions.get(p)).lastSolution().getResult();
+        }
+        return planned[p];
     }
 
-    private ReconfigurationPlan merge(Instance i, Collection<SolvingStatistics> results) throws SplitException {
-        ReconfigurationPlan plan = new DefaultReconfigurationPlan(i.getModel());
-        //Only if there is a solution
-        for (SolvingStatistics result : results) {
-            getStatistics().addPartitionStatistics(result);
-            ReconfigurationPlan p = result.lastSolution();
-            if (p == null) {
+    /**
+     * Solve the failing partitions as a single instance.
+     * The instance contains the nodes, the VMs and the constraints of the failing partitions,
+     * the original constraints involving them, and the spare nodes of their neighbours.
+     * The nodes of the solved partitions that are involved in these original constraints, or that
+     * host an involved VM at the end of their sub-plan, are added at their planned state
+     * along with their VMs. Constraints prevent the repair from changing them.
+     *
+     * @return the resulting plan. {@code null} if there is no solution or no time left
+     */
+    private ReconfigurationPlan repair(Parameters ps, Instance i, List<Instance> partitions,
+                                       Map<Instance, SolvingStatistics> results, boolean[] bad, Model[] planned,
+                                       TIntIntHashMap vmPart, TIntIntHashMap nodePart,
+                                       long deadline) throws SchedulerException {
+        Parameters rps = ps;
+        if (deadline > 0) {
+            //Only the time left from the original time limit, in seconds
+            int left = (int) ((deadline - System.currentTimeMillis()) / 1000);
+            if (left <= 0) {
                 return null;
             }
-            for (Action a : p) {
-                    if (!plan.add(a)) {
-                        throw new SplitException(plan.getOrigin(),
-                                "Unable to add action '" + a + "' while merging the sub-plans");
+            rps = new DefaultParameters(ps).setTimeLimit(left);
+        }
+        Set<Node> nodes = new THashSet<>();
+        Set<VM> ready = new THashSet<>();
+        Set<SatConstraint> cstrs = new THashSet<>();
+        for (int p = 0; p < partitions.size(); p++) {
+            if (!bad[p]) {
+                continue;
+            }
+            Instance part = partitions.get(p);
+            Mapping map = part.getModel().getMapping();
+            nodes.addAll(map.getAllNodes());
+            ready.addAll(map.getReadyVMs());
+            cstrs.addAll(part.getSatConstraints());
+            //Borrow the spare nodes of the solved neighbours
+            for (int dist = 1; dist <= repairNeighbours; dist++) {
+                for (int q : new int[]{p - dist, p + dist}) {
+                    if (q >= 0 && q < partitions.size() && !bad[q]) {
+                        nodes.addAll(spareNodes(partitions.get(q), results.get(partitions.get(q)).lastSolution()));
+                    }
+                }
+            }
+        }
+        Model mo = i.getModel().copy();
+        Mapping map = mo.getMapping();
+        Set<Node> pinned = new THashSet<>();
+        for (SatConstraint c : i.getSatConstraints()) {
+            if (!touches(c, bad, vmPart, nodePart)) {
+                continue;
+            }
+            cstrs.add(c);
+            for (VM v : c.getInvolvedVMs()) {
+                if (vmPart.containsKey(v.id()) && !bad[vmPart.get(v.id())]) {
+                    Mapping dst = planned(vmPart.get(v.id()), partitions, results, planned).getMapping();
+                    if (dst.isReady(v)) {
+                        map.addReadyVM(v);
+                        ready.add(v);
+                        cstrs.add(new Ready(v));
+                    } else {
+                        pinned.add(dst.getVMLocation(v));
                     }
                 }
+            }
+            for (Node n : c.getInvolvedNodes()) {
+                if (nodePart.containsKey(n.id()) && !bad[nodePart.get(n.id())]) {
+                    pinned.add(n);
+                }
+            }
+        }
+        //The pinned nodes and their VMs are put at their planned state
+        for (Node n : pinned) {
+            Mapping dst = planned(nodePart.get(n.id()), partitions, results, planned).getMapping();
+            map.clearNode(n);
+            if (dst.isOffline(n)) {
+                map.addOfflineNode(n);
+                cstrs.add(new Offline(n));
+            } else {
+                map.addOnlineNode(n);
+                cstrs.add(new Online(n));
+                for (VM v : dst.getRunningVMs(n)) {
+                    map.addRunningVM(v, n);
+                    cstrs.add(new Root(v));
+                }
+                for (VM v : dst.getSleepingVMs(n)) {
+                    map.addSleepingVM(v, n);
+                    cstrs.add(new Sleeping(v));
+                }
+            }
+            nodes.add(n);
+        }
+        Instance fix = new Instance(new SubModel(mo, new SynchronizedElementBuilder(mo), nodes, ready),
+                cstrs, i.getOptConstraint());
+        InstanceSolverRunner runner = new InstanceSolverRunner(rps, fix);
+        runners.add(runner);
+        SolvingStatistics result;
+        try {
+            result = runner.call();
+        } catch (UnstatableProblemException ex) {
+            //Timeout without any solution
+            result = runner.getStatistics();
+        }
+        getStatistics().addPartitionStatistics(result);
+        return result.lastSolution();
+    }
+
+    /**
+     * Get the nodes of a solved partition that can be lent.
+     * A node is spare if it hosts no VM before and after the sub-plan, keeps its state,
+     * and is not involved in a constraint of its partition.
+     */
+    private static Set<Node> spareNodes(Instance part, ReconfigurationPlan plan) {
+        Mapping src = part.getModel().getMapping();
+        Mapping dst = plan.getResult().getMapping();
+        Set<Node> involved = new THashSet<>();
+        for (SatConstraint c : part.getSatConstraints()) {
+            involved.addAll(c.getInvolvedNodes());
+        }
+        Set<Node> spares = new THashSet<>();
+        for (Node n : src.getAllNodes()) {
+            if (!involved.contains(n)
+                    && src.getRunningVMs(n).isEmpty() && src.getSleepingVMs(n).isEmpty()
+                    && dst.getRunningVMs(n).isEmpty() && dst.getSleepingVMs(n).isEmpty()
+                    && src.isOnline(n) == dst.isOnline(n)) {
+                spares.add(n);
+            }
+        }
+        return spares;
+    }
+
+    /**
+     * Make the union of the sub-plans of the solved partitions, and of an optional repair plan.
+     */
+    private static ReconfigurationPlan union(Instance i, List<Instance> partitions, Map<Instance, SolvingStatistics> results,
+                                             boolean[] bad, ReconfigurationPlan fix) throws SplitException {
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(i.getModel());
+        List<ReconfigurationPlan> plans = new ArrayList<>(partitions.size() + 1);
+        for (int p = 0; p < partitions.size(); p++) {
+            if (!bad[p]) {
+                plans.add(results.get(partitions.get(p)).lastSolution());
+            }
+        }
+        if (fix != null) {
+            plans.add(fix);
+        }
+        for (ReconfigurationPlan sub : plans) {
+            for (Action a : sub) {
+                if (!plan.add(a)) {
+                    throw new SplitException(plan.getOrigin(),
+                            "Unable to add action '" + a + "' while merging the sub-plans");
+                }
+            }
         }
         return plan;
     }
 
+    /**
+     * Get the partitions involved in a constraint.
+     */
+    private static Set<Integer> concerned(SatConstraint c, TIntIntHashMap vmPart, TIntIntHashMap nodePart) {
+        Set<Integer> parts = new HashSet<>();
+        for (VM v : c.getInvolvedVMs()) {
+            if (vmPart.containsKey(v.id())) {
+                parts.add(vmPart.get(v.id()));
+            }
+        }
+        for (Node n : c.getInvolvedNodes()) {
+            if (nodePart.containsKey(n.id())) {
+                parts.add(nodePart.get(n.id()));
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Check if a constraint involves one of the failing partitions.
+     */
+    private static boolean touches(SatConstraint c, boolean[] bad, TIntIntHashMap vmPart, TIntIntHashMap nodePart) {
+        for (int p : concerned(c, vmPart, nodePart)) {
+            if (bad[p]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public StaticPartitioningStatistics getStatistics() {
         return stats;
@@ -147,6 +533,32 @@ public abstract class StaticPartitioning implements InstanceSolver {
      */
     public abstract List<Instance> split(Parameters ps, Instance i) throws SchedulerException;
 
+    /**
+     * Split an instance into several disjoint instances and hand over each
+     * of them as soon as it is ready to be solved.
+     * By default, the instances are handed over once {@link #split(Parameters, Instance)} is over.
+     *
+     * @param ps    the parameters for the solver
+     * @param i     the instance to split
+     * @param ready the consumer receiving each complete sub-instance. It may be called from multiple threads
+     * @return the list of disjoint instances, once all of them are ready. Cannot be empty.
+     * @throws org.btrplace.scheduler.SchedulerException if an error prevent the splitting process
+     */
+    protected List<Instance> split(Parameters ps, Instance i, Consumer<Instance> ready) throws SchedulerException {
+        List<Instance> parts = split(ps, i);
+        parts.forEach(ready);
+        return parts;
+    }
+
+    private InstanceSolverRunner runnerOf(Instance i) {
+        for (InstanceSolverRunner r : runners) {
+            if (r.getInstance() == i) {
+                return r;
+            }
+        }
+        throw new IllegalStateException("No runner for the partition");
+    }
+
     @Override
     public void stop() {
         if (runners != null) {
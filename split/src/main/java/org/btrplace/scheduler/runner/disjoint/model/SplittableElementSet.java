@@ -12,6 +12,7 @@ import org.btrplace.model.Node;
 import org.btrplace.model.VM;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -26,7 +27,8 @@ import java.util.Set;
  * the right partition for each element.
  * <p>
  * The backend is a simple array of elements. Elements belonging to the same
- * partition are contiguous for efficiency.
+ * partition are contiguous for efficiency. The bounds of each partition are
+ * memorized so a partition is retrieved in constant time.
  *
  * @author Fabien Hermenier
  */
@@ -36,21 +38,61 @@ public class SplittableElementSet<E extends Element> implements Comparator<E> {
 
   private final List<E> values;
 
+    /**
+     * The smallest partition key.
+     */
+    private final int minKey;
+
+    /**
+     * The elements of the partition {@code minKey + i} are stored in {@code values}
+     * between {@code offsets[i]} (inclusive) and {@code offsets[i + 1]} (exclusive).
+     */
+    private final int[] offsets;
+
     /**
      * Make a new splittable set.
      *
      * @param c   the elements, no duplicates are supposed
      * @param idx the partition associated to each element. Format {@link org.btrplace.model.Element#id()} to key
      */
+    @SuppressWarnings("unchecked")
     public SplittableElementSet(Collection<E> c, TIntIntHashMap idx) {
-
-        values = new ArrayList<>();
+        this.index = idx;
+        //Counting sort over the partition keys. Stable, like the ordering of the elements
+        int[] keys = new int[c.size()];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int x = 0;
         for (E e : c) {
-            values.add(e);
+            int k = idx.get(e.id());
+            keys[x++] = k;
+            min = Math.min(min, k);
+            max = Math.max(max, k);
+        }
+        if (keys.length == 0) {
+            minKey = 0;
+            offsets = new int[1];
+            values = new ArrayList<>();
+            return;
+        }
+        minKey = min;
+        offsets = new int[max - min + 2];
+        for (int k : keys) {
+            offsets[k - min + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        Object[] sorted = new Object[keys.length];
+        x = 0;
+        for (E e : c) {
+            sorted[next[keys[x++] - min]++] = e;
+        }
+        values = new ArrayList<>(keys.length);
+        for (Object o : sorted) {
+            values.add((E) o);
         }
-        this.index = idx;
-        values.parallelStream().sorted(this);
-        Collections.sort(values, this);
     }
 
     /**
@@ -100,20 +142,12 @@ public class SplittableElementSet<E extends Element> implements Comparator<E> {
      * @return {@code true} if we visited every element
      */
     public boolean forEachPartition(IterateProcedure<E> p) {
-        int curIdx = index.get(values.get(0).id());
-        int from;
-        int to;
-        for (from = 0, to = 0; to < values.size(); to++) {
-            int cIdx = index.get(values.get(to).id());
-            if (curIdx != cIdx) {
-                if (!p.extract(this, curIdx, from, to)) {
-                    return false;
-                }
-                from = to;
-                curIdx = cIdx;
+        for (int i = 0; i < offsets.length - 1; i++) {
+            if (offsets[i] != offsets[i + 1] && !p.extract(this, minKey + i, offsets[i], offsets[i + 1])) {
+                return false;
             }
         }
-        return p.extract(this, curIdx, from, to);
+        return true;
     }
 
     /**
@@ -123,21 +157,11 @@ public class SplittableElementSet<E extends Element> implements Comparator<E> {
      * @return the resulting subset. Empty if no elements belong to the given partition.
      */
     public Set<E> getSubSet(int k) {
-        int from = -1;
-        //TODO: very bad. Bounds should be memorized
-        for (int x = 0; x < values.size(); x++) {
-            int cIdx = index.get(values.get(x).id());
-            if (cIdx == k && from == -1) {
-                from = x;
-            }
-            if (from >= 0 && cIdx > k) {
-                return new ElementSubSet<>(this, k, from, x);
-            }
-        }
-        if (from >= 0) {
-            return new ElementSubSet<>(this, k, from, values.size());
+        int i = k - minKey;
+        if (i < 0 || i >= offsets.length - 1 || offsets[i] == offsets[i + 1]) {
+            return Collections.emptySet();
         }
-        return Collections.emptySet();
+        return new ElementSubSet<>(this, k, offsets[i], offsets[i + 1]);
     }
 
     @Override
@@ -8,5 +8,7 @@
  * A package dedicated to a solver that splits an instance into
  * disjoint sub-instances then solve them in parallel
  * using a master/worker paradigm.
+ * The decomposition is either static, or adapted while solving
+ * using {@link org.btrplace.scheduler.runner.disjoint.DynamicPartitioning}.
  */
 package org.btrplace.scheduler.runner.disjoint;
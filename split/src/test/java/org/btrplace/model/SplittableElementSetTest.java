@@ -14,6 +14,9 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
@@ -147,4 +150,30 @@ public class SplittableElementSetTest {
         //Unknown set
         Assert.assertTrue(s.getSubSet(-1).isEmpty());
     }
+
+    @Test
+    public void testSparseKeysAndStability() {
+        List<VM> l = new ArrayList<>();
+        TIntIntHashMap index = new TIntIntHashMap();
+        int[] keys = {5, -2, 5, 9, -2, 5};
+        for (int i = 0; i < keys.length; i++) {
+            l.add(new VM(i));
+            index.put(i, keys[i]);
+        }
+        SplittableElementSet<VM> s = SplittableElementSet.newVMIndex(l, index);
+        //Partitions are ordered by key, elements keep their relative order
+        Assert.assertEquals(s.getValues(), Arrays.asList(l.get(1), l.get(4), l.get(0), l.get(2), l.get(5), l.get(3)));
+        Assert.assertEquals(new HashSet<>(s.getSubSet(-2)), new HashSet<>(Arrays.asList(l.get(1), l.get(4))));
+        Assert.assertEquals(s.getSubSet(5).size(), 3);
+        Assert.assertEquals(new HashSet<>(s.getSubSet(9)), Collections.singleton(l.get(3)));
+        for (int k : new int[]{-3, 0, 6, 10}) {
+            Assert.assertTrue(s.getSubSet(k).isEmpty());
+        }
+        Assert.assertEquals(s.getPartitions().size(), 3);
+
+        SplittableElementSet<VM> empty = SplittableElementSet.newVMIndex(Collections.emptyList(), index);
+        Assert.assertEquals(empty.size(), 0);
+        Assert.assertTrue(empty.getSubSet(5).isEmpty());
+        Assert.assertTrue(empty.getPartitions().isEmpty());
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.runner.disjoint;
+
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Gather;
+import org.btrplace.model.constraint.MaxOnline;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.Spread;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.choco.DefaultChocoScheduler;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ConstraintAwarePartitioning}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ConstraintAwarePartitioningTest {
+
+    @Test
+    public void testSplitKeepsUnbreakableConstraints() {
+        Model mo = new DefaultModel();
+        List<Node> ns = new ArrayList<>();
+        List<VM> vms = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Node n = mo.newNode();
+            ns.add(n);
+            mo.getMapping().addOnlineNode(n);
+            for (int j = 0; j < 2; j++) {
+                VM v = mo.newVM();
+                vms.add(v);
+                mo.getMapping().addRunningVM(v, n);
+            }
+        }
+        VM toLaunch = mo.newVM();
+        mo.getMapping().addReadyVM(toLaunch);
+
+        List<SatConstraint> cstrs = new ArrayList<>();
+        //Spans the first and the last node
+        cstrs.add(new Gather(Arrays.asList(vms.get(0), vms.get(23), toLaunch)));
+        cstrs.add(new MaxOnline(new HashSet<>(Arrays.asList(ns.get(3), ns.get(10))), 2));
+        cstrs.add(new Spread(new HashSet<>(Arrays.asList(vms.get(4), vms.get(14)))));
+        cstrs.add(new Running(toLaunch));
+        Instance i = new Instance(mo, cstrs, new MinMTTR());
+
+        ConstraintAwarePartitioning part = new ConstraintAwarePartitioning(3);
+        Assert.assertEquals(part.getPartitionsCount(), 3);
+        Assert.assertEquals(part.getImbalance(), ConstraintAwarePartitioning.DEFAULT_IMBALANCE);
+        Assert.assertTrue(part.getUnbreakableConstraints().contains(Gather.class));
+
+        List<Instance> subs = part.split(new DefaultParameters(), i);
+        Assert.assertEquals(subs.size(), 3);
+        Instance withGather = null;
+        for (Instance sub : subs) {
+            Collection<Node> scope = sub.getModel().getMapping().getAllNodes();
+            //Balanced
+            Assert.assertEquals(scope.size(), 4);
+            Assert.assertEquals(scope.contains(ns.get(3)), scope.contains(ns.get(10)));
+            Assert.assertEquals(scope.contains(ns.get(0)), scope.contains(ns.get(11)));
+            if (scope.contains(ns.get(0))) {
+                withGather = sub;
+            }
+        }
+        Assert.assertNotNull(withGather);
+        //The VM to launch joins the VMs it must be gathered with
+        Assert.assertTrue(withGather.getModel().getMapping().getReadyVMs().contains(toLaunch));
+        Assert.assertTrue(withGather.getSatConstraints().stream().anyMatch(c -> c instanceof Gather));
+    }
+
+    @Test
+    public void testSolve() {
+        Model mo = new DefaultModel();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Node n = mo.newNode();
+            ns.add(n);
+            mo.getMapping().addOnlineNode(n);
+            mo.getMapping().addRunningVM(mo.newVM(), n);
+        }
+        List<VM> ready = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            VM v = mo.newVM();
+            mo.getMapping().addReadyVM(v);
+            ready.add(v);
+        }
+        List<SatConstraint> cstrs = new ArrayList<>(Running.newRunning(ready));
+        cstrs.add(new Gather(Arrays.asList(ready.get(0), ready.get(1))));
+        cstrs.add(new Gather(mo.getMapping().getRunningVMs(new HashSet<>(Arrays.asList(ns.get(0), ns.get(19))))));
+
+        ConstraintAwarePartitioning part = new ConstraintAwarePartitioning();
+        part.setWorkersCount(4);
+        DefaultChocoScheduler cra = new DefaultChocoScheduler();
+        cra.setInstanceSolver(part);
+        ReconfigurationPlan p = cra.solve(new Instance(mo, cstrs, new MinMTTR()));
+        Assert.assertNotNull(p);
+        Assert.assertTrue(p.getResult().getMapping().getRunningVMs().containsAll(ready));
+    }
+}
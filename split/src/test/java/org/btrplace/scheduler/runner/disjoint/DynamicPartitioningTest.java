@@ -0,0 +1,152 @@
+/*
+ * Copyright  2020 The BtrPlace Authors. All rights reserved.
+ * Use of this source code is governed by a LGPL-style
+ * license that can be found in the LICENSE.txt file.
+ */
+
+package org.btrplace.scheduler.runner.disjoint;
+
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.Spread;
+import org.btrplace.model.view.ShareableResource;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.ChocoScheduler;
+import org.btrplace.scheduler.choco.DefaultChocoScheduler;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.Parameters;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Unit tests for {@link DynamicPartitioning}.
+ *
+ * @author Fabien Hermenier
+ */
+public class DynamicPartitioningTest {
+
+    @Test
+    public void basicTesting() {
+        FixedSizePartitioning f = new FixedSizePartitioning(5);
+        DynamicPartitioning d = new DynamicPartitioning(f);
+        Assert.assertEquals(d.getInitialPartitioning(), f);
+        d.setWorkersCount(5);
+        Assert.assertEquals(d.getWorkersCount(), 5);
+        Assert.assertEquals(d.getMaxPartitionSize(), Integer.MAX_VALUE);
+        Assert.assertEquals(d.getMinPartitionSize(), 0);
+        d.setMaxPartitionSize(10);
+        d.setMinPartitionSize(3);
+        Assert.assertEquals(d.getMaxPartitionSize(), 10);
+        Assert.assertEquals(d.getMinPartitionSize(), 3);
+        ChocoScheduler cra = new DefaultChocoScheduler();
+        cra.setInstanceSolver(d);
+        Assert.assertEquals(cra.getInstanceSolver(), d);
+    }
+
+    private static Instance makeInstance() {
+        Model mo = new DefaultModel();
+        for (int i = 0; i < 13; i++) {
+            Node n = mo.newNode();
+            mo.getMapping().addOnlineNode(n);
+            for (int j = 0; j < 3; j++) {
+                VM v = mo.newVM();
+                mo.getMapping().addRunningVM(v, n);
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            mo.getMapping().addReadyVM(mo.newVM());
+        }
+        return new Instance(mo, Running.newRunning(mo.getMapping().getAllVMs()), new MinMTTR());
+    }
+
+    @Test
+    public void testResizeOversizedPartitions() throws SchedulerException {
+        Instance i = makeInstance();
+        DynamicPartitioning d = new DynamicPartitioning(new FixedSizePartitioning(13));
+        d.setMaxPartitionSize(5);
+        Parameters ps = new DefaultParameters().setTimeLimit(3);
+        ReconfigurationPlan plan = d.solve(ps, i);
+        Assert.assertNotNull(plan);
+        //The ready VMs must have been launched
+        Assert.assertEquals(plan.getSize(), 5);
+        Assert.assertEquals(d.getStatistics().getNbParts(), 3);
+    }
+
+    @Test
+    public void testCoalesceSmallPartitions() throws SchedulerException {
+        Instance i = makeInstance();
+        DynamicPartitioning d = new DynamicPartitioning(new FixedSizePartitioning(1));
+        d.setMinPartitionSize(4);
+        ReconfigurationPlan plan = d.solve(new DefaultParameters(), i);
+        Assert.assertNotNull(plan);
+        Assert.assertEquals(plan.getSize(), 5);
+        //4 + 4 + 4 + 1
+        Assert.assertEquals(d.getStatistics().getNbParts(), 4);
+        Assert.assertEquals(d.getStatistics().getNbMerges(), 9);
+    }
+
+    @Test
+    public void testMergeInfeasiblePartition() throws SchedulerException {
+        Model mo = new DefaultModel();
+        Node n0 = mo.newNode();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        mo.getMapping().on(n0, n1, n2);
+        ShareableResource cpu = new ShareableResource("cpu", 4, 1);
+        cpu.setCapacity(n0, 2);
+        mo.attach(cpu);
+        for (int k = 0; k < 3; k++) {
+            mo.getMapping().addRunningVM(mo.newVM(), n0);
+        }
+        mo.getMapping().addRunningVM(mo.newVM(), n2);
+
+        //n0 is overloaded and cannot be fixed alone
+        DynamicPartitioning d = new DynamicPartitioning(new FixedSizePartitioning(1));
+        d.setWorkersCount(1);
+        Instance i = new Instance(mo, Collections.emptyList(), new MinMTTR());
+        ReconfigurationPlan plan = d.solve(new DefaultParameters(), i);
+        Assert.assertNotNull(plan);
+        Assert.assertEquals(plan.getSize(), 1);
+        Assert.assertEquals(d.getStatistics().getNbMerges(), 1);
+        Assert.assertTrue(cpu.sumConsumptions(plan.getResult().getMapping().getRunningVMs(n0), true) <= 2);
+    }
+
+    /**
+     * The merged partition must enforce the constraints that were cut between its parts.
+     */
+    @Test
+    public void testMergeRestoresCutConstraints() throws SchedulerException {
+        Model mo = new DefaultModel();
+        Node n0 = mo.newNode();
+        Node n1 = mo.newNode();
+        mo.getMapping().on(n0, n1);
+        ShareableResource cpu = new ShareableResource("cpu", 4, 1);
+        cpu.setCapacity(n0, 2);
+        mo.attach(cpu);
+        VM v0 = mo.newVM();
+        VM v1 = mo.newVM();
+        VM v2 = mo.newVM();
+        VM v3 = mo.newVM();
+        mo.getMapping().run(n0, v0, v1, v2).run(n1, v3);
+
+        //n0 is overloaded. v0 cannot join v3
+        DynamicPartitioning d = new DynamicPartitioning(new FixedSizePartitioning(1));
+        d.setWorkersCount(1);
+        Instance i = new Instance(mo, Collections.singletonList(new Spread(new HashSet<>(Arrays.asList(v0, v3)))), new MinMTTR());
+        ReconfigurationPlan plan = d.solve(new DefaultParameters(), i);
+        Assert.assertNotNull(plan);
+        Assert.assertEquals(d.getStatistics().getNbMerges(), 1);
+        Assert.assertEquals(plan.getResult().getMapping().getVMLocation(v0), n0);
+        Assert.assertTrue(cpu.sumConsumptions(plan.getResult().getMapping().getRunningVMs(n0), true) <= 2);
+    }
+}
@@ -14,6 +14,7 @@ import org.btrplace.model.VM;
 import org.btrplace.model.constraint.MaxOnline;
 import org.btrplace.model.constraint.MinMTTR;
 import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.SatConstraint;
 import org.btrplace.plan.ReconfigurationPlan;
 import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.DefaultChocoScheduler;
@@ -25,7 +26,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Unit tests for {@link FixedNodeSetsPartitioning}.
@@ -108,6 +111,33 @@ public class FixedNodeSetsPartitioningTest {
         System.out.flush();
     }
 
+    @Test
+    public void testPipelinedSplit() throws SchedulerException {
+        Instance origin = makeInstance();
+        List<Collection<Node>> parts = splitIn(origin.getModel().getMapping().getAllNodes(), 3);
+        FixedNodeSetsPartitioning f = new FixedNodeSetsPartitioning(parts);
+        f.setWorkersCount(4);
+
+        Queue<Instance> handed = new ConcurrentLinkedQueue<>();
+        List<Instance> subs = f.split(new DefaultParameters(), origin, handed::add);
+        Assert.assertEquals(subs.size(), parts.size());
+        //Every sub-instance is handed over exactly once
+        Assert.assertEquals(handed.size(), subs.size());
+        Assert.assertEquals(new HashSet<>(handed).size(), subs.size());
+        Assert.assertTrue(handed.containsAll(subs));
+
+        int nbCstrs = 0;
+        for (int p = 0; p < subs.size(); p++) {
+            Instance sub = subs.get(p);
+            Assert.assertEquals(sub.getModel().getMapping().getAllNodes(), new HashSet<>(parts.get(p)));
+            for (SatConstraint c : sub.getSatConstraints()) {
+                Assert.assertTrue(sub.getModel().getMapping().getAllVMs().containsAll(c.getInvolvedVMs()));
+            }
+            nbCstrs += sub.getSatConstraints().size();
+        }
+        Assert.assertEquals(nbCstrs, origin.getSatConstraints().size());
+    }
+
     @Test(expectedExceptions = {SchedulerException.class})
     public void testSplitWithUnsplittableConstraint() throws SchedulerException {
         Instance orig = makeInstance();
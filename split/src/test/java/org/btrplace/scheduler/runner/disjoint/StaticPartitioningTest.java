@@ -13,9 +13,11 @@ import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.SynchronizedElementBuilder;
 import org.btrplace.model.VM;
+import org.btrplace.model.constraint.Gather;
 import org.btrplace.model.constraint.MinMTTR;
 import org.btrplace.model.constraint.Offline;
 import org.btrplace.model.constraint.Running;
+import org.btrplace.model.view.ShareableResource;
 import org.btrplace.plan.ReconfigurationPlan;
 import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.DefaultChocoScheduler;
@@ -46,6 +48,12 @@ public class StaticPartitioningTest {
         Assert.assertEquals(st.getWorkersCount(), Runtime.getRuntime().availableProcessors());
         st.setWorkersCount(10);
         Assert.assertEquals(st.getWorkersCount(), 10);
+        Assert.assertTrue(st.doMergeRepair());
+        st.doMergeRepair(false);
+        Assert.assertFalse(st.doMergeRepair());
+        Assert.assertEquals(st.getRepairNeighbours(), 1);
+        st.setRepairNeighbours(2);
+        Assert.assertEquals(st.getRepairNeighbours(), 2);
     }
 
     @Test
@@ -90,13 +98,111 @@ public class StaticPartitioningTest {
         Assert.assertEquals(dst.getMapping().getOnlineNodes().size(), 2);
         Assert.assertEquals(dst.getMapping().getRunningVMs().size(), 2);
 
-        //Now, there is no solution for i2. the resulting plan should be null
+        //Now, there is no solution for i2, and no spare node to repair it. the resulting plan should be null
         i2.getSatConstraints().addAll(Offline.newOffline(n2));
         plan = st.solve(p, i0);
         Assert.assertNull(plan);
         Assert.assertEquals(st.getStatistics().getSolutions().size(), 0);
     }
 
+    /**
+     * One partition cannot host its VM to launch.
+     * The repair borrows the spare node of its neighbour.
+     */
+    @Test
+    public void testMergeRepair() throws SchedulerException {
+        SynchronizedElementBuilder eb = new SynchronizedElementBuilder(new DefaultElementBuilder());
+        Model origin = new DefaultModel(eb);
+
+        Node n1 = origin.newNode();
+        Node n2 = origin.newNode();
+        Node n3 = origin.newNode();
+        VM vm1 = origin.newVM();
+        VM vm2 = origin.newVM();
+        origin.getMapping().on(n1, n2, n3).run(n1, vm1).ready(vm2);
+        ShareableResource cpu = new ShareableResource("cpu", 8, 1);
+        cpu.setCapacity(n3, 2);
+        cpu.setConsumption(vm2, 4);
+        origin.attach(cpu);
+
+        Model s1 = new SubModel(origin, eb, Arrays.asList(n1, n2), Collections.emptySet());
+        Model s2 = new SubModel(origin, eb, Collections.singletonList(n3), Collections.singleton(vm2));
+
+        Instance i0 = new Instance(origin, new MinMTTR());
+        i0.getSatConstraints().add(new Running(vm2));
+        final Instance i1 = new Instance(s1, new MinMTTR());
+        final Instance i2 = new Instance(s2, new MinMTTR());
+        i2.getSatConstraints().add(new Running(vm2));
+
+        StaticPartitioning st = new StaticPartitioning() {
+            @Override
+            public List<Instance> split(Parameters ps, Instance i) throws SchedulerException {
+                return Arrays.asList(i1, i2);
+            }
+        };
+        Parameters p = new DefaultChocoScheduler();
+        ReconfigurationPlan plan = st.solve(p, i0);
+        Assert.assertNotNull(plan);
+        Assert.assertEquals(plan.getResult().getMapping().getVMLocation(vm2), n2);
+        Assert.assertEquals(plan.getResult().getMapping().getVMLocation(vm1), n1);
+        //The two partitions, plus the repair
+        Assert.assertEquals(st.getStatistics().results().size(), 3);
+
+        //No neighbour to borrow from
+        st.setRepairNeighbours(0);
+        Assert.assertNull(st.solve(p, i0));
+
+        //No repair at all
+        st.setRepairNeighbours(1);
+        st.doMergeRepair(false);
+        Assert.assertNull(st.solve(p, i0));
+    }
+
+    /**
+     * The failing partition shares a constraint with a solved one.
+     * The VM of the solved partition stays at its planned placement during the repair.
+     */
+    @Test
+    public void testMergeRepairWithSharedConstraint() throws SchedulerException {
+        SynchronizedElementBuilder eb = new SynchronizedElementBuilder(new DefaultElementBuilder());
+        Model origin = new DefaultModel(eb);
+
+        Node n1 = origin.newNode();
+        Node n2 = origin.newNode();
+        Node n3 = origin.newNode();
+        VM vm1 = origin.newVM();
+        VM vm2 = origin.newVM();
+        origin.getMapping().on(n1, n2, n3).run(n1, vm1).ready(vm2);
+        ShareableResource cpu = new ShareableResource("cpu", 8, 1);
+        cpu.setCapacity(n3, 2);
+        cpu.setConsumption(vm2, 4);
+        origin.attach(cpu);
+
+        Model s1 = new SubModel(origin, eb, Arrays.asList(n1, n2), Collections.emptySet());
+        Model s2 = new SubModel(origin, eb, Collections.singletonList(n3), Collections.singleton(vm2));
+
+        Instance i0 = new Instance(origin, new MinMTTR());
+        i0.getSatConstraints().add(new Running(vm2));
+        i0.getSatConstraints().add(new Gather(Arrays.asList(vm1, vm2)));
+        final Instance i1 = new Instance(s1, new MinMTTR());
+        final Instance i2 = new Instance(s2, new MinMTTR());
+        i2.getSatConstraints().add(new Running(vm2));
+
+        StaticPartitioning st = new StaticPartitioning() {
+            @Override
+            public List<Instance> split(Parameters ps, Instance i) throws SchedulerException {
+                return Arrays.asList(i1, i2);
+            }
+        };
+        Parameters p = new DefaultChocoScheduler();
+        ReconfigurationPlan plan = st.solve(p, i0);
+        Assert.assertNotNull(plan);
+        Assert.assertEquals(plan.getResult().getMapping().getVMLocation(vm2), n1);
+        Assert.assertEquals(plan.getResult().getMapping().getVMLocation(vm1), n1);
+        Assert.assertTrue(plan.getActions(vm1).isEmpty());
+        Assert.assertEquals(st.getStatistics().results().size(), 3);
+    }
+
     @Test(expectedExceptions = {SchedulerException.class})
     public void testSolvingIncorrectPartitioning() throws SchedulerException {
 